@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Corre los benchmarks en dos commits y compara los resultados.
+# Uso: benchmarks/comparar-commits.sh <commit-base> [commit-nuevo=HEAD] [argumentos de JMH...]
+# Ejemplo: benchmarks/comparar-commits.sh main HEAD -f 1 -wi 2 -i 3 MapeoConsultas
+# Ambos commits deben tener el directorio benchmarks/. Cada commit se compila en un worktree
+# temporal, así que el directorio de trabajo actual no se modifica.
+set -euo pipefail
+
+BASE=${1:?Uso: comparar-commits.sh <commit-base> [commit-nuevo] [argumentos de JMH...]}
+NUEVO=${2:-HEAD}
+shift $(( $# >= 2 ? 2 : 1 ))
+UMBRAL=${UMBRAL:-10}
+
+RAIZ=$(git rev-parse --show-toplevel)
+RESULTADOS="$RAIZ/benchmarks/resultados"
+mkdir -p "$RESULTADOS"
+
+correr() {
+    local commit=$1 salida=$2
+    local directorio
+    directorio=$(mktemp -d)
+    git -C "$RAIZ" worktree add --detach "$directorio" "$commit" > /dev/null
+    (cd "$directorio/benchmarks" && mvn -B -q package -DskipTests)
+    java -jar "$directorio/benchmarks/target/benchmarks.jar" -rf json -rff "$salida" "$@"
+    cp "$directorio/benchmarks/target/benchmarks.jar" "$RESULTADOS/benchmarks-ultimo.jar"
+    git -C "$RAIZ" worktree remove --force "$directorio"
+}
+
+BASE_ID=$(git -C "$RAIZ" rev-parse --short "$BASE")
+NUEVO_ID=$(git -C "$RAIZ" rev-parse --short "$NUEVO")
+correr "$BASE" "$RESULTADOS/$BASE_ID.json" "$@"
+correr "$NUEVO" "$RESULTADOS/$NUEVO_ID.json" "$@"
+
+java -cp "$RESULTADOS/benchmarks-ultimo.jar" uniandes.edu.co.proyecto.benchmarks.CompararResultados \
+    "$RESULTADOS/$BASE_ID.json" "$RESULTADOS/$NUEVO_ID.json" "$UMBRAL"
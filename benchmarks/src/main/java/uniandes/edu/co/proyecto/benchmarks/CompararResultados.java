@@ -0,0 +1,78 @@
+package uniandes.edu.co.proyecto.benchmarks;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Compara dos resultados de JMH en JSON (-rf json) y marca las regresiones.
+// Uso: java -cp benchmarks.jar uniandes.edu.co.proyecto.benchmarks.CompararResultados base.json nuevo.json [umbralPorcentaje]
+// Un benchmark empeora si el cambio supera el umbral (10% por defecto) y los intervalos de error de
+// ambas corridas no se tocan. Termina con código 1 si hay alguna regresión.
+public class CompararResultados {
+
+    private record Resultado(String modo, double puntaje, double error, String unidad) {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararResultados base.json nuevo.json [umbralPorcentaje]");
+            System.exit(2);
+        }
+        Map<String, Resultado> base = leer(new File(args[0]));
+        Map<String, Resultado> nuevo = leer(new File(args[1]));
+        double umbral = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        int regresiones = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Base", "Nuevo", "Cambio");
+        for (Map.Entry<String, Resultado> entrada : nuevo.entrySet()) {
+            Resultado actual = entrada.getValue();
+            Resultado anterior = base.get(entrada.getKey());
+            if (anterior == null) {
+                System.out.printf("%-80s %14s %14.3f %9s  (nuevo)%n", entrada.getKey(), "-", actual.puntaje(), "");
+                continue;
+            }
+            // En modo throughput un puntaje mayor es mejor; en los demás (tiempo por operación), menor
+            boolean mayorEsMejor = actual.modo().equals("thrpt");
+            double cambio = (actual.puntaje() - anterior.puntaje()) / anterior.puntaje() * 100;
+            double empeora = mayorEsMejor ? -cambio : cambio;
+            boolean separados = Math.abs(actual.puntaje() - anterior.puntaje()) > actual.error() + anterior.error();
+            boolean regresion = empeora > umbral && separados;
+            if (regresion) {
+                regresiones++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%%  %s%s%n", entrada.getKey(), anterior.puntaje(), actual.puntaje(),
+                cambio, actual.unidad(), regresion ? "  REGRESIÓN" : "");
+        }
+        for (String nombre : base.keySet()) {
+            if (!nuevo.containsKey(nombre)) {
+                System.out.printf("%-80s  (ya no existe)%n", nombre);
+            }
+        }
+
+        System.out.printf("%d regresiones con umbral de %.1f%%%n", regresiones, umbral);
+        System.exit(regresiones > 0 ? 1 : 0);
+    }
+
+    // Nombre del benchmark con sus parámetros -> resultado principal
+    private static Map<String, Resultado> leer(File archivo) throws Exception {
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        for (JsonNode corrida : new ObjectMapper().readTree(archivo)) {
+            StringBuilder nombre = new StringBuilder(corrida.get("benchmark").asText()
+                .replace("uniandes.edu.co.proyecto.", ""));
+            JsonNode parametros = corrida.get("params");
+            if (parametros != null) {
+                parametros.fields().forEachRemaining(p -> nombre.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            }
+            JsonNode metrica = corrida.get("primaryMetric");
+            double error = metrica.get("scoreError").asDouble();
+            resultados.put(nombre.toString(), new Resultado(
+                corrida.get("mode").asText(),
+                metrica.get("score").asDouble(),
+                Double.isNaN(error) ? 0 : error,
+                metrica.get("scoreUnit").asText()));
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,225 @@
+package uniandes.edu.co.proyecto.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Prueba de carga de extremo a extremo contra la aplicación corriendo con el perfil local.
+// Cada hilo repite en ciclo cerrado una operación elegida según la mezcla: RF8 seguido de RF9 sobre el
+// viaje creado, RFC1 (histórico plano), RFC2, RFC3 y RFC4. Reporta por operación p50, p99, máximo y
+// rendimiento; las mediciones del calentamiento se descartan.
+//
+// Uso: java -cp benchmarks.jar uniandes.edu.co.proyecto.benchmarks.PruebaCarga [--url http://localhost:8080]
+//        [--hilos 32] [--calentamiento 15] [--duracion 60] [--semilla 7] [--mezcla rf8=20,rfc1=30,rfc2=10,rfc3=25,rfc4=15]
+//        [--conductores 10000] [--clientes 200000] [--puntos 100000]
+// Las cantidades deben coincidir con alpescab.generador.* (application-local.properties).
+public class PruebaCarga {
+
+    enum Operacion { RF8, RF9, RFC1, RFC2, RFC3, RFC4 }
+
+    private static final String[] CIUDADES = { "BOGOTA", "MEDELLIN", "CALI", "CARTAGENA", "BARRANQUILLA",
+        "BUCARAMANGA", "PEREIRA", "MANIZALES", "CUCUTA", "IBAGUE" };
+
+    private final String url;
+    private final int conductores;
+    private final int clientes;
+    private final int puntos;
+    private final Operacion[] mezcla;
+    private final HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper json = new ObjectMapper();
+
+    // Latencias (ns) y errores de un hilo, por operación
+    private static class Mediciones {
+        final Map<Operacion, long[]> latencias = new EnumMap<>(Operacion.class);
+        final Map<Operacion, Integer> cantidades = new EnumMap<>(Operacion.class);
+        final Map<Operacion, Integer> errores = new EnumMap<>(Operacion.class);
+
+        void registrar(Operacion operacion, long nanos, boolean exito) {
+            if (!exito) {
+                errores.merge(operacion, 1, Integer::sum);
+                return;
+            }
+            int n = cantidades.getOrDefault(operacion, 0);
+            long[] valores = latencias.computeIfAbsent(operacion, o -> new long[1024]);
+            if (n == valores.length) {
+                valores = Arrays.copyOf(valores, n * 2);
+                latencias.put(operacion, valores);
+            }
+            valores[n] = nanos;
+            cantidades.put(operacion, n + 1);
+        }
+    }
+
+    PruebaCarga(String url, int conductores, int clientes, int puntos, Operacion[] mezcla) {
+        this.url = url;
+        this.conductores = conductores;
+        this.clientes = clientes;
+        this.puntos = puntos;
+        this.mezcla = mezcla;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>(Map.of(
+            "url", "http://localhost:8080", "hilos", "32", "calentamiento", "15", "duracion", "60", "semilla", "7",
+            "mezcla", "rf8=20,rfc1=30,rfc2=10,rfc3=25,rfc4=15",
+            "conductores", "10000", "clientes", "200000", "puntos", "100000"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--") || !opciones.containsKey(args[i].substring(2))) {
+                System.err.println("Opción desconocida: " + args[i]);
+                System.exit(2);
+            }
+            opciones.put(args[i].substring(2), args[i + 1]);
+        }
+
+        PruebaCarga prueba = new PruebaCarga(opciones.get("url"), Integer.parseInt(opciones.get("conductores")),
+            Integer.parseInt(opciones.get("clientes")), Integer.parseInt(opciones.get("puntos")), mezcla(opciones.get("mezcla")));
+        prueba.correr(Integer.parseInt(opciones.get("hilos")), Integer.parseInt(opciones.get("calentamiento")),
+            Integer.parseInt(opciones.get("duracion")), Long.parseLong(opciones.get("semilla")));
+    }
+
+    // "rf8=20,rfc1=30" -> 20 entradas RF8 y 30 RFC1, de las que cada hilo elige al azar
+    private static Operacion[] mezcla(String texto) {
+        List<Operacion> operaciones = new ArrayList<>();
+        for (String parte : texto.split(",")) {
+            String[] peso = parte.split("=");
+            Operacion operacion = Operacion.valueOf(peso[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(peso[1].trim()); i++) {
+                operaciones.add(operacion);
+            }
+        }
+        return operaciones.toArray(new Operacion[0]);
+    }
+
+    void correr(int hilos, int calentamientoSeg, int duracionSeg, long semilla) throws Exception {
+        long inicioMedicion = System.nanoTime() + calentamientoSeg * 1_000_000_000L;
+        long fin = inicioMedicion + duracionSeg * 1_000_000_000L;
+        SplittableRandom raiz = new SplittableRandom(semilla);
+
+        List<Future<Mediciones>> resultados = new ArrayList<>();
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int h = 0; h < hilos; h++) {
+                SplittableRandom aleatorio = raiz.split();
+                resultados.add(ejecutor.submit(() -> trabajar(aleatorio, inicioMedicion, fin)));
+            }
+        }
+
+        Mediciones total = new Mediciones();
+        for (Future<Mediciones> resultado : resultados) {
+            Mediciones parcial = resultado.get();
+            parcial.cantidades.forEach((operacion, n) -> {
+                for (int i = 0; i < n; i++) {
+                    total.registrar(operacion, parcial.latencias.get(operacion)[i], true);
+                }
+            });
+            parcial.errores.forEach((operacion, n) -> total.errores.merge(operacion, n, Integer::sum));
+        }
+        reportar(total, duracionSeg, hilos);
+    }
+
+    private Mediciones trabajar(SplittableRandom aleatorio, long inicioMedicion, long fin) {
+        Mediciones mediciones = new Mediciones();
+        long ahora;
+        while ((ahora = System.nanoTime()) < fin) {
+            boolean medir = ahora >= inicioMedicion;
+            Operacion operacion = mezcla[aleatorio.nextInt(mezcla.length)];
+            try {
+                if (operacion == Operacion.RF8) {
+                    solicitarYFinalizar(aleatorio, medir ? mediciones : new Mediciones());
+                } else {
+                    long inicio = System.nanoTime();
+                    int estado = enviar(consulta(operacion, aleatorio)).statusCode();
+                    if (medir) {
+                        mediciones.registrar(operacion, System.nanoTime() - inicio, estado < 300);
+                    }
+                }
+            } catch (Exception e) {
+                if (medir) {
+                    mediciones.registrar(operacion, 0, false);
+                }
+            }
+        }
+        return mediciones;
+    }
+
+    // RF8 sobre puntos de una misma ciudad y, si crea el viaje, RF9 para liberar al conductor
+    private void solicitarYFinalizar(SplittableRandom aleatorio, Mediciones mediciones) throws Exception {
+        int ciudad = aleatorio.nextInt(CIUDADES.length);
+        String solicitud = String.format("{\"clienteId\":%d,\"tipoServicio\":\"Transporte de pasajeros\"," +
+            "\"puntoPartidaId\":%d,\"puntosLlegadaIds\":[%d]}",
+            conductores + 1 + aleatorio.nextInt(clientes), punto(ciudad, aleatorio), punto(ciudad, aleatorio));
+
+        long inicio = System.nanoTime();
+        HttpResponse<String> creado = enviar(HttpRequest.newBuilder(URI.create(url + "/api/alpescab/servicio/solicitar"))
+            .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(solicitud)).build());
+        mediciones.registrar(Operacion.RF8, System.nanoTime() - inicio, creado.statusCode() == 201);
+        if (creado.statusCode() != 201) {
+            return;
+        }
+
+        long id = json.readTree(creado.body()).get("id").asLong();
+        String fin = String.format("{\"longitudTrayecto\":%.1f}", 1 + aleatorio.nextDouble(15));
+        inicio = System.nanoTime();
+        HttpResponse<String> finalizado = enviar(HttpRequest.newBuilder(URI.create(url + "/api/alpescab/servicio/finalizar/" + id))
+            .header("Content-Type", "application/json").PUT(HttpRequest.BodyPublishers.ofString(fin)).build());
+        mediciones.registrar(Operacion.RF9, System.nanoTime() - inicio, finalizado.statusCode() == 200);
+    }
+
+    private HttpRequest consulta(Operacion operacion, SplittableRandom aleatorio) {
+        LocalDate hoy = LocalDate.now();
+        String ruta = switch (operacion) {
+            case RFC1 -> "/historico/usuario/" + (conductores + 1 + aleatorio.nextInt(clientes)) + "/plano";
+            case RFC2 -> "/top/conductores";
+            case RFC3 -> "/ganancias/conductor/" + (1 + aleatorio.nextInt(conductores)) + "?desde=" + hoy.minusDays(30) + "&hasta=" + hoy;
+            case RFC4 -> "/utilizacion/" + CIUDADES[aleatorio.nextInt(CIUDADES.length)] + "?fechaInicio=" + hoy.minusDays(30) + "&fechaFin=" + hoy;
+            default -> throw new IllegalArgumentException(operacion.name());
+        };
+        return HttpRequest.newBuilder(URI.create(url + "/api/alpescab/consulta" + ruta)).GET().build();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest peticion) throws Exception {
+        return cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Misma distribución que GeneradorDatosService: el punto p pertenece a la ciudad (p - 1) % 10
+    private long punto(int ciudad, SplittableRandom aleatorio) {
+        int enCiudad = (puntos - ciudad + CIUDADES.length - 1) / CIUDADES.length;
+        return ciudad + 1 + (long) CIUDADES.length * aleatorio.nextInt(enCiudad);
+    }
+
+    private static void reportar(Mediciones total, int duracionSeg, int hilos) {
+        System.out.printf("%d hilos, %d s medidos%n", hilos, duracionSeg);
+        System.out.printf("%-6s %10s %8s %10s %10s %10s %10s%n", "Op", "Exitos", "Errores", "op/s", "p50 ms", "p99 ms", "max ms");
+        for (Operacion operacion : Operacion.values()) {
+            int n = total.cantidades.getOrDefault(operacion, 0);
+            int errores = total.errores.getOrDefault(operacion, 0);
+            if (n == 0 && errores == 0) {
+                continue;
+            }
+            long[] valores = n == 0 ? new long[] { 0 } : Arrays.copyOf(total.latencias.get(operacion), n);
+            Arrays.sort(valores);
+            System.out.printf("%-6s %10d %8d %10.1f %10.2f %10.2f %10.2f%n", operacion, n, errores, n / (double) duracionSeg,
+                percentil(valores, 0.50) / 1e6, percentil(valores, 0.99) / 1e6, valores[valores.length - 1] / 1e6);
+        }
+    }
+
+    // Percentil por rango más cercano sobre valores ordenados
+    private static long percentil(long[] ordenados, double p) {
+        int indice = (int) Math.ceil(p * ordenados.length) - 1;
+        return ordenados[Math.max(0, Math.min(indice, ordenados.length - 1))];
+    }
+}
@@ -0,0 +1,70 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import uniandes.edu.co.proyecto.controllers.DTO.GananciaConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.TopConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.UtilizacionServiciosDTO;
+
+// Conversión de las filas de RFC2-RFC4 a DTO (ConsultaService.mapear*). Está en el paquete de
+// ConsultaService porque esos métodos no son públicos.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeoConsultasBenchmark {
+
+    // Número de filas que retorna la consulta
+    @Param({"20", "1000"})
+    private int filas;
+
+    private List<TopConductoresService.Posicion> top;
+    private List<Object[]> ganancias;
+    private List<Object[]> gananciasPorDia;
+    private List<Object[]> uso;
+
+    @Setup
+    public void crearFilas() {
+        String[] tipos = { "Transporte de pasajeros", "Domicilio de comida", "Transporte de mercancías" };
+        top = new ArrayList<>();
+        ganancias = new ArrayList<>();
+        gananciasPorDia = new ArrayList<>();
+        uso = new ArrayList<>();
+        LocalDate dia = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < filas; i++) {
+            String tipo = tipos[i % tipos.length];
+            // Las consultas retornan Long, BigDecimal o Double según el motor: se mezclan tipos numéricos
+            top.add(new TopConductoresService.Posicion((long) i, 1000L - i));
+            ganancias.add(new Object[] { "ABC" + i, tipo, 6000.0 * i });
+            gananciasPorDia.add(new Object[] { "ABC" + (i % 7), tipo, dia.plusDays(i), java.math.BigDecimal.valueOf(6000L * i) });
+            uso.add(new Object[] { tipo + " " + i, (long) (filas - i) });
+        }
+    }
+
+    @Benchmark
+    public List<TopConductorDTO> topConductores() {
+        return ConsultaService.mapearTop(top);
+    }
+
+    @Benchmark
+    public List<GananciaConductorDTO> gananciasConductor() {
+        return ConsultaService.mapearGanancias(ganancias);
+    }
+
+    @Benchmark
+    public List<GananciaConductorDTO> gananciasConductorPorDia() {
+        return ConsultaService.mapearGananciasPorDia(gananciasPorDia);
+    }
+
+    @Benchmark
+    public List<UtilizacionServiciosDTO> usoServicios() {
+        return ConsultaService.mapearUso(uso);
+    }
+}
@@ -0,0 +1,72 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uniandes.edu.co.proyecto.controllers.DTO.HistoricoViajeDTO;
+import uniandes.edu.co.proyecto.entities.*;
+
+// JSON de un viaje de RFC1: el grafo completo de ServicioEntity (conductor, cliente, vehículo,
+// puntos con su ciudad, revisión) frente a la fila plana HistoricoViajeDTO.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionServicioBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ServicioEntity servicio;
+    private HistoricoViajeDTO plano;
+
+    @Setup
+    public void crearViaje() {
+        // Misma configuración base que el ObjectMapper de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        CiudadEntity ciudad = new CiudadEntity("Bogotá");
+        ciudad.setId(1L);
+        UsuarioServicioEntity cliente = new UsuarioServicioEntity("Ana Pérez", "ana@email.com", "3000000000", "1010");
+        cliente.setId(10L);
+        UsuarioConductorEntity conductor = new UsuarioConductorEntity("Luis Gómez", "luis@email.com", "3100000000", "2020");
+        conductor.setId(20L);
+        VehiculoEntity vehiculo = new VehiculoEntity("CARRO", "Renault", "Logan", "Gris", "ABC123", 4, "COMFORT", ciudad, conductor);
+        vehiculo.setId(30L);
+        PuntoGeoEntity partida = new PuntoGeoEntity(null, "Calle 26 # 68-35", 4.65, -74.10, ciudad);
+        partida.setId(40L);
+        PuntoGeoEntity llegada = new PuntoGeoEntity(null, "Carrera 7 # 72-41", 4.66, -74.06, ciudad);
+        llegada.setId(41L);
+
+        Date inicio = new Date(1_735_700_000_000L);
+        Date fin = new Date(inicio.getTime() + 1_800_000L);
+        servicio = new ServicioEntity("Transporte de pasajeros", 18500.0, inicio, conductor, cliente, vehiculo, partida, List.of(llegada));
+        servicio.setId(50L);
+        servicio.setHoraFin(fin);
+        servicio.setDuracionMinutos(30L);
+        servicio.setLongitudTrayecto(7.4);
+        RevisionEntity revision = new RevisionEntity(5, "Excelente servicio", servicio, cliente, conductor);
+        revision.setId(60L);
+        servicio.setRevision(revision);
+
+        plano = new HistoricoViajeDTO(50L, "Transporte de pasajeros", inicio, fin, 7.4, 18500.0,
+            "Ana Pérez", "ana@email.com", "Luis Gómez", "luis@email.com",
+            "Renault", "Logan", "ABC123", "COMFORT", "Calle 26 # 68-35", "Carrera 7 # 72-41", 5, "Excelente servicio");
+    }
+
+    @Benchmark
+    public byte[] servicioEntity() throws Exception {
+        return objectMapper.writeValueAsBytes(servicio);
+    }
+
+    @Benchmark
+    public byte[] historicoPlano() throws Exception {
+        return objectMapper.writeValueAsBytes(plano);
+    }
+}
@@ -0,0 +1,122 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import uniandes.edu.co.proyecto.ProyectoApplication;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Verificación de superposición de franjas de RF5/RF6 sobre H2 en memoria, con un vehículo que ya tiene
+// 'franjas' disponibilidades repartidas en la semana: la consulta JPQL de DisponibilidadRepository
+// frente al árbol de intervalos que usa RegistroService (IndiceDisponibilidadService). RF5/RF6 recargan
+// la agenda del vehículo en cada transacción: rf5IndiceConCarga mide la carga más la verificación.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuperposicionDisponibilidadBenchmark {
+
+    @Param({"10", "200"})
+    private int franjas;
+
+    private ConfigurableApplicationContext contexto;
+    private DisponibilidadRepository disponibilidadRepository;
+    private VehiculoEntity vehiculo;
+    private Long primeraFranjaId;
+    private IndiceDisponibilidadService indice;
+    private IndiceDisponibilidadService.Agenda agenda;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(ProyectoApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(Map.of(
+                "spring.datasource.url", "jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username", "sa",
+                "spring.jpa.hibernate.ddl-auto", "create-drop",
+                "spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect",
+                "logging.level.root", "WARN",
+                "alpescab.uso-servicios.volcado-ms", "3600000"))
+            .run();
+        disponibilidadRepository = contexto.getBean(DisponibilidadRepository.class);
+        indice = contexto.getBean(IndiceDisponibilidadService.class);
+
+        CiudadEntity ciudad = contexto.getBean(CiudadRepository.class).save(new CiudadEntity("Bogotá"));
+        UsuarioConductorEntity conductor = contexto.getBean(UsuarioRepository.class).save(
+            new UsuarioConductorEntity("Conductor", "conductor@email.com", "3100000000", "2020"));
+        vehiculo = contexto.getBean(VehiculoRepository.class).save(
+            new VehiculoEntity("CARRO", "Renault", "Logan", "Gris", "ABC123", 4, "ESTANDAR", ciudad, conductor));
+
+        // Franjas de 30 minutos que no se superponen, repartidas en los 7 días: primero las de hh:00 y
+        // luego las de hh:30 (hasta 336 franjas)
+        DayOfWeek[] dias = DayOfWeek.values();
+        for (int i = 0; i < franjas; i++) {
+            LocalTime inicio = LocalTime.of(0, 0).plusHours(i / dias.length % 24).plusMinutes(i / dias.length / 24 % 2 * 30);
+            DisponibilidadEntity franja = disponibilidadRepository.save(new DisponibilidadEntity(
+                dias[i % dias.length], inicio, inicio.plusMinutes(30), "Transporte de pasajeros", vehiculo));
+            if (i == 0) {
+                primeraFranjaId = franja.getId();
+            }
+        }
+        agenda = indice.agendaBloqueada(vehiculo.getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    // RF5: la nueva franja choca con la primera franja del lunes
+    @Benchmark
+    public List<DisponibilidadEntity> rf5ConSuperposicion() {
+        return disponibilidadRepository.findSuperposedDisponibilidad(
+            vehiculo, DayOfWeek.MONDAY, LocalTime.of(0, 15), LocalTime.of(0, 45));
+    }
+
+    // RF5: franja libre (entre las 23:40 y las 23:50 no hay ninguna)
+    @Benchmark
+    public List<DisponibilidadEntity> rf5SinSuperposicion() {
+        return disponibilidadRepository.findSuperposedDisponibilidad(
+            vehiculo, DayOfWeek.MONDAY, LocalTime.of(23, 40), LocalTime.of(23, 50));
+    }
+
+    // RF6: mover la primera franja, excluyéndola de la verificación
+    @Benchmark
+    public List<DisponibilidadEntity> rf6Modificacion() {
+        return disponibilidadRepository.findSuperposedDisponibilidadExcluyendoId(
+            primeraFranjaId, vehiculo, DayOfWeek.MONDAY, LocalTime.of(0, 10), LocalTime.of(0, 40));
+    }
+
+    // Las mismas verificaciones contra la agenda ya cargada (las franjas siguientes de un lote semanal)
+    @Benchmark
+    public ArbolIntervalos.Franja rf5IndiceConSuperposicion() {
+        return agenda.superpuesta(DayOfWeek.MONDAY, LocalTime.of(0, 15), LocalTime.of(0, 45), null);
+    }
+
+    @Benchmark
+    public ArbolIntervalos.Franja rf5IndiceSinSuperposicion() {
+        return agenda.superpuesta(DayOfWeek.MONDAY, LocalTime.of(23, 40), LocalTime.of(23, 50), null);
+    }
+
+    @Benchmark
+    public ArbolIntervalos.Franja rf6IndiceModificacion() {
+        return agenda.superpuesta(DayOfWeek.MONDAY, LocalTime.of(0, 10), LocalTime.of(0, 40), primeraFranjaId);
+    }
+
+    // RF5 de una franja: carga de la agenda y verificación
+    @Benchmark
+    public ArbolIntervalos.Franja rf5IndiceConCarga() {
+        return indice.agendaBloqueada(vehiculo.getId()).superpuesta(DayOfWeek.MONDAY, LocalTime.of(23, 40), LocalTime.of(23, 50), null);
+    }
+}
@@ -0,0 +1,151 @@
+-- Cambios de esquema requeridos por las optimizaciones de RF8/RF9 y de las consultas.
+-- Se ejecutan sobre el esquema que mapean las entidades (USUARIOS, VIAJE, VEHICULOS, ...).
+
+------------------------------------------------------------------------------------------------
+-- RF8/RF9: Control de concurrencia optimista
+------------------------------------------------------------------------------------------------
+ALTER TABLE USUARIOS ADD (VERSION NUMBER(19) DEFAULT 0 NOT NULL);
+ALTER TABLE VIAJE ADD (VERSION NUMBER(19) DEFAULT 0 NOT NULL);
+
+------------------------------------------------------------------------------------------------
+-- RFC1: Paginación por llave del histórico (cliente, HORA_INICIO DESC, ID DESC)
+------------------------------------------------------------------------------------------------
+CREATE INDEX IX_VIAJE_CLIENTE_INICIO ON VIAJE (ID_USUARIO_SERVICIO, HORA_INICIO DESC, ID DESC);
+
+------------------------------------------------------------------------------------------------
+-- RFC2: Contador de viajes por conductor (lo incrementa RF8; TopConductoresService lo reconcilia)
+------------------------------------------------------------------------------------------------
+CREATE TABLE CONTEO_VIAJES_CONDUCTOR (
+    ID_CONDUCTOR NUMBER(19) PRIMARY KEY REFERENCES USUARIOS (ID),
+    NUM_VIAJES   NUMBER(19) DEFAULT 0 NOT NULL
+);
+
+-- Carga inicial desde el histórico
+INSERT INTO CONTEO_VIAJES_CONDUCTOR (ID_CONDUCTOR, NUM_VIAJES)
+SELECT ID_CONDUCTOR, COUNT(*) FROM VIAJE GROUP BY ID_CONDUCTOR;
+COMMIT;
+
+------------------------------------------------------------------------------------------------
+-- RFC3: Ganancias de los conductores agregadas por vehículo, tipo de servicio y día (las suma RF9)
+------------------------------------------------------------------------------------------------
+CREATE TABLE GANANCIAS_DIARIAS (
+    ID_CONDUCTOR  NUMBER(19)    NOT NULL REFERENCES USUARIOS (ID),
+    PLACA         VARCHAR2(255) NOT NULL,
+    TIPO_SERVICIO VARCHAR2(255) NOT NULL,
+    DIA           DATE          NOT NULL,
+    GANANCIA      NUMBER        DEFAULT 0 NOT NULL,
+    NUM_VIAJES    NUMBER(19)    DEFAULT 0 NOT NULL,
+    CONSTRAINT PK_GANANCIAS_DIARIAS PRIMARY KEY (ID_CONDUCTOR, PLACA, TIPO_SERVICIO, DIA)
+);
+
+-- Carga inicial con los viajes ya finalizados (60% del costo para el conductor)
+INSERT INTO GANANCIAS_DIARIAS (ID_CONDUCTOR, PLACA, TIPO_SERVICIO, DIA, GANANCIA, NUM_VIAJES)
+SELECT s.ID_CONDUCTOR, v.PLACA, s.TIPO_SERVICIO, TRUNC(s.HORA_FIN), SUM(s.COSTO_TOTAL * 0.60), COUNT(*)
+FROM VIAJE s JOIN VEHICULOS v ON v.ID = s.ID_VEHICULO
+WHERE s.HORA_FIN IS NOT NULL
+GROUP BY s.ID_CONDUCTOR, v.PLACA, s.TIPO_SERVICIO, TRUNC(s.HORA_FIN);
+COMMIT;
+
+------------------------------------------------------------------------------------------------
+-- RFC4: Viajes por ciudad (del punto de partida), tipo de servicio y hora (los vuelca RF8)
+------------------------------------------------------------------------------------------------
+CREATE TABLE USO_SERVICIOS_HORA (
+    ID_CIUDAD     NUMBER(19)    NOT NULL REFERENCES CIUDADES (ID),
+    TIPO_SERVICIO VARCHAR2(255) NOT NULL,
+    HORA          TIMESTAMP     NOT NULL,
+    NUM_VIAJES    NUMBER(19)    DEFAULT 0 NOT NULL,
+    CONSTRAINT PK_USO_SERVICIOS_HORA PRIMARY KEY (ID_CIUDAD, TIPO_SERVICIO, HORA)
+);
+
+-- Carga inicial desde el histórico
+INSERT INTO USO_SERVICIOS_HORA (ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES)
+SELECT p.ID_CIUDAD, s.TIPO_SERVICIO, CAST(TRUNC(s.HORA_INICIO, 'HH24') AS TIMESTAMP), COUNT(*)
+FROM VIAJE s JOIN PUNTOS_GEOGRAFICOS p ON p.ID = s.ID_PUNTO_INICIO
+GROUP BY p.ID_CIUDAD, s.TIPO_SERVICIO, TRUNC(s.HORA_INICIO, 'HH24');
+COMMIT;
+
+------------------------------------------------------------------------------------------------
+-- Registro masivo: las entidades de registro toman su ID de secuencias en bloques de 50 (pooled-lo)
+-- para que Hibernate inserte por lotes JDBC. Cada secuencia empieza después del último ID de su tabla.
+-- La secuencia pasa a ser la única fuente de IDs: se quita la identidad de la columna (sus valores
+-- chocarían con los bloques de la secuencia) y una inserción sin ID toma <TABLA>_SEQ.NEXTVAL. Ese valor
+-- es el inicio de un bloque que Hibernate nunca recibe, así que tampoco choca con los de la aplicación.
+------------------------------------------------------------------------------------------------
+DECLARE
+    siguiente NUMBER;
+BEGIN
+    FOR t IN (SELECT COLUMN_VALUE AS TABLA FROM TABLE(SYS.ODCIVARCHAR2LIST(
+                'CIUDADES', 'USUARIOS', 'VEHICULOS', 'PUNTOS_GEOGRAFICOS', 'MEDIOS_DE_PAGO', 'DISPONIBILIDADES'))) LOOP
+        EXECUTE IMMEDIATE 'SELECT NVL(MAX(ID), 0) + 1 FROM ' || t.TABLA INTO siguiente;
+        EXECUTE IMMEDIATE 'CREATE SEQUENCE ' || t.TABLA || '_SEQ START WITH ' || siguiente || ' INCREMENT BY 50';
+        EXECUTE IMMEDIATE 'ALTER TABLE ' || t.TABLA || ' MODIFY ID DROP IDENTITY';
+        EXECUTE IMMEDIATE 'ALTER TABLE ' || t.TABLA || ' MODIFY ID DEFAULT ON NULL ' || t.TABLA || '_SEQ.NEXTVAL';
+    END LOOP;
+END;
+/
+
+------------------------------------------------------------------------------------------------
+-- Importación de viajes históricos: punto de control de cada importación (byte y línea hasta
+-- donde las filas ya quedaron confirmadas) para reanudarla sin repetir filas
+------------------------------------------------------------------------------------------------
+CREATE TABLE IMPORTACIONES_VIAJES (
+    ID               VARCHAR2(100) PRIMARY KEY,
+    FORMATO          VARCHAR2(255) NOT NULL,
+    ESTADO           VARCHAR2(255) NOT NULL,
+    POSICION         NUMBER(19)    DEFAULT 0 NOT NULL,
+    LINEA            NUMBER(19)    DEFAULT 0 NOT NULL,
+    FILAS_IMPORTADAS NUMBER(19)    DEFAULT 0 NOT NULL,
+    FILAS_CON_ERROR  NUMBER(19)    DEFAULT 0 NOT NULL,
+    ACTUALIZADA      TIMESTAMP     NOT NULL
+);
+
+------------------------------------------------------------------------------------------------
+-- Exportación de viajes: rango de HORA_INICIO en orden (HORA_INICIO, ID). Con el índice, el cursor
+-- empieza a entregar filas sin ordenar antes todo el rango
+------------------------------------------------------------------------------------------------
+CREATE INDEX IX_VIAJE_INICIO ON VIAJE (HORA_INICIO, ID);
+
+------------------------------------------------------------------------------------------------
+-- RF10/RF11: Calificaciones recibidas por usuario (las suma cada revisión; CalificacionesService
+-- las reconcilia). Suma, número de revisiones e histograma por estrellas
+------------------------------------------------------------------------------------------------
+CREATE TABLE CALIFICACIONES_USUARIO (
+    ID_USUARIO     NUMBER(19) PRIMARY KEY REFERENCES USUARIOS (ID),
+    SUMA           NUMBER(19) DEFAULT 0 NOT NULL,
+    NUM_REVISIONES NUMBER(19) DEFAULT 0 NOT NULL,
+    ESTRELLAS_0    NUMBER(19) DEFAULT 0 NOT NULL,
+    ESTRELLAS_1    NUMBER(19) DEFAULT 0 NOT NULL,
+    ESTRELLAS_2    NUMBER(19) DEFAULT 0 NOT NULL,
+    ESTRELLAS_3    NUMBER(19) DEFAULT 0 NOT NULL,
+    ESTRELLAS_4    NUMBER(19) DEFAULT 0 NOT NULL,
+    ESTRELLAS_5    NUMBER(19) DEFAULT 0 NOT NULL
+);
+
+-- Carga inicial desde el histórico
+INSERT INTO CALIFICACIONES_USUARIO (ID_USUARIO, SUMA, NUM_REVISIONES, ESTRELLAS_0, ESTRELLAS_1, ESTRELLAS_2,
+                                    ESTRELLAS_3, ESTRELLAS_4, ESTRELLAS_5)
+SELECT ID_REVISADO, SUM(CALIFICACION), COUNT(*),
+       COUNT(CASE WHEN CALIFICACION = 0 THEN 1 END), COUNT(CASE WHEN CALIFICACION = 1 THEN 1 END),
+       COUNT(CASE WHEN CALIFICACION = 2 THEN 1 END), COUNT(CASE WHEN CALIFICACION = 3 THEN 1 END),
+       COUNT(CASE WHEN CALIFICACION = 4 THEN 1 END), COUNT(CASE WHEN CALIFICACION = 5 THEN 1 END)
+FROM REVISION GROUP BY ID_REVISADO;
+COMMIT;
+
+------------------------------------------------------------------------------------------------
+-- Bandeja de salida de los eventos de los viajes (RF8, RF9, RF10) y posición de cada consumidor.
+-- RelayEventosService lee por ID en orden; el índice de CREADO sirve a la limpieza por retención
+------------------------------------------------------------------------------------------------
+CREATE TABLE EVENTOS_VIAJE (
+    ID       NUMBER(19) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    TIPO     VARCHAR2(255)  NOT NULL,
+    ID_VIAJE NUMBER(19)     NOT NULL,
+    DATOS    VARCHAR2(4000) NOT NULL,
+    CREADO   TIMESTAMP      NOT NULL
+);
+CREATE INDEX IX_EVENTOS_VIAJE_CREADO ON EVENTOS_VIAJE (CREADO);
+
+CREATE TABLE CONSUMIDORES_EVENTOS (
+    NOMBRE      VARCHAR2(100) PRIMARY KEY,
+    POSICION    NUMBER(19)    NOT NULL,
+    ACTUALIZADO TIMESTAMP     NOT NULL
+);
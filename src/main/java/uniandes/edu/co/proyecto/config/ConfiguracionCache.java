@@ -0,0 +1,56 @@
+package uniandes.edu.co.proyecto.config;
+import uniandes.edu.co.proyecto.services.CacheConsultasService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Caché de las consultas (RFC1, RFC3, RFC4) y ETags en las respuestas de ConsultaController.
+@Configuration
+@EnableCaching
+public class ConfiguracionCache {
+
+    // TTL por defecto de cada caché; se cambia con alpescab.cache.<nombre>.ttl (y .maximo para el tamaño)
+    private static final Map<String, Duration> TTL_POR_DEFECTO = Map.of(
+        CacheConsultasService.HISTORICO_PLANO, Duration.ofSeconds(30),
+        CacheConsultasService.GANANCIAS_CONDUCTOR, Duration.ofMinutes(5),
+        CacheConsultasService.USO_SERVICIOS, Duration.ofMinutes(10));
+
+    private static final long MAXIMO_POR_DEFECTO = 1000;
+
+    @Bean
+    public CacheManager cacheManager(Environment entorno) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Solo existen las cachés registradas: un nombre mal escrito en @Cacheable falla en vez de crear otra.
+        // Va antes de registrar cada caché porque setCacheNames las crea con la configuración por defecto.
+        cacheManager.setCacheNames(CacheConsultasService.NOMBRES);
+        for (String nombre : CacheConsultasService.NOMBRES) {
+            Duration ttl = entorno.getProperty("alpescab.cache." + nombre + ".ttl", Duration.class, TTL_POR_DEFECTO.get(nombre));
+            long maximo = entorno.getProperty("alpescab.cache." + nombre + ".maximo", Long.class, MAXIMO_POR_DEFECTO);
+            cacheManager.registerCustomCache(nombre, Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximo)
+                .recordStats()
+                .build());
+        }
+        return cacheManager;
+    }
+
+    // ETag calculado sobre el cuerpo de la respuesta: si coincide con If-None-Match se responde 304
+    // sin cuerpo. El streaming NDJSON de RFC1 lo desactiva para no acumular la respuesta en memoria.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> filtroEtagConsultas() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registro = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registro.addUrlPatterns("/api/alpescab/consulta/*");
+        registro.setName("filtroEtagConsultas");
+        return registro;
+    }
+}
@@ -0,0 +1,54 @@
+package uniandes.edu.co.proyecto.config;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+// Dos pools: "primario" (spring.datasource.*) para RF1-RF11 y cualquier escritura, y "replica"
+// (alpescab.replica.datasource.*) para las transacciones de solo lectura de ConsultaService.
+// Sin alpescab.replica.datasource.url el pool de la réplica se conecta a la misma base que el primario:
+// las consultas pesadas siguen sin competir por conexiones con el despacho de RF8/RF9.
+@Configuration
+public class ConfiguracionDataSource {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties propiedades) {
+        HikariDataSource pool = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primario");
+        return pool;
+    }
+
+    @Bean
+    public HikariDataSource dataSourceReplica(DataSourceProperties primario, Environment entorno) {
+        Binder binder = Binder.get(entorno);
+        DataSourceProperties propiedades = binder.bind("alpescab.replica.datasource", DataSourceProperties.class)
+            .orElseGet(DataSourceProperties::new);
+        if (!StringUtils.hasText(propiedades.getUrl())) {
+            propiedades = primario;
+        }
+        HikariDataSource pool = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setMaximumPoolSize(5);
+        binder.bind("alpescab.replica.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName("replica");
+        return pool;
+    }
+
+    // DataSource que usan JPA y JdbcTemplate. Cada pool se mide para alpescab.peticion.espera.conexion
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimario, HikariDataSource dataSourceReplica) {
+        return new LazyConnectionDataSourceProxy(new DataSourceEnrutado(
+            new ConfiguracionMetricas.DataSourceMedido(dataSourcePrimario),
+            new ConfiguracionMetricas.DataSourceMedido(dataSourceReplica)));
+    }
+}
@@ -0,0 +1,136 @@
+package uniandes.edu.co.proyecto.config;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Métricas de la aplicación, expuestas en /actuator/prometheus junto con las de Spring Boot
+// (pool Hikari, estadísticas de Hibernate, cachés de Caffeine):
+//   http.server.requests{requisito}      tiempo de cada endpoint, etiquetado con su @Requisito
+//   alpescab.peticion.sentencias         sentencias SQL por petición (JPA y JdbcTemplate)
+//   alpescab.peticion.entidades.cargadas entidades cargadas por petición
+//   alpescab.peticion.espera.conexion    espera por conexiones del pool dentro de la petición
+//   alpescab.rf8.fallos{motivo}          solicitudes de RF8 rechazadas (ServicioTransaccionalService)
+//   alpescab.rf9.longitud.cliente        viajes de RF9 cobrados con la longitud que envía el cliente
+// Si RF8 es lento, comparar su tiempo con su espera.conexion indica si el tiempo se va en la BD o en
+// esperar el pool; hikaricp.connections.pending confirma si el pool está agotado.
+@Configuration
+public class ConfiguracionMetricas implements WebMvcConfigurer {
+
+    private final MeterRegistry registro;
+
+    public ConfiguracionMetricas(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new InterceptorMetricas(registro)).addPathPatterns("/api/**");
+    }
+
+    // Agrega la etiqueta "requisito" a http.server.requests (los histogramas se activan en application.properties)
+    @Bean
+    public DefaultServerRequestObservationConvention convencionPeticiones() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context).and("requisito", InterceptorMetricas.requisito(handler));
+            }
+        };
+    }
+
+    // Gancho de Hibernate que cuenta las entidades cargadas en el hilo actual (las sentencias se cuentan
+    // en las conexiones de DataSourceMedido, así incluyen las de JdbcTemplate)
+    @Bean
+    public HibernatePropertiesCustomizer contadoresHibernate() {
+        return propiedades -> {
+            propiedades.put("hibernate.session_factory.interceptor", new Interceptor() {
+                @Override
+                public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+                    MedicionPeticion.carga();
+                    return false;
+                }
+            });
+        };
+    }
+
+    // Mide cuánto tarda un pool en entregar cada conexión y cuenta las sentencias que se envían por ella
+    // (ConfiguracionDataSource envuelve cada pool). Contar en la conexión incluye por igual a Hibernate y
+    // a JdbcTemplate: una sentencia por cada prepareStatement/prepareCall (un lote JDBC cuenta una vez)
+    // y una por cada ejecución de un Statement sin parámetros.
+    static class DataSourceMedido extends DelegatingDataSource {
+        DataSourceMedido(DataSource destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                return contarSentencias(super.getConnection());
+            } finally {
+                MedicionPeticion.esperaConexion(System.nanoTime() - inicio);
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                return contarSentencias(super.getConnection(username, password));
+            } finally {
+                MedicionPeticion.esperaConexion(System.nanoTime() - inicio);
+            }
+        }
+
+        private static Connection contarSentencias(Connection conexion) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+                    case "prepareStatement", "prepareCall" -> {
+                        MedicionPeticion.sentencia();
+                        yield invocar(conexion, metodo, argumentos);
+                    }
+                    case "createStatement" -> contarEjecuciones((Statement) invocar(conexion, metodo, argumentos));
+                    case "equals" -> proxy == argumentos[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> invocar(conexion, metodo, argumentos);
+                });
+        }
+
+        private static Statement contarEjecuciones(Statement sentencia) {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Statement.class },
+                (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().startsWith("execute")) {
+                        MedicionPeticion.sentencia();
+                    }
+                    return invocar(sentencia, metodo, argumentos);
+                });
+        }
+
+        private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+            try {
+                return metodo.invoke(destino, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
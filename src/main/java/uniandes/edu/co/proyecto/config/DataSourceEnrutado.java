@@ -0,0 +1,84 @@
+package uniandes.edu.co.proyecto.config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+// Envía las transacciones de solo lectura (@Transactional(readOnly = true)) al pool de la réplica y
+// todo lo demás al primario. La decisión se toma al pedir la conexión, por lo que este DataSource
+// debe usarse detrás de un LazyConnectionDataSourceProxy: así la conexión se pide en la primera
+// sentencia, cuando la transacción ya quedó marcada como de solo lectura.
+public class DataSourceEnrutado extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceEnrutado.class);
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    // Transacción de solo lectura que debe ver escrituras recientes (ver ConsistenciaLecturasService)
+    private static final ThreadLocal<Boolean> FORZAR_PRIMARIO = new ThreadLocal<>();
+
+    private final DataSource primario;
+
+    public DataSourceEnrutado(DataSource primario, DataSource replica) {
+        this.primario = primario;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    // Hace que la transacción actual lea del primario. Debe llamarse antes de su primera sentencia;
+    // el efecto termina con la transacción.
+    public static void leerDelPrimario() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return; // Sin transacción las lecturas ya van al primario
+        }
+        FORZAR_PRIMARIO.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                FORZAR_PRIMARIO.remove();
+            }
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && FORZAR_PRIMARIO.get() == null
+            ? Destino.REPLICA
+            : Destino.PRIMARIO;
+    }
+
+    // Si la réplica no entrega conexión, la lectura se hace en el primario en vez de fallar
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Destino.PRIMARIO) {
+            return primario.getConnection();
+        }
+        try {
+            return determineTargetDataSource().getConnection();
+        } catch (SQLException e) {
+            log.warn("Réplica no disponible, se lee del primario: {}", e.getMessage());
+            return primario.getConnection();
+        }
+    }
+
+    // No se expone el pool de destino: su elección depende de la transacción actual
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("DataSourceEnrutado no envuelve un " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
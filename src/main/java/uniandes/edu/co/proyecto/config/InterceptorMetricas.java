@@ -0,0 +1,75 @@
+package uniandes.edu.co.proyecto.config;
+import uniandes.edu.co.proyecto.controllers.Requisito;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+// Publica por requisito las sentencias SQL, las entidades cargadas y la espera por conexiones de cada
+// petición. Solo cuenta el trabajo hecho en el hilo de la petición: en las respuestas asíncronas se
+// publica al liberar el hilo (el despacho por lotes de RF8 trabaja en otro hilo y no se incluye).
+class InterceptorMetricas implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry registro;
+
+    InterceptorMetricas(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    static String requisito(Object handler) {
+        if (handler instanceof HandlerMethod metodo) {
+            Requisito requisito = metodo.getMethodAnnotation(Requisito.class);
+            if (requisito != null) {
+                return requisito.value();
+            }
+        }
+        return "ninguno";
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            MedicionPeticion.iniciar();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        publicar(handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // El redespacho de una respuesta asíncrona ya se publicó en afterConcurrentHandlingStarted
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            publicar(handler);
+        }
+    }
+
+    private void publicar(Object handler) {
+        String requisito = requisito(handler);
+        MedicionPeticion.Resultado resultado = MedicionPeticion.terminar();
+        DistributionSummary.builder("alpescab.peticion.sentencias")
+            .description("Sentencias SQL por petición")
+            .tag("requisito", requisito)
+            .register(registro)
+            .record(resultado.sentencias());
+        DistributionSummary.builder("alpescab.peticion.entidades.cargadas")
+            .description("Entidades cargadas por Hibernate por petición")
+            .tag("requisito", requisito)
+            .register(registro)
+            .record(resultado.cargas());
+        Timer.builder("alpescab.peticion.espera.conexion")
+            .description("Tiempo esperando conexiones del pool por petición")
+            .tag("requisito", requisito)
+            .register(registro)
+            .record(resultado.esperaConexionNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,43 @@
+package uniandes.edu.co.proyecto.config;
+
+// Contadores de la petición que atiende el hilo actual: sentencias SQL, entidades cargadas por
+// Hibernate y tiempo esperando una conexión del pool. Los incrementan las conexiones del DataSource y el
+// gancho de Hibernate; InterceptorMetricas los reinicia al empezar la petición y los publica al terminar.
+final class MedicionPeticion {
+
+    record Resultado(long sentencias, long cargas, long esperaConexionNanos) {}
+
+    private static final class Contadores {
+        long sentencias;
+        long cargas;
+        long esperaConexionNanos;
+    }
+
+    private static final ThreadLocal<Contadores> ACTUAL = ThreadLocal.withInitial(Contadores::new);
+
+    private MedicionPeticion() {}
+
+    static void iniciar() {
+        Contadores contadores = ACTUAL.get();
+        contadores.sentencias = 0;
+        contadores.cargas = 0;
+        contadores.esperaConexionNanos = 0;
+    }
+
+    static Resultado terminar() {
+        Contadores contadores = ACTUAL.get();
+        return new Resultado(contadores.sentencias, contadores.cargas, contadores.esperaConexionNanos);
+    }
+
+    static void sentencia() {
+        ACTUAL.get().sentencias++;
+    }
+
+    static void carga() {
+        ACTUAL.get().cargas++;
+    }
+
+    static void esperaConexion(long nanos) {
+        ACTUAL.get().esperaConexionNanos += nanos;
+    }
+}
@@ -3,12 +3,24 @@ import uniandes.edu.co.proyecto.services.*;
 import uniandes.edu.co.proyecto.entities.ServicioEntity;
 import uniandes.edu.co.proyecto.controllers.DTO.*; // Importar los DTOs
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/alpescab/consulta")
@@ -17,8 +29,27 @@ public class ConsultaController {
     @Autowired
     private ConsultaService consultaService;
 
+    @Autowired
+    private IndiceEspacialService indiceEspacial;
+
+    @Autowired
+    private DemoAislamientoService demoAislamiento;
+
+    @Autowired
+    private CacheConsultasService cacheConsultas;
+
+    @Autowired
+    private ExportacionViajesService exportacionViajes;
+
+    @Autowired
+    private AnaliticaViajesService analiticaViajes;
+
+    @Autowired
+    private CalificacionesService calificaciones;
+
     // ---------------------- RFC1: HISTÓRICO DE SERVICIOS POR USUARIO ----------------------
     @GetMapping("/historico/usuario/{clienteId}")
+    @Requisito("RFC1")
     // Se cambia el tipo de retorno específico a ResponseEntity<List<ServicioEntity>>
     public ResponseEntity<List<ServicioEntity>> getHistoricoServicios(@PathVariable Long clienteId) {
         try {
@@ -29,10 +60,52 @@ public class ConsultaController {
         }
     }
     
+    // RFC1 plano: los mismos viajes en una sola consulta, con los datos de pasajero, conductor,
+    // vehículo, direcciones y calificación ya resueltos
+    @GetMapping("/historico/usuario/{clienteId}/plano")
+    @Requisito("RFC1")
+    public ResponseEntity<?> getHistoricoPlano(@PathVariable Long clienteId) {
+        try {
+            return new ResponseEntity<>(consultaService.consultarHistoricoPlano(clienteId), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // RFC1 paginado: la primera página se pide sin cursor; las siguientes con el siguienteCursor recibido
+    @GetMapping("/historico/usuario/{clienteId}/paginas")
+    @Requisito("RFC1")
+    public ResponseEntity<?> getHistoricoPaginado(
+            @PathVariable Long clienteId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") Integer tamano) {
+        try {
+            return new ResponseEntity<>(consultaService.consultarHistoricoPaginado(clienteId, cursor, tamano), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // RFC1 en streaming: un viaje JSON por línea (NDJSON), con memoria constante sin importar el tamaño del histórico
+    @GetMapping(value = "/historico/usuario/{clienteId}/stream", produces = "application/x-ndjson")
+    @Requisito("RFC1")
+    public ResponseEntity<?> getHistoricoStream(@PathVariable Long clienteId, HttpServletRequest request) {
+        // Sin ETag: el filtro tendría que acumular todo el cuerpo para calcularlo
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        try {
+            consultaService.validarCliente(clienteId);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+        StreamingResponseBody cuerpo = salida -> consultaService.escribirHistoricoNdjson(clienteId, salida);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(cuerpo);
+    }
+    
     // ---------------------- RFC1: PRUEBAS DE AISLAMIENTO (Punto 3 de la entrega) ----------------------
     
     // Escenario de prueba SERIALIZABLE
     @GetMapping("/historico/usuario/{clienteId}/serializable")
+    @Requisito("RFC1")
     public ResponseEntity<List<ServicioEntity>> getHistorico_Serializable(@PathVariable Long clienteId) {
         try {
             List<ServicioEntity> resultado = consultaService.consultarHistoricoUsuario_Serializable(clienteId);
@@ -44,6 +117,7 @@ public class ConsultaController {
 
     // Escenario de prueba READ_COMMITTED
     @GetMapping("/historico/usuario/{clienteId}/read-committed")
+    @Requisito("RFC1")
     public ResponseEntity<List<ServicioEntity>> getHistorico_ReadCommitted(@PathVariable Long clienteId) {
         try {
             List<ServicioEntity> resultado = consultaService.consultarHistoricoUsuario_ReadCommitted(clienteId);
@@ -53,23 +127,62 @@ public class ConsultaController {
         }
     }
 
+    // Versión sin bloqueo de las dos pruebas anteriores: corre en un hilo virtual con un cupo de
+    // conexiones por nivel y retorna las diferencias entre las dos lecturas (nivel = serializable | read-committed)
+    @GetMapping("/historico/usuario/{clienteId}/aislamiento/{nivel}")
+    @Requisito("RFC1")
+    public CompletableFuture<ResponseEntity<?>> getHistorico_CompararLecturas(
+            @PathVariable Long clienteId,
+            @PathVariable String nivel,
+            @RequestParam(defaultValue = "30") Integer esperaSegundos) {
+        Isolation aislamiento = switch (nivel.toLowerCase()) {
+            case "serializable" -> Isolation.SERIALIZABLE;
+            case "read-committed" -> Isolation.READ_COMMITTED;
+            default -> null;
+        };
+        if (aislamiento == null) {
+            return CompletableFuture.completedFuture(
+                new ResponseEntity<>("Nivel de aislamiento no soportado: " + nivel, HttpStatus.BAD_REQUEST));
+        }
+        return demoAislamiento.compararLecturas(clienteId, aislamiento, esperaSegundos)
+            .<ResponseEntity<?>>thenApply(comparacion -> new ResponseEntity<>(comparacion, HttpStatus.OK))
+            .exceptionally(e -> {
+                Throwable causa = e;
+                while (causa instanceof CompletionException && causa.getCause() != null) {
+                    causa = causa.getCause();
+                }
+                HttpStatus estado = causa instanceof DemoAislamientoService.CupoAgotadoException
+                    ? HttpStatus.TOO_MANY_REQUESTS
+                    : HttpStatus.CONFLICT;
+                return new ResponseEntity<>(causa.getMessage(), estado);
+            });
+    }
+
     // ---------------------- RFC2: TOP 20 CONDUCTORES ----------------------
     // ¡Ajustado para devolver el DTO específico!
     @GetMapping("/top/conductores")
+    @Requisito("RFC2")
     public ResponseEntity<List<TopConductorDTO>> getTop20Conductores() {
         return new ResponseEntity<>(consultaService.findTop20Conductores(), HttpStatus.OK);
     }
 
     // ---------------------- RFC3: GANANCIAS CONDUCTOR ----------------------
     // ¡Ajustado para devolver el DTO específico!
+    // Rango de días opcional (inclusive); porDia=true entrega una fila por día en lugar del total
     @GetMapping("/ganancias/conductor/{conductorId}")
-    public ResponseEntity<List<GananciaConductorDTO>> getGananciasConductor(@PathVariable Long conductorId) {
-        return new ResponseEntity<>(consultaService.findGananciasConductor(conductorId), HttpStatus.OK);
+    @Requisito("RFC3")
+    public ResponseEntity<List<GananciaConductorDTO>> getGananciasConductor(
+            @PathVariable Long conductorId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") Date desde,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") Date hasta,
+            @RequestParam(defaultValue = "false") boolean porDia) {
+        return new ResponseEntity<>(consultaService.findGananciasConductor(conductorId, desde, hasta, porDia), HttpStatus.OK);
     }
 
     // ---------------------- RFC4: UTILIZACIÓN DE SERVICIOS EN CIUDAD Y RANGO ----------------------
     // ¡Ajustado para devolver el DTO específico!
     @GetMapping("/utilizacion/{ciudadNombre}")
+    @Requisito("RFC4")
     public ResponseEntity<List<UtilizacionServiciosDTO>> getUsoServicios(
             @PathVariable String ciudadNombre,
             @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") Date fechaInicio,
@@ -77,4 +190,142 @@ public class ConsultaController {
         
         return new ResponseEntity<>(consultaService.findUsoServicios(ciudadNombre, fechaInicio, fechaFin), HttpStatus.OK);
     }
+
+    // ---------------------- EXPORTACIÓN DE VIAJES (FINANZAS Y BI) ----------------------
+    // Viajes que iniciaron entre dos días (inclusive), opcionalmente de una ciudad, en CSV o NDJSON.
+    // Se escriben a medida que llegan de la BD, con memoria constante sin importar cuántos sean
+    @GetMapping("/viajes/exportacion")
+    public ResponseEntity<?> exportarViajes(
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate desde,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate hasta,
+            @RequestParam(required = false) String ciudad,
+            @RequestParam(defaultValue = "csv") String formato,
+            HttpServletRequest request) {
+        // Sin ETag: el filtro tendría que acumular todo el cuerpo para calcularlo
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        String tipoArchivo;
+        try {
+            tipoArchivo = exportacionViajes.validar(desde, hasta, ciudad, formato);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        boolean csv = tipoArchivo.equals(ExportacionViajesService.CSV);
+        StreamingResponseBody cuerpo = salida -> {
+            try {
+                exportacionViajes.exportar(desde, hasta, ciudad, tipoArchivo, salida);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"viajes-" + desde + "-" + hasta + (csv ? ".csv" : ".ndjson") + "\"")
+            .body(cuerpo);
+    }
+
+    // ---------------------- ANALÍTICA EN COLUMNAS (RFC2-RFC4 POR RANGO) ----------------------
+    // Se responden sobre la instantánea en memoria de AnaliticaViajesService (hasta un delta de retraso)
+    @GetMapping("/analitica/top/conductores")
+    @Requisito("RFC2")
+    public ResponseEntity<?> getTopConductoresAnalitica(
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate desde,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate hasta,
+            @RequestParam(required = false) String ciudad,
+            @RequestParam(defaultValue = "20") Integer k) {
+        try {
+            return new ResponseEntity<>(analiticaViajes.topConductores(desde, hasta, ciudad, k), HttpStatus.OK);
+        } catch (AnaliticaViajesService.InstantaneaNoDisponibleException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/analitica/ganancias/conductor/{conductorId}")
+    @Requisito("RFC3")
+    public ResponseEntity<?> getGananciasConductorAnalitica(
+            @PathVariable Long conductorId,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate desde,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate hasta) {
+        try {
+            return new ResponseEntity<>(analiticaViajes.gananciasConductor(conductorId, desde, hasta), HttpStatus.OK);
+        } catch (AnaliticaViajesService.InstantaneaNoDisponibleException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    @GetMapping("/analitica/utilizacion/{ciudadNombre}")
+    @Requisito("RFC4")
+    public ResponseEntity<?> getUsoServiciosAnalitica(
+            @PathVariable String ciudadNombre,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate fechaInicio,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(pattern="yyyy-MM-dd") LocalDate fechaFin) {
+        try {
+            return new ResponseEntity<>(analiticaViajes.usoServicios(ciudadNombre, fechaInicio, fechaFin), HttpStatus.OK);
+        } catch (AnaliticaViajesService.InstantaneaNoDisponibleException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/analitica/estado")
+    public ResponseEntity<?> getEstadoAnalitica() {
+        try {
+            return new ResponseEntity<>(analiticaViajes.estado(), HttpStatus.OK);
+        } catch (AnaliticaViajesService.InstantaneaNoDisponibleException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // ---------------------- CALIFICACIONES (RF10/RF11) ----------------------
+    // Promedio, número de revisiones e histograma por estrellas, de los agregados en memoria
+    @GetMapping("/calificaciones/usuario/{usuarioId}")
+    public ResponseEntity<PerfilCalificacionDTO> getPerfilCalificacion(@PathVariable Long usuarioId) {
+        return new ResponseEntity<>(calificaciones.perfil(usuarioId), HttpStatus.OK);
+    }
+
+    // Los k conductores mejor calificados entre los que tienen al menos minimoRevisiones revisiones
+    @GetMapping("/calificaciones/top/conductores")
+    public ResponseEntity<List<PerfilCalificacionDTO>> getMejoresConductores(
+            @RequestParam(defaultValue = "20") Integer k,
+            @RequestParam(defaultValue = "5") Long minimoRevisiones) {
+        return new ResponseEntity<>(calificaciones.mejoresConductores(k, minimoRevisiones), HttpStatus.OK);
+    }
+
+    // ---------------------- CACHÉ DE CONSULTAS: ACIERTOS Y FALLOS ----------------------
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<List<EstadisticasCacheDTO>> getEstadisticasCache() {
+        return new ResponseEntity<>(cacheConsultas.estadisticas(), HttpStatus.OK);
+    }
+
+    // ---------------------- APOYO RF7/RF8: PUNTOS GEOGRÁFICOS CERCANOS ----------------------
+    // Los k puntos registrados más cercanos a unas coordenadas (dentro de radioKm)
+    @GetMapping("/puntos/cercanos")
+    public ResponseEntity<?> getPuntosCercanos(
+            @RequestParam Double latitud,
+            @RequestParam Double longitud,
+            @RequestParam(defaultValue = "5") Integer k,
+            @RequestParam(defaultValue = "5") Double radioKm) {
+        try {
+            return new ResponseEntity<>(indiceEspacial.puntosMasCercanos(latitud, longitud, k, radioKm), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Todos los puntos registrados a no más de radioKm de unas coordenadas
+    @GetMapping("/puntos/radio")
+    public ResponseEntity<?> getPuntosEnRadio(
+            @RequestParam Double latitud,
+            @RequestParam Double longitud,
+            @RequestParam Double radioKm) {
+        try {
+            return new ResponseEntity<>(indiceEspacial.puntosEnRadio(latitud, longitud, radioKm), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.List;
+
+// DTO de salida para las pruebas de aislamiento de RFC1: diferencias entre las dos lecturas
+// del histórico hechas dentro de la misma transacción
+public class ComparacionLecturasDTO {
+    private String aislamiento;
+    private Integer esperaSegundos;
+    private Integer viajesPrimeraLectura;
+    private Integer viajesSegundaLectura;
+    private List<Long> viajesNuevos;       // Aparecen solo en la segunda lectura (lecturas fantasma)
+    private List<Long> viajesEliminados;   // Desaparecen en la segunda lectura
+    private List<Long> viajesModificados;  // Cambian entre lecturas (lecturas no repetibles)
+
+    public ComparacionLecturasDTO(String aislamiento, Integer esperaSegundos, Integer viajesPrimeraLectura, Integer viajesSegundaLectura,
+                                  List<Long> viajesNuevos, List<Long> viajesEliminados, List<Long> viajesModificados) {
+        this.aislamiento = aislamiento;
+        this.esperaSegundos = esperaSegundos;
+        this.viajesPrimeraLectura = viajesPrimeraLectura;
+        this.viajesSegundaLectura = viajesSegundaLectura;
+        this.viajesNuevos = viajesNuevos;
+        this.viajesEliminados = viajesEliminados;
+        this.viajesModificados = viajesModificados;
+    }
+
+    // true si ambas lecturas vieron exactamente los mismos datos
+    public boolean isLecturasIguales() {
+        return viajesNuevos.isEmpty() && viajesEliminados.isEmpty() && viajesModificados.isEmpty();
+    }
+
+    // Getters y Setters
+    public String getAislamiento() { return aislamiento; }
+    public void setAislamiento(String aislamiento) { this.aislamiento = aislamiento; }
+    public Integer getEsperaSegundos() { return esperaSegundos; }
+    public void setEsperaSegundos(Integer esperaSegundos) { this.esperaSegundos = esperaSegundos; }
+    public Integer getViajesPrimeraLectura() { return viajesPrimeraLectura; }
+    public void setViajesPrimeraLectura(Integer viajesPrimeraLectura) { this.viajesPrimeraLectura = viajesPrimeraLectura; }
+    public Integer getViajesSegundaLectura() { return viajesSegundaLectura; }
+    public void setViajesSegundaLectura(Integer viajesSegundaLectura) { this.viajesSegundaLectura = viajesSegundaLectura; }
+    public List<Long> getViajesNuevos() { return viajesNuevos; }
+    public void setViajesNuevos(List<Long> viajesNuevos) { this.viajesNuevos = viajesNuevos; }
+    public List<Long> getViajesEliminados() { return viajesEliminados; }
+    public void setViajesEliminados(List<Long> viajesEliminados) { this.viajesEliminados = viajesEliminados; }
+    public List<Long> getViajesModificados() { return viajesModificados; }
+    public void setViajesModificados(List<Long> viajesModificados) { this.viajesModificados = viajesModificados; }
+}
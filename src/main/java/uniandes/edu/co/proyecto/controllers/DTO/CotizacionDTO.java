@@ -0,0 +1,34 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+// DTO de salida para la cotización de un servicio (costo estimado por distancia y tarifa)
+public class CotizacionDTO {
+    private String tipoServicio;
+    private String nivelVehiculo;
+    private Double distanciaKm;
+    private Double tarifaBase;
+    private Double tarifaPorKm;
+    private Double costoEstimado;
+
+    public CotizacionDTO(String tipoServicio, String nivelVehiculo, Double distanciaKm, Double tarifaBase, Double tarifaPorKm, Double costoEstimado) {
+        this.tipoServicio = tipoServicio;
+        this.nivelVehiculo = nivelVehiculo;
+        this.distanciaKm = distanciaKm;
+        this.tarifaBase = tarifaBase;
+        this.tarifaPorKm = tarifaPorKm;
+        this.costoEstimado = costoEstimado;
+    }
+
+    // Getters y Setters
+    public String getTipoServicio() { return tipoServicio; }
+    public void setTipoServicio(String tipoServicio) { this.tipoServicio = tipoServicio; }
+    public String getNivelVehiculo() { return nivelVehiculo; }
+    public void setNivelVehiculo(String nivelVehiculo) { this.nivelVehiculo = nivelVehiculo; }
+    public Double getDistanciaKm() { return distanciaKm; }
+    public void setDistanciaKm(Double distanciaKm) { this.distanciaKm = distanciaKm; }
+    public Double getTarifaBase() { return tarifaBase; }
+    public void setTarifaBase(Double tarifaBase) { this.tarifaBase = tarifaBase; }
+    public Double getTarifaPorKm() { return tarifaPorKm; }
+    public void setTarifaPorKm(Double tarifaPorKm) { this.tarifaPorKm = tarifaPorKm; }
+    public Double getCostoEstimado() { return costoEstimado; }
+    public void setCostoEstimado(Double costoEstimado) { this.costoEstimado = costoEstimado; }
+}
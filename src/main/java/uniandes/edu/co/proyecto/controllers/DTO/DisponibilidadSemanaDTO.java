@@ -0,0 +1,21 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.List;
+
+// DTO de entrada para RF5 por lotes: todas las franjas de un vehículo para la semana.
+// Cada franja usa el formato de DisponibilidadDTO; su vehiculoId se ignora y, si no trae
+// tipoServicio, se usa el del lote.
+public class DisponibilidadSemanaDTO {
+
+    private Long vehiculoId;
+    private String tipoServicio;
+    private List<DisponibilidadDTO> franjas;
+
+    // Getters y Setters
+    public Long getVehiculoId() { return vehiculoId; }
+    public void setVehiculoId(Long vehiculoId) { this.vehiculoId = vehiculoId; }
+    public String getTipoServicio() { return tipoServicio; }
+    public void setTipoServicio(String tipoServicio) { this.tipoServicio = tipoServicio; }
+    public List<DisponibilidadDTO> getFranjas() { return franjas; }
+    public void setFranjas(List<DisponibilidadDTO> franjas) { this.franjas = franjas; }
+}
@@ -0,0 +1,34 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+// DTO de salida con las estadísticas de una caché de consultas (desde que inició la aplicación)
+public class EstadisticasCacheDTO {
+    private String cache;
+    private Long aciertos;
+    private Long fallos;
+    private Double tasaAciertos;
+    private Long desalojos;
+    private Long tamano;
+
+    public EstadisticasCacheDTO(String cache, Long aciertos, Long fallos, Double tasaAciertos, Long desalojos, Long tamano) {
+        this.cache = cache;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.tasaAciertos = tasaAciertos;
+        this.desalojos = desalojos;
+        this.tamano = tamano;
+    }
+
+    // Getters y Setters
+    public String getCache() { return cache; }
+    public void setCache(String cache) { this.cache = cache; }
+    public Long getAciertos() { return aciertos; }
+    public void setAciertos(Long aciertos) { this.aciertos = aciertos; }
+    public Long getFallos() { return fallos; }
+    public void setFallos(Long fallos) { this.fallos = fallos; }
+    public Double getTasaAciertos() { return tasaAciertos; }
+    public void setTasaAciertos(Double tasaAciertos) { this.tasaAciertos = tasaAciertos; }
+    public Long getDesalojos() { return desalojos; }
+    public void setDesalojos(Long desalojos) { this.desalojos = desalojos; }
+    public Long getTamano() { return tamano; }
+    public void setTamano(Long tamano) { this.tamano = tamano; }
+}
@@ -1,9 +1,15 @@
 package uniandes.edu.co.proyecto.controllers.DTO;
 
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 // DTO de salida para RFC3 (Ganancias por Conductor, Vehículo y Tipo de Servicio)
 public class GananciaConductorDTO {
     private String placaVehiculo;
     private String tipoServicio;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDate dia; // Solo en la consulta por día
     private Double gananciasTotales;
 
     public GananciaConductorDTO(String placaVehiculo, String tipoServicio, Double gananciasTotales) {
@@ -12,11 +18,18 @@ public class GananciaConductorDTO {
         this.gananciasTotales = gananciasTotales;
     }
 
+    public GananciaConductorDTO(String placaVehiculo, String tipoServicio, LocalDate dia, Double gananciasTotales) {
+        this(placaVehiculo, tipoServicio, gananciasTotales);
+        this.dia = dia;
+    }
+
     // Getters y Setters
     public String getPlacaVehiculo() { return placaVehiculo; }
     public void setPlacaVehiculo(String placaVehiculo) { this.placaVehiculo = placaVehiculo; }
     public String getTipoServicio() { return tipoServicio; }
     public void setTipoServicio(String tipoServicio) { this.tipoServicio = tipoServicio; }
+    public LocalDate getDia() { return dia; }
+    public void setDia(LocalDate dia) { this.dia = dia; }
     public Double getGananciasTotales() { return gananciasTotales; }
     public void setGananciasTotales(Double gananciasTotales) { this.gananciasTotales = gananciasTotales; }
 }
\ No newline at end of file
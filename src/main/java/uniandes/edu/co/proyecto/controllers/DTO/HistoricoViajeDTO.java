@@ -0,0 +1,93 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.Date;
+
+// DTO de salida para RFC1 (versión plana): un viaje con los datos del pasajero, conductor,
+// vehículo, direcciones y calificación, tal como los trae una sola consulta
+public class HistoricoViajeDTO {
+    // Información del viaje
+    private Long idViaje;
+    private String tipoServicio;
+    private Date horaInicio;
+    private Date horaFin;
+    private Double longitudTrayecto;
+    private Double costoTotal;
+    // Pasajero y conductor
+    private String nombrePasajero;
+    private String correoPasajero;
+    private String nombreConductor;
+    private String correoConductor;
+    // Vehículo
+    private String vehiculoMarca;
+    private String vehiculoModelo;
+    private String vehiculoPlaca;
+    private String vehiculoNivel;
+    // Puntos geográficos
+    private String direccionInicio;
+    private String direccionFin;
+    // Revisión (null si el viaje no tiene)
+    private Integer calificacion;
+    private String comentarioRevision;
+
+    public HistoricoViajeDTO(Long idViaje, String tipoServicio, Date horaInicio, Date horaFin, Double longitudTrayecto, Double costoTotal,
+                             String nombrePasajero, String correoPasajero, String nombreConductor, String correoConductor,
+                             String vehiculoMarca, String vehiculoModelo, String vehiculoPlaca, String vehiculoNivel,
+                             String direccionInicio, String direccionFin, Integer calificacion, String comentarioRevision) {
+        this.idViaje = idViaje;
+        this.tipoServicio = tipoServicio;
+        this.horaInicio = horaInicio;
+        this.horaFin = horaFin;
+        this.longitudTrayecto = longitudTrayecto;
+        this.costoTotal = costoTotal;
+        this.nombrePasajero = nombrePasajero;
+        this.correoPasajero = correoPasajero;
+        this.nombreConductor = nombreConductor;
+        this.correoConductor = correoConductor;
+        this.vehiculoMarca = vehiculoMarca;
+        this.vehiculoModelo = vehiculoModelo;
+        this.vehiculoPlaca = vehiculoPlaca;
+        this.vehiculoNivel = vehiculoNivel;
+        this.direccionInicio = direccionInicio;
+        this.direccionFin = direccionFin;
+        this.calificacion = calificacion;
+        this.comentarioRevision = comentarioRevision;
+    }
+
+    // Getters y Setters
+    public Long getIdViaje() { return idViaje; }
+    public void setIdViaje(Long idViaje) { this.idViaje = idViaje; }
+    public String getTipoServicio() { return tipoServicio; }
+    public void setTipoServicio(String tipoServicio) { this.tipoServicio = tipoServicio; }
+    public Date getHoraInicio() { return horaInicio; }
+    public void setHoraInicio(Date horaInicio) { this.horaInicio = horaInicio; }
+    public Date getHoraFin() { return horaFin; }
+    public void setHoraFin(Date horaFin) { this.horaFin = horaFin; }
+    public Double getLongitudTrayecto() { return longitudTrayecto; }
+    public void setLongitudTrayecto(Double longitudTrayecto) { this.longitudTrayecto = longitudTrayecto; }
+    public Double getCostoTotal() { return costoTotal; }
+    public void setCostoTotal(Double costoTotal) { this.costoTotal = costoTotal; }
+    public String getNombrePasajero() { return nombrePasajero; }
+    public void setNombrePasajero(String nombrePasajero) { this.nombrePasajero = nombrePasajero; }
+    public String getCorreoPasajero() { return correoPasajero; }
+    public void setCorreoPasajero(String correoPasajero) { this.correoPasajero = correoPasajero; }
+    public String getNombreConductor() { return nombreConductor; }
+    public void setNombreConductor(String nombreConductor) { this.nombreConductor = nombreConductor; }
+    public String getCorreoConductor() { return correoConductor; }
+    public void setCorreoConductor(String correoConductor) { this.correoConductor = correoConductor; }
+    public String getVehiculoMarca() { return vehiculoMarca; }
+    public void setVehiculoMarca(String vehiculoMarca) { this.vehiculoMarca = vehiculoMarca; }
+    public String getVehiculoModelo() { return vehiculoModelo; }
+    public void setVehiculoModelo(String vehiculoModelo) { this.vehiculoModelo = vehiculoModelo; }
+    public String getVehiculoPlaca() { return vehiculoPlaca; }
+    public void setVehiculoPlaca(String vehiculoPlaca) { this.vehiculoPlaca = vehiculoPlaca; }
+    public String getVehiculoNivel() { return vehiculoNivel; }
+    public void setVehiculoNivel(String vehiculoNivel) { this.vehiculoNivel = vehiculoNivel; }
+    public String getDireccionInicio() { return direccionInicio; }
+    public void setDireccionInicio(String direccionInicio) { this.direccionInicio = direccionInicio; }
+    public String getDireccionFin() { return direccionFin; }
+    public void setDireccionFin(String direccionFin) { this.direccionFin = direccionFin; }
+    public Integer getCalificacion() { return calificacion; }
+    public void setCalificacion(Integer calificacion) { this.calificacion = calificacion; }
+    public String getComentarioRevision() { return comentarioRevision; }
+    public void setComentarioRevision(String comentarioRevision) { this.comentarioRevision = comentarioRevision; }
+}
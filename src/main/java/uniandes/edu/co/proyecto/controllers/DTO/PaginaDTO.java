@@ -0,0 +1,21 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.List;
+
+// DTO de salida para consultas paginadas por llave (keyset). Para pedir la página siguiente se
+// envía siguienteCursor tal cual; es null cuando no hay más resultados.
+public class PaginaDTO<T> {
+    private List<T> elementos;
+    private String siguienteCursor;
+
+    public PaginaDTO(List<T> elementos, String siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    // Getters y Setters
+    public List<T> getElementos() { return elementos; }
+    public void setElementos(List<T> elementos) { this.elementos = elementos; }
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public void setSiguienteCursor(String siguienteCursor) { this.siguienteCursor = siguienteCursor; }
+}
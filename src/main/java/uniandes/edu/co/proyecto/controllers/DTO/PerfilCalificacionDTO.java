@@ -0,0 +1,28 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.List;
+
+// DTO de salida con las calificaciones recibidas por un usuario (RF10/RF11)
+public class PerfilCalificacionDTO {
+    private Long usuarioId;
+    private Double promedio;         // null si no tiene revisiones
+    private Long numeroRevisiones;
+    private List<Long> histograma;   // Revisiones con 0, 1, ..., 5 estrellas
+
+    public PerfilCalificacionDTO(Long usuarioId, Double promedio, Long numeroRevisiones, List<Long> histograma) {
+        this.usuarioId = usuarioId;
+        this.promedio = promedio;
+        this.numeroRevisiones = numeroRevisiones;
+        this.histograma = histograma;
+    }
+
+    // Getters y Setters
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+    public Double getPromedio() { return promedio; }
+    public void setPromedio(Double promedio) { this.promedio = promedio; }
+    public Long getNumeroRevisiones() { return numeroRevisiones; }
+    public void setNumeroRevisiones(Long numeroRevisiones) { this.numeroRevisiones = numeroRevisiones; }
+    public List<Long> getHistograma() { return histograma; }
+    public void setHistograma(List<Long> histograma) { this.histograma = histograma; }
+}
@@ -0,0 +1,18 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+// DTO de entrada de las posiciones GPS de un viaje en curso: una o varias posiciones en arreglos
+// paralelos (la posición i es latitudes[i], longitudes[i], momentos[i]), sin un objeto por posición.
+// momentos en milisegundos desde la época, tomados por el dispositivo.
+public class PosicionesDTO {
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] momentos;
+
+    public double[] getLatitudes() { return latitudes; }
+    public void setLatitudes(double[] latitudes) { this.latitudes = latitudes; }
+    public double[] getLongitudes() { return longitudes; }
+    public void setLongitudes(double[] longitudes) { this.longitudes = longitudes; }
+    public long[] getMomentos() { return momentos; }
+    public void setMomentos(long[] momentos) { this.momentos = momentos; }
+}
@@ -0,0 +1,40 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.List;
+
+// DTO de salida de la importación de viajes históricos. Los contadores son acumulados de todas las
+// ejecuciones de la importación; errores solo trae los primeros de esta ejecución (fila = línea del
+// archivo, empezando en 1 con el encabezado del CSV).
+public class ResultadoImportacionDTO {
+
+    private String id;
+    private String estado;
+    private long posicion;
+    private long filasImportadas;
+    private long filasConError;
+    private List<ResultadoLoteDTO.ErrorFilaDTO> errores;
+
+    public ResultadoImportacionDTO(String id, String estado, long posicion, long filasImportadas, long filasConError,
+                                   List<ResultadoLoteDTO.ErrorFilaDTO> errores) {
+        this.id = id;
+        this.estado = estado;
+        this.posicion = posicion;
+        this.filasImportadas = filasImportadas;
+        this.filasConError = filasConError;
+        this.errores = errores;
+    }
+
+    // Getters y Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public long getPosicion() { return posicion; }
+    public void setPosicion(long posicion) { this.posicion = posicion; }
+    public long getFilasImportadas() { return filasImportadas; }
+    public void setFilasImportadas(long filasImportadas) { this.filasImportadas = filasImportadas; }
+    public long getFilasConError() { return filasConError; }
+    public void setFilasConError(long filasConError) { this.filasConError = filasConError; }
+    public List<ResultadoLoteDTO.ErrorFilaDTO> getErrores() { return errores; }
+    public void setErrores(List<ResultadoLoteDTO.ErrorFilaDTO> errores) { this.errores = errores; }
+}
@@ -0,0 +1,53 @@
+package uniandes.edu.co.proyecto.controllers.DTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// DTO de salida del registro masivo. ids tiene una posición por fila de la entrada, en el mismo
+// orden: el ID registrado (o el existente, si la fila era un duplicado que se reutiliza) o null si
+// la fila falló. errores explica cada fila fallida por su posición.
+public class ResultadoLoteDTO {
+
+    public static class ErrorFilaDTO {
+        private int fila;
+        private String mensaje;
+
+        public ErrorFilaDTO(int fila, String mensaje) {
+            this.fila = fila;
+            this.mensaje = mensaje;
+        }
+
+        public int getFila() { return fila; }
+        public void setFila(int fila) { this.fila = fila; }
+        public String getMensaje() { return mensaje; }
+        public void setMensaje(String mensaje) { this.mensaje = mensaje; }
+    }
+
+    private int registrados;
+    private int fallidos;
+    private List<Long> ids;
+    private List<ErrorFilaDTO> errores;
+
+    public ResultadoLoteDTO(Long[] ids, String[] errores) {
+        this.ids = Arrays.asList(ids);
+        this.errores = new ArrayList<>();
+        for (int i = 0; i < errores.length; i++) {
+            if (errores[i] != null) {
+                this.errores.add(new ErrorFilaDTO(i, errores[i]));
+            }
+        }
+        this.fallidos = this.errores.size();
+        this.registrados = ids.length - fallidos;
+    }
+
+    // Getters y Setters
+    public int getRegistrados() { return registrados; }
+    public void setRegistrados(int registrados) { this.registrados = registrados; }
+    public int getFallidos() { return fallidos; }
+    public void setFallidos(int fallidos) { this.fallidos = fallidos; }
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+    public List<ErrorFilaDTO> getErrores() { return errores; }
+    public void setErrores(List<ErrorFilaDTO> errores) { this.errores = errores; }
+}
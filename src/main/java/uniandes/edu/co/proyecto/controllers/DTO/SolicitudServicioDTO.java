@@ -7,7 +7,12 @@ public class SolicitudServicioDTO {
     private String tipoServicio;
     private Long puntoPartidaId;
     private List<Long> puntosLlegadaIds;
-    private Double costoEstimado;
+    private Double costoEstimado;     // Solo referencial: RF8 calcula el costo en el servidor
+
+    // Preferencias opcionales del vehículo (null = cualquiera)
+    private String nivelVehiculo;     // ESTANDAR, COMFORT, LARGE
+    private String tipoVehiculo;      // CARRO, CAMIONETA, MOTOCICLETA
+    private Integer capacidadMinima;  // Número mínimo de pasajeros
 
     // Getters y Setters (Necesarios para que Spring pueda deserializar el JSON)
     public Long getClienteId() {
@@ -49,4 +54,28 @@ public class SolicitudServicioDTO {
     public void setCostoEstimado(Double costoEstimado) {
         this.costoEstimado = costoEstimado;
     }
+
+    public String getNivelVehiculo() {
+        return nivelVehiculo;
+    }
+
+    public void setNivelVehiculo(String nivelVehiculo) {
+        this.nivelVehiculo = nivelVehiculo;
+    }
+
+    public String getTipoVehiculo() {
+        return tipoVehiculo;
+    }
+
+    public void setTipoVehiculo(String tipoVehiculo) {
+        this.tipoVehiculo = tipoVehiculo;
+    }
+
+    public Integer getCapacidadMinima() {
+        return capacidadMinima;
+    }
+
+    public void setCapacidadMinima(Integer capacidadMinima) {
+        this.capacidadMinima = capacidadMinima;
+    }
 }
@@ -2,12 +2,22 @@ package uniandes.edu.co.proyecto.controllers;
 import uniandes.edu.co.proyecto.entities.*;
 import uniandes.edu.co.proyecto.services.*;
 import uniandes.edu.co.proyecto.controllers.DTO.DisponibilidadDTO; 
+import uniandes.edu.co.proyecto.controllers.DTO.DisponibilidadSemanaDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoImportacionDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoLoteDTO;
 import uniandes.edu.co.proyecto.controllers.DTO.RevisionDTO;      
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/alpescab/registro")
 public class RegistroController {
@@ -15,8 +25,15 @@ public class RegistroController {
     @Autowired
     private RegistroService registroService;
 
+    @Autowired
+    private RegistroMasivoService registroMasivoService;
+
+    @Autowired
+    private ImportacionViajesService importacionViajesService;
+
     // ---------------------- RF1: REGISTRAR CIUDAD ----------------------
     @PostMapping("/ciudad")
+    @Requisito("RF1")
     public ResponseEntity<?> registrarCiudad(@RequestBody CiudadEntity ciudad) {
         try {
             CiudadEntity nuevaCiudad = registroService.registrarCiudad(ciudad);
@@ -28,6 +45,7 @@ public class RegistroController {
 
     // ---------------------- RF2/RF3: REGISTRAR USUARIOS ----------------------
     @PostMapping("/usuario/cliente")
+    @Requisito("RF2")
     public ResponseEntity<?> registrarUsuarioDeServicio(@RequestBody UsuarioServicioEntity cliente) {
         try {
             UsuarioServicioEntity nuevoCliente = registroService.registrarUsuarioDeServicio(cliente);
@@ -38,6 +56,7 @@ public class RegistroController {
     }
     
     @PostMapping("/usuario/conductor")
+    @Requisito("RF3")
     public ResponseEntity<?> registrarUsuarioConductor(@RequestBody UsuarioConductorEntity conductor) {
         try {
             UsuarioConductorEntity nuevoConductor = registroService.registrarUsuarioConductor(conductor);
@@ -49,6 +68,7 @@ public class RegistroController {
 
     // ---------------------- RF4: REGISTRAR VEHÍCULO ----------------------
     @PostMapping("/vehiculo")
+    @Requisito("RF4")
     public ResponseEntity<?> registrarVehiculo(@RequestBody VehiculoEntity vehiculo) {
         try {
             VehiculoEntity nuevoVehiculo = registroService.registrarVehiculo(vehiculo);
@@ -60,6 +80,7 @@ public class RegistroController {
 
     // ---------------------- RF5: REGISTRAR DISPONIBILIDAD (CORREGIDO) ----------------------
     @PostMapping("/disponibilidad")
+    @Requisito("RF5")
     public ResponseEntity<?> registrarDisponibilidad(@RequestBody DisponibilidadDTO disponibilidad) {
         try {
             DisponibilidadEntity nuevaDisponibilidad = registroService.registrarDisponibilidad(disponibilidad);
@@ -69,8 +90,38 @@ public class RegistroController {
         }
     }
 
+    // ---------------------- RF5 POR LOTES: SEMANA DE UN VEHÍCULO ----------------------
+    // Todas las franjas se guardan o ninguna; el error lista las franjas inválidas
+    @PostMapping("/disponibilidad/semana")
+    @Requisito("RF5")
+    public ResponseEntity<?> registrarDisponibilidadSemana(@RequestBody DisponibilidadSemanaDTO semana) {
+        try {
+            List<DisponibilidadEntity> nuevas = registroService.registrarDisponibilidadSemana(semana);
+            return new ResponseEntity<>(nuevas, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error al registrar disponibilidad: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // ---------------------- RF5/RF6: FRANJAS LIBRES DE UN VEHÍCULO ----------------------
+    // dia: MONDAY..SUNDAY (opcional, por defecto toda la semana); desde/hasta: "HH:mm" (opcionales)
+    @GetMapping("/disponibilidad/{vehiculoId}/libres")
+    public ResponseEntity<?> consultarFranjasLibres(
+            @PathVariable Long vehiculoId,
+            @RequestParam(required = false) String dia,
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String hasta,
+            @RequestParam(defaultValue = "30") long duracionMinima) {
+        try {
+            return ResponseEntity.ok(registroService.consultarFranjasLibres(vehiculoId, dia, desde, hasta, duracionMinima));
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error al consultar franjas libres: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // ---------------------- RF6: MODIFICAR DISPONIBILIDAD (CORREGIDO) ----------------------
     @PutMapping("/disponibilidad/{id}")
+    @Requisito("RF6")
     public ResponseEntity<String> modificarDisponibilidad(@PathVariable Long id, @RequestBody DisponibilidadDTO disponibilidad) {
         try {
             registroService.modificarDisponibilidad(id, disponibilidad.getHoraInicio(), disponibilidad.getHoraFin());
@@ -82,6 +133,7 @@ public class RegistroController {
 
     // ---------------------- RF7: REGISTRAR PUNTO GEOGRÁFICO ----------------------
     @PostMapping("/punto")
+    @Requisito("RF7")
     public ResponseEntity<?> registrarPuntoGeografico(@RequestBody PuntoGeoEntity punto) {
         try {
             PuntoGeoEntity nuevoPunto = registroService.registrarPuntoGeografico(punto);
@@ -93,6 +145,7 @@ public class RegistroController {
     
     // ---------------------- RF10/RF11: REGISTRAR REVISIÓN (CORREGIDO) ----------------------
     @PostMapping("/revision")
+    @Requisito("RF10-RF11")
     public ResponseEntity<?> registrarRevision(@RequestBody RevisionDTO revision) {
         try {
             RevisionEntity nuevaRevision = registroService.registrarRevision(revision);
@@ -112,4 +165,81 @@ public class RegistroController {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    // ---------------------- REGISTRO MASIVO (RF1-RF4, RF7, MEDIOS DE PAGO) ----------------------
+    // Reciben un arreglo de las mismas entidades que los registros individuales. Responden 201 si todas
+    // las filas se registraron, 207 si solo algunas y 400 si ninguna; el cuerpo informa cada fila.
+    @PostMapping("/ciudad/lote")
+    @Requisito("RF1")
+    public ResponseEntity<?> registrarCiudades(@RequestBody List<CiudadEntity> ciudades) {
+        return responderLote(() -> registroMasivoService.registrarCiudades(ciudades));
+    }
+
+    @PostMapping("/usuario/cliente/lote")
+    @Requisito("RF2")
+    public ResponseEntity<?> registrarClientes(@RequestBody List<UsuarioServicioEntity> clientes) {
+        return responderLote(() -> registroMasivoService.registrarClientes(clientes));
+    }
+
+    @PostMapping("/usuario/conductor/lote")
+    @Requisito("RF3")
+    public ResponseEntity<?> registrarConductores(@RequestBody List<UsuarioConductorEntity> conductores) {
+        return responderLote(() -> registroMasivoService.registrarConductores(conductores));
+    }
+
+    @PostMapping("/vehiculo/lote")
+    @Requisito("RF4")
+    public ResponseEntity<?> registrarVehiculos(@RequestBody List<VehiculoEntity> vehiculos) {
+        return responderLote(() -> registroMasivoService.registrarVehiculos(vehiculos));
+    }
+
+    @PostMapping("/punto/lote")
+    @Requisito("RF7")
+    public ResponseEntity<?> registrarPuntos(@RequestBody List<PuntoGeoEntity> puntos) {
+        return responderLote(() -> registroMasivoService.registrarPuntos(puntos));
+    }
+
+    @PostMapping("/medio-pago/lote")
+    public ResponseEntity<?> registrarMediosDePago(@RequestBody List<MediosPagoEntity> medios) {
+        return responderLote(() -> registroMasivoService.registrarMediosDePago(medios));
+    }
+
+    // ---------------------- IMPORTACIÓN DE VIAJES HISTÓRICOS ----------------------
+    // El cuerpo es el archivo CSV (con encabezado) o NDJSON y se lee en flujo, sin cargarlo en memoria.
+    // Si la importación se interrumpe, se reanuda enviando el mismo archivo con el mismo ID.
+    @PostMapping(value = "/viaje/importacion/{id}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<?> importarViajes(@PathVariable String id, @RequestParam(defaultValue = "csv") String formato,
+                                            HttpServletRequest peticion) {
+        try (ReadableByteChannel canal = Channels.newChannel(peticion.getInputStream())) {
+            ResultadoImportacionDTO resultado = importacionViajesService.importar(id, formato, canal);
+            return new ResponseEntity<>(resultado, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/viaje/importacion/{id}")
+    public ResponseEntity<?> consultarImportacion(@PathVariable String id) {
+        try {
+            return new ResponseEntity<>(importacionViajesService.consultar(id), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private interface RegistroLote {
+        ResultadoLoteDTO registrar() throws Exception;
+    }
+
+    private ResponseEntity<?> responderLote(RegistroLote registro) {
+        try {
+            ResultadoLoteDTO resultado = registro.registrar();
+            HttpStatus estado = resultado.getFallidos() == 0 ? HttpStatus.CREATED
+                : resultado.getRegistrados() > 0 ? HttpStatus.MULTI_STATUS
+                : HttpStatus.BAD_REQUEST;
+            return new ResponseEntity<>(resultado, estado);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error en el registro masivo: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package uniandes.edu.co.proyecto.controllers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Requisito del enunciado que atiende un endpoint (p. ej. "RF8", "RFC1"). Se usa como etiqueta
+// "requisito" en las métricas de las peticiones (ver config.ConfiguracionMetricas).
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Requisito {
+    String value();
+}
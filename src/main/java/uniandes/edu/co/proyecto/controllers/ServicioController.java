@@ -7,6 +7,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/alpescab/servicio")
@@ -15,32 +17,80 @@ public class ServicioController {
     @Autowired
     private ServicioTransaccionalService servicioTransaccionalService;
 
+    @Autowired
+    private DespachoPorLotesService despachoPorLotes;
+
+    @Autowired
+    private EstimadorTarifaService estimadorTarifa;
+
+    @Autowired
+    private TrayectoriasService trayectorias;
+
     // ---------------------- RF8: SOLICITAR UN SERVICIO (TRANSACCIONAL) ----------------------
+    // En modo por lotes la respuesta se difiere hasta que el lote de la solicitud se asigna;
+    // el hilo del servidor no queda bloqueado mientras tanto.
     @PostMapping("/solicitar")
+    @Requisito("RF8")
     // Usa el DTO como el cuerpo de la petición (@RequestBody)
-    public ResponseEntity<?> solicitarServicio(@RequestBody SolicitudServicioDTO solicitud) {
+    public CompletableFuture<ResponseEntity<?>> solicitarServicio(@RequestBody SolicitudServicioDTO solicitud) {
+        if (despachoPorLotes.estaActivo()) {
+            return despachoPorLotes.encolar(solicitud)
+                .<ResponseEntity<?>>thenApply(nuevoServicio -> new ResponseEntity<>(nuevoServicio, HttpStatus.CREATED))
+                .exceptionally(e -> {
+                    Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    return new ResponseEntity<>("RF8 Fallido (Transacción Abortada): " + causa.getMessage(), HttpStatus.CONFLICT);
+                });
+        }
         try {
             // El servicio maneja toda la complejidad, asegurando que la transacción sea atómica.
             ServicioEntity nuevoServicio = servicioTransaccionalService.solicitarServicio(solicitud);
             
             // Retorna 201 Created y el objeto Servicio recién creado
-            return new ResponseEntity<>(nuevoServicio, HttpStatus.CREATED);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(nuevoServicio, HttpStatus.CREATED));
         } catch (Exception e) {
             // Retorna un error 409 Conflict si la transacción falló (e.g., no hay conductor o pago inválido).
-            return new ResponseEntity<>("RF8 Fallido (Transacción Abortada): " + e.getMessage(), HttpStatus.CONFLICT); 
+            return CompletableFuture.completedFuture(
+                new ResponseEntity<>("RF8 Fallido (Transacción Abortada): " + e.getMessage(), HttpStatus.CONFLICT)); 
+        }
+    }
+
+    // ---------------------- COTIZAR UN SERVICIO (SIN CREARLO) ----------------------
+    @PostMapping("/cotizar")
+    public ResponseEntity<?> cotizarServicio(@RequestBody SolicitudServicioDTO solicitud) {
+        try {
+            CotizacionDTO cotizacion = estimadorTarifa.cotizarSolicitud(solicitud);
+            return new ResponseEntity<>(cotizacion, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // ---------------------- POSICIONES GPS DEL VIAJE EN CURSO ----------------------
+    // Alta frecuencia: solo memoria (ver TrayectoriasService). Responde cuántas posiciones se aceptaron.
+    @PostMapping("/posiciones/{servicioId}")
+    public ResponseEntity<?> registrarPosiciones(@PathVariable Long servicioId, @RequestBody PosicionesDTO posiciones) {
+        if (posiciones.getLatitudes() == null || posiciones.getLongitudes() == null || posiciones.getMomentos() == null) {
+            return new ResponseEntity<>("Se requieren 'latitudes', 'longitudes' y 'momentos'.", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            int aceptadas = trayectorias.registrarPosiciones(servicioId, posiciones.getLatitudes(),
+                posiciones.getLongitudes(), posiciones.getMomentos());
+            if (aceptadas < 0) {
+                return new ResponseEntity<>("El servicio con ID " + servicioId + " no existe o ya fue finalizado.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(Map.of("aceptadas", aceptadas), HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
     }
 
     // ---------------------- RF9: REGISTRAR FINAL DE VIAJE (TRANSACCIONAL) ----------------------
+    // 'longitudTrayecto' es opcional: si el servidor recibió las posiciones del viaje, la calcula él
     @PutMapping("/finalizar/{servicioId}")
-    public ResponseEntity<?> finalizarServicio(@PathVariable Long servicioId, @RequestBody Map<String, Double> datosFin) {
+    @Requisito("RF9")
+    public ResponseEntity<?> finalizarServicio(@PathVariable Long servicioId, @RequestBody(required = false) Map<String, Double> datosFin) {
         try {
-            // Extrae el dato 'longitudTrayecto' del JSON de la petición
-            Double longitud = datosFin.get("longitudTrayecto");
-            if (longitud == null) {
-                 return new ResponseEntity<>("RF9 Fallido: Falta el campo 'longitudTrayecto' en el cuerpo de la petición.", HttpStatus.BAD_REQUEST);
-            }
-            
+            Double longitud = datosFin == null ? null : datosFin.get("longitudTrayecto");
             ServicioEntity servicioFinalizado = servicioTransaccionalService.finalizarServicio(servicioId, longitud);
             return new ResponseEntity<>(servicioFinalizado, HttpStatus.OK);
         } catch (Exception e) {
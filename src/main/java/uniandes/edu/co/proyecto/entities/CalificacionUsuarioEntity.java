@@ -0,0 +1,65 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+
+// Calificaciones recibidas por un usuario (apoyo a RF10/RF11 y RF8): suma, número de revisiones e
+// histograma por estrellas. Se actualiza en la misma transacción que registra cada revisión, así que
+// el promedio de un conductor no necesita agrupar la tabla REVISION.
+@Entity
+@Table(name = "CALIFICACIONES_USUARIO")
+public class CalificacionUsuarioEntity {
+    @Id
+    @Column(name = "ID_USUARIO")
+    private Long idUsuario;
+    @Column(name = "SUMA", nullable = false)
+    private Long suma;
+    @Column(name = "NUM_REVISIONES", nullable = false)
+    private Long numRevisiones;
+    // Revisiones con 0, 1, ..., 5 estrellas
+    @Column(name = "ESTRELLAS_0", nullable = false)
+    private Long estrellas0;
+    @Column(name = "ESTRELLAS_1", nullable = false)
+    private Long estrellas1;
+    @Column(name = "ESTRELLAS_2", nullable = false)
+    private Long estrellas2;
+    @Column(name = "ESTRELLAS_3", nullable = false)
+    private Long estrellas3;
+    @Column(name = "ESTRELLAS_4", nullable = false)
+    private Long estrellas4;
+    @Column(name = "ESTRELLAS_5", nullable = false)
+    private Long estrellas5;
+
+    public CalificacionUsuarioEntity() {
+    }
+
+    // Getters y Setters
+    public Long getIdUsuario() {
+        return idUsuario;
+    }
+    public void setIdUsuario(Long idUsuario) {
+        this.idUsuario = idUsuario;
+    }
+    public Long getSuma() {
+        return suma;
+    }
+    public void setSuma(Long suma) {
+        this.suma = suma;
+    }
+    public Long getNumRevisiones() {
+        return numRevisiones;
+    }
+    public void setNumRevisiones(Long numRevisiones) {
+        this.numRevisiones = numRevisiones;
+    }
+    // Histograma como arreglo: la posición i son las revisiones con i estrellas
+    public long[] getHistograma() {
+        return new long[] { estrellas0, estrellas1, estrellas2, estrellas3, estrellas4, estrellas5 };
+    }
+    public void setHistograma(long[] histograma) {
+        this.estrellas0 = histograma[0];
+        this.estrellas1 = histograma[1];
+        this.estrellas2 = histograma[2];
+        this.estrellas3 = histograma[3];
+        this.estrellas4 = histograma[4];
+        this.estrellas5 = histograma[5];
+    }
+}
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 @Table(name = "CIUDADES")
 public class CiudadEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CIUDADES_SEQ")
+    @SequenceGenerator(name = "CIUDADES_SEQ", sequenceName = "CIUDADES_SEQ", allocationSize = 50)
     private Long id;
     @Column(name = "NOMBRE", nullable = false, unique = true)
     private String nombre;
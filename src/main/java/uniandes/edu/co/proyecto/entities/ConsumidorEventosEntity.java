@@ -0,0 +1,44 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+import java.util.Date;
+
+// Posición de un consumidor de EVENTOS_VIAJE: todos los eventos con ID <= POSICION ya le fueron
+// entregados. Se avanza después de que el consumidor procesa cada lote (entrega al menos una vez).
+@Entity
+@Table(name = "CONSUMIDORES_EVENTOS")
+public class ConsumidorEventosEntity {
+
+    @Id
+    @Column(name = "NOMBRE", length = 100)
+    private String nombre;
+
+    @Column(name = "POSICION", nullable = false)
+    private Long posicion;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "ACTUALIZADO", nullable = false)
+    private Date actualizado;
+
+    public ConsumidorEventosEntity() {
+    }
+
+    // Getters y Setters
+    public String getNombre() {
+        return nombre;
+    }
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    public Long getPosicion() {
+        return posicion;
+    }
+    public void setPosicion(Long posicion) {
+        this.posicion = posicion;
+    }
+    public Date getActualizado() {
+        return actualizado;
+    }
+    public void setActualizado(Date actualizado) {
+        this.actualizado = actualizado;
+    }
+}
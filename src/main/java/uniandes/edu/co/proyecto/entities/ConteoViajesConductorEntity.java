@@ -0,0 +1,35 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+
+// Contador de viajes por conductor (apoyo a RFC2). Se incrementa en la misma transacción de RF8,
+// por lo que el top de conductores no necesita agrupar toda la tabla VIAJE en cada consulta.
+@Entity
+@Table(name = "CONTEO_VIAJES_CONDUCTOR")
+public class ConteoViajesConductorEntity {
+    @Id
+    @Column(name = "ID_CONDUCTOR")
+    private Long idConductor;
+    @Column(name = "NUM_VIAJES", nullable = false)
+    private Long numViajes;
+
+    public ConteoViajesConductorEntity() {
+    }
+
+    public ConteoViajesConductorEntity(Long idConductor, Long numViajes) {
+        this.idConductor = idConductor;
+        this.numViajes = numViajes;
+    }
+    // Getters y Setters
+    public Long getIdConductor() {
+        return idConductor;
+    }
+    public void setIdConductor(Long idConductor) {
+        this.idConductor = idConductor;
+    }
+    public Long getNumViajes() {
+        return numViajes;
+    }
+    public void setNumViajes(Long numViajes) {
+        this.numViajes = numViajes;
+    }
+}
@@ -8,7 +8,8 @@ import java.time.DayOfWeek;
 public class DisponibilidadEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "DISPONIBILIDADES_SEQ")
+    @SequenceGenerator(name = "DISPONIBILIDADES_SEQ", sequenceName = "DISPONIBILIDADES_SEQ", allocationSize = 50)
     private Long id;
     
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,69 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+import java.util.Date;
+
+// Bandeja de salida (outbox) de los eventos de los viajes: RF8, RF9 y RF10 escriben aquí en su propia
+// transacción, así que un evento existe si y solo si su cambio se confirmó. RelayEventosService los
+// entrega en orden de ID a los consumidores en proceso (ver EventosViajeService).
+@Entity
+@Table(name = "EVENTOS_VIAJE")
+public class EventoViajeEntity {
+
+    public static final String VIAJE_SOLICITADO = "VIAJE_SOLICITADO";
+    public static final String VIAJE_FINALIZADO = "VIAJE_FINALIZADO";
+    public static final String REVISION_REGISTRADA = "REVISION_REGISTRADA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "TIPO", nullable = false)
+    private String tipo;
+
+    // Agregado del evento: los eventos de un mismo viaje se entregan en el orden en que se confirmaron
+    @Column(name = "ID_VIAJE", nullable = false)
+    private Long idViaje;
+
+    // Datos del evento en JSON
+    @Column(name = "DATOS", nullable = false, length = 4000)
+    private String datos;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "CREADO", nullable = false)
+    private Date creado;
+
+    public EventoViajeEntity() {
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public String getTipo() {
+        return tipo;
+    }
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+    public Long getIdViaje() {
+        return idViaje;
+    }
+    public void setIdViaje(Long idViaje) {
+        this.idViaje = idViaje;
+    }
+    public String getDatos() {
+        return datos;
+    }
+    public void setDatos(String datos) {
+        this.datos = datos;
+    }
+    public Date getCreado() {
+        return creado;
+    }
+    public void setCreado(Date creado) {
+        this.creado = creado;
+    }
+}
@@ -0,0 +1,77 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// Ganancias de un conductor ya agregadas por vehículo, tipo de servicio y día (apoyo a RFC3).
+// RF9 suma cada viaje finalizado en la misma transacción; RFC3 lee por la llave (ID_CONDUCTOR, ...)
+// en lugar de recorrer todos los viajes del conductor.
+@Entity
+@Table(name = "GANANCIAS_DIARIAS")
+@IdClass(GananciaDiariaPK.class)
+public class GananciaDiariaEntity {
+    @Id
+    @Column(name = "ID_CONDUCTOR")
+    private Long conductorId;
+    @Id
+    @Column(name = "PLACA")
+    private String placa;
+    @Id
+    @Column(name = "TIPO_SERVICIO")
+    private String tipoServicio;
+    @Id
+    @Column(name = "DIA")
+    private LocalDate dia; // Día en que terminó el viaje (HORA_FIN)
+    @Column(name = "GANANCIA", nullable = false)
+    private Double ganancia; // Parte del conductor (60% del costo total)
+    @Column(name = "NUM_VIAJES", nullable = false)
+    private Long numViajes;
+
+    public GananciaDiariaEntity() {
+    }
+
+    public GananciaDiariaEntity(Long conductorId, String placa, String tipoServicio, LocalDate dia, Double ganancia, Long numViajes) {
+        this.conductorId = conductorId;
+        this.placa = placa;
+        this.tipoServicio = tipoServicio;
+        this.dia = dia;
+        this.ganancia = ganancia;
+        this.numViajes = numViajes;
+    }
+    // Getters y Setters
+    public Long getConductorId() {
+        return conductorId;
+    }
+    public void setConductorId(Long conductorId) {
+        this.conductorId = conductorId;
+    }
+    public String getPlaca() {
+        return placa;
+    }
+    public void setPlaca(String placa) {
+        this.placa = placa;
+    }
+    public String getTipoServicio() {
+        return tipoServicio;
+    }
+    public void setTipoServicio(String tipoServicio) {
+        this.tipoServicio = tipoServicio;
+    }
+    public LocalDate getDia() {
+        return dia;
+    }
+    public void setDia(LocalDate dia) {
+        this.dia = dia;
+    }
+    public Double getGanancia() {
+        return ganancia;
+    }
+    public void setGanancia(Double ganancia) {
+        this.ganancia = ganancia;
+    }
+    public Long getNumViajes() {
+        return numViajes;
+    }
+    public void setNumViajes(Long numViajes) {
+        this.numViajes = numViajes;
+    }
+}
@@ -0,0 +1,35 @@
+package uniandes.edu.co.proyecto.entities;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Llave de GananciaDiariaEntity: conductor, vehículo, tipo de servicio y día
+public class GananciaDiariaPK implements Serializable {
+    private Long conductorId;
+    private String placa;
+    private String tipoServicio;
+    private LocalDate dia;
+
+    public GananciaDiariaPK() {
+    }
+
+    public GananciaDiariaPK(Long conductorId, String placa, String tipoServicio, LocalDate dia) {
+        this.conductorId = conductorId;
+        this.placa = placa;
+        this.tipoServicio = tipoServicio;
+        this.dia = dia;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GananciaDiariaPK otra)) return false;
+        return Objects.equals(conductorId, otra.conductorId) && Objects.equals(placa, otra.placa)
+            && Objects.equals(tipoServicio, otra.tipoServicio) && Objects.equals(dia, otra.dia);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(conductorId, placa, tipoServicio, dia);
+    }
+}
@@ -0,0 +1,105 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+import java.util.Date;
+
+// Punto de control de una importación de viajes históricos (ver ImportacionViajesService).
+// POSICION es el byte del archivo hasta el que las filas ya quedaron confirmadas; se actualiza en la
+// misma transacción que inserta cada bloque, así que al reanudar no se repite ni se pierde ninguna fila.
+@Entity
+@Table(name = "IMPORTACIONES_VIAJES")
+public class ImportacionViajesEntity {
+
+    public static final String EN_CURSO = "EN_CURSO";
+    public static final String TERMINADA = "TERMINADA";
+
+    // Identificador que elige quien importa (p. ej. el nombre del archivo)
+    @Id
+    @Column(name = "ID", length = 100)
+    private String id;
+
+    @Column(name = "FORMATO", nullable = false)
+    private String formato;
+
+    @Column(name = "ESTADO", nullable = false)
+    private String estado;
+
+    @Column(name = "POSICION", nullable = false)
+    private Long posicion;
+
+    // Última línea confirmada, para numerar los errores al reanudar
+    @Column(name = "LINEA", nullable = false)
+    private Long linea;
+
+    @Column(name = "FILAS_IMPORTADAS", nullable = false)
+    private Long filasImportadas;
+
+    @Column(name = "FILAS_CON_ERROR", nullable = false)
+    private Long filasConError;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "ACTUALIZADA", nullable = false)
+    private Date actualizada;
+
+    public ImportacionViajesEntity() {
+    }
+
+    public ImportacionViajesEntity(String id, String formato) {
+        this.id = id;
+        this.formato = formato;
+        this.estado = EN_CURSO;
+        this.posicion = 0L;
+        this.linea = 0L;
+        this.filasImportadas = 0L;
+        this.filasConError = 0L;
+        this.actualizada = new Date();
+    }
+    // Getters y Setters
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+    public String getFormato() {
+        return formato;
+    }
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+    public String getEstado() {
+        return estado;
+    }
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+    public Long getPosicion() {
+        return posicion;
+    }
+    public void setPosicion(Long posicion) {
+        this.posicion = posicion;
+    }
+    public Long getLinea() {
+        return linea;
+    }
+    public void setLinea(Long linea) {
+        this.linea = linea;
+    }
+    public Long getFilasImportadas() {
+        return filasImportadas;
+    }
+    public void setFilasImportadas(Long filasImportadas) {
+        this.filasImportadas = filasImportadas;
+    }
+    public Long getFilasConError() {
+        return filasConError;
+    }
+    public void setFilasConError(Long filasConError) {
+        this.filasConError = filasConError;
+    }
+    public Date getActualizada() {
+        return actualizada;
+    }
+    public void setActualizada(Date actualizada) {
+        this.actualizada = actualizada;
+    }
+}
@@ -7,7 +7,8 @@ import java.util.Date;
 public class MediosPagoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MEDIOS_DE_PAGO_SEQ")
+    @SequenceGenerator(name = "MEDIOS_DE_PAGO_SEQ", sequenceName = "MEDIOS_DE_PAGO_SEQ", allocationSize = 50)
     private Long id;
 
     // Número de tarjeta (debería ser encriptado en un proyecto real, aquí solo se registra)
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 public class PuntoGeoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "PUNTOS_GEOGRAFICOS_SEQ")
+    @SequenceGenerator(name = "PUNTOS_GEOGRAFICOS_SEQ", sequenceName = "PUNTOS_GEOGRAFICOS_SEQ", allocationSize = 50)
     private Long id;
 
     @Column(name = "NOMBRE")
@@ -1,5 +1,6 @@
 package uniandes.edu.co.proyecto.entities;
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 @Entity
 @Table(name = "REVISION") 
 public class RevisionEntity {
@@ -15,6 +16,8 @@ public class RevisionEntity {
     private String comentario; // Comentario de texto
     
     // Relación: La revisión siempre se hace sobre un servicio prestado.
+    // No se serializa: el servicio ya incluye su revisión (evita la recursión servicio -> revisión -> servicio)
+    @JsonIgnore
     @OneToOne(fetch = FetchType.LAZY)
     
     @JoinColumn(name = "ID_VIAJE", nullable = false, unique = true) // Una revisión por servicio
@@ -33,6 +33,11 @@ public class ServicioEntity {
     @Column(name = "LONGITUD_TRAYECTO") 
     private Double longitudTrayecto; // Distancia recorrida
 
+    // Control de concurrencia optimista (evita que dos RF9 finalicen el mismo viaje)
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
     // Relaciones de muchos a uno
 
     // Conductor asignado
@@ -167,6 +172,12 @@ public class ServicioEntity {
     public void setPuntoLlegadaFinal(PuntoGeoEntity puntoLlegadaFinal) {
         this.puntoLlegadaFinal = puntoLlegadaFinal;
     }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
     public RevisionEntity getRevision() {
         return revision;
     }
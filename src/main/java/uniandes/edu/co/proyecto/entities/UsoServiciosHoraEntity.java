@@ -0,0 +1,57 @@
+package uniandes.edu.co.proyecto.entities;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Número de viajes iniciados por ciudad (del punto de partida), tipo de servicio y hora (apoyo a RFC4).
+// RFC4 suma las horas del rango en lugar de recorrer y agrupar la tabla VIAJE.
+@Entity
+@Table(name = "USO_SERVICIOS_HORA")
+@IdClass(UsoServiciosHoraPK.class)
+public class UsoServiciosHoraEntity {
+    @Id
+    @Column(name = "ID_CIUDAD")
+    private Long ciudadId;
+    @Id
+    @Column(name = "TIPO_SERVICIO")
+    private String tipoServicio;
+    @Id
+    @Column(name = "HORA")
+    private LocalDateTime hora; // Inicio de la hora (minutos y segundos en cero)
+    @Column(name = "NUM_VIAJES", nullable = false)
+    private Long numViajes;
+
+    public UsoServiciosHoraEntity() {
+    }
+
+    public UsoServiciosHoraEntity(Long ciudadId, String tipoServicio, LocalDateTime hora, Long numViajes) {
+        this.ciudadId = ciudadId;
+        this.tipoServicio = tipoServicio;
+        this.hora = hora;
+        this.numViajes = numViajes;
+    }
+    // Getters y Setters
+    public Long getCiudadId() {
+        return ciudadId;
+    }
+    public void setCiudadId(Long ciudadId) {
+        this.ciudadId = ciudadId;
+    }
+    public String getTipoServicio() {
+        return tipoServicio;
+    }
+    public void setTipoServicio(String tipoServicio) {
+        this.tipoServicio = tipoServicio;
+    }
+    public LocalDateTime getHora() {
+        return hora;
+    }
+    public void setHora(LocalDateTime hora) {
+        this.hora = hora;
+    }
+    public Long getNumViajes() {
+        return numViajes;
+    }
+    public void setNumViajes(Long numViajes) {
+        this.numViajes = numViajes;
+    }
+}
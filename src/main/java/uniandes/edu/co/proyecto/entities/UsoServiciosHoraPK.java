@@ -0,0 +1,33 @@
+package uniandes.edu.co.proyecto.entities;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Llave de UsoServiciosHoraEntity: ciudad, tipo de servicio y hora
+public class UsoServiciosHoraPK implements Serializable {
+    private Long ciudadId;
+    private String tipoServicio;
+    private LocalDateTime hora;
+
+    public UsoServiciosHoraPK() {
+    }
+
+    public UsoServiciosHoraPK(Long ciudadId, String tipoServicio, LocalDateTime hora) {
+        this.ciudadId = ciudadId;
+        this.tipoServicio = tipoServicio;
+        this.hora = hora;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UsoServiciosHoraPK otra)) return false;
+        return Objects.equals(ciudadId, otra.ciudadId) && Objects.equals(tipoServicio, otra.tipoServicio)
+            && Objects.equals(hora, otra.hora);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ciudadId, tipoServicio, hora);
+    }
+}
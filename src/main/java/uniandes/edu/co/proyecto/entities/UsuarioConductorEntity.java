@@ -1,13 +1,18 @@
 package uniandes.edu.co.proyecto.entities;
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 import java.util.ArrayList;
 @Entity
 @DiscriminatorValue("CONDUCTOR")
 public class UsuarioConductorEntity extends UsuarioEntity {   
+    // No se serializa: es LAZY y cada vehículo ya referencia a su conductor (evita ciclos y cargas
+    // fuera de la sesión, p. ej. en las respuestas del despacho por lotes)
+    @JsonIgnore
     @OneToMany(mappedBy = "conductor", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<VehiculoEntity> vehiculos = new ArrayList<>();
-    @Column(name = "ESTADO_DISPONIBLE", nullable = false)
+    // Columna de subclase en SINGLE_TABLE: las filas de clientes la dejan en NULL
+    @Column(name = "ESTADO_DISPONIBLE")
     private boolean estadoDisponible = true; 
     public UsuarioConductorEntity() {
         super();
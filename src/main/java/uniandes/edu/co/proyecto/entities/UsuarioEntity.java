@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @DiscriminatorColumn(name = "TIPO_USUARIO", discriminatorType = DiscriminatorType.STRING)
 public abstract class UsuarioEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "USUARIOS_SEQ")
+    @SequenceGenerator(name = "USUARIOS_SEQ", sequenceName = "USUARIOS_SEQ", allocationSize = 50)
     private Long id;
     @Column(name = "NOMBRE", nullable = false)
     private String nombre;
@@ -16,6 +17,11 @@ public abstract class UsuarioEntity {
     private String numeroCelular;
     @Column(name = "NUMERO_CEDULA", nullable = false, unique = true)
     private String numeroCedula;    
+    // Control de concurrencia optimista. Con SINGLE_TABLE debe declararse en la raíz de la jerarquía;
+    // RF8/RF9 lo incrementan al cambiar ESTADO_DISPONIBLE de los conductores con UPDATE condicionados.
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
     public UsuarioEntity() {
     }
     public UsuarioEntity(String nombre, String correoElectronico, String numeroCelular, String numeroCedula) {
@@ -54,4 +60,10 @@ public abstract class UsuarioEntity {
     public void setNumeroCedula(String numeroCedula) {
         this.numeroCedula = numeroCedula;
     }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
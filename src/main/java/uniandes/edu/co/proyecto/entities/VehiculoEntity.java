@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 public class VehiculoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "VEHICULOS_SEQ")
+    @SequenceGenerator(name = "VEHICULOS_SEQ", sequenceName = "VEHICULOS_SEQ", allocationSize = 50)
     private Long id;
 
     @Column(name = "TIPO", nullable = false)
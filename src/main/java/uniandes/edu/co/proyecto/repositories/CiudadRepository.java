@@ -1,8 +1,20 @@
 package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.CiudadEntity;    
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
 @Repository
 public interface CiudadRepository extends JpaRepository<CiudadEntity, Long> {   
     CiudadEntity findByNombre(String nombre);
+
+    // Registro masivo: nombres y IDs que ya existen entre los pedidos
+    @Query("SELECT c.nombre FROM CiudadEntity c WHERE c.nombre IN :nombres")
+    List<String> findNombresExistentes(@Param("nombres") Collection<String> nombres);
+
+    @Query("SELECT c.id FROM CiudadEntity c WHERE c.id IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
 }
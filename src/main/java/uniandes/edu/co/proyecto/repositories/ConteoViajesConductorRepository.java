@@ -0,0 +1,16 @@
+package uniandes.edu.co.proyecto.repositories;
+import uniandes.edu.co.proyecto.entities.ConteoViajesConductorEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ConteoViajesConductorRepository extends JpaRepository<ConteoViajesConductorEntity, Long> {
+
+    // RF8: suma un viaje al conductor. Retorna 0 si el conductor aún no tiene contador.
+    @Modifying
+    @Query("UPDATE ConteoViajesConductorEntity c SET c.numViajes = c.numViajes + 1 WHERE c.idConductor = :conductorId")
+    int incrementar(@Param("conductorId") Long conductorId);
+}
@@ -2,6 +2,7 @@ package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.*;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.DayOfWeek;
@@ -23,6 +24,11 @@ public interface DisponibilidadRepository extends JpaRepository<DisponibilidadEn
         "(:horaInicio < d.horaFin AND :horaFin > d.horaInicio)")
     List<DisponibilidadEntity> findSuperposedDisponibilidadExcluyendoId(Long idExcluir, VehiculoEntity vehiculo, DayOfWeek dia, LocalTime horaInicio, LocalTime horaFin);
 
+    // Carga de las franjas de un vehículo en IndiceDisponibilidadService (RF5/RF6).
+    // Retorna [id, diaSemana, horaInicio, horaFin]
+    @Query("SELECT d.id, d.diaSemana, d.horaInicio, d.horaFin FROM DisponibilidadEntity d WHERE d.vehiculo.id = :vehiculoId")
+    List<Object[]> findFranjasPorVehiculo(@Param("vehiculoId") Long vehiculoId);
+
     // Método para buscar disponibilidad por vehículo, día y hora de inicio (útil para consultas)
     DisponibilidadEntity findByVehiculoAndDiaSemanaAndHoraInicio(VehiculoEntity vehiculo, DayOfWeek diaSemana, LocalTime horaInicio);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package uniandes.edu.co.proyecto.repositories;
+import uniandes.edu.co.proyecto.entities.GananciaDiariaEntity;
+import uniandes.edu.co.proyecto.entities.GananciaDiariaPK;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface GananciaDiariaRepository extends JpaRepository<GananciaDiariaEntity, GananciaDiariaPK> {
+
+    // RF9: suma un viaje finalizado. Retorna 0 si aún no hay fila para ese día.
+    // El CAST explícito evita que Hibernate genere un cast a float con precisión que H2 no acepta.
+    @Modifying
+    @Query("UPDATE GananciaDiariaEntity g SET g.ganancia = g.ganancia + CAST(:ganancia AS Double), g.numViajes = g.numViajes + 1 " +
+           "WHERE g.conductorId = :conductorId AND g.placa = :placa AND g.tipoServicio = :tipoServicio AND g.dia = :dia")
+    int sumar(@Param("conductorId") Long conductorId, @Param("placa") String placa, @Param("tipoServicio") String tipoServicio,
+              @Param("dia") LocalDate dia, @Param("ganancia") Double ganancia);
+
+    @Modifying
+    @Query("INSERT INTO GananciaDiariaEntity (conductorId, placa, tipoServicio, dia, ganancia, numViajes) " +
+           "VALUES (:conductorId, :placa, :tipoServicio, :dia, :ganancia, 1L)")
+    int insertar(@Param("conductorId") Long conductorId, @Param("placa") String placa, @Param("tipoServicio") String tipoServicio,
+                 @Param("dia") LocalDate dia, @Param("ganancia") Double ganancia);
+
+    // --- RFC3: ganancias del conductor por vehículo y tipo de servicio entre dos días (inclusive)
+    // Retorna [placa, tipoServicio, ganancias]
+    @Query("SELECT g.placa, g.tipoServicio, SUM(g.ganancia) FROM GananciaDiariaEntity g " +
+           "WHERE g.conductorId = :conductorId AND g.dia BETWEEN :desde AND :hasta " +
+           "GROUP BY g.placa, g.tipoServicio ORDER BY g.placa, g.tipoServicio")
+    List<Object[]> findGanancias(@Param("conductorId") Long conductorId, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // --- RFC3 por día. Retorna [placa, tipoServicio, dia, ganancias]
+    @Query("SELECT g.placa, g.tipoServicio, g.dia, g.ganancia FROM GananciaDiariaEntity g " +
+           "WHERE g.conductorId = :conductorId AND g.dia BETWEEN :desde AND :hasta " +
+           "ORDER BY g.dia, g.placa, g.tipoServicio")
+    List<Object[]> findGananciasPorDia(@Param("conductorId") Long conductorId, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
@@ -0,0 +1,8 @@
+package uniandes.edu.co.proyecto.repositories;
+import uniandes.edu.co.proyecto.entities.ImportacionViajesEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportacionViajesRepository extends JpaRepository<ImportacionViajesEntity, String> {
+}
@@ -1,8 +1,26 @@
 package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PuntoGeoRepository extends JpaRepository<PuntoGeoEntity, Long> {
     PuntoGeoEntity findByDireccion(String direccion);
+
+    // Carga del índice espacial. Retorna [id, latitud, longitud]
+    @Query("SELECT p.id, p.latitud, p.longitud FROM PuntoGeoEntity p")
+    List<Object[]> findCoordenadas();
+
+    // Cotizaciones: [id, latitud, longitud] de los puntos pedidos
+    @Query("SELECT p.id, p.latitud, p.longitud FROM PuntoGeoEntity p WHERE p.id IN :ids")
+    List<Object[]> findCoordenadasById(@Param("ids") Collection<Long> ids);
+
+    // RF8: Partida y paradas con su ciudad en una sola consulta (findAllById cargaría cada ciudad aparte)
+    @Query("SELECT p FROM PuntoGeoEntity p JOIN FETCH p.ciudad WHERE p.id IN :ids")
+    List<PuntoGeoEntity> findAllConCiudadById(@Param("ids") Collection<Long> ids);
 }
@@ -1,10 +1,17 @@
 package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface RevisionRepository extends JpaRepository<RevisionEntity, Long> {
     // Buscar si ya existe una revisión para un servicio (solo puede haber una)   
     RevisionEntity findByServicio_Id(Long servicioId); 
+
+    // Conductores que han recibido al menos una revisión (los que entran al ranking)
+    @Query("SELECT DISTINCT c.id FROM RevisionEntity r JOIN UsuarioConductorEntity c ON c.id = r.revisado.id")
+    List<Long> findConductoresRevisados();
 }
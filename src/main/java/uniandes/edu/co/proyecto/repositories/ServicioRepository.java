@@ -1,12 +1,17 @@
 package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ServicioRepository extends JpaRepository<ServicioEntity, Long> {
@@ -14,37 +19,61 @@ public interface ServicioRepository extends JpaRepository<ServicioEntity, Long>
     // --- RFC1: Consultar el histórico de todos los servicios pedidos por un usuario
     List<ServicioEntity> findByUsuarioCliente(UsuarioServicioEntity usuarioCliente);
 
-    // --- RFC2: Mostrar los 20 usuarios conductores que más servicios han prestado
-    // Retorna una lista de arreglos [conductorId, numeroServicios] o se mapea a un DTO.
-    @Query(value = "SELECT s.ID_CONDUCTOR, COUNT(s.ID) AS num_servicios " +
-                   "FROM SERVICIOS s " +
-                   "GROUP BY s.ID_CONDUCTOR " +
-                   "ORDER BY num_servicios DESC " +
-                   "FETCH FIRST 20 ROWS ONLY", // Sintaxis de Oracle 12c para LIMIT/TOP
-           nativeQuery = true)
-    List<Object[]> findTop20Conductores();
-
-
-    // --- RFC3: Dinero obtenido por usuarios conductores por vehículo y tipo de servicio
-    // Se debe restar la comisión de ALPESCAB (40% para el conductor = 60% del valor total [cite: 37])
-    @Query(value = "SELECT v.PLACA, s.TIPO_SERVICIO, SUM(s.COSTO_TOTAL * 0.60) AS ganancias " +
-                   "FROM SERVICIOS s JOIN VEHICULOS v ON s.ID_VEHICULO = v.ID " +
-                   "WHERE v.ID_CONDUCTOR = :conductorId " +
-                   "GROUP BY v.PLACA, s.TIPO_SERVICIO",
-           nativeQuery = true)
-    List<Object[]> findGananciasConductorPorVehiculoYServicio(@Param("conductorId") Long conductorId);
-
-    // --- RFC4: Utilización de servicios en una ciudad durante un rango de fechas
-    @Query(value = "SELECT s.TIPO_SERVICIO, COUNT(s.ID) AS num_servicios_ciudad, " +
-                   "       (CAST(COUNT(s.ID) AS DECIMAL) * 100 / (SELECT COUNT(ID) FROM SERVICIOS WHERE HORA_INICIO BETWEEN :fechaInicio AND :fechaFin)) AS porcentaje_uso " +
-                   "FROM SERVICIOS s JOIN PUNTOS_GEOGRAFICOS pg ON s.ID_PUNTO_PARTIDA = pg.ID " +
-                   "JOIN CIUDADES c ON pg.ID_CIUDAD = c.ID " +
-                   "WHERE c.NOMBRE = :ciudadNombre AND s.HORA_INICIO BETWEEN :fechaInicio AND :fechaFin " +
-                   "GROUP BY s.TIPO_SERVICIO " +
-                   "ORDER BY num_servicios_ciudad DESC",
-           nativeQuery = true)
-    List<Object[]> findUsoServiciosPorCiudadYRango(
-            @Param("ciudadNombre") String ciudadNombre,
-            @Param("fechaInicio") Date fechaInicio,
-            @Param("fechaFin") Date fechaFin);
+    // --- RFC1 (pruebas de aislamiento): resumen escalar de los viajes del cliente.
+    // Al no ser entidades, cada lectura va a la BD y no la enmascara el contexto de persistencia.
+    // Retorna [id, horaInicio, horaFin, costoTotal, version]
+    @Query("SELECT s.id, s.horaInicio, s.horaFin, s.costoTotal, s.version FROM ServicioEntity s " +
+           "WHERE s.usuarioCliente.id = :clienteId ORDER BY s.id")
+    List<Object[]> findResumenPorCliente(@Param("clienteId") Long clienteId);
+
+    // --- RFC1 plano (equivale a la consulta de RFC1 en sql/rfc.sql): una sola consulta con todos los datos
+    // del viaje, sin cargar entidades. Retorna [id, tipoServicio, horaInicio, horaFin, longitudTrayecto,
+    // costoTotal, nombrePasajero, correoPasajero, nombreConductor, correoConductor, marca, modelo, placa,
+    // nivelAsignado, direccionInicio, direccionFin, calificacion, comentario]
+    @Query("SELECT s.id, s.tipoServicio, s.horaInicio, s.horaFin, s.longitudTrayecto, s.costoTotal, " +
+           "p.nombre, p.correoElectronico, c.nombre, c.correoElectronico, " +
+           "v.marca, v.modelo, v.placa, v.nivelAsignado, pi.direccion, pf.direccion, r.calificacion, r.comentario " +
+           "FROM ServicioEntity s JOIN s.usuarioCliente p JOIN s.conductor c JOIN s.vehiculo v " +
+           "JOIN s.puntoPartida pi LEFT JOIN s.puntoLlegadaFinal pf LEFT JOIN s.revision r " +
+           "WHERE p.id = :clienteId ORDER BY s.horaInicio DESC, s.id DESC")
+    List<Object[]> findHistoricoPlano(@Param("clienteId") Long clienteId);
+
+    // --- RFC1 paginado por llave (HORA_INICIO, ID), del viaje más reciente al más antiguo.
+    // Las relaciones a uno se traen en la misma consulta para no hacer una consulta por viaje.
+    String HISTORICO_CON_RELACIONES = "SELECT s FROM ServicioEntity s JOIN FETCH s.conductor JOIN FETCH s.usuarioCliente " +
+           "JOIN FETCH s.vehiculo JOIN FETCH s.puntoPartida LEFT JOIN FETCH s.puntoLlegadaFinal LEFT JOIN FETCH s.revision ";
+
+    @Query(HISTORICO_CON_RELACIONES + "WHERE s.usuarioCliente.id = :clienteId ORDER BY s.horaInicio DESC, s.id DESC")
+    List<ServicioEntity> findPrimeraPaginaHistorico(@Param("clienteId") Long clienteId, Pageable pagina);
+
+    // Página que sigue al último viaje entregado (horaInicio, id)
+    @Query(HISTORICO_CON_RELACIONES + "WHERE s.usuarioCliente.id = :clienteId " +
+           "AND (s.horaInicio < :horaInicio OR (s.horaInicio = :horaInicio AND s.id < :id)) " +
+           "ORDER BY s.horaInicio DESC, s.id DESC")
+    List<ServicioEntity> findPaginaHistoricoDespuesDe(@Param("clienteId") Long clienteId, @Param("horaInicio") Date horaInicio,
+                                                     @Param("id") Long id, Pageable pagina);
+
+    // --- RFC1 en streaming: el driver trae las filas por bloques de FETCH_SIZE mientras se recorre el Stream.
+    // Debe consumirse dentro de una transacción y cerrarse al terminar.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(HISTORICO_CON_RELACIONES + "WHERE s.usuarioCliente.id = :clienteId ORDER BY s.horaInicio DESC, s.id DESC")
+    Stream<ServicioEntity> streamHistorico(@Param("clienteId") Long clienteId);
+
+    // --- Apoyo a RF8: última ubicación conocida de cada conductor (punto de llegada de su último viaje terminado)
+    // Retorna [conductorId, latitud, longitud]
+    @Query("SELECT s.conductor.id, pf.latitud, pf.longitud FROM ServicioEntity s JOIN s.puntoLlegadaFinal pf " +
+           "WHERE s.horaFin = (SELECT MAX(s2.horaFin) FROM ServicioEntity s2 WHERE s2.conductor = s.conductor)")
+    List<Object[]> findUltimaUbicacionConductores();
+
+    // --- RFC2: Los 20 usuarios conductores que más servicios han prestado se leen de
+    // TopConductoresService (contadores por conductor mantenidos por RF8 y reconciliados desde VIAJE).
+
+    // --- RFC3: El dinero obtenido por cada conductor por vehículo y tipo de servicio se lee de
+    // GananciaDiariaRepository (ganancias agregadas por día que mantiene RF9).
+
+    // --- RFC4: La utilización de servicios en una ciudad se suma desde UsoServiciosHoraRepository
+    // (viajes por ciudad, tipo de servicio y hora que registra RF8).
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package uniandes.edu.co.proyecto.repositories;
+import uniandes.edu.co.proyecto.entities.UsoServiciosHoraEntity;
+import uniandes.edu.co.proyecto.entities.UsoServiciosHoraPK;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UsoServiciosHoraRepository extends JpaRepository<UsoServiciosHoraEntity, UsoServiciosHoraPK> {
+
+    // Volcado de los contadores de RF8. Retorna 0 si la hora aún no tiene fila.
+    @Modifying
+    @Query("UPDATE UsoServiciosHoraEntity u SET u.numViajes = u.numViajes + :cantidad " +
+           "WHERE u.ciudadId = :ciudadId AND u.tipoServicio = :tipoServicio AND u.hora = :hora")
+    int sumar(@Param("ciudadId") Long ciudadId, @Param("tipoServicio") String tipoServicio,
+              @Param("hora") LocalDateTime hora, @Param("cantidad") Long cantidad);
+
+    // --- RFC4: viajes por tipo de servicio en una ciudad, sumando las horas de [desde, hasta)
+    // Retorna [tipoServicio, numViajes]
+    @Query("SELECT u.tipoServicio, SUM(u.numViajes) FROM UsoServiciosHoraEntity u " +
+           "WHERE u.ciudadId IN (SELECT c.id FROM CiudadEntity c WHERE c.nombre = :ciudadNombre) " +
+           "AND u.hora >= :desde AND u.hora < :hasta " +
+           "GROUP BY u.tipoServicio ORDER BY SUM(u.numViajes) DESC, u.tipoServicio")
+    List<Object[]> findUsoPorCiudad(@Param("ciudadNombre") String ciudadNombre,
+                                    @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+}
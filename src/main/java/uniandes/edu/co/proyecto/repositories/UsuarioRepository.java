@@ -1,9 +1,14 @@
 package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface UsuarioRepository extends JpaRepository<UsuarioEntity, Long> {
 
@@ -12,5 +17,38 @@ public interface UsuarioRepository extends JpaRepository<UsuarioEntity, Long> {
     @Query("SELECT c FROM UsuarioConductorEntity c WHERE c.estadoDisponible = true")
     // Con la herencia, filtramos por la subclase UsuarioConductor
     UsuarioConductorEntity findConductorDisponible(); 
-}
 
+    // RF8: El usuario y si tiene al menos un medio de pago, en una sola consulta.
+    // Retorna [usuario, tieneMedioDePago] (lista vacía si el usuario no existe)
+    @Query("SELECT u, CASE WHEN EXISTS (SELECT m.id FROM MediosPagoEntity m WHERE m.usuarioDeServicio.id = u.id) " +
+           "THEN true ELSE false END FROM UsuarioEntity u WHERE u.id = :id")
+    List<Object[]> findConMedioDePago(@Param("id") Long id);
+
+    // RF8: Reclamo atómico de un conductor. Solo afecta la fila si sigue disponible,
+    // por lo que dos transacciones concurrentes no pueden tomar al mismo conductor.
+    @Modifying
+    @Query("UPDATE UsuarioConductorEntity c SET c.estadoDisponible = false, c.version = c.version + 1 " +
+           "WHERE c.id = :conductorId AND c.estadoDisponible = true")
+    int reclamarConductor(@Param("conductorId") Long conductorId);
+
+    // RF9: Liberación atómica de un conductor ocupado.
+    @Modifying
+    @Query("UPDATE UsuarioConductorEntity c SET c.estadoDisponible = true, c.version = c.version + 1 " +
+           "WHERE c.id = :conductorId AND c.estadoDisponible = false")
+    int liberarConductor(@Param("conductorId") Long conductorId);
+
+    // Registro masivo: correos y cédulas que ya existen entre los pedidos
+    @Query("SELECT u.correoElectronico FROM UsuarioEntity u WHERE u.correoElectronico IN :correos")
+    List<String> findCorreosExistentes(@Param("correos") Collection<String> correos);
+
+    @Query("SELECT u.numeroCedula FROM UsuarioEntity u WHERE u.numeroCedula IN :cedulas")
+    List<String> findCedulasExistentes(@Param("cedulas") Collection<String> cedulas);
+
+    // Registro masivo de vehículos: [id, estadoDisponible] de los conductores pedidos que existen
+    @Query("SELECT c.id, c.estadoDisponible FROM UsuarioConductorEntity c WHERE c.id IN :ids")
+    List<Object[]> findEstadoConductores(@Param("ids") Collection<Long> ids);
+
+    // Registro masivo de medios de pago: IDs de los clientes pedidos que existen
+    @Query("SELECT c.id FROM UsuarioServicioEntity c WHERE c.id IN :ids")
+    List<Long> findIdsClientesExistentes(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,37 @@
 package uniandes.edu.co.proyecto.repositories;
 import uniandes.edu.co.proyecto.entities.VehiculoEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface VehiculoRepository extends JpaRepository<VehiculoEntity, Long> {
     VehiculoEntity findByPlaca(String placa);
+
+    // Carga del índice de conductores disponibles (RF8).
+    // Retorna [vehiculoId, conductorId, ciudadExpedicionId, nivelAsignado, tipo, capacidadPasajeros]
+    @Query("SELECT v.id, c.id, v.ciudadExpedicion.id, v.nivelAsignado, v.tipo, v.capacidadPasajeros " +
+           "FROM VehiculoEntity v JOIN v.conductor c WHERE c.estadoDisponible = true")
+    List<Object[]> findVehiculosDeConductoresDisponibles();
+
+    // RF8: Vehículo asignado junto con su conductor y ciudad de expedición en una sola consulta
+    @Query("SELECT v FROM VehiculoEntity v JOIN FETCH v.conductor JOIN FETCH v.ciudadExpedicion WHERE v.id = :id")
+    Optional<VehiculoEntity> findConConductorById(@Param("id") Long id);
+
+    // RF5/RF6: bloquea la fila del vehículo hasta el fin de la transacción. Serializa los cambios a las
+    // franjas de un mismo vehículo, que de otro modo podrían verificar la superposición a la vez.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VehiculoEntity v WHERE v.id = :id")
+    Optional<VehiculoEntity> findParaActualizarById(@Param("id") Long id);
+
+    // Registro masivo: placas que ya existen entre las pedidas
+    @Query("SELECT v.placa FROM VehiculoEntity v WHERE v.placa IN :placas")
+    List<String> findPlacasExistentes(@Param("placas") Collection<String> placas);
 }
@@ -0,0 +1,113 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.util.Arrays;
+
+// Asignación óptima (costo total mínimo) entre filas y columnas de una matriz de costos rectangular,
+// por el método húngaro con potenciales. Complejidad O(n² · m) con n = min(filas, columnas).
+// Se usa en el despacho por lotes de RF8: filas = solicitudes, columnas = conductores.
+public final class AlgoritmoHungaro {
+
+    // Costo para pares que no se pueden asignar (p. ej. el conductor no cumple los criterios)
+    public static final double NO_ASIGNABLE = 1e9;
+
+    private AlgoritmoHungaro() {}
+
+    // Retorna, para cada fila, la columna asignada o -1 si la fila queda sin asignar
+    // (hay más filas que columnas, o su único emparejamiento posible es NO_ASIGNABLE).
+    public static int[] asignar(double[][] costos) {
+        int filas = costos.length;
+        int columnas = filas == 0 ? 0 : costos[0].length;
+        int[] asignacion = new int[filas];
+        Arrays.fill(asignacion, -1);
+        if (filas == 0 || columnas == 0) {
+            return asignacion;
+        }
+
+        if (filas <= columnas) {
+            int[] porFila = resolver(costos, filas, columnas);
+            for (int i = 0; i < filas; i++) {
+                asignacion[i] = porFila[i];
+            }
+        } else {
+            // El algoritmo requiere filas <= columnas: se resuelve la transpuesta
+            double[][] transpuesta = new double[columnas][filas];
+            for (int i = 0; i < filas; i++) {
+                for (int j = 0; j < columnas; j++) {
+                    transpuesta[j][i] = costos[i][j];
+                }
+            }
+            int[] porColumna = resolver(transpuesta, columnas, filas);
+            for (int j = 0; j < columnas; j++) {
+                if (porColumna[j] >= 0) {
+                    asignacion[porColumna[j]] = j;
+                }
+            }
+        }
+
+        for (int i = 0; i < filas; i++) {
+            if (asignacion[i] >= 0 && costos[i][asignacion[i]] >= NO_ASIGNABLE) {
+                asignacion[i] = -1;
+            }
+        }
+        return asignacion;
+    }
+
+    // Método húngaro clásico (índices desde 1 internamente), n <= m
+    private static int[] resolver(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];   // p[j] = fila asignada a la columna j
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] usada = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(usada, false);
+            do {
+                usada[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!usada[j]) {
+                        double actual = a[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (actual < minv[j]) {
+                            minv[j] = actual;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (usada[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] porFila = new int[n];
+        Arrays.fill(porFila, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                porFila[p[j] - 1] = j - 1;
+            }
+        }
+        return porFila;
+    }
+}
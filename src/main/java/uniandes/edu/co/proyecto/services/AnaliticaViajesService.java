@@ -0,0 +1,533 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.CiudadEntity;
+import uniandes.edu.co.proyecto.entities.EventoViajeEntity;
+import uniandes.edu.co.proyecto.entities.VehiculoEntity;
+import uniandes.edu.co.proyecto.repositories.CiudadRepository;
+import uniandes.edu.co.proyecto.repositories.VehiculoRepository;
+import uniandes.edu.co.proyecto.controllers.DTO.GananciaConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.TopConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.UtilizacionServiciosDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Motor de analítica en proceso: una instantánea de los hechos de VIAJE en columnas mapeadas en memoria
+// (ColumnasViajes) sobre la que se responden agrupaciones al estilo de RFC2, RFC3 y RFC4 para cualquier
+// rango de fechas, recorriendo todo el histórico en paralelo (fork-join) sin ir a la BD transaccional.
+//
+// - Al iniciar y cada reconstruccion-ms se lee VIAJE completo (de la réplica) a un archivo nuevo.
+// - Los viajes de RF8 y RF9 llegan como eventos de la bandeja de salida (es un ConsumidorEventosViaje),
+//   con el retraso del relay.
+// - Cada delta-ms se agregan los viajes nuevos y se completan los que terminaron desde el último delta,
+//   leyendo VIAJE: recoge lo que no pasa por los eventos (p. ej. la importación de viajes históricos).
+// RFC2-RFC4 siguen leyendo sus tablas agregadas; este motor atiende rangos y cortes que esas tablas no
+// tienen (p. ej. el top de conductores de un mes en una ciudad).
+//
+// La reconstrucción lee VIAJE sin tomar el monitor del servicio: mientras tanto los eventos y los deltas
+// se siguen aplicando a la instantánea vigente, y los eventos se aplican también a la nueva antes de
+// publicarla. Hasta que existe la primera instantánea las consultas responden InstantaneaNoDisponibleException.
+@Service
+public class AnaliticaViajesService implements ConsumidorEventosViaje {
+
+    private static final Logger log = LoggerFactory.getLogger(AnaliticaViajesService.class);
+
+    // Oracle admite hasta 1000 expresiones en una lista IN
+    private static final int MAXIMO_IN = 1000;
+
+    // Retorna [id, conductor, vehículo, ciudad del punto de partida, tipoServicio, horaInicio, horaFin,
+    // longitudTrayecto, costoTotal] en orden de ID
+    private static final String CONSULTA_VIAJES =
+        "SELECT v.ID, v.ID_CONDUCTOR, v.ID_VEHICULO, p.ID_CIUDAD, v.TIPO_SERVICIO, v.HORA_INICIO, v.HORA_FIN, " +
+        "v.LONGITUD_TRAYECTO, v.COSTO_TOTAL FROM VIAJE v JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO " +
+        "WHERE v.ID > ? ORDER BY v.ID";
+
+    public record Estado(int filas, int capacidad, long ultimoViaje, int viajesSinTerminar, Date construida, Date actualizada) {}
+
+    // Aún no hay instantánea (se está construyendo o falló la construcción al iniciar)
+    public static class InstantaneaNoDisponibleException extends IllegalStateException {
+        public InstantaneaNoDisponibleException() {
+            super("La instantánea de analítica de viajes aún se está construyendo.");
+        }
+    }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private CiudadRepository ciudadRepository;
+    @Autowired private VehiculoRepository vehiculoRepository;
+
+    private final TransactionTemplate lecturaReplica;
+    private final ForkJoinPool pool;
+    private final Path directorio;
+    private final int fetchSize;
+
+    // Diccionario de tipos de servicio: el código es la posición en la lista
+    private final List<String> tipos = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> codigos = new HashMap<>();
+
+    // Instantánea vigente; se reemplaza completa al reconstruir
+    private volatile Instantanea actual;
+
+    // Una reconstrucción a la vez; "durante" (con el monitor del servicio) guarda los eventos que llegan
+    // mientras se construye, para aplicarlos también a la nueva instantánea
+    private final Object construccion = new Object();
+    private List<EventosViajeService.EventoViaje> durante;
+    private final AtomicBoolean construccionSolicitada = new AtomicBoolean();
+
+    private static final class Instantanea {
+        final ColumnasViajes columnas;
+        final Path archivo;
+        final Date construida;
+        Date actualizada;
+        // Cada delta lee desde "limite" (el máximo del delta anterior): una identidad más baja puede
+        // confirmarse después que una más alta. "recientes" son los IDs ya agregados por encima del límite,
+        // por un delta o por un evento.
+        long limite;
+        long maximo;
+        Set<Long> recientes = new HashSet<>();
+        // Viajes sin terminar: ID -> fila, para completarlos cuando RF9 los finalice
+        Map<Long, Integer> sinTerminar = new HashMap<>();
+
+        Instantanea(ColumnasViajes columnas, Path archivo) {
+            this.columnas = columnas;
+            this.archivo = archivo;
+            this.construida = new Date();
+            this.actualizada = construida;
+        }
+    }
+
+    public AnaliticaViajesService(PlatformTransactionManager transactionManager,
+                                  @Value("${alpescab.analitica.directorio:${java.io.tmpdir}}") String directorio,
+                                  @Value("${alpescab.analitica.paralelismo:0}") int paralelismo,
+                                  @Value("${alpescab.analitica.fetch-size:5000}") int fetchSize) {
+        this.lecturaReplica = new TransactionTemplate(transactionManager);
+        this.lecturaReplica.setReadOnly(true);
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+        this.directorio = Path.of(directorio);
+        this.fetchSize = fetchSize;
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        pool.shutdownNow();
+        Instantanea instantanea = actual;
+        if (instantanea != null) {
+            descartar(instantanea);
+        }
+    }
+
+    // ---------------------- CONSTRUCCIÓN Y DELTAS ----------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.warn("No fue posible construir la instantánea de analítica de viajes: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alpescab.analitica.reconstruccion-ms:21600000}",
+               initialDelayString = "${alpescab.analitica.reconstruccion-ms:21600000}")
+    public void reconstruirPeriodicamente() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.warn("No fue posible reconstruir la instantánea de analítica de viajes: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alpescab.analitica.delta-ms:300000}",
+               initialDelayString = "${alpescab.analitica.delta-ms:300000}")
+    public void actualizarPeriodicamente() {
+        try {
+            actualizar();
+        } catch (Exception e) {
+            log.warn("No fue posible actualizar la instantánea de analítica de viajes: {}", e.getMessage());
+        }
+    }
+
+    // Lee VIAJE completo a un archivo nuevo y lo publica. Las consultas en curso terminan sobre el anterior.
+    public void reconstruir() throws IOException {
+        synchronized (construccion) {
+            long inicio = System.nanoTime();
+            synchronized (this) {
+                durante = new ArrayList<>();
+            }
+            Instantanea nueva = null;
+            Instantanea anterior;
+            try {
+                // Los viajes por encima del máximo al empezar se registran en "recientes", como en un delta:
+                // un evento o delta posterior no los vuelve a agregar
+                long limite = lecturaReplica.execute(estado -> jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ID), 0) FROM VIAJE", Long.class));
+                long viajes = lecturaReplica.execute(estado -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM VIAJE", Long.class));
+                // Espacio para los deltas hasta la siguiente reconstrucción; si se llena antes, se reconstruye
+                int capacidad = (int) Math.min(ColumnasViajes.CAPACIDAD_MAXIMA, Math.max(viajes + viajes / 4, 100_000));
+                Files.createDirectories(directorio);
+                Path archivo = Files.createTempFile(directorio, "alpescab-viajes-", ".col");
+                nueva = new Instantanea(ColumnasViajes.crear(archivo, capacidad), archivo);
+                nueva.limite = limite;
+                leerViajes(nueva, 0);
+
+                synchronized (this) {
+                    aplicar(nueva, durante);
+                    durante = null;
+                    anterior = actual;
+                    actual = nueva;
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    durante = null;
+                }
+                if (nueva != null) {
+                    descartar(nueva);
+                }
+                throw e;
+            }
+            if (anterior != null) {
+                descartar(anterior);
+            }
+            log.info("Instantánea de analítica construida: {} viajes en {} ms.", nueva.columnas.filas(),
+                (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    // Reconstrucción en segundo plano, para quien no debe esperarla (una consulta o el relay de eventos)
+    private void solicitarConstruccion() {
+        if (construccionSolicitada.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("analitica-construccion").start(() -> {
+                try {
+                    reconstruirPeriodicamente();
+                } finally {
+                    construccionSolicitada.set(false);
+                }
+            });
+        }
+    }
+
+    // Agrega los viajes nuevos y completa los que terminaron desde el último delta
+    public void actualizar() throws IOException {
+        boolean reconstruirla;
+        synchronized (this) {
+            reconstruirla = !actualizar(actual);
+        }
+        if (reconstruirla) {
+            reconstruir();
+        }
+    }
+
+    // Retorna false si no hay instantánea o se llenó
+    private boolean actualizar(Instantanea instantanea) {
+        if (instantanea == null) {
+            return false;
+        }
+        long maximoAnterior = instantanea.maximo;
+        try {
+            leerViajes(instantanea, instantanea.limite);
+        } catch (IllegalStateException llena) {
+            return false;
+        }
+        completarTerminados(instantanea);
+        instantanea.limite = maximoAnterior;
+        instantanea.recientes.removeIf(id -> id <= maximoAnterior);
+        instantanea.actualizada = new Date();
+        return true;
+    }
+
+    // Los viajes por encima del límite se registran en "recientes" y se saltan si ya estaban
+    private void leerViajes(Instantanea instantanea, long desdeId) {
+        lecturaReplica.executeWithoutResult(estado -> jdbcTemplate.query(conexion -> {
+            PreparedStatement sentencia = conexion.prepareStatement(CONSULTA_VIAJES);
+            sentencia.setFetchSize(fetchSize);
+            sentencia.setLong(1, desdeId);
+            return sentencia;
+        }, fila -> {
+            long id = fila.getLong(1);
+            if (id > instantanea.limite && !instantanea.recientes.add(id)) {
+                return; // Ya está en las columnas
+            }
+            Timestamp horaInicio = fila.getTimestamp(6);
+            agregar(instantanea, id, fila.getLong(2), fila.getLong(3), fila.getLong(4), fila.getString(5),
+                horaInicio.getTime() / 1000, duracion(horaInicio, fila.getTimestamp(7)), distancia(fila), fila.getDouble(9));
+        }));
+    }
+
+    private void agregar(Instantanea instantanea, long id, long conductor, long vehiculo, long ciudad, String tipoServicio,
+                         long inicio, int duracion, double distancia, double costo) {
+        int posicion = instantanea.columnas.agregar(conductor, vehiculo, ciudad, codigo(tipoServicio), inicio, duracion, distancia, costo);
+        if (duracion < 0) {
+            instantanea.sinTerminar.put(id, posicion);
+        }
+        instantanea.maximo = Math.max(instantanea.maximo, id);
+    }
+
+    // Vuelve a leer los viajes sin terminar, por bloques de MAXIMO_IN, y completa los que ya tienen horaFin
+    private void completarTerminados(Instantanea instantanea) {
+        List<Long> pendientes = new ArrayList<>(instantanea.sinTerminar.keySet());
+        for (int i = 0; i < pendientes.size(); i += MAXIMO_IN) {
+            List<Long> bloque = pendientes.subList(i, Math.min(i + MAXIMO_IN, pendientes.size()));
+            String marcadores = bloque.stream().map(id -> "?").collect(Collectors.joining(", "));
+            lecturaReplica.executeWithoutResult(estado -> jdbcTemplate.query(
+                "SELECT ID, HORA_INICIO, HORA_FIN, LONGITUD_TRAYECTO, COSTO_TOTAL FROM VIAJE " +
+                "WHERE HORA_FIN IS NOT NULL AND ID IN (" + marcadores + ")",
+                fila -> {
+                    Integer posicion = instantanea.sinTerminar.remove(fila.getLong(1));
+                    instantanea.columnas.terminar(posicion, duracion(fila.getTimestamp(2), fila.getTimestamp(3)),
+                        distancia(fila, 4), fila.getDouble(5));
+                }, bloque.toArray()));
+        }
+    }
+
+    // ---------------------- EVENTOS DE RF8/RF9 ----------------------
+    @Override
+    public String nombre() {
+        return "analitica-viajes";
+    }
+
+    // La instantánea es de esta instancia y se reconstruye desde VIAJE al iniciar
+    @Override
+    public boolean guardaPosicion() {
+        return false;
+    }
+
+    // Un viaje que ya entró por un delta (o un evento repetido) está en "recientes"; los IDs hasta el
+    // límite ya los leyó la reconstrucción o un delta anterior
+    @Override
+    public void consumir(List<EventosViajeService.EventoViaje> eventos) {
+        boolean llena;
+        synchronized (this) {
+            if (durante != null) {
+                durante.addAll(eventos);
+            }
+            Instantanea instantanea = actual;
+            if (instantanea == null) {
+                return; // La reconstrucción los leerá de VIAJE
+            }
+            llena = !aplicar(instantanea, eventos);
+        }
+        if (llena) {
+            solicitarConstruccion();
+        }
+    }
+
+    // Retorna false si la instantánea se llenó (la reconstrucción leerá de VIAJE lo que faltó)
+    private boolean aplicar(Instantanea instantanea, List<EventosViajeService.EventoViaje> eventos) {
+        try {
+            for (EventosViajeService.EventoViaje evento : eventos) {
+                JsonNode datos = evento.datos();
+                if (evento.tipo().equals(EventoViajeEntity.VIAJE_SOLICITADO)) {
+                    if (evento.viajeId() > instantanea.limite && instantanea.recientes.add(evento.viajeId())) {
+                        agregar(instantanea, evento.viajeId(), datos.path("conductorId").asLong(), datos.path("vehiculoId").asLong(),
+                            datos.path("ciudadId").asLong(0), datos.path("tipoServicio").asText(), datos.path("horaInicio").asLong() / 1000,
+                            -1, Double.NaN, datos.path("costoTotal").asDouble());
+                    }
+                } else if (evento.tipo().equals(EventoViajeEntity.VIAJE_FINALIZADO)) {
+                    Integer posicion = instantanea.sinTerminar.remove(evento.viajeId());
+                    if (posicion != null) {
+                        JsonNode longitud = datos.path("longitudTrayecto");
+                        instantanea.columnas.terminar(posicion, datos.path("duracionMinutos").asInt(),
+                            longitud.isNumber() ? longitud.asDouble() : Double.NaN, datos.path("costoTotal").asDouble());
+                    }
+                }
+            }
+        } catch (IllegalStateException llena) {
+            return false;
+        }
+        instantanea.actualizada = new Date();
+        return true;
+    }
+
+    private static int duracion(Timestamp inicio, Timestamp fin) {
+        return fin == null ? -1 : (int) ((fin.getTime() - inicio.getTime()) / 60_000);
+    }
+
+    private static double distancia(ResultSet fila) throws SQLException {
+        return distancia(fila, 8);
+    }
+
+    private static double distancia(ResultSet fila, int columna) throws SQLException {
+        double distancia = fila.getDouble(columna);
+        return fila.wasNull() ? Double.NaN : distancia;
+    }
+
+    private synchronized int codigo(String tipoServicio) {
+        return codigos.computeIfAbsent(tipoServicio, tipo -> {
+            tipos.add(tipo);
+            return tipos.size() - 1;
+        });
+    }
+
+    private static void descartar(Instantanea instantanea) {
+        try {
+            instantanea.columnas.close();
+            Files.deleteIfExists(instantanea.archivo);
+        } catch (IOException e) {
+            // En algunos sistemas un archivo mapeado no puede borrarse hasta liberar el mapeo
+            instantanea.archivo.toFile().deleteOnExit();
+        }
+    }
+
+    public Estado estado() {
+        Instantanea instantanea = instantanea();
+        synchronized (this) {
+            return new Estado(instantanea.columnas.filas(), instantanea.columnas.capacidad(), instantanea.maximo,
+                instantanea.sinTerminar.size(), instantanea.construida, instantanea.actualizada);
+        }
+    }
+
+    // Sin instantánea no se lee VIAJE completo en el hilo de la consulta: se pide la construcción en
+    // segundo plano (si no hay una en curso) y la consulta responde que aún no está disponible
+    private Instantanea instantanea() {
+        Instantanea instantanea = actual;
+        if (instantanea == null) {
+            solicitarConstruccion();
+            throw new InstantaneaNoDisponibleException();
+        }
+        return instantanea;
+    }
+
+    // ---------------------- CONSULTAS ----------------------
+    // Los rangos son días inclusive sobre la hora de inicio del viaje (RFC2, RFC4) o sobre la de fin (RFC3)
+    private static long segundos(LocalDate dia) {
+        return dia.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    // RFC2 en un rango y, opcionalmente, una ciudad: los K conductores con más viajes iniciados
+    public List<TopConductorDTO> topConductores(LocalDate desde, LocalDate hasta, String ciudadNombre, int k) throws Exception {
+        ColumnasViajes columnas = instantanea().columnas;
+        long ciudad = ciudadNombre == null ? -1 : ciudadId(ciudadNombre);
+        long inicio = segundos(desde);
+        long fin = segundos(hasta.plusDays(1));
+        Map<Long, Long> viajes = columnas.recorrer(pool, HashMap::new, (conteo, fila) -> {
+            long hora = columnas.inicio(fila);
+            if (hora >= inicio && hora < fin && (ciudad < 0 || columnas.ciudad(fila) == ciudad)) {
+                conteo.merge(columnas.conductor(fila), 1L, Long::sum);
+            }
+        }, AnaliticaViajesService::sumar);
+
+        // Los K mayores con un montículo de K elementos; empates por ID de conductor, como el top de RF8
+        Comparator<Map.Entry<Long, Long>> orden = Map.Entry.<Long, Long>comparingByValue()
+            .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Long>> top = new PriorityQueue<>(orden);
+        for (Map.Entry<Long, Long> conductor : viajes.entrySet()) {
+            top.add(conductor);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        List<TopConductoresService.Posicion> posiciones = new ArrayList<>();
+        while (!top.isEmpty()) {
+            Map.Entry<Long, Long> conductor = top.poll();
+            posiciones.add(new TopConductoresService.Posicion(conductor.getKey(), conductor.getValue()));
+        }
+        Collections.reverse(posiciones);
+        return ConsultaService.mapearTop(posiciones);
+    }
+
+    // RFC3: ganancias del conductor por vehículo y tipo de servicio de los viajes que terminaron en el rango
+    public List<GananciaConductorDTO> gananciasConductor(Long conductorId, LocalDate desde, LocalDate hasta) {
+        ColumnasViajes columnas = instantanea().columnas;
+        long conductor = conductorId;
+        long inicio = segundos(desde);
+        long fin = segundos(hasta.plusDays(1));
+        // Llave [vehículo, tipo] -> ganancias
+        Map<List<Long>, Double> ganancias = columnas.recorrer(pool, HashMap::new, (suma, fila) -> {
+            int duracion = columnas.duracion(fila);
+            long terminado = columnas.inicio(fila) + duracion * 60L;
+            if (duracion >= 0 && columnas.conductor(fila) == conductor && terminado >= inicio && terminado < fin) {
+                suma.merge(List.of(columnas.vehiculo(fila), (long) columnas.tipo(fila)),
+                    columnas.costo(fila) * ServicioTransaccionalService.PORCENTAJE_CONDUCTOR, Double::sum);
+            }
+        }, (a, b) -> {
+            b.forEach((llave, valor) -> a.merge(llave, valor, Double::sum));
+            return a;
+        });
+
+        Map<Long, String> placas = vehiculoRepository.findAllById(
+                ganancias.keySet().stream().map(llave -> llave.get(0)).collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(VehiculoEntity::getId, VehiculoEntity::getPlaca));
+        List<Object[]> filas = ganancias.entrySet().stream()
+            .map(g -> new Object[] { placas.get(g.getKey().get(0)), tipos.get(g.getKey().get(1).intValue()), g.getValue() })
+            .sorted(Comparator.<Object[], String>comparing(f -> (String) f[0]).thenComparing(f -> (String) f[1]))
+            .collect(Collectors.toList());
+        return ConsultaService.mapearGanancias(filas);
+    }
+
+    // RFC4: viajes por tipo de servicio iniciados en la ciudad en el rango
+    public List<UtilizacionServiciosDTO> usoServicios(String ciudadNombre, LocalDate desde, LocalDate hasta) throws Exception {
+        ColumnasViajes columnas = instantanea().columnas;
+        long ciudad = ciudadId(ciudadNombre);
+        long inicio = segundos(desde);
+        long fin = segundos(hasta.plusDays(1));
+        int numTipos = tipos.size();
+        long[] conteo = columnas.recorrer(pool, () -> new long[numTipos], (parcial, fila) -> {
+            long hora = columnas.inicio(fila);
+            int tipo = columnas.tipo(fila);
+            // Un tipo nuevo agregado durante el recorrido queda para la siguiente consulta
+            if (hora >= inicio && hora < fin && tipo < numTipos && columnas.ciudad(fila) == ciudad) {
+                parcial[tipo]++;
+            }
+        }, (a, b) -> {
+            for (int i = 0; i < a.length; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        });
+
+        List<Object[]> filas = new ArrayList<>();
+        for (int tipo = 0; tipo < numTipos; tipo++) {
+            if (conteo[tipo] > 0) {
+                filas.add(new Object[] { tipos.get(tipo), conteo[tipo] });
+            }
+        }
+        // Como findUsoPorCiudad: más viajes primero, empates por tipo de servicio
+        filas.sort(Comparator.<Object[], Long>comparing(f -> (Long) f[1]).reversed().thenComparing(f -> (String) f[0]));
+        return ConsultaService.mapearUso(filas);
+    }
+
+    private long ciudadId(String nombre) throws Exception {
+        CiudadEntity ciudad = ciudadRepository.findByNombre(nombre);
+        if (ciudad == null) {
+            throw new Exception("No existe la ciudad " + nombre + ".");
+        }
+        return ciudad.getId();
+    }
+
+    private static Map<Long, Long> sumar(Map<Long, Long> a, Map<Long, Long> b) {
+        Map<Long, Long> mayor = a.size() >= b.size() ? a : b;
+        Map<Long, Long> menor = mayor == a ? b : a;
+        menor.forEach((llave, valor) -> mayor.merge(llave, valor, Long::sum));
+        return mayor;
+    }
+}
@@ -0,0 +1,107 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Árbol de intervalos [inicio, fin) de un día de la semana (franjas de DISPONIBILIDADES de un vehículo).
+// Es un árbol rojo-negro ordenado por inicio. RF5/RF6 garantizan que las franjas no se superponen, y
+// entonces el fin también crece con el inicio: la única franja que puede chocar con [inicio, fin) es
+// la de mayor inicio anterior a fin (O(log n)), y los huecos libres salen de recorrer en orden.
+// Si al cargar aparecen franjas superpuestas o invertidas (datos anteriores a la validación), las
+// búsquedas recorren el árbol completo con el mismo criterio de findSuperposedDisponibilidad.
+// No es seguro para hilos: IndiceDisponibilidadService sincroniza el acceso.
+public class ArbolIntervalos {
+
+    public record Franja(long id, LocalTime inicio, LocalTime fin) {}
+
+    public record Hueco(LocalTime inicio, LocalTime fin) {}
+
+    private static final Comparator<Franja> ORDEN =
+        Comparator.comparing(Franja::inicio).thenComparingLong(Franja::id);
+
+    private final NavigableSet<Franja> porInicio = new TreeSet<>(ORDEN);
+    private final Map<Long, Franja> porId = new HashMap<>();
+    private boolean disjuntas = true;
+
+    // Inserta o reemplaza la franja con el mismo ID
+    public void agregar(Franja franja) {
+        quitar(franja.id());
+        if (disjuntas && (!franja.inicio().isBefore(franja.fin()) || primeraSuperpuesta(franja.inicio(), franja.fin(), null) != null)) {
+            disjuntas = false;
+        }
+        porInicio.add(franja);
+        porId.put(franja.id(), franja);
+    }
+
+    public Franja quitar(long id) {
+        Franja anterior = porId.remove(id);
+        if (anterior != null) {
+            porInicio.remove(anterior);
+        }
+        return anterior;
+    }
+
+    public Franja buscar(long id) {
+        return porId.get(id);
+    }
+
+    public int tamano() {
+        return porId.size();
+    }
+
+    // Alguna franja que se superpone con [inicio, fin), ignorando la franja excluirId (RF6); null si no hay
+    public Franja primeraSuperpuesta(LocalTime inicio, LocalTime fin, Long excluirId) {
+        // Franjas con inicio < fin, de la más tardía a la más temprana
+        Iterator<Franja> anteriores = porInicio.headSet(new Franja(Long.MIN_VALUE, fin, fin), false).descendingIterator();
+        while (anteriores.hasNext()) {
+            Franja franja = anteriores.next();
+            if (excluirId != null && franja.id() == excluirId) {
+                continue;
+            }
+            if (inicio.isBefore(franja.fin())) {
+                return franja;
+            }
+            if (disjuntas) {
+                break; // Las anteriores terminan aún más temprano
+            }
+        }
+        return null;
+    }
+
+    // Huecos de al menos minutosMinimos dentro de [desde, hasta) que no cubre ninguna franja
+    public List<Hueco> huecos(LocalTime desde, LocalTime hasta, long minutosMinimos) {
+        List<Hueco> huecos = new ArrayList<>();
+        Iterable<Franja> recorrido = porInicio;
+        Franja previa = porInicio.lower(new Franja(Long.MIN_VALUE, desde, desde));
+        if (disjuntas && previa != null) {
+            recorrido = porInicio.tailSet(previa, true);
+        }
+        LocalTime cursor = desde;
+        for (Franja franja : recorrido) {
+            if (!franja.inicio().isBefore(hasta)) {
+                break;
+            }
+            if (!franja.fin().isAfter(cursor) || !franja.inicio().isBefore(franja.fin())) {
+                continue;
+            }
+            agregarHueco(huecos, cursor, franja.inicio(), minutosMinimos);
+            cursor = franja.fin();
+        }
+        agregarHueco(huecos, cursor, hasta, minutosMinimos);
+        return huecos;
+    }
+
+    private static void agregarHueco(List<Hueco> huecos, LocalTime inicio, LocalTime fin, long minutosMinimos) {
+        if (inicio.isBefore(fin) && Duration.between(inicio, fin).toMinutes() >= minutosMinimos) {
+            huecos.add(new Hueco(inicio, fin));
+        }
+    }
+}
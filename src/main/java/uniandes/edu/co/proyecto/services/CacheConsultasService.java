@@ -0,0 +1,77 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.controllers.DTO.EstadisticasCacheDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+
+// Caché de resultados de ConsultaService (RFC1, RFC3 y RFC4; RFC2 ya se lee de memoria): nombres de las cachés, invalidación por
+// eventos de escritura y estadísticas de aciertos y fallos. Solo se guardan DTO, nunca entidades: un
+// resultado en caché se entrega a todos los llamadores y una entidad se podría modificar.
+// Cada caché tiene su TTL y tamaño máximo (ver config.ConfiguracionCache); el TTL solo acota la
+// antigüedad de lo que no invalida un evento (p. ej. cambios hechos por otra instancia).
+@Service
+public class CacheConsultasService {
+
+    public static final String HISTORICO_PLANO = "historicoPlano";
+    public static final String GANANCIAS_CONDUCTOR = "gananciasConductor";
+    public static final String USO_SERVICIOS = "usoServicios";
+
+    public static final List<String> NOMBRES = List.of(
+        HISTORICO_PLANO, GANANCIAS_CONDUCTOR, USO_SERVICIOS);
+
+    @Autowired private CacheManager cacheManager;
+
+    // Se ejecuta después del commit (o de inmediato si no hay transacción): una consulta que se
+    // cargue después ya ve la escritura.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarViaje(CambioViajeEvent evento) {
+        invalidar(HISTORICO_PLANO, evento.clienteId());
+        // La llave de RFC3 es [conductorId, desde, hasta, porDia]: se quitan todos los rangos del conductor
+        CaffeineCache ganancias = (CaffeineCache) cacheManager.getCache(GANANCIAS_CONDUCTOR);
+        ganancias.getNativeCache().asMap().keySet()
+            .removeIf(llave -> llave instanceof List<?> partes && Objects.equals(partes.get(0), evento.conductorId()));
+    }
+
+    // RFC4 solo cambia cuando UsoServiciosService vuelca sus contadores
+    public void alVolcarUsoServicios() {
+        limpiar(USO_SERVICIOS);
+    }
+
+    // La importación de viajes históricos toca clientes, conductores y horas arbitrarios
+    public void alImportarViajes() {
+        NOMBRES.forEach(this::limpiar);
+    }
+
+    public List<EstadisticasCacheDTO> estadisticas() {
+        return NOMBRES.stream()
+            .map(nombre -> {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> cache =
+                    ((CaffeineCache) cacheManager.getCache(nombre)).getNativeCache();
+                CacheStats stats = cache.stats();
+                return new EstadisticasCacheDTO(nombre, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                    stats.evictionCount(), cache.estimatedSize());
+            })
+            .toList();
+    }
+
+    private void invalidar(String nombre, Object llave) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null && llave != null) {
+            cache.evict(llave);
+        }
+    }
+
+    private void limpiar(String nombre) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
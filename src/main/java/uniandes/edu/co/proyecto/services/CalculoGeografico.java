@@ -0,0 +1,36 @@
+package uniandes.edu.co.proyecto.services;
+
+// Cálculos geográficos compartidos (distancias entre coordenadas en grados decimales).
+public final class CalculoGeografico {
+
+    public static final double RADIO_TIERRA_KM = 6371.0088;
+
+    // Kilómetros por grado de latitud (aprox. constante en toda la Tierra)
+    public static final double KM_POR_GRADO_LATITUD = 111.32;
+
+    private CalculoGeografico() {}
+
+    // Distancia del círculo máximo (fórmula de haversine) en kilómetros
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                 + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                 * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // Versión por lotes: salida[i] = distancia entre (lat1[i], lon1[i]) y (lat2[i], lon2[i]) para i < n.
+    // Recorre arreglos primitivos sin crear objetos ni depender de la iteración anterior, de modo que
+    // el JIT compila un bucle plano (las restas y productos se pueden vectorizar; sin/cos/asin no).
+    public static void haversineKm(double[] lat1, double[] lon1, double[] lat2, double[] lon2, double[] salida, int n) {
+        for (int i = 0; i < n; i++) {
+            double la1 = Math.toRadians(lat1[i]);
+            double la2 = Math.toRadians(lat2[i]);
+            double sLat = Math.sin((la2 - la1) * 0.5);
+            double sLon = Math.sin(Math.toRadians(lon2[i] - lon1[i]) * 0.5);
+            double a = sLat * sLat + Math.cos(la1) * Math.cos(la2) * sLon * sLon;
+            salida[i] = 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.controllers.DTO.PerfilCalificacionDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Calificaciones recibidas por cada usuario (RF10/RF11), mantenidas de forma incremental.
+// RF10/RF11 suma la revisión a CALIFICACIONES_USUARIO (suma, número e histograma por estrellas) dentro
+// de su transacción y, al confirmar, en memoria. El promedio de un conductor se lee en O(1) (RF8 lo
+// usa en cada asignación) y el ranking de conductores se mantiene ordenado.
+// Un trabajo periódico recalcula los agregados desde REVISION y corrige cualquier diferencia.
+@Service
+public class CalificacionesService {
+
+    private static final Logger log = LoggerFactory.getLogger(CalificacionesService.class);
+
+    public static final int ESTRELLAS_MAXIMAS = 5;
+
+    // Calificaciones de un usuario. histograma[i] = revisiones con i estrellas; no se modifica
+    public record Perfil(Long usuarioId, long suma, long numRevisiones, long[] histograma) {
+        public double promedio() {
+            return (double) suma / numRevisiones;
+        }
+
+        Perfil sumar(int calificacion, long cantidad) {
+            long[] nuevo = histograma.clone();
+            nuevo[calificacion] += cantidad;
+            return new Perfil(usuarioId, suma + calificacion * cantidad, numRevisiones + cantidad, nuevo);
+        }
+    }
+
+    // Mejor promedio primero; a igual promedio, más revisiones; luego el menor ID
+    private static final Comparator<Perfil> ORDEN = Comparator
+        .comparingDouble(Perfil::promedio).reversed()
+        .thenComparing(Comparator.comparingLong(Perfil::numRevisiones).reversed())
+        .thenComparing(Perfil::usuarioId);
+
+    @Autowired private RevisionRepository revisionRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    // Penalización de RF8 (en km equivalentes) por cada estrella que le falta al promedio del conductor
+    @Value("${alpescab.calificaciones.km-por-estrella:0.5}")
+    private double kmPorEstrella;
+
+    // usuarioId -> perfil. Se lee sin bloqueo (RF8); se escribe bajo el monitor de la instancia
+    private final Map<Long, Perfil> perfiles = new ConcurrentHashMap<>();
+
+    // Perfiles de los conductores, en ORDEN
+    private final TreeSet<Perfil> ranking = new TreeSet<>(ORDEN);
+    private final Set<Long> conductores = new HashSet<>();
+
+    private volatile boolean construido = false;
+    private final Object construccion = new Object();
+
+    private static final String[] COLUMNAS = { "SUMA", "NUM_REVISIONES",
+        "ESTRELLAS_0", "ESTRELLAS_1", "ESTRELLAS_2", "ESTRELLAS_3", "ESTRELLAS_4", "ESTRELLAS_5" };
+    private static final String AGREGADOS_REVISION = "COALESCE(SUM(CALIFICACION), 0), COUNT(*), " +
+        "COUNT(CASE WHEN CALIFICACION = 0 THEN 1 END), COUNT(CASE WHEN CALIFICACION = 1 THEN 1 END), " +
+        "COUNT(CASE WHEN CALIFICACION = 2 THEN 1 END), COUNT(CASE WHEN CALIFICACION = 3 THEN 1 END), " +
+        "COUNT(CASE WHEN CALIFICACION = 4 THEN 1 END), COUNT(CASE WHEN CALIFICACION = 5 THEN 1 END)";
+
+    private ReconciliacionAgregados reconciliacion;
+
+    @PostConstruct
+    void crearReconciliacion() {
+        reconciliacion = new ReconciliacionAgregados(jdbcTemplate, transactionManager,
+            "CALIFICACIONES_USUARIO", "ID_USUARIO", COLUMNAS,
+            "SELECT ID_REVISADO, " + AGREGADOS_REVISION + " FROM REVISION GROUP BY ID_REVISADO",
+            "SELECT " + AGREGADOS_REVISION + " FROM REVISION WHERE ID_REVISADO = ?");
+    }
+
+    // ---------------------- RF10/RF11: REGISTRO DE UNA REVISIÓN ----------------------
+
+    // Se une a la transacción de RF10/RF11: si la revisión no se confirma, el agregado tampoco.
+    // Dos revisiones simultáneas al mismo usuario se serializan en el UPDATE de su fila; si ninguna
+    // encuentra la fila, la segunda inserción falla por la llave primaria y vuelve a sumar.
+    @Transactional
+    public void registrarRevision(Long usuarioId, int calificacion, boolean esConductor) {
+        if (calificacion < 0 || calificacion > ESTRELLAS_MAXIMAS) {
+            throw new IllegalArgumentException("Calificación fuera de rango: " + calificacion);
+        }
+        if (sumar(usuarioId, calificacion) == 0) {
+            long[] histograma = new long[ESTRELLAS_MAXIMAS + 1];
+            histograma[calificacion] = 1;
+            try {
+                insertar(usuarioId, calificacion, 1, histograma);
+            } catch (DuplicateKeyException e) {
+                sumar(usuarioId, calificacion);
+            }
+        }
+        EventosTransaccion.alConfirmar(() -> sumarEnMemoria(usuarioId, calificacion, esConductor));
+    }
+
+    // La columna del histograma se elige por la calificación, ya validada entre 0 y 5
+    private int sumar(Long usuarioId, int calificacion) {
+        String estrellas = "ESTRELLAS_" + calificacion;
+        return jdbcTemplate.update("UPDATE CALIFICACIONES_USUARIO SET SUMA = SUMA + ?, NUM_REVISIONES = NUM_REVISIONES + 1, " +
+            estrellas + " = " + estrellas + " + 1 WHERE ID_USUARIO = ?", calificacion, usuarioId);
+    }
+
+    private void insertar(Long usuarioId, long suma, long numRevisiones, long[] histograma) {
+        jdbcTemplate.update("INSERT INTO CALIFICACIONES_USUARIO (ID_USUARIO, SUMA, NUM_REVISIONES, ESTRELLAS_0, ESTRELLAS_1, " +
+            "ESTRELLAS_2, ESTRELLAS_3, ESTRELLAS_4, ESTRELLAS_5) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            usuarioId, suma, numRevisiones, histograma[0], histograma[1], histograma[2], histograma[3], histograma[4], histograma[5]);
+    }
+
+    private synchronized void sumarEnMemoria(Long usuarioId, int calificacion, boolean esConductor) {
+        Perfil anterior = perfiles.get(usuarioId);
+        Perfil nuevo = (anterior != null ? anterior : new Perfil(usuarioId, 0, 0, new long[ESTRELLAS_MAXIMAS + 1]))
+            .sumar(calificacion, 1);
+        perfiles.put(usuarioId, nuevo);
+        if (esConductor || conductores.contains(usuarioId)) {
+            conductores.add(usuarioId);
+            if (anterior != null) {
+                ranking.remove(anterior);
+            }
+            ranking.add(nuevo);
+        }
+    }
+
+    // ---------------------- RF8: PROMEDIO EN O(1) ----------------------
+
+    // Promedio de estrellas del usuario; NaN si no tiene revisiones
+    public double promedio(Long usuarioId) {
+        asegurarConstruido();
+        Perfil perfil = perfiles.get(usuarioId);
+        return perfil == null ? Double.NaN : perfil.promedio();
+    }
+
+    // Km que RF8 suma a la distancia de un conductor por su calificación. Un conductor sin revisiones
+    // no se penaliza: aún no hay con qué compararlo.
+    public double penalizacionKm(Long conductorId) {
+        double promedio = promedio(conductorId);
+        return Double.isNaN(promedio) ? 0 : (ESTRELLAS_MAXIMAS - promedio) * kmPorEstrella;
+    }
+
+    // ---------------------- CONSULTAS ----------------------
+
+    public PerfilCalificacionDTO perfil(Long usuarioId) {
+        asegurarConstruido();
+        Perfil perfil = perfiles.get(usuarioId);
+        return perfil == null
+            ? new PerfilCalificacionDTO(usuarioId, null, 0L, mapearHistograma(new long[ESTRELLAS_MAXIMAS + 1]))
+            : mapear(perfil);
+    }
+
+    // Los k conductores mejor calificados con al menos minimoRevisiones revisiones. Recorre el ranking
+    // desde el primero, así que solo pasa por los conductores que se saltan por tener pocas revisiones.
+    public List<PerfilCalificacionDTO> mejoresConductores(int k, long minimoRevisiones) {
+        asegurarConstruido();
+        List<PerfilCalificacionDTO> mejores = new ArrayList<>();
+        synchronized (this) {
+            for (Perfil perfil : ranking) {
+                if (mejores.size() >= k) {
+                    break;
+                }
+                if (perfil.numRevisiones() >= minimoRevisiones) {
+                    mejores.add(mapear(perfil));
+                }
+            }
+        }
+        return mejores;
+    }
+
+    private static PerfilCalificacionDTO mapear(Perfil perfil) {
+        return new PerfilCalificacionDTO(perfil.usuarioId(), perfil.promedio(), perfil.numRevisiones(),
+            mapearHistograma(perfil.histograma()));
+    }
+
+    private static List<Long> mapearHistograma(long[] histograma) {
+        return Arrays.stream(histograma).boxed().toList();
+    }
+
+    // ---------------------- RECONCILIACIÓN DESDE REVISION ----------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            reconciliar();
+        } catch (Exception e) {
+            log.warn("No fue posible construir las calificaciones al iniciar: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alpescab.calificaciones.reconciliacion-ms:600000}",
+               initialDelayString = "${alpescab.calificaciones.reconciliacion-ms:600000}")
+    public void reconciliarPeriodicamente() {
+        try {
+            reconciliar();
+        } catch (Exception e) {
+            log.warn("No fue posible reconciliar las calificaciones: {}", e.getMessage());
+        }
+    }
+
+    // Corrige los agregados que difieran de REVISION con el mismo procedimiento del top de conductores
+    // (ReconciliacionAgregados: no pisa las revisiones concurrentes) y reconstruye la memoria con la tabla.
+    public void reconciliar() {
+        int corregidos = reconciliacion.reconciliar();
+        Map<Long, Perfil> reales = new HashMap<>();
+        reconciliacion.leer().forEach((usuarioId, columnas) -> reales.put(usuarioId,
+            new Perfil(usuarioId, columnas[0], columnas[1], Arrays.copyOfRange(columnas, 2, 2 + ESTRELLAS_MAXIMAS + 1))));
+        log.info("Calificaciones reconciliadas: {} usuarios, {} corregidos.", reales.size(), corregidos);
+        List<Long> revisados = new TransactionTemplate(transactionManager).execute(estado -> revisionRepository.findConductoresRevisados());
+
+        synchronized (this) {
+            // Sin vaciar el mapa: RF8 lo lee sin bloqueo mientras se reemplaza
+            perfiles.keySet().retainAll(reales.keySet());
+            perfiles.putAll(reales);
+            conductores.clear();
+            conductores.addAll(revisados);
+            ranking.clear();
+            for (Long conductorId : conductores) {
+                Perfil perfil = perfiles.get(conductorId);
+                if (perfil != null) {
+                    ranking.add(perfil);
+                }
+            }
+            construido = true;
+        }
+    }
+
+    // Solo el primer hilo construye; los RF8 que llegan mientras tanto esperan a que termine en vez de
+    // agrupar REVISION cada uno
+    private void asegurarConstruido() {
+        if (!construido) {
+            synchronized (construccion) {
+                if (!construido) {
+                    reconciliar();
+                }
+            }
+        }
+    }
+}
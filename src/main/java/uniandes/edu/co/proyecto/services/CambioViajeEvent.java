@@ -0,0 +1,5 @@
+package uniandes.edu.co.proyecto.services;
+
+// Evento de RF8 (solicitud), RF9 (finalización) y RF10 (revisión): un viaje del cliente y del
+// conductor cambió. Invalida los resultados en caché de las consultas que dependen de él.
+public record CambioViajeEvent(Long clienteId, Long conductorId) {}
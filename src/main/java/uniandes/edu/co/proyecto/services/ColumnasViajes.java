@@ -0,0 +1,200 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+// Hechos de los viajes en columnas sobre un archivo mapeado en memoria: cada columna es un arreglo
+// primitivo de "capacidad" posiciones y la fila i de un viaje es la posición i de cada columna.
+// Los datos quedan fuera del heap (los administra el sistema operativo como páginas del archivo).
+//
+// Encabezado de 64 bytes [mágico, versión, filas, capacidad] y luego las columnas, una tras otra:
+// conductor, vehículo y ciudad (long), código del tipo de servicio (int), inicio en segundos desde la
+// época (long), duración en minutos (int, -1 si el viaje no ha terminado), distancia en km (double,
+// NaN si no se conoce) y costo (double).
+//
+// Un solo hilo agrega o actualiza filas; los recorridos pueden correr al mismo tiempo y ven las filas
+// que existían al empezar. Una fila que termina mientras se recorre se ve sin terminar o completa: la
+// duración se publica con escritura release después de la distancia y el costo, y se lee con acquire.
+public final class ColumnasViajes implements AutoCloseable {
+
+    private static final int MAGICO = 0x414C5643;
+    private static final int VERSION = 1;
+    private static final int ENCABEZADO = 64;
+    // Cada columna es un solo mapeo, y un mapeo no puede pasar de 2 GB
+    public static final int CAPACIDAD_MAXIMA = Integer.MAX_VALUE / Long.BYTES;
+
+    // Filas que recorre cada tarea del fork-join sin dividirse más
+    private static final int UMBRAL_RECORRIDO = 1 << 16;
+
+    // Acceso a la columna de duraciones con orden de memoria (release/acquire)
+    private static final VarHandle DURACION = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel canal;
+    private final MappedByteBuffer encabezado;
+    private final int capacidad;
+    private final LongBuffer conductores;
+    private final LongBuffer vehiculos;
+    private final LongBuffer ciudades;
+    private final IntBuffer tipos;
+    private final LongBuffer inicios;
+    private final IntBuffer duraciones;
+    private final ByteBuffer bytesDuraciones;
+    private final DoubleBuffer distancias;
+    private final DoubleBuffer costos;
+    private volatile int filas;
+
+    private ColumnasViajes(FileChannel canal, int capacidad) throws IOException {
+        this.canal = canal;
+        this.capacidad = capacidad;
+        this.encabezado = canal.map(FileChannel.MapMode.READ_WRITE, 0, ENCABEZADO);
+        long posicion = ENCABEZADO;
+        conductores = mapear(posicion, Long.BYTES).asLongBuffer();
+        posicion += (long) capacidad * Long.BYTES;
+        vehiculos = mapear(posicion, Long.BYTES).asLongBuffer();
+        posicion += (long) capacidad * Long.BYTES;
+        ciudades = mapear(posicion, Long.BYTES).asLongBuffer();
+        posicion += (long) capacidad * Long.BYTES;
+        tipos = mapear(posicion, Integer.BYTES).asIntBuffer();
+        posicion += (long) capacidad * Integer.BYTES;
+        inicios = mapear(posicion, Long.BYTES).asLongBuffer();
+        posicion += (long) capacidad * Long.BYTES;
+        bytesDuraciones = mapear(posicion, Integer.BYTES);
+        duraciones = bytesDuraciones.asIntBuffer();
+        posicion += (long) capacidad * Integer.BYTES;
+        distancias = mapear(posicion, Double.BYTES).asDoubleBuffer();
+        posicion += (long) capacidad * Double.BYTES;
+        costos = mapear(posicion, Double.BYTES).asDoubleBuffer();
+    }
+
+    private ByteBuffer mapear(long posicion, int ancho) throws IOException {
+        return canal.map(FileChannel.MapMode.READ_WRITE, posicion, (long) capacidad * ancho).order(ByteOrder.nativeOrder());
+    }
+
+    // Crea el archivo (o lo reemplaza) con espacio para "capacidad" viajes
+    public static ColumnasViajes crear(Path archivo, int capacidad) throws IOException {
+        if (capacidad < 1 || capacidad > CAPACIDAD_MAXIMA) {
+            throw new IllegalArgumentException("Capacidad fuera de rango: " + capacidad);
+        }
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ColumnasViajes columnas = new ColumnasViajes(canal, capacidad);
+            columnas.encabezado.putInt(0, MAGICO).putInt(4, VERSION).putInt(8, 0).putInt(12, capacidad);
+            return columnas;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public int filas() {
+        return filas;
+    }
+
+    public int capacidad() {
+        return capacidad;
+    }
+
+    public boolean llena() {
+        return filas == capacidad;
+    }
+
+    // ---------------------- ESCRITURA (un solo hilo) ----------------------
+    // Retorna la fila del viaje. La fila es visible para los recorridos que empiecen después
+    public int agregar(long conductor, long vehiculo, long ciudad, int tipo, long inicio, int duracion,
+                       double distancia, double costo) {
+        int fila = filas;
+        if (fila == capacidad) {
+            throw new IllegalStateException("Columnas llenas (" + capacidad + " filas).");
+        }
+        conductores.put(fila, conductor);
+        vehiculos.put(fila, vehiculo);
+        ciudades.put(fila, ciudad);
+        tipos.put(fila, tipo);
+        inicios.put(fila, inicio);
+        duraciones.put(fila, duracion);
+        distancias.put(fila, distancia);
+        costos.put(fila, costo);
+        filas = fila + 1;
+        encabezado.putInt(8, fila + 1);
+        return fila;
+    }
+
+    // Un viaje que terminó después de entrar a las columnas (RF9). Un recorrido que lee la duración
+    // nueva ve también la distancia y el costo nuevos
+    public void terminar(int fila, int duracion, double distancia, double costo) {
+        distancias.put(fila, distancia);
+        costos.put(fila, costo);
+        DURACION.setRelease(bytesDuraciones, fila * Integer.BYTES, duracion);
+    }
+
+    // ---------------------- LECTURA ----------------------
+    public long conductor(int fila) { return conductores.get(fila); }
+    public long vehiculo(int fila) { return vehiculos.get(fila); }
+    public long ciudad(int fila) { return ciudades.get(fila); }
+    public int tipo(int fila) { return tipos.get(fila); }
+    public long inicio(int fila) { return inicios.get(fila); }
+    public int duracion(int fila) { return (int) DURACION.getAcquire(bytesDuraciones, fila * Integer.BYTES); }
+    public double distancia(int fila) { return distancias.get(fila); }
+    public double costo(int fila) { return costos.get(fila); }
+
+    // Recorre las filas en paralelo: cada tarea acumula su rango en un resultado propio (nuevo) y los
+    // resultados se combinan de a dos, así que acumular no necesita sincronización
+    public <A> A recorrer(ForkJoinPool pool, Supplier<A> nuevo, ObjIntConsumer<A> acumular, BinaryOperator<A> combinar) {
+        return pool.invoke(new Recorrido<>(0, filas, nuevo, acumular, combinar));
+    }
+
+    private static final class Recorrido<A> extends RecursiveTask<A> {
+        private final int desde;
+        private final int hasta;
+        private final Supplier<A> nuevo;
+        private final ObjIntConsumer<A> acumular;
+        private final BinaryOperator<A> combinar;
+
+        Recorrido(int desde, int hasta, Supplier<A> nuevo, ObjIntConsumer<A> acumular, BinaryOperator<A> combinar) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.nuevo = nuevo;
+            this.acumular = acumular;
+            this.combinar = combinar;
+        }
+
+        @Override
+        protected A compute() {
+            if (hasta - desde <= UMBRAL_RECORRIDO) {
+                A resultado = nuevo.get();
+                for (int fila = desde; fila < hasta; fila++) {
+                    acumular.accept(resultado, fila);
+                }
+                return resultado;
+            }
+            int medio = (desde + hasta) >>> 1;
+            Recorrido<A> izquierda = new Recorrido<>(desde, medio, nuevo, acumular, combinar);
+            izquierda.fork();
+            A derecha = new Recorrido<>(medio, hasta, nuevo, acumular, combinar).compute();
+            return combinar.apply(izquierda.join(), derecha);
+        }
+    }
+
+    // Las páginas mapeadas siguen siendo válidas después de cerrar el canal; se liberan cuando el
+    // recolector descarta los buffers (es decir, cuando termina el último recorrido que los usa)
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,43 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.config.DataSourceEnrutado;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// Lecturas que deben ver escrituras propias. La réplica puede ir atrasada respecto al primario: durante
+// alpescab.replica.retraso-maximo después de un cambio en los viajes de un usuario (RF8, RF9, RF10),
+// las consultas sobre ese usuario se leen del primario. Así tampoco se guarda en la caché de consultas
+// un resultado de la réplica anterior al cambio.
+@Service
+public class ConsistenciaLecturasService {
+
+    // IDs de USUARIOS (clientes y conductores comparten la secuencia) con escrituras recientes
+    private final Cache<Long, Boolean> escriturasRecientes;
+
+    public ConsistenciaLecturasService(@Value("${alpescab.replica.retraso-maximo:5s}") Duration retrasoMaximo) {
+        this.escriturasRecientes = Caffeine.newBuilder().expireAfterWrite(retrasoMaximo).build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarViaje(CambioViajeEvent evento) {
+        registrarEscritura(evento.clienteId());
+        registrarEscritura(evento.conductorId());
+    }
+
+    public void registrarEscritura(Long usuarioId) {
+        if (usuarioId != null) {
+            escriturasRecientes.put(usuarioId, Boolean.TRUE);
+        }
+    }
+
+    // Debe llamarse al inicio de una transacción de solo lectura, antes de su primera consulta
+    public void leerEscriturasDe(Long usuarioId) {
+        if (usuarioId != null && escriturasRecientes.getIfPresent(usuarioId) != null) {
+            DataSourceEnrutado.leerDelPrimario();
+        }
+    }
+}
@@ -2,25 +2,59 @@ package uniandes.edu.co.proyecto.services;
 import uniandes.edu.co.proyecto.entities.*;
 import uniandes.edu.co.proyecto.repositories.*;
 import uniandes.edu.co.proyecto.controllers.DTO.*; 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors; 
+import java.util.stream.Stream;
 
 @Service
 public class ConsultaService {
 
     @Autowired private ServicioRepository servicioRepository;
     @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private TopConductoresService topConductores;
+    @Autowired private GananciaDiariaRepository gananciaDiariaRepository;
+    @Autowired private UsoServiciosHoraRepository usoServiciosHoraRepository;
+    @Autowired private ConsistenciaLecturasService consistenciaLecturas;
+    @PersistenceContext private EntityManager entityManager;
+
+    private static final int TAMANO_MAXIMO_PAGINA = 500;
+
+    // Viajes escritos entre cada limpieza del contexto de persistencia (igual al fetch size del stream)
+    private static final int BLOQUE_STREAMING = 200;
+
+    // Rango de RFC3 cuando no se envían fechas
+    private static final LocalDate PRIMER_DIA = LocalDate.of(1900, 1, 1);
+    private static final LocalDate ULTIMO_DIA = LocalDate.of(9999, 12, 31);
+
+    // Las consultas marcadas readOnly se leen de la réplica (ver config.DataSourceEnrutado); las que
+    // dependen de un usuario que acaba de escribir pasan al primario con consistenciaLecturas.
 
     // ---------------------- RFC1: CONSULTAR HISTÓRICO (Versión por defecto) ----------------------
+    // Sin caché: las entidades son mutables y se compartirían entre llamadores. El histórico en caché es
+    // la proyección plana (consultarHistoricoPlano).
+    @Transactional(readOnly = true)
     public List<ServicioEntity> consultarHistoricoUsuario(Long clienteId) throws Exception {
+        consistenciaLecturas.leerEscriturasDe(clienteId);
         Optional<UsuarioEntity> userOpt = usuarioRepository.findById(clienteId);
         if (userOpt.isEmpty() || !(userOpt.get() instanceof UsuarioServicioEntity)) {
             throw new Exception("Cliente no encontrado o no es un usuario de servicio.");
@@ -29,6 +63,94 @@ public class ConsultaService {
         return servicioRepository.findByUsuarioCliente(cliente);
     }
 
+    // ---------------------- RFC1 PLANO (Retorna DTO) ----------------------
+    // Una sola consulta con JOINs: no carga entidades, por lo que no dispara las relaciones EAGER
+    // (conductor, cliente, vehículo, puntos, ciudades, revisión) de cada viaje. Los DTO no se modifican
+    // después de construirse, así que la caché los entrega tal cual a cada llamador.
+    @Cacheable(cacheNames = CacheConsultasService.HISTORICO_PLANO, key = "#clienteId", sync = true)
+    @Transactional(readOnly = true)
+    public List<HistoricoViajeDTO> consultarHistoricoPlano(Long clienteId) throws Exception {
+        consistenciaLecturas.leerEscriturasDe(clienteId);
+        validarCliente(clienteId);
+        return servicioRepository.findHistoricoPlano(clienteId).stream()
+            .map(result -> new HistoricoViajeDTO(
+                ((Number) result[0]).longValue(),                                  // idViaje
+                (String) result[1],                                                // tipoServicio
+                (Date) result[2],                                                  // horaInicio
+                (Date) result[3],                                                  // horaFin
+                result[4] == null ? null : ((Number) result[4]).doubleValue(),     // longitudTrayecto
+                result[5] == null ? null : ((Number) result[5]).doubleValue(),     // costoTotal
+                (String) result[6],                                                // nombrePasajero
+                (String) result[7],                                                // correoPasajero
+                (String) result[8],                                                // nombreConductor
+                (String) result[9],                                                // correoConductor
+                (String) result[10],                                               // vehiculoMarca
+                (String) result[11],                                               // vehiculoModelo
+                (String) result[12],                                               // vehiculoPlaca
+                (String) result[13],                                               // vehiculoNivel
+                (String) result[14],                                               // direccionInicio
+                (String) result[15],                                               // direccionFin
+                result[16] == null ? null : ((Number) result[16]).intValue(),      // calificacion
+                (String) result[17]                                                // comentarioRevision
+            ))
+            .toList();
+    }
+
+    // ---------------------- RFC1 PAGINADO POR LLAVE (keyset) ----------------------
+    // Cada página se pide con el cursor de la anterior; el costo no crece con el número de página
+    // porque la consulta arranca justo después del último viaje entregado (índice por cliente y hora).
+    @Transactional(readOnly = true)
+    public PaginaDTO<ServicioEntity> consultarHistoricoPaginado(Long clienteId, String cursor, int tamano) throws Exception {
+        consistenciaLecturas.leerEscriturasDe(clienteId);
+        int tamanoPagina = Math.max(1, Math.min(tamano, TAMANO_MAXIMO_PAGINA));
+        // Se pide un viaje de más para saber si existe una página siguiente
+        PageRequest limite = PageRequest.of(0, tamanoPagina + 1);
+        List<ServicioEntity> viajes;
+        if (cursor == null || cursor.isBlank()) {
+            validarCliente(clienteId);
+            viajes = servicioRepository.findPrimeraPaginaHistorico(clienteId, limite);
+        } else {
+            CursorKeyset.Posicion posicion = CursorKeyset.decodificar(cursor);
+            viajes = servicioRepository.findPaginaHistoricoDespuesDe(clienteId, posicion.horaInicio(), posicion.id(), limite);
+        }
+
+        String siguienteCursor = null;
+        if (viajes.size() > tamanoPagina) {
+            viajes = viajes.subList(0, tamanoPagina);
+            ServicioEntity ultimo = viajes.get(tamanoPagina - 1);
+            siguienteCursor = CursorKeyset.codificar(ultimo.getHoraInicio(), ultimo.getId());
+        }
+        return new PaginaDTO<>(viajes, siguienteCursor);
+    }
+
+    // ---------------------- RFC1 EN STREAMING (NDJSON) ----------------------
+    // Escribe un viaje por línea a medida que llegan de la BD. El contexto de persistencia se limpia
+    // por bloques, por lo que la memoria usada no depende del tamaño del histórico.
+    @Transactional(readOnly = true)
+    public void escribirHistoricoNdjson(Long clienteId, OutputStream salida) throws IOException {
+        consistenciaLecturas.leerEscriturasDe(clienteId);
+        try (Stream<ServicioEntity> viajes = servicioRepository.streamHistorico(clienteId)) {
+            Iterator<ServicioEntity> iterador = viajes.iterator();
+            int escritos = 0;
+            while (iterador.hasNext()) {
+                salida.write(objectMapper.writeValueAsBytes(iterador.next()));
+                salida.write('\n');
+                if (++escritos % BLOQUE_STREAMING == 0) {
+                    entityManager.clear();
+                    salida.flush();
+                }
+            }
+        }
+        salida.flush();
+    }
+
+    public void validarCliente(Long clienteId) throws Exception {
+        Optional<UsuarioEntity> userOpt = usuarioRepository.findById(clienteId);
+        if (userOpt.isEmpty() || !(userOpt.get() instanceof UsuarioServicioEntity)) {
+            throw new Exception("Cliente no encontrado o no es un usuario de servicio.");
+        }
+    }
+
     // ---------------------- RFC1 con Nivel de Aislamiento SERIALIZABLE ----------------------
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public List<ServicioEntity> consultarHistoricoUsuario_Serializable(Long clienteId) throws Exception {
@@ -62,21 +184,38 @@ public class ConsultaService {
     }
 
     // ---------------------- RFC2: TOP 20 CONDUCTORES (Retorna DTO) ----------------------
+    // Se lee del top mantenido por RF8 (TopConductoresService) en lugar de agrupar toda la tabla VIAJE.
+    // No pasa por la caché de consultas: ya es una lectura en memoria de K elementos.
     public List<TopConductorDTO> findTop20Conductores() {
-        List<Object[]> resultados = servicioRepository.findTop20Conductores();
-        
-        return resultados.stream()
-            .map(result -> new TopConductorDTO(
-                ((Number) result[0]).longValue(), 
-                ((Number) result[1]).longValue()   
-            ))
+        return mapearTop(topConductores.top());
+    }
+
+    // Las conversiones a DTO de RFC2-RFC4 se separan de las consultas para medirlas en benchmarks/
+    static List<TopConductorDTO> mapearTop(List<TopConductoresService.Posicion> posiciones) {
+        return posiciones.stream()
+            .map(posicion -> new TopConductorDTO(posicion.conductorId(), posicion.numViajes()))
             .collect(Collectors.toList());
     }
 
     // ---------------------- RFC3: GANANCIAS CONDUCTOR (Retorna DTO) ----------------------
-    public List<GananciaConductorDTO> findGananciasConductor(Long conductorId) {
-        List<Object[]> resultados = servicioRepository.findGananciasConductorPorVehiculoYServicio(conductorId);
-        
+    // Se lee de GANANCIAS_DIARIAS (viajes finalizados, agregados por RF9): solo las filas del conductor
+    // en el rango, no su histórico de viajes. Sin fechas se consideran todos los días.
+    // Llave [conductorId, desde, hasta, porDia]: RF9 invalida todos los rangos del conductor
+    @Cacheable(cacheNames = CacheConsultasService.GANANCIAS_CONDUCTOR, key = "{#conductorId, #desde, #hasta, #porDia}", sync = true)
+    @Transactional(readOnly = true)
+    public List<GananciaConductorDTO> findGananciasConductor(Long conductorId, Date desde, Date hasta, boolean porDia) {
+        consistenciaLecturas.leerEscriturasDe(conductorId);
+        LocalDate inicio = desde == null ? PRIMER_DIA : aDia(desde);
+        LocalDate fin = hasta == null ? ULTIMO_DIA : aDia(hasta);
+
+        if (porDia) {
+            return mapearGananciasPorDia(gananciaDiariaRepository.findGananciasPorDia(conductorId, inicio, fin));
+        }
+        return mapearGanancias(gananciaDiariaRepository.findGanancias(conductorId, inicio, fin));
+    }
+
+    // Filas [placa, tipoServicio, ganancias]
+    static List<GananciaConductorDTO> mapearGanancias(List<Object[]> resultados) {
         return resultados.stream()
             .map(result -> new GananciaConductorDTO(
                 (String) result[0],                      // placaVehiculo (String)
@@ -86,16 +225,42 @@ public class ConsultaService {
             .collect(Collectors.toList());
     }
 
+    // Filas [placa, tipoServicio, dia, ganancias]
+    static List<GananciaConductorDTO> mapearGananciasPorDia(List<Object[]> resultados) {
+        return resultados.stream()
+            .map(result -> new GananciaConductorDTO(
+                (String) result[0],                      // placaVehiculo
+                (String) result[1],                      // tipoServicio
+                (LocalDate) result[2],                   // dia
+                ((Number) result[3]).doubleValue()
+            ))
+            .collect(Collectors.toList());
+    }
+
+    private static LocalDate aDia(Date fecha) {
+        return fecha instanceof java.sql.Date sql ? sql.toLocalDate() : fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
     // ---------------------- RFC4: UTILIZACIÓN DE SERVICIOS EN CIUDAD (Retorna DTO) ----------------------
+    // Suma las horas de USO_SERVICIOS_HORA desde el inicio de fechaInicio hasta el final de fechaFin
+    // (ambos días incluidos). El porcentaje es sobre el total de viajes de la ciudad en el rango.
+    // Siempre de la réplica: USO_SERVICIOS_HORA ya se actualiza con retraso (volcado periódico)
+    @Cacheable(cacheNames = CacheConsultasService.USO_SERVICIOS, sync = true)
+    @Transactional(readOnly = true)
     public List<UtilizacionServiciosDTO> findUsoServicios(String ciudadNombre, Date fechaInicio, Date fechaFin) {
-         List<Object[]> resultados = servicioRepository.findUsoServiciosPorCiudadYRango(ciudadNombre, fechaInicio, fechaFin);
-         
+         LocalDateTime desde = aDia(fechaInicio).atStartOfDay();
+         LocalDateTime hasta = aDia(fechaFin).plusDays(1).atStartOfDay();
+         return mapearUso(usoServiciosHoraRepository.findUsoPorCiudad(ciudadNombre, desde, hasta));
+    }
+
+    // Filas [tipoServicio, numViajes]
+    static List<UtilizacionServiciosDTO> mapearUso(List<Object[]> resultados) {
+         long total = resultados.stream().mapToLong(result -> ((Number) result[1]).longValue()).sum();
          
          return resultados.stream()
              .map(result -> {
-                 // Manejo de valores nulos o tipos inesperados
-                 Long numServicios = result[1] instanceof Number ? ((Number) result[1]).longValue() : 0L;
-                 Double porcentaje = result[2] instanceof Number ? ((Number) result[2]).doubleValue() : 0.0;
+                 Long numServicios = ((Number) result[1]).longValue();
+                 Double porcentaje = numServicios * 100.0 / total;
                  
                  return new UtilizacionServiciosDTO(
                      (String) result[0],                      // tipoServicio (String)
@@ -0,0 +1,26 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.util.List;
+
+// Consumidor en proceso de los eventos de los viajes (ver RelayEventosService). Los beans que lo
+// implementan se registran solos al iniciar; otros pueden suscribirse con RelayEventosService.suscribir.
+//
+// La entrega es al menos una vez y en orden de ID: si consumir lanza una excepción, el mismo lote (y
+// los siguientes eventos, en el mismo orden) se vuelve a entregar en el siguiente ciclo del relay.
+// Un consumidor debe tolerar eventos repetidos, y también un evento que llega tarde, después de otros
+// con ID mayor (su transacción tardó más de espera-huecos-ms en confirmarse).
+public interface ConsumidorEventosViaje {
+
+    // Identifica al consumidor (y su posición en CONSUMIDORES_EVENTOS); no debe cambiar entre despliegues
+    String nombre();
+
+    void consumir(List<EventosViajeService.EventoViaje> eventos) throws Exception;
+
+    // Un consumidor que guarda su estado fuera del proceso retoma desde su posición en CONSUMIDORES_EVENTOS,
+    // que comparten todas las instancias. Uno con estado en memoria de cada instancia (que lo construye
+    // desde las tablas al iniciar) retorna false: empieza en el último evento al suscribirse y su posición
+    // solo vive en la instancia
+    default boolean guardaPosicion() {
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+// Cursor opaco para la paginación por llave (HORA_INICIO, ID) del histórico de viajes.
+// Codifica la posición del último elemento entregado en Base64 (apto para URLs).
+final class CursorKeyset {
+
+    // Posición del último elemento de una página
+    record Posicion(Timestamp horaInicio, Long id) {}
+
+    private CursorKeyset() {}
+
+    static String codificar(Date horaInicio, Long id) {
+        // Instant conserva los nanosegundos de un Timestamp, para no saltar viajes con la misma hora al milisegundo
+        Instant instante = horaInicio instanceof Timestamp t ? t.toInstant() : horaInicio.toInstant();
+        String texto = instante + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Posicion decodificar(String cursor) throws Exception {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            return new Posicion(
+                Timestamp.from(Instant.parse(texto.substring(0, separador))),
+                Long.parseLong(texto.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new Exception("Cursor de paginación inválido.");
+        }
+    }
+}
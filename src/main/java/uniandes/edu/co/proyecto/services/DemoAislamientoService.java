@@ -0,0 +1,135 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.controllers.DTO.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Pruebas de aislamiento de RFC1 sin bloquear hilos del servidor: cada prueba corre en un hilo
+// virtual (la espera entre lecturas no ocupa un hilo de plataforma) y cada nivel de aislamiento
+// tiene un cupo fijo de conexiones. Si el cupo está lleno la prueba se rechaza de inmediato, de
+// modo que nunca toman más conexiones del pool que las asignadas y RF8/RF9 siguen atendiéndose.
+@Service
+public class DemoAislamientoService {
+
+    // La prueba no se ejecutó porque el cupo de conexiones de su nivel de aislamiento está lleno
+    public static class CupoAgotadoException extends Exception {
+        public CupoAgotadoException(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ServicioRepository servicioRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+
+    @Value("${alpescab.consulta.aislamiento.espera-maxima-segundos:30}")
+    private int esperaMaximaSegundos;
+
+    private final Map<Isolation, Semaphore> cupos = new EnumMap<>(Isolation.class);
+    private final ExecutorService hilosVirtuales = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Conexiones que puede ocupar a la vez cada nivel de aislamiento (debe ser menor que el pool)
+    public DemoAislamientoService(@Value("${alpescab.consulta.aislamiento.max-conexiones:2}") int maxConexiones) {
+        cupos.put(Isolation.SERIALIZABLE, new Semaphore(maxConexiones));
+        cupos.put(Isolation.READ_COMMITTED, new Semaphore(maxConexiones));
+    }
+
+    @PreDestroy
+    void detener() {
+        hilosVirtuales.shutdownNow();
+    }
+
+    // ---------------------- RFC1: DOS LECTURAS EN LA MISMA TRANSACCIÓN ----------------------
+    // Lee el histórico, espera y lo vuelve a leer; el resultado describe qué cambió entre ambas lecturas.
+    public CompletableFuture<ComparacionLecturasDTO> compararLecturas(Long clienteId, Isolation aislamiento, int esperaSegundos) {
+        Semaphore cupo = cupos.get(aislamiento);
+        if (cupo == null) {
+            return CompletableFuture.failedFuture(new Exception("Nivel de aislamiento no soportado: " + aislamiento));
+        }
+        if (!cupo.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CupoAgotadoException(
+                "Ya hay demasiadas pruebas " + aislamiento + " en curso; intente de nuevo más tarde."));
+        }
+        int espera = Math.max(0, Math.min(esperaSegundos, esperaMaximaSegundos));
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return leerDosVeces(clienteId, aislamiento, espera);
+                } finally {
+                    cupo.release();
+                }
+            }, hilosVirtuales);
+        } catch (RuntimeException e) {
+            cupo.release(); // El ejecutor rechazó la tarea (p. ej. durante el apagado)
+            throw e;
+        }
+    }
+
+    private ComparacionLecturasDTO leerDosVeces(Long clienteId, Isolation aislamiento, int espera) {
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setIsolationLevel(aislamiento.value());
+        plantilla.setTimeout(espera + 30); // La conexión se libera aunque algo se quede colgado
+
+        return plantilla.execute(estado -> {
+            UsuarioEntity cliente = usuarioRepository.findById(clienteId).orElse(null);
+            if (!(cliente instanceof UsuarioServicioEntity)) {
+                throw new CompletionException(new Exception("Cliente no encontrado o no es un usuario de servicio."));
+            }
+
+            Map<Long, Object[]> primera = porId(servicioRepository.findResumenPorCliente(clienteId));
+            try {
+                TimeUnit.SECONDS.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            Map<Long, Object[]> segunda = porId(servicioRepository.findResumenPorCliente(clienteId));
+
+            List<Long> nuevos = new ArrayList<>();
+            List<Long> eliminados = new ArrayList<>();
+            List<Long> modificados = new ArrayList<>();
+            for (Map.Entry<Long, Object[]> fila : segunda.entrySet()) {
+                Object[] anterior = primera.get(fila.getKey());
+                if (anterior == null) {
+                    nuevos.add(fila.getKey());
+                } else if (!Arrays.equals(anterior, fila.getValue())) {
+                    modificados.add(fila.getKey());
+                }
+            }
+            for (Long id : primera.keySet()) {
+                if (!segunda.containsKey(id)) {
+                    eliminados.add(id);
+                }
+            }
+            return new ComparacionLecturasDTO(aislamiento.name(), espera, primera.size(), segunda.size(), nuevos, eliminados, modificados);
+        });
+    }
+
+    // Cada fila es [id, horaInicio, horaFin, costoTotal, version]
+    private static Map<Long, Object[]> porId(List<Object[]> filas) {
+        Map<Long, Object[]> resultado = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            resultado.put(((Number) fila[0]).longValue(), fila);
+        }
+        return resultado;
+    }
+}
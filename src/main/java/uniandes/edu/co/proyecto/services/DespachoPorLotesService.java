@@ -0,0 +1,236 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.controllers.DTO.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+// Despacho de RF8 por lotes (alpescab.despacho.modo=lotes). Las solicitudes se encolan y cada
+// intervalo se asignan todas juntas con el método húngaro sobre la distancia de recogida, en vez
+// de atenderlas una a una en orden de llegada. Corre sobre hilos virtuales.
+@Service
+public class DespachoPorLotesService {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachoPorLotesService.class);
+
+    @Autowired private ServicioTransaccionalService servicioTransaccionalService;
+    @Autowired private IndiceConductoresService indiceConductores;
+    @Autowired private PuntoGeoRepository puntoGeograficoRepository;
+    @Autowired private CalificacionesService calificaciones;
+
+    // inmediato (cada solicitud se atiende al llegar) | lotes
+    @Value("${alpescab.despacho.modo:inmediato}")
+    private String modo;
+
+    // Ventana de acumulación de un lote, contada desde la primera solicitud que llega
+    @Value("${alpescab.despacho.lote.intervalo-ms:300}")
+    private long intervaloMs;
+
+    @Value("${alpescab.despacho.lote.tamano-maximo:200}")
+    private int tamanoMaximo;
+
+    // Conductores considerados por solicitud al armar la matriz de costos
+    @Value("${alpescab.despacho.lote.candidatos-por-solicitud:6}")
+    private int candidatosPorSolicitud;
+
+    // Transacciones RF8 simultáneas de un lote (no debe superar el pool de conexiones)
+    @Value("${alpescab.despacho.lote.transacciones-concurrentes:4}")
+    private int transaccionesConcurrentes;
+
+    // Costo (km) de un conductor libre sin ubicación conocida: se prefiere a uno ubicado más lejos
+    @Value("${alpescab.despacho.lote.penalizacion-sin-ubicacion-km:25}")
+    private double penalizacionSinUbicacionKm;
+
+    private record SolicitudPendiente(SolicitudServicioDTO solicitud, CompletableFuture<ServicioEntity> resultado) {}
+
+    private final BlockingQueue<SolicitudPendiente> cola = new LinkedBlockingQueue<>();
+    private ExecutorService ejecutor;
+    private Semaphore permisos;
+    private Thread despachador;
+    private volatile boolean activo = false;
+
+    // ---------------------- CICLO DE VIDA ----------------------
+    @PostConstruct
+    void iniciar() {
+        if (!"lotes".equalsIgnoreCase(modo)) {
+            return;
+        }
+        ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        permisos = new Semaphore(Math.max(1, transaccionesConcurrentes));
+        activo = true;
+        despachador = Thread.ofVirtual().name("despacho-lotes").start(this::ciclo);
+        log.info("Despacho RF8 por lotes activo: intervalo {} ms, hasta {} solicitudes por lote.", intervaloMs, tamanoMaximo);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (!activo) {
+            return;
+        }
+        activo = false;
+        despachador.interrupt();
+        ejecutor.shutdownNow();
+        List<SolicitudPendiente> pendientes = new ArrayList<>();
+        cola.drainTo(pendientes);
+        pendientes.forEach(p -> p.resultado().completeExceptionally(
+            new Exception("RF8 Fallido: El despacho se detuvo antes de atender la solicitud.")));
+    }
+
+    public boolean estaActivo() {
+        return activo;
+    }
+
+    // ---------------------- RF8: ENCOLAR ----------------------
+    // El futuro se completa con el servicio creado o con la excepción de RF8
+    public CompletableFuture<ServicioEntity> encolar(SolicitudServicioDTO solicitud) {
+        CompletableFuture<ServicioEntity> resultado = new CompletableFuture<>();
+        if (!activo) {
+            resultado.completeExceptionally(new Exception("RF8 Fallido: El despacho por lotes no está activo."));
+            return resultado;
+        }
+        cola.add(new SolicitudPendiente(solicitud, resultado));
+        return resultado;
+    }
+
+    private void ciclo() {
+        while (activo) {
+            try {
+                SolicitudPendiente primera = cola.take();
+                Thread.sleep(intervaloMs);
+                List<SolicitudPendiente> lote = new ArrayList<>();
+                lote.add(primera);
+                cola.drainTo(lote, tamanoMaximo - 1);
+                procesarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error procesando un lote de RF8: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    // ---------------------- RF8: ASIGNACIÓN GLOBAL ----------------------
+    void procesarLote(List<SolicitudPendiente> lote) {
+        try {
+            Map<Long, PuntoGeoEntity> puntos = cargarPuntos(lote);
+            Long[] preferidos = asignar(lote, puntos);
+            // Primero las solicitudes con conductor asignado; las demás (más solicitudes que
+            // conductores, o sin candidatos) siguen la búsqueda normal con lo que quede libre.
+            ejecutarTodas(lote, preferidos, puntos, true);
+            ejecutarTodas(lote, preferidos, puntos, false);
+        } catch (RuntimeException e) {
+            lote.forEach(p -> p.resultado().completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    // Puntos de partida y de llegada de todo el lote, con su ciudad, en una sola consulta. Se usan en la
+    // asignación y los recibe cada RF8 del lote, que así no vuelve a leerlos.
+    private Map<Long, PuntoGeoEntity> cargarPuntos(List<SolicitudPendiente> lote) {
+        Set<Long> ids = new HashSet<>();
+        for (SolicitudPendiente pendiente : lote) {
+            if (pendiente.solicitud().getPuntoPartidaId() != null) {
+                ids.add(pendiente.solicitud().getPuntoPartidaId());
+            }
+            if (pendiente.solicitud().getPuntosLlegadaIds() != null) {
+                pendiente.solicitud().getPuntosLlegadaIds().stream().filter(id -> id != null).forEach(ids::add);
+            }
+        }
+        Map<Long, PuntoGeoEntity> puntos = new HashMap<>();
+        puntoGeograficoRepository.findAllConCiudadById(ids).forEach(p -> puntos.put(p.getId(), p));
+        return puntos;
+    }
+
+    // Conductor elegido para cada solicitud del lote (null si la asignación no le dio ninguno)
+    private Long[] asignar(List<SolicitudPendiente> lote, Map<Long, PuntoGeoEntity> puntos) {
+        // Candidatos de cada solicitud; las columnas de la matriz son la unión de los conductores
+        List<List<IndiceConductoresService.Candidato>> candidatos = new ArrayList<>(lote.size());
+        Map<Long, Integer> columnas = new LinkedHashMap<>();
+        for (SolicitudPendiente pendiente : lote) {
+            PuntoGeoEntity partida = puntos.get(pendiente.solicitud().getPuntoPartidaId());
+            if (partida == null || partida.getLatitud() == null || partida.getLongitud() == null) {
+                candidatos.add(List.of()); // RF8 reportará el error al atenderla
+                continue;
+            }
+            List<IndiceConductoresService.Candidato> deSolicitud = indiceConductores.candidatosCercanos(
+                IndiceConductoresService.CriteriosBusqueda.para(pendiente.solicitud(), partida),
+                partida.getLatitud(), partida.getLongitud(), candidatosPorSolicitud);
+            deSolicitud.forEach(c -> columnas.putIfAbsent(c.vehiculo().conductorId(), columnas.size()));
+            candidatos.add(deSolicitud);
+        }
+
+        double[][] costos = new double[lote.size()][columnas.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            Arrays.fill(costos[i], AlgoritmoHungaro.NO_ASIGNABLE);
+            for (IndiceConductoresService.Candidato candidato : candidatos.get(i)) {
+                costos[i][columnas.get(candidato.vehiculo().conductorId())] = costo(candidato);
+            }
+        }
+
+        Long[] conductorPorColumna = columnas.keySet().toArray(new Long[0]);
+        int[] asignacion = AlgoritmoHungaro.asignar(costos);
+        Long[] preferidos = new Long[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            preferidos[i] = asignacion[i] < 0 ? null : conductorPorColumna[asignacion[i]];
+        }
+        return preferidos;
+    }
+
+    // Distancia (o la penalización si no tiene ubicación) más los km que descuenta su calificación
+    private double costo(IndiceConductoresService.Candidato candidato) {
+        double distancia = Double.isNaN(candidato.distanciaKm()) ? penalizacionSinUbicacionKm : candidato.distanciaKm();
+        return distancia + calificaciones.penalizacionKm(candidato.vehiculo().conductorId());
+    }
+
+    // Cada solicitud es su propia transacción RF8 en un hilo virtual; se espera a que termine la fase
+    private void ejecutarTodas(List<SolicitudPendiente> lote, Long[] preferidos, Map<Long, PuntoGeoEntity> puntos,
+                               boolean conAsignacion) {
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            if ((preferidos[i] != null) == conAsignacion) {
+                SolicitudPendiente pendiente = lote.get(i);
+                Long preferido = preferidos[i];
+                tareas.add(CompletableFuture.runAsync(() -> ejecutar(pendiente, preferido, puntos), ejecutor));
+            }
+        }
+        CompletableFuture.allOf(tareas.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void ejecutar(SolicitudPendiente pendiente, Long conductorPreferido, Map<Long, PuntoGeoEntity> puntos) {
+        try {
+            permisos.acquire();
+            try {
+                pendiente.resultado().complete(servicioTransaccionalService.solicitarServicio(
+                    pendiente.solicitud(), conductorPreferido, puntos));
+            } finally {
+                permisos.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendiente.resultado().completeExceptionally(e);
+        } catch (Exception e) {
+            pendiente.resultado().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.controllers.DTO.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Estimación del costo de un servicio (RF8 y cotizaciones): distancia de la ruta partida -> paradas
+// en el orden dado, multiplicada por la tarifa del tipo de servicio y nivel del vehículo.
+// Las distancias entre pares de puntos se guardan en una caché de Caffeine de tamaño acotado, por lo
+// que cotizar varios órdenes de las mismas paradas solo calcula cada tramo una vez.
+@Service
+public class EstimadorTarifaService {
+
+    // Tarifa en pesos: cargo fijo más valor por kilómetro
+    public record Tarifa(double base, double porKm) {}
+
+    public static final double TARIFA_MINIMA = 6000;
+
+    // Llave: "CATEGORIA|NIVEL" con los niveles de VEHICULOS (ESTANDAR, COMFORT, LARGE); las categorías
+    // sin distinción de nivel usan "*"
+    private static final Map<String, Tarifa> TARIFAS = Map.of(
+        "PASAJEROS|ESTANDAR", new Tarifa(4000, 1500),
+        "PASAJEROS|COMFORT",  new Tarifa(5500, 2100),
+        "PASAJEROS|LARGE",    new Tarifa(7000, 2600),
+        "COMIDA|*",           new Tarifa(3000, 1200),
+        "MERCANCIAS|*",       new Tarifa(8000, 2500)
+    );
+
+    @Autowired private IndiceEspacialService indiceEspacial;
+    @Autowired private PuntoGeoRepository puntoGeograficoRepository;
+
+    private final Cache<ParPuntos, Double> distancias;
+
+    private record ParPuntos(long menor, long mayor) {
+        static ParPuntos de(long a, long b) {
+            return a <= b ? new ParPuntos(a, b) : new ParPuntos(b, a);
+        }
+    }
+
+    public EstimadorTarifaService(@Value("${alpescab.tarifa.cache-pares:50000}") int capacidadCache) {
+        this.distancias = Caffeine.newBuilder().maximumSize(capacidadCache).build();
+    }
+
+    // ---------------------- RF8: COSTO DEL SERVICIO ----------------------
+    public double costo(String tipoServicio, String nivelVehiculo, PuntoGeoEntity partida, List<PuntoGeoEntity> llegadas) {
+        int n = llegadas.size() + 1;
+        long[] ids = new long[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        ids[0] = partida.getId();
+        latitudes[0] = partida.getLatitud();
+        longitudes[0] = partida.getLongitud();
+        for (int i = 1; i < n; i++) {
+            PuntoGeoEntity punto = llegadas.get(i - 1);
+            ids[i] = punto.getId();
+            latitudes[i] = punto.getLatitud();
+            longitudes[i] = punto.getLongitud();
+        }
+        return cotizar(tipoServicio, nivelVehiculo, ids, latitudes, longitudes).getCostoEstimado();
+    }
+
+    // ---------------------- COTIZACIÓN ----------------------
+
+    // Cotiza una solicitud sin crearla. Las coordenadas salen del índice espacial; solo los puntos
+    // que no estén en él se leen de la BD (en una consulta).
+    public CotizacionDTO cotizarSolicitud(SolicitudServicioDTO solicitud) throws Exception {
+        List<Long> ruta = new ArrayList<>();
+        if (solicitud.getPuntoPartidaId() == null) {
+            throw new Exception("Cotización Fallida: Falta el punto de partida.");
+        }
+        if (solicitud.getPuntosLlegadaIds() == null || solicitud.getPuntosLlegadaIds().isEmpty()) {
+            throw new Exception("Cotización Fallida: Se requiere al menos un punto de llegada.");
+        }
+        ruta.add(solicitud.getPuntoPartidaId());
+        ruta.addAll(solicitud.getPuntosLlegadaIds());
+
+        int n = ruta.size();
+        long[] ids = new long[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        List<Long> faltantes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids[i] = ruta.get(i);
+            double[] coordenadas = indiceEspacial.coordenadasPunto(ids[i]);
+            if (coordenadas == null) {
+                faltantes.add(ids[i]);
+            } else {
+                latitudes[i] = coordenadas[0];
+                longitudes[i] = coordenadas[1];
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            Map<Long, double[]> leidas = new HashMap<>();
+            for (Object[] fila : puntoGeograficoRepository.findCoordenadasById(faltantes)) {
+                leidas.put(((Number) fila[0]).longValue(),
+                    new double[] { ((Number) fila[1]).doubleValue(), ((Number) fila[2]).doubleValue() });
+            }
+            for (int i = 0; i < n; i++) {
+                if (faltantes.contains(ids[i])) {
+                    double[] coordenadas = leidas.get(ids[i]);
+                    if (coordenadas == null) {
+                        throw new Exception("Cotización Fallida: Punto geográfico con ID " + ids[i] + " no encontrado.");
+                    }
+                    latitudes[i] = coordenadas[0];
+                    longitudes[i] = coordenadas[1];
+                }
+            }
+        }
+        try {
+            return cotizar(solicitud.getTipoServicio(), solicitud.getNivelVehiculo(), ids, latitudes, longitudes);
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Cotización Fallida: " + e.getMessage());
+        }
+    }
+
+    public CotizacionDTO cotizar(String tipoServicio, String nivelVehiculo, long[] ids, double[] latitudes, double[] longitudes) {
+        Tarifa tarifa = tarifa(tipoServicio, nivelVehiculo);
+        double distanciaKm = distanciaRutaKm(ids, latitudes, longitudes);
+        double costo = Math.max(TARIFA_MINIMA, tarifa.base() + tarifa.porKm() * distanciaKm);
+        costo = Math.ceil(costo / 100.0) * 100.0; // Se redondea a la centena superior
+        return new CotizacionDTO(tipoServicio, nivelVehiculo, distanciaKm, tarifa.base(), tarifa.porKm(), costo);
+    }
+
+    // ---------------------- DISTANCIA DE LA RUTA ----------------------
+
+    // Suma de los tramos consecutivos. Los tramos que no están en caché se calculan juntos en un
+    // solo recorrido sobre arreglos primitivos.
+    public double distanciaRutaKm(long[] ids, double[] latitudes, double[] longitudes) {
+        int tramos = ids.length - 1;
+        if (tramos <= 0) {
+            return 0;
+        }
+        double total = 0;
+        int[] faltantes = new int[tramos];
+        int cantidadFaltantes = 0;
+        for (int i = 0; i < tramos; i++) {
+            Double enCache = distancias.getIfPresent(ParPuntos.de(ids[i], ids[i + 1]));
+            if (enCache == null) {
+                faltantes[cantidadFaltantes++] = i;
+            } else {
+                total += enCache;
+            }
+        }
+        if (cantidadFaltantes == 0) {
+            return total;
+        }
+
+        double[] lat1 = new double[cantidadFaltantes];
+        double[] lon1 = new double[cantidadFaltantes];
+        double[] lat2 = new double[cantidadFaltantes];
+        double[] lon2 = new double[cantidadFaltantes];
+        double[] calculadas = new double[cantidadFaltantes];
+        for (int k = 0; k < cantidadFaltantes; k++) {
+            int i = faltantes[k];
+            lat1[k] = latitudes[i];
+            lon1[k] = longitudes[i];
+            lat2[k] = latitudes[i + 1];
+            lon2[k] = longitudes[i + 1];
+        }
+        CalculoGeografico.haversineKm(lat1, lon1, lat2, lon2, calculadas, cantidadFaltantes);
+
+        for (int k = 0; k < cantidadFaltantes; k++) {
+            int i = faltantes[k];
+            distancias.put(ParPuntos.de(ids[i], ids[i + 1]), calculadas[k]);
+            total += calculadas[k];
+        }
+        return total;
+    }
+
+    // ---------------------- TARIFAS ----------------------
+    // IllegalArgumentException si el tipo de servicio o el nivel no tienen tarifa
+    public static Tarifa tarifa(String tipoServicio, String nivelVehiculo) {
+        String categoria = categoria(tipoServicio);
+        Tarifa tarifa = TARIFAS.get(categoria + "|*");
+        if (tarifa != null) {
+            return tarifa;
+        }
+        String nivel = nivelVehiculo == null || nivelVehiculo.isBlank() ? "ESTANDAR" : normalizar(nivelVehiculo);
+        if (nivel.equals("CONFORT")) {
+            nivel = "COMFORT"; // Ortografía en español que envían algunos clientes
+        }
+        tarifa = TARIFAS.get(categoria + "|" + nivel);
+        if (tarifa == null) {
+            throw new IllegalArgumentException("Nivel de vehículo sin tarifa: " + nivelVehiculo);
+        }
+        return tarifa;
+    }
+
+    // "Transporte de pasajeros", "Entrega de comida", "Transporte de mercancías"
+    private static String categoria(String tipoServicio) {
+        String tipo = tipoServicio == null ? "" : normalizar(tipoServicio);
+        if (tipo.contains("PASAJERO")) {
+            return "PASAJEROS";
+        }
+        if (tipo.contains("COMIDA")) {
+            return "COMIDA";
+        }
+        if (tipo.contains("MERCANCIA")) {
+            return "MERCANCIAS";
+        }
+        throw new IllegalArgumentException("Tipo de servicio sin tarifa: " + tipoServicio);
+    }
+
+    // Mayúsculas y sin tildes ("Estándar" -> "ESTANDAR")
+    private static String normalizar(String texto) {
+        return Normalizer.normalize(texto.trim(), Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,40 @@
+package uniandes.edu.co.proyecto.services;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Utilidad para sincronizar estructuras en memoria con el resultado de la transacción actual.
+// Las estructuras en memoria (índices, contadores) solo deben reflejar cambios confirmados en la BD.
+final class EventosTransaccion {
+
+    private EventosTransaccion() {}
+
+    // Ejecuta la acción cuando la transacción actual hace commit.
+    // Si no hay transacción activa, se ejecuta de inmediato.
+    static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    // Ejecuta la acción solo si la transacción actual hace rollback (compensación).
+    static void alRevertir(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+}
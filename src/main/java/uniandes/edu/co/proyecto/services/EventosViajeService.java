@@ -0,0 +1,78 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Escritura de la bandeja de salida EVENTOS_VIAJE. Cada método se une a la transacción del requisito
+// que cambia el viaje (MANDATORY: fuera de una transacción es un error de programación), así que el
+// evento se confirma o se revierte junto con el cambio. RelayEventosService los entrega después.
+@Service
+public class EventosViajeService {
+
+    // Evento leído de la bandeja. datos es el JSON con el que se registró
+    public record EventoViaje(long id, String tipo, Long viajeId, JsonNode datos, Date creado) {}
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    // RF8: datos para reconstruir el viaje sin volver a leer VIAJE (ciudad del punto de partida incluida)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void viajeSolicitado(ServicioEntity viaje) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("clienteId", viaje.getUsuarioCliente().getId());
+        datos.put("conductorId", viaje.getConductor().getId());
+        datos.put("vehiculoId", viaje.getVehiculo().getId());
+        datos.put("ciudadId", viaje.getPuntoPartida().getCiudad() == null ? null : viaje.getPuntoPartida().getCiudad().getId());
+        datos.put("tipoServicio", viaje.getTipoServicio());
+        datos.put("costoTotal", viaje.getCostoTotal());
+        datos.put("horaInicio", viaje.getHoraInicio().getTime());
+        registrar(EventoViajeEntity.VIAJE_SOLICITADO, viaje.getId(), datos);
+    }
+
+    // RF9
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void viajeFinalizado(ServicioEntity viaje) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("clienteId", viaje.getUsuarioCliente().getId());
+        datos.put("conductorId", viaje.getConductor().getId());
+        datos.put("horaFin", viaje.getHoraFin().getTime());
+        datos.put("duracionMinutos", viaje.getDuracionMinutos());
+        datos.put("longitudTrayecto", viaje.getLongitudTrayecto());
+        datos.put("costoTotal", viaje.getCostoTotal());
+        registrar(EventoViajeEntity.VIAJE_FINALIZADO, viaje.getId(), datos);
+    }
+
+    // RF10/RF11
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revisionRegistrada(RevisionEntity revision) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("revisionId", revision.getId());
+        datos.put("revisorId", revision.getRevisor().getId());
+        datos.put("revisadoId", revision.getRevisado().getId());
+        datos.put("calificacion", revision.getCalificacion());
+        registrar(EventoViajeEntity.REVISION_REGISTRADA, revision.getServicio().getId(), datos);
+    }
+
+    // Una sola sentencia; el ID lo asigna la columna de identidad
+    private void registrar(String tipo, Long viajeId, Map<String, Object> datos) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No fue posible serializar el evento " + tipo + ": " + e.getMessage(), e);
+        }
+        jdbcTemplate.update("INSERT INTO EVENTOS_VIAJE (TIPO, ID_VIAJE, DATOS, CREADO) VALUES (?, ?, ?, ?)",
+            tipo, viajeId, json, new Timestamp(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,181 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.repositories.CiudadRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.SelectionQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+// Exportación de viajes por rango de fechas (de inicio) y ciudad del punto de partida, en CSV o NDJSON,
+// para finanzas y BI. Las filas se leen con un cursor de solo avance (ScrollableResults) que el driver
+// llena de fetch-size en fetch-size filas y se escriben directo a la salida: ni la consulta ni la
+// respuesta se acumulan en memoria, sin importar cuántos viajes tenga el rango.
+// Las columnas usan los mismos nombres que la importación (ImportacionViajesService), así que un archivo
+// exportado puede importarse en otra base.
+@Service
+public class ExportacionViajesService {
+
+    public static final String CSV = "CSV";
+    public static final String NDJSON = "NDJSON";
+
+    private static final String[] COLUMNAS = { "id", "tipoServicio", "costoTotal", "horaInicio", "horaFin",
+        "duracionMinutos", "longitudTrayecto", "cedulaCliente", "cedulaConductor", "placa", "puntoPartidaId",
+        "puntoLlegadaId", "ciudad" };
+
+    // Proyección escalar: las filas no se convierten en entidades. Retorna las COLUMNAS en orden
+    private static final String CONSULTA =
+        "SELECT s.id, s.tipoServicio, s.costoTotal, s.horaInicio, s.horaFin, s.duracionMinutos, s.longitudTrayecto, " +
+        "cl.numeroCedula, co.numeroCedula, v.placa, pi.id, pf.id, ci.nombre " +
+        "FROM ServicioEntity s JOIN s.usuarioCliente cl JOIN s.conductor co JOIN s.vehiculo v " +
+        "JOIN s.puntoPartida pi JOIN pi.ciudad ci LEFT JOIN s.puntoLlegadaFinal pf " +
+        "WHERE s.horaInicio >= :desde AND s.horaInicio < :hasta ";
+
+    @Autowired private CiudadRepository ciudadRepository;
+    @Autowired private ObjectMapper objectMapper;
+    @PersistenceContext private EntityManager entityManager;
+
+    // Filas que trae el driver por viaje a la BD; también es el bloque entre cada flush de la salida y
+    // cada limpieza de la sesión (las filas son escalares y no quedan en ella, pero así nada de lo que
+    // cargue durante una exportación larga se acumula)
+    @Value("${alpescab.exportacion.fetch-size:1000}")
+    private int fetchSize;
+
+    // Se llama antes de empezar la respuesta: una vez escrito el primer byte ya no se puede responder 400
+    public String validar(LocalDate desde, LocalDate hasta, String ciudad, String formato) throws Exception {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new Exception("Exportación Fallida: Se requiere un rango de fechas válido (desde <= hasta).");
+        }
+        String tipoArchivo = formato == null ? CSV : formato.trim().toUpperCase();
+        if (!tipoArchivo.equals(CSV) && !tipoArchivo.equals(NDJSON)) {
+            throw new Exception("Exportación Fallida: Formato no soportado: " + formato + " (csv o ndjson).");
+        }
+        if (ciudad != null && ciudadRepository.findNombresExistentes(List.of(ciudad)).isEmpty()) {
+            throw new Exception("Exportación Fallida: No existe la ciudad " + ciudad + ".");
+        }
+        return tipoArchivo;
+    }
+
+    // desde y hasta son días inclusive, como en RFC3; ciudad es opcional
+    @Transactional(readOnly = true)
+    public void exportar(LocalDate desde, LocalDate hasta, String ciudad, String formato, OutputStream salida) throws Exception {
+        String tipoArchivo = validar(desde, hasta, ciudad, formato);
+        Session sesion = entityManager.unwrap(Session.class);
+        SelectionQuery<Object[]> consulta = sesion
+            .createSelectionQuery(CONSULTA + (ciudad == null ? "" : "AND ci.nombre = :ciudad ") + "ORDER BY s.horaInicio, s.id", Object[].class)
+            .setParameter("desde", inicioDelDia(desde))
+            .setParameter("hasta", inicioDelDia(hasta.plusDays(1)))
+            .setFetchSize(fetchSize)
+            .setReadOnly(true);
+        if (ciudad != null) {
+            consulta.setParameter("ciudad", ciudad);
+        }
+
+        try (ScrollableResults<Object[]> filas = consulta.scroll(ScrollMode.FORWARD_ONLY)) {
+            if (tipoArchivo.equals(CSV)) {
+                escribirCsv(filas, sesion, salida);
+            } else {
+                escribirNdjson(filas, sesion, salida);
+            }
+        }
+    }
+
+    private static Date inicioDelDia(LocalDate dia) {
+        return Date.from(dia.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private void escribirCsv(ScrollableResults<Object[]> filas, Session sesion, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        escritor.write(String.join(",", COLUMNAS));
+        escritor.write('\n');
+        long escritas = 0;
+        while (filas.next()) {
+            Object[] fila = filas.get();
+            for (int i = 0; i < fila.length; i++) {
+                if (i > 0) {
+                    escritor.write(',');
+                }
+                escritor.write(valorCsv(fila[i]));
+            }
+            escritor.write('\n');
+            if (++escritas % fetchSize == 0) {
+                sesion.clear();
+                escritor.flush();
+            }
+        }
+        escritor.flush();
+    }
+
+    private void escribirNdjson(ScrollableResults<Object[]> filas, Session sesion, OutputStream salida) throws IOException {
+        // El generador escribe sobre la salida con su propio buffer; no cierra el flujo de la respuesta y
+        // separa los objetos con el salto de línea de NDJSON en vez de su espacio por defecto
+        JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+        long escritas = 0;
+        while (filas.next()) {
+            Object[] fila = filas.get();
+            generador.writeStartObject();
+            for (int i = 0; i < fila.length; i++) {
+                Object valor = fila[i];
+                if (valor instanceof Number numero) {
+                    generador.writeFieldName(COLUMNAS[i]);
+                    generador.writeNumber(numero.toString());
+                } else {
+                    generador.writeStringField(COLUMNAS[i], texto(valor));
+                }
+            }
+            generador.writeEndObject();
+            generador.writeRaw('\n');
+            if (++escritas % fetchSize == 0) {
+                sesion.clear();
+                generador.flush();
+            }
+        }
+        generador.close();
+    }
+
+    // Fechas en ISO-8601 sin zona (el formato que lee la importación); null como vacío
+    private static String texto(Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (valor instanceof Timestamp hora) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(hora.toLocalDateTime());
+        }
+        if (valor instanceof Date fecha) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+        }
+        return valor.toString();
+    }
+
+    private static String valorCsv(Object valor) {
+        String texto = texto(valor);
+        if (texto == null) {
+            return "";
+        }
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,311 @@
+package uniandes.edu.co.proyecto.services;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Generador de datos para pruebas de carga (perfil local). Escala los datos de sql/PoblacionProyecto1.sql
+// (mismas ciudades, vehículos y tipos de servicio) a la cantidad de usuarios, puntos, disponibilidades
+// y viajes configurada, con inserciones JDBC por lotes. Con la misma semilla genera los mismos datos.
+//
+// Distribución de IDs (todos empiezan en 1):
+//   CIUDADES: 1..10 | USUARIOS: conductores 1..C, clientes C+1..C+K | VEHICULOS: uno por conductor, mismo ID
+//   PUNTOS_GEOGRAFICOS: el punto p pertenece a la ciudad ((p - 1) % 10) + 1, igual que el vehículo v
+//
+// Solo genera si la tabla USUARIOS está vacía. Usa SQL de H2 (reinicio de identidades, DATE_TRUNC),
+// por eso solo existe con el perfil local y nunca corre contra la base de datos Oracle compartida.
+@Service
+@Profile("local")
+public class GeneradorDatosService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorDatosService.class);
+
+    // Datos base de sql/PoblacionProyecto1.sql
+    private static final String[] CIUDADES = { "BOGOTA", "MEDELLIN", "CALI", "CARTAGENA", "BARRANQUILLA",
+        "BUCARAMANGA", "PEREIRA", "MANIZALES", "CUCUTA", "IBAGUE" };
+    private static final double[][] CENTROS = { { 4.65, -74.08 }, { 6.25, -75.57 }, { 3.45, -76.53 }, { 10.39, -75.51 },
+        { 10.96, -74.80 }, { 7.12, -73.12 }, { 4.81, -75.69 }, { 5.07, -75.51 }, { 7.89, -72.50 }, { 4.44, -75.23 } };
+    private static final String[] NOMBRES = { "Ana Torres", "Beto Castro", "Carla Ruiz", "David López", "Elena Gómez",
+        "Franco Díaz", "Gaby Pérez", "Hugo Salas", "Irene Vega", "Juan Rey" };
+    // tipo, marca, modelo, color, capacidad, nivel
+    private static final String[][] VEHICULOS = {
+        { "CARRO", "Mazda", "3", "Rojo", "4", "COMFORT" },
+        { "CAMIONETA", "Toyota", "Fortuner", "Negro", "6", "LARGE" },
+        { "MOTOCICLETA", "Yamaha", "FZ", "Azul", "1", "ESTANDAR" },
+        { "CARRO", "Chevrolet", "Spark", "Blanco", "4", "ESTANDAR" },
+        { "CARRO", "BMW", "i3", "Gris", "4", "COMFORT" },
+        { "CAMIONETA", "Nissan", "Frontier", "Verde", "5", "LARGE" },
+        { "MOTOCICLETA", "Honda", "CB", "Rojo", "1", "ESTANDAR" },
+        { "CARRO", "Audi", "A4", "Negro", "4", "COMFORT" },
+        { "CARRO", "Renault", "Clio", "Azul", "4", "ESTANDAR" },
+        { "CAMIONETA", "Ford", "Explorer", "Blanco", "7", "LARGE" } };
+    private static final String[] TIPOS_SERVICIO = { "Transporte de pasajeros", "Entrega de comida", "Transporte de mercancías" };
+    private static final String[] COMENTARIOS = { "Excelente", "Muy buen servicio", "Puntual", "Regular", "Conducción brusca" };
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${alpescab.generador.conductores:0}") private int conductores;
+    @Value("${alpescab.generador.clientes:0}") private int clientes;
+    @Value("${alpescab.generador.puntos:0}") private int puntos;
+    @Value("${alpescab.generador.disponibilidades-por-vehiculo:4}") private int disponibilidadesPorVehiculo;
+    @Value("${alpescab.generador.viajes:0}") private long viajes;
+    // Días hacia atrás en los que se reparten los viajes
+    @Value("${alpescab.generador.dias:365}") private int dias;
+    @Value("${alpescab.generador.fraccion-revisiones:0.5}") private double fraccionRevisiones;
+    @Value("${alpescab.generador.semilla:42}") private long semilla;
+    @Value("${alpescab.generador.lote:1000}") private int lote;
+
+    // ---------------------- GENERACIÓN AL INICIAR ----------------------
+    // Corre antes de ApplicationReadyEvent, así que los índices en memoria se construyen con los datos generados
+    @Override
+    public void run(ApplicationArguments args) {
+        if (viajes <= 0 && conductores <= 0) {
+            return;
+        }
+        try {
+            generar();
+        } catch (Exception e) {
+            log.warn("No fue posible generar los datos de carga: {}", e.getMessage());
+        }
+    }
+
+    public void generar() throws Exception {
+        if (conductores <= 0 || clientes <= 0 || puntos < CIUDADES.length) {
+            throw new Exception("Se requieren conductores, clientes y al menos " + CIUDADES.length + " puntos.");
+        }
+        Long existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USUARIOS", Long.class);
+        if (existentes != null && existentes > 0) {
+            log.info("La base de datos ya tiene {} usuarios: no se generan datos.", existentes);
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+
+        generarCiudades();
+        generarUsuarios();
+        generarMediosDePago(aleatorio.split());
+        generarPuntos(aleatorio.split());
+        generarVehiculos();
+        generarDisponibilidades();
+        generarViajes(aleatorio.split());
+        generarAgregados();
+        reiniciarIdentidades();
+
+        log.info("Datos de carga generados en {} ms: {} conductores, {} clientes, {} puntos, {} viajes.",
+            System.currentTimeMillis() - inicio, conductores, clientes, puntos, viajes);
+    }
+
+    // ---------------------- TABLAS BASE ----------------------
+    private void generarCiudades() {
+        List<Object[]> filas = new ArrayList<>();
+        for (int c = 0; c < CIUDADES.length; c++) {
+            filas.add(new Object[] { c + 1L, CIUDADES[c] });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO CIUDADES (ID, NOMBRE) VALUES (?, ?)", filas);
+    }
+
+    private void generarUsuarios() {
+        String sql = "INSERT INTO USUARIOS (ID, TIPO_USUARIO, NOMBRE, CORREO_ELECTRONICO, NUMERO_CELULAR, NUMERO_CEDULA, " +
+                     "VERSION, ESTADO_DISPONIBLE) VALUES (?, ?, ?, ?, ?, ?, 0, ?)";
+        insertarPorLotes(sql, conductores + (long) clientes, id -> {
+            boolean esConductor = id <= conductores;
+            String nombre = NOMBRES[(int) (id % NOMBRES.length)];
+            return new Object[] { id, esConductor ? "CONDUCTOR" : "CLIENTE", nombre + " " + id,
+                "usuario" + id + "@alpescab.com", String.valueOf(3000000000L + id), String.valueOf(1000000000L + id),
+                esConductor ? Boolean.TRUE : null };
+        });
+    }
+
+    private void generarMediosDePago(SplittableRandom aleatorio) {
+        String sql = "INSERT INTO MEDIOS_DE_PAGO (ID, NUMERO_TARJETA, NOMBRE_EN_TARJETA, FECHA_VENCIMIENTO, CODIGO_SEGURIDAD, " +
+                     "TIPO_PAGO, ID_USUARIO_SERVICIO) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        Date vencimiento = Date.valueOf("2030-12-01");
+        insertarPorLotes(sql, clientes, id -> new Object[] { id, String.format("4%015d", id), "CLIENTE " + id, vencimiento,
+            String.format("%03d", aleatorio.nextInt(1000)), aleatorio.nextBoolean() ? "Crédito" : "Débito", conductores + id });
+    }
+
+    // Puntos alrededor del centro de su ciudad, a lo sumo a ~10 km
+    private void generarPuntos(SplittableRandom aleatorio) {
+        String sql = "INSERT INTO PUNTOS_GEOGRAFICOS (ID, NOMBRE, DIRECCION, LATITUD, LONGITUD, ID_CIUDAD) VALUES (?, ?, ?, ?, ?, ?)";
+        insertarPorLotes(sql, puntos, id -> {
+            int ciudad = ciudad(id);
+            return new Object[] { id, null, "Cll " + (id % 200) + " # " + (id % 97) + "-" + (id % 50),
+                CENTROS[ciudad][0] + aleatorio.nextDouble(-0.09, 0.09), CENTROS[ciudad][1] + aleatorio.nextDouble(-0.09, 0.09),
+                ciudad + 1L };
+        });
+    }
+
+    private void generarVehiculos() {
+        String sql = "INSERT INTO VEHICULOS (ID, TIPO, MARCA, MODELO, COLOR, PLACA, CAPACIDAD_PASAJEROS, NIVEL_ASIGNADO, " +
+                     "ID_CONDUCTOR, ID_CIUDAD_EXPEDICION) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        insertarPorLotes(sql, conductores, id -> {
+            String[] modelo = VEHICULOS[(int) (id % VEHICULOS.length)];
+            return new Object[] { id, modelo[0], modelo[1], modelo[2], modelo[3], placa(id), Integer.valueOf(modelo[4]),
+                modelo[5], id, ciudad(id) + 1L };
+        });
+    }
+
+    // Franjas de dos horas sin superposición: una por día de la semana, desde las 06:00
+    private void generarDisponibilidades() {
+        String sql = "INSERT INTO DISPONIBILIDADES (ID, DIA_SEMANA, HORA_INICIO, HORA_FIN, TIPO_SERVICIO, ID_VEHICULO) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        int porVehiculo = Math.min(disponibilidadesPorVehiculo, 7 * 9);
+        insertarPorLotes(sql, (long) conductores * porVehiculo, id -> {
+            long vehiculo = (id - 1) / porVehiculo + 1;
+            int franja = (int) ((id - 1) % porVehiculo);
+            LocalTime inicio = LocalTime.of(6 + 2 * (franja / 7), 0);
+            return new Object[] { id, DayOfWeek.of(franja % 7 + 1).name(), Time.valueOf(inicio), Time.valueOf(inicio.plusHours(2)),
+                tipoServicio(vehiculo), vehiculo };
+        });
+    }
+
+    // ---------------------- VIAJES Y REVISIONES ----------------------
+    // Todos los viajes quedan finalizados (los conductores siguen disponibles para RF8)
+    private void generarViajes(SplittableRandom aleatorio) {
+        String sqlViaje = "INSERT INTO VIAJE (ID, TIPO_SERVICIO, COSTO_TOTAL, HORA_INICIO, HORA_FIN, DURACION_MINUTOS, " +
+                          "LONGITUD_TRAYECTO, VERSION, ID_CONDUCTOR, ID_USUARIO_SERVICIO, ID_VEHICULO, ID_PUNTO_INICIO, ID_PUNTO_FIN) " +
+                          "VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?)";
+        String sqlRevision = "INSERT INTO REVISION (ID, CALIFICACION, COMENTARIO, ID_VIAJE, ID_REVISOR, ID_REVISADO) VALUES (?, ?, ?, ?, ?, ?)";
+        long ahora = System.currentTimeMillis();
+        long rangoMs = dias * 86_400_000L;
+        double[][] coordenadas = coordenadasPuntos();
+
+        List<Object[]> filasViaje = new ArrayList<>(lote);
+        List<Object[]> filasRevision = new ArrayList<>(lote);
+        long revisiones = 0;
+        for (long id = 1; id <= viajes; id++) {
+            long conductor = aleatorio.nextLong(conductores) + 1;
+            long cliente = conductores + aleatorio.nextLong(clientes) + 1;
+            int ciudad = ciudad(conductor);
+            long partida = puntoDeCiudad(ciudad, aleatorio);
+            long llegada = puntoDeCiudad(ciudad, aleatorio);
+            double km = CalculoGeografico.haversineKm(coordenadas[0][(int) partida - 1], coordenadas[1][(int) partida - 1],
+                coordenadas[0][(int) llegada - 1], coordenadas[1][(int) llegada - 1]);
+            String tipo = tipoServicio(conductor);
+            EstimadorTarifaService.Tarifa tarifa = EstimadorTarifaService.tarifa(tipo, VEHICULOS[(int) (conductor % VEHICULOS.length)][5]);
+            double costo = Math.max(EstimadorTarifaService.TARIFA_MINIMA, Math.round(tarifa.base() + tarifa.porKm() * km));
+            long duracion = Math.round(km / 25 * 60) + 3; // ~25 km/h en ciudad
+            long horaInicio = ahora - rangoMs + aleatorio.nextLong(rangoMs - duracion * 60_000);
+
+            filasViaje.add(new Object[] { id, tipo, costo, new Timestamp(horaInicio), new Timestamp(horaInicio + duracion * 60_000),
+                duracion, km, conductor, cliente, conductor, partida, llegada });
+            if (aleatorio.nextDouble() < fraccionRevisiones) {
+                filasRevision.add(new Object[] { ++revisiones, 3 + aleatorio.nextInt(3), COMENTARIOS[aleatorio.nextInt(COMENTARIOS.length)],
+                    id, cliente, conductor });
+            }
+            if (filasViaje.size() == lote) {
+                jdbcTemplate.batchUpdate(sqlViaje, filasViaje);
+                filasViaje.clear();
+                // Las revisiones van después de sus viajes (llave foránea)
+                jdbcTemplate.batchUpdate(sqlRevision, filasRevision);
+                filasRevision.clear();
+            }
+            if (id % 100_000 == 0) {
+                log.info("Viajes generados: {} de {}", id, viajes);
+            }
+        }
+        jdbcTemplate.batchUpdate(sqlViaje, filasViaje);
+        jdbcTemplate.batchUpdate(sqlRevision, filasRevision);
+    }
+
+    // [latitudes, longitudes] de los puntos generados, indexadas por ID - 1
+    private double[][] coordenadasPuntos() {
+        double[][] coordenadas = new double[2][puntos];
+        jdbcTemplate.query("SELECT ID, LATITUD, LONGITUD FROM PUNTOS_GEOGRAFICOS", fila -> {
+            int indice = (int) fila.getLong(1) - 1;
+            coordenadas[0][indice] = fila.getDouble(2);
+            coordenadas[1][indice] = fila.getDouble(3);
+        });
+        return coordenadas;
+    }
+
+    // ---------------------- AGREGADOS DE RFC3/RFC4 ----------------------
+    // Lo que RF9 y el volcado de UsoServiciosService habrían acumulado para los viajes generados.
+    // CONTEO_VIAJES_CONDUCTOR (RFC2) lo reconstruye TopConductoresService al iniciar y
+    // CALIFICACIONES_USUARIO (RF10/RF11), CalificacionesService.
+    private void generarAgregados() {
+        jdbcTemplate.update(
+            "INSERT INTO GANANCIAS_DIARIAS (ID_CONDUCTOR, PLACA, TIPO_SERVICIO, DIA, GANANCIA, NUM_VIAJES) " +
+            "SELECT v.ID_CONDUCTOR, ve.PLACA, v.TIPO_SERVICIO, CAST(v.HORA_FIN AS DATE), SUM(v.COSTO_TOTAL) * ?, COUNT(*) " +
+            "FROM VIAJE v JOIN VEHICULOS ve ON ve.ID = v.ID_VEHICULO WHERE v.HORA_FIN IS NOT NULL " +
+            "GROUP BY v.ID_CONDUCTOR, ve.PLACA, v.TIPO_SERVICIO, CAST(v.HORA_FIN AS DATE)",
+            ServicioTransaccionalService.PORCENTAJE_CONDUCTOR);
+        jdbcTemplate.update(
+            "INSERT INTO USO_SERVICIOS_HORA (ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES) " +
+            "SELECT p.ID_CIUDAD, v.TIPO_SERVICIO, DATE_TRUNC('HOUR', v.HORA_INICIO), COUNT(*) " +
+            "FROM VIAJE v JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO " +
+            "GROUP BY p.ID_CIUDAD, v.TIPO_SERVICIO, DATE_TRUNC('HOUR', v.HORA_INICIO)");
+    }
+
+    // Los IDs se insertaron explícitamente: las secuencias (<TABLA>_SEQ, asignación pooled-lo) y las
+    // identidades deben continuar después del último
+    private void reiniciarIdentidades() {
+        for (String tabla : List.of("CIUDADES", "USUARIOS", "MEDIOS_DE_PAGO", "PUNTOS_GEOGRAFICOS", "VEHICULOS",
+                                    "DISPONIBILIDADES")) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + tabla + "_SEQ RESTART WITH " + siguienteId(tabla));
+        }
+        for (String tabla : List.of("VIAJE", "REVISION")) {
+            jdbcTemplate.execute("ALTER TABLE " + tabla + " ALTER COLUMN ID RESTART WITH " + siguienteId(tabla));
+        }
+    }
+
+    private long siguienteId(String tabla) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ID), 0) + 1 FROM " + tabla, Long.class);
+    }
+
+    // ---------------------- AUXILIARES ----------------------
+    private interface Fila {
+        Object[] de(long id);
+    }
+
+    private void insertarPorLotes(String sql, long total, Fila fila) {
+        List<Object[]> filas = new ArrayList<>(lote);
+        for (long id = 1; id <= total; id++) {
+            filas.add(fila.de(id));
+            if (filas.size() == lote) {
+                jdbcTemplate.batchUpdate(sql, filas);
+                filas.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, filas);
+    }
+
+    // Índice (0..9) de la ciudad de un punto o vehículo
+    private static int ciudad(long id) {
+        return (int) ((id - 1) % CIUDADES.length);
+    }
+
+    private long puntoDeCiudad(int ciudad, SplittableRandom aleatorio) {
+        int enCiudad = (puntos - ciudad + CIUDADES.length - 1) / CIUDADES.length;
+        return ciudad + 1 + (long) CIUDADES.length * aleatorio.nextInt(enCiudad);
+    }
+
+    // Motocicletas: comida; camionetas: mercancías; carros: pasajeros
+    private static String tipoServicio(long vehiculo) {
+        return switch (VEHICULOS[(int) (vehiculo % VEHICULOS.length)][0]) {
+            case "MOTOCICLETA" -> TIPOS_SERVICIO[1];
+            case "CAMIONETA" -> TIPOS_SERVICIO[2];
+            default -> TIPOS_SERVICIO[0];
+        };
+    }
+
+    private static String placa(long id) {
+        // Tres letras y tres dígitos, únicas hasta 17.576.000 vehículos
+        return String.format("%c%c%c%03d", (char) ('A' + id / 676_000 % 26), (char) ('A' + id / 26_000 % 26),
+            (char) ('A' + id / 1000 % 26), id % 1000);
+    }
+}
@@ -0,0 +1,170 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+// Grilla espacial concurrente: divide el plano (latitud, longitud) en celdas cuadradas de
+// tamanoCeldaGrados y guarda en cada celda los IDs de los elementos que caen en ella.
+// Las consultas de vecinos recorren anillos de celdas alrededor del origen, por lo que su costo
+// depende de la densidad local y no del número total de elementos. Las columnas de longitud dan la
+// vuelta en ±180: un origen junto al antimeridiano ve los elementos del otro lado.
+public class GrillaEspacial {
+
+    // Resultado de una consulta: ID del elemento y distancia en km al origen
+    public record Vecino(long id, double distanciaKm) {}
+
+    private final double tamanoCeldaGrados;
+    // Columnas de longitud en la vuelta completa y la primera (la de -180)
+    private final int columnas;
+    private final int primeraColumna;
+    private final Map<Long, Set<Long>> celdas = new ConcurrentHashMap<>();
+    private final Map<Long, double[]> posiciones = new ConcurrentHashMap<>();
+
+    public GrillaEspacial(double tamanoCeldaGrados) {
+        this.tamanoCeldaGrados = tamanoCeldaGrados;
+        this.columnas = (int) Math.ceil(360.0 / tamanoCeldaGrados);
+        this.primeraColumna = indice(-180.0);
+    }
+
+    // Inserta o mueve un elemento. La actualización de celdas ocurre bajo el bloqueo de su ID.
+    public void actualizar(long id, double latitud, double longitud) {
+        posiciones.compute(id, (k, anterior) -> {
+            long celdaNueva = celda(latitud, longitud);
+            if (anterior != null) {
+                long celdaAnterior = celda(anterior[0], anterior[1]);
+                if (celdaAnterior == celdaNueva) {
+                    return new double[] { latitud, longitud };
+                }
+                quitarDeCelda(celdaAnterior, id);
+            }
+            celdas.compute(celdaNueva, (c, ids) -> {
+                Set<Long> conjunto = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                conjunto.add(id);
+                return conjunto;
+            });
+            return new double[] { latitud, longitud };
+        });
+    }
+
+    public void eliminar(long id) {
+        posiciones.computeIfPresent(id, (k, anterior) -> {
+            quitarDeCelda(celda(anterior[0], anterior[1]), id);
+            return null;
+        });
+    }
+
+    public void limpiar() {
+        celdas.clear();
+        posiciones.clear();
+    }
+
+    // Posición [latitud, longitud] de un elemento, o null si no está en la grilla
+    public double[] posicion(long id) {
+        double[] p = posiciones.get(id);
+        return p == null ? null : p.clone();
+    }
+
+    public int tamano() {
+        return posiciones.size();
+    }
+
+    // Los k elementos más cercanos que cumplan el filtro, a no más de radioMaximoKm, ordenados por distancia
+    public List<Vecino> kMasCercanos(double latitud, double longitud, int k, double radioMaximoKm, LongPredicate filtro) {
+        List<Vecino> encontrados = new ArrayList<>();
+        if (k <= 0 || posiciones.isEmpty()) {
+            return encontrados;
+        }
+        double kmPorCelda = kmMinimoPorCelda(latitud);
+        int anilloMaximo = (int) Math.ceil(radioMaximoKm / kmPorCelda) + 1;
+        int latIdx = indice(latitud);
+        int lonIdx = columna(longitud);
+
+        for (int anillo = 0; anillo <= anilloMaximo; anillo++) {
+            recorrerAnillo(latIdx, lonIdx, anillo, id -> {
+                double[] p = posiciones.get(id);
+                if (p == null || !filtro.test(id)) {
+                    return;
+                }
+                double d = CalculoGeografico.haversineKm(latitud, longitud, p[0], p[1]);
+                if (d <= radioMaximoKm) {
+                    encontrados.add(new Vecino(id, d));
+                }
+            });
+            // Todo elemento fuera de los anillos recorridos está a más de anillo * kmPorCelda
+            if (encontrados.size() >= k) {
+                encontrados.sort(Comparator.comparingDouble(Vecino::distanciaKm));
+                if (encontrados.get(k - 1).distanciaKm() <= anillo * kmPorCelda) {
+                    return new ArrayList<>(encontrados.subList(0, k));
+                }
+            }
+        }
+        encontrados.sort(Comparator.comparingDouble(Vecino::distanciaKm));
+        return encontrados.size() > k ? new ArrayList<>(encontrados.subList(0, k)) : encontrados;
+    }
+
+    // Todos los elementos a no más de radioKm del origen, ordenados por distancia
+    public List<Vecino> dentroDeRadio(double latitud, double longitud, double radioKm) {
+        return kMasCercanos(latitud, longitud, Integer.MAX_VALUE, radioKm, id -> true);
+    }
+
+    // ---------------------- MANEJO DE CELDAS ----------------------
+    private void recorrerAnillo(int latIdx, int lonIdx, int anillo, LongConsumer visitante) {
+        // Un anillo más ancho que la vuelta completa repetiría columnas: se recorre cada una una sola vez
+        int desdeLon = Math.max(-anillo, -(columnas / 2));
+        int hastaLon = Math.min(anillo, columnas - 1 - columnas / 2);
+        for (int dLat = -anillo; dLat <= anillo; dLat++) {
+            for (int dLon = desdeLon; dLon <= hastaLon; dLon++) {
+                // Solo el borde del cuadrado: el interior ya se recorrió en anillos anteriores
+                if (Math.abs(dLat) != anillo && Math.abs(dLon) != anillo) {
+                    continue;
+                }
+                Set<Long> ids = celdas.get(llave(latIdx + dLat, envolver(lonIdx + dLon)));
+                if (ids != null) {
+                    for (Long id : ids) {
+                        visitante.accept(id);
+                    }
+                }
+            }
+        }
+    }
+
+    private void quitarDeCelda(long celda, long id) {
+        celdas.computeIfPresent(celda, (c, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Lado más corto de una celda en km (la longitud se encoge con el coseno de la latitud)
+    private double kmMinimoPorCelda(double latitud) {
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitud) + tamanoCeldaGrados))));
+        return tamanoCeldaGrados * CalculoGeografico.KM_POR_GRADO_LATITUD * cos;
+    }
+
+    private int indice(double grados) {
+        return (int) Math.floor(grados / tamanoCeldaGrados);
+    }
+
+    // Columna de la longitud, llevada a [-180, 180)
+    private int columna(double longitud) {
+        return envolver(indice(longitud));
+    }
+
+    private int envolver(int lonIdx) {
+        return Math.floorMod(lonIdx - primeraColumna, columnas) + primeraColumna;
+    }
+
+    private long celda(double latitud, double longitud) {
+        return llave(indice(latitud), columna(longitud));
+    }
+
+    private static long llave(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+}
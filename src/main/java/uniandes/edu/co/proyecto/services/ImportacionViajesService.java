@@ -0,0 +1,678 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.ImportacionViajesEntity;
+import uniandes.edu.co.proyecto.repositories.ImportacionViajesRepository;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoImportacionDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoLoteDTO.ErrorFilaDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Savepoint;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Importación de viajes históricos de un sistema anterior a VIAJE, desde CSV o NDJSON.
+//
+// 1. Lectura: el archivo llega por un canal NIO (cuerpo de la petición o archivo) y se lee línea por
+//    línea con un buffer fijo; la memoria usada no depende del tamaño del archivo.
+// 2. Resolución: cédulas, placas y puntos se traducen a IDs con mapas cargados una sola vez al empezar
+//    (o con el índice espacial si la fila trae coordenadas), sin consultas por fila.
+// 3. Escritura: un hilo escritor inserta cada bloque de filas-por-transaccion filas con lotes JDBC, suma
+//    sus viajes a GANANCIAS_DIARIAS, USO_SERVICIOS_HORA y CONTEO_VIAJES_CONDUCTOR y avanza el punto de
+//    control, todo en la misma transacción. Entre lector y escritor hay una cola de bloques-en-cola
+//    bloques: si la BD va más lenta que la lectura, el lector espera en vez de acumular filas.
+// 4. Reanudación: si la importación se interrumpe, se envía de nuevo el mismo archivo con el mismo ID y
+//    se saltan los bytes hasta el punto de control (con un archivo, el canal se posiciona directamente).
+// Las filas inválidas se cuentan y se reportan sin detener la importación. Si un bloque falla en la BD,
+// la importación se detiene; lo confirmado hasta el bloque anterior se conserva para reanudar.
+@Service
+public class ImportacionViajesService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionViajesService.class);
+
+    public static final String CSV = "CSV";
+    public static final String NDJSON = "NDJSON";
+
+    // Errores de fila que se devuelven en la respuesta (el total se cuenta siempre)
+    private static final int MAXIMO_ERRORES = 100;
+    // Una línea más larga que esto no es un viaje: se detiene la lectura en vez de crecer sin límite
+    private static final int MAXIMO_LINEA = 64 * 1024;
+    // Espera antes de volver a leer un canal que no tenía datos
+    private static final long ESPERA_SIN_DATOS_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Columnas del CSV y campos del NDJSON. El punto de partida y el de llegada se dan por ID
+    // (puntoPartidaId) o por coordenadas de un punto registrado (latitudPartida, longitudPartida)
+    private static final List<String> OBLIGATORIOS = List.of(
+        "tipoServicio", "costoTotal", "horaInicio", "cedulaCliente", "cedulaConductor", "placa");
+
+    private static final String SQL_VIAJE =
+        "INSERT INTO VIAJE (TIPO_SERVICIO, COSTO_TOTAL, HORA_INICIO, HORA_FIN, DURACION_MINUTOS, LONGITUD_TRAYECTO, " +
+        "VERSION, ID_CONDUCTOR, ID_USUARIO_SERVICIO, ID_VEHICULO, ID_PUNTO_INICIO, ID_PUNTO_FIN) " +
+        "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?)";
+
+    @Autowired private ImportacionViajesRepository importacionRepository;
+    @Autowired private IndiceEspacialService indiceEspacial;
+    @Autowired private TopConductoresService topConductores;
+    @Autowired private CacheConsultasService cacheConsultas;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${alpescab.importacion-viajes.filas-por-transaccion:5000}")
+    private int filasPorTransaccion;
+
+    @Value("${alpescab.importacion-viajes.bloques-en-cola:4}")
+    private int bloquesEnCola;
+
+    @Value("${alpescab.importacion-viajes.tamano-buffer:65536}")
+    private int tamanoBuffer;
+
+    // Una misma importación no puede correr dos veces a la vez (ambas avanzarían el mismo punto de control)
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    // Viaje listo para insertar, con sus referencias ya resueltas
+    record Fila(String tipoServicio, double costoTotal, LocalDateTime horaInicio, LocalDateTime horaFin,
+                Double longitudTrayecto, long clienteId, long conductorId, long vehiculoId, String placa,
+                long puntoPartidaId, long ciudadId, Long puntoLlegadaId) {}
+
+    // Filas leídas hasta el byte "posicion" (el siguiente a la última línea del bloque)
+    private record Bloque(List<Fila> filas, int filasConError, long posicion, long linea) {}
+    private static final Bloque FIN = new Bloque(List.of(), 0, -1, -1);
+
+    // cédula -> ID de cliente o conductor, placa -> ID de vehículo, ID de punto -> ID de su ciudad
+    private record Referencias(Map<String, Long> clientes, Map<String, Long> conductores,
+                               Map<String, Long> vehiculos, Map<Long, Long> ciudadDePunto) {}
+
+    private interface Campos {
+        String valor(String nombre);
+    }
+
+    // ---------------------- IMPORTACIÓN ----------------------
+    public ResultadoImportacionDTO importar(String id, String formato, ReadableByteChannel canal) throws Exception {
+        if (id == null || id.isBlank() || id.length() > 100) {
+            throw new Exception("Importación Fallida: El ID de la importación es obligatorio (máximo 100 caracteres).");
+        }
+        String tipoArchivo = formato == null ? CSV : formato.trim().toUpperCase();
+        if (!tipoArchivo.equals(CSV) && !tipoArchivo.equals(NDJSON)) {
+            throw new Exception("Importación Fallida: Formato no soportado: " + formato + " (csv o ndjson).");
+        }
+        if (!enCurso.add(id)) {
+            throw new Exception("Importación Fallida: La importación " + id + " ya está en curso.");
+        }
+        try {
+            ImportacionViajesEntity control = transactionTemplate.execute(estado -> importacionRepository.findById(id)
+                .orElseGet(() -> importacionRepository.save(new ImportacionViajesEntity(id, tipoArchivo))));
+            if (!control.getFormato().equals(tipoArchivo)) {
+                throw new Exception("Importación Fallida: La importación " + id + " se inició en formato " + control.getFormato() + ".");
+            }
+            if (ImportacionViajesEntity.TERMINADA.equals(control.getEstado())) {
+                return resultado(control, List.of());
+            }
+
+            List<ErrorFilaDTO> errores = new ArrayList<>();
+            procesar(control, canal, cargarReferencias(), errores);
+
+            ImportacionViajesEntity terminada = transactionTemplate.execute(estado -> {
+                ImportacionViajesEntity actual = importacionRepository.findById(id).orElseThrow();
+                actual.setEstado(ImportacionViajesEntity.TERMINADA);
+                actual.setActualizada(new Date());
+                return actual;
+            });
+            log.info("Importación de viajes {} terminada: {} importados, {} con error.", id,
+                terminada.getFilasImportadas(), terminada.getFilasConError());
+            return resultado(terminada, errores);
+        } finally {
+            enCurso.remove(id);
+            cacheConsultas.alImportarViajes();
+        }
+    }
+
+    public ResultadoImportacionDTO consultar(String id) throws Exception {
+        ImportacionViajesEntity control = importacionRepository.findById(id)
+            .orElseThrow(() -> new Exception("No existe la importación " + id + "."));
+        return resultado(control, List.of());
+    }
+
+    private static ResultadoImportacionDTO resultado(ImportacionViajesEntity control, List<ErrorFilaDTO> errores) {
+        return new ResultadoImportacionDTO(control.getId(), control.getEstado(), control.getPosicion(),
+            control.getFilasImportadas(), control.getFilasConError(), errores);
+    }
+
+    // El hilo actual lee y resuelve; el escritor guarda los bloques en el orden en que se leyeron.
+    // Si la lectura falla, lo ya leído se guarda igual antes de reportar el error.
+    private void procesar(ImportacionViajesEntity control, ReadableByteChannel canal, Referencias referencias,
+                          List<ErrorFilaDTO> errores) throws Exception {
+        BlockingQueue<Bloque> cola = new ArrayBlockingQueue<>(bloquesEnCola);
+        FutureTask<Void> escritor = new FutureTask<>(() -> {
+            for (Bloque bloque = cola.take(); bloque != FIN; bloque = cola.take()) {
+                escribir(control.getId(), bloque);
+            }
+            return null;
+        });
+        Thread hilo = new Thread(escritor, "importacion-viajes-" + control.getId());
+        hilo.setDaemon(true);
+        hilo.start();
+
+        Exception errorLectura = null;
+        try {
+            try {
+                leer(control, canal, referencias, errores, bloque -> entregar(cola, bloque, escritor));
+            } catch (ExecutionException e) {
+                throw e;
+            } catch (Exception e) {
+                errorLectura = e;
+            }
+            entregar(cola, FIN, escritor);
+            escritor.get();
+        } catch (ExecutionException e) {
+            throw new Exception("Importación Fallida: Un bloque no pudo guardarse; la importación puede reanudarse " +
+                "desde el último punto de control. " + NestedExceptionUtils.getMostSpecificCause(e.getCause()).getMessage());
+        } finally {
+            if (!escritor.isDone()) {
+                hilo.interrupt();
+            }
+        }
+        if (errorLectura != null) {
+            throw new Exception("Importación Fallida: Error leyendo el archivo; la importación puede reanudarse " +
+                "desde el último punto de control. " + errorLectura.getMessage());
+        }
+    }
+
+    // Espera espacio en la cola; si el escritor terminó por un error, lo propaga en vez de esperar para siempre
+    private static void entregar(BlockingQueue<Bloque> cola, Bloque bloque, Future<?> escritor) throws Exception {
+        while (!escritor.isDone()) {
+            if (cola.offer(bloque, 1, TimeUnit.SECONDS)) {
+                return;
+            }
+        }
+        escritor.get();
+        throw new IllegalStateException("El escritor de la importación terminó antes de tiempo.");
+    }
+
+    private interface Entrega {
+        void entregar(Bloque bloque) throws Exception;
+    }
+
+    // ---------------------- LECTURA ----------------------
+    private void leer(ImportacionViajesEntity control, ReadableByteChannel canal, Referencias referencias,
+                      List<ErrorFilaDTO> errores, Entrega entrega) throws Exception {
+        LectorLineas lector = new LectorLineas(canal, tamanoBuffer);
+        boolean csv = control.getFormato().equals(CSV);
+        long linea = 0;
+        Map<String, Integer> encabezado = null;
+        if (csv) {
+            String texto = lector.siguiente();
+            if (texto == null) {
+                return;
+            }
+            linea++;
+            encabezado = encabezado(texto);
+        }
+        if (control.getPosicion() > lector.posicion()) {
+            lector.saltarA(control.getPosicion());
+            linea = control.getLinea();
+        }
+
+        List<Fila> filas = new ArrayList<>(filasPorTransaccion);
+        int conError = 0;
+        String texto;
+        while ((texto = lector.siguiente()) != null) {
+            linea++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            try {
+                filas.add(resolver(csv ? camposCsv(encabezado, texto) : camposJson(texto), referencias));
+            } catch (Exception e) {
+                conError++;
+                if (errores.size() < MAXIMO_ERRORES) {
+                    errores.add(new ErrorFilaDTO((int) linea, e.getMessage()));
+                }
+            }
+            if (filas.size() + conError == filasPorTransaccion) {
+                entrega.entregar(new Bloque(filas, conError, lector.posicion(), linea));
+                filas = new ArrayList<>(filasPorTransaccion);
+                conError = 0;
+            }
+        }
+        if (!filas.isEmpty() || conError > 0) {
+            entrega.entregar(new Bloque(filas, conError, lector.posicion(), linea));
+        }
+    }
+
+    private static Map<String, Integer> encabezado(String texto) throws Exception {
+        String[] columnas = separarCsv(texto.startsWith("\uFEFF") ? texto.substring(1) : texto);
+        Map<String, Integer> posiciones = new HashMap<>();
+        for (int i = 0; i < columnas.length; i++) {
+            posiciones.put(columnas[i].trim(), i);
+        }
+        for (String obligatorio : OBLIGATORIOS) {
+            if (!posiciones.containsKey(obligatorio)) {
+                throw new Exception("El encabezado del CSV no tiene la columna " + obligatorio + ".");
+            }
+        }
+        return posiciones;
+    }
+
+    private static Campos camposCsv(Map<String, Integer> encabezado, String texto) {
+        String[] valores = separarCsv(texto);
+        return nombre -> {
+            Integer posicion = encabezado.get(nombre);
+            return posicion == null || posicion >= valores.length || valores[posicion].isBlank() ? null : valores[posicion].trim();
+        };
+    }
+
+    private Campos camposJson(String texto) throws Exception {
+        JsonNode nodo;
+        try {
+            nodo = objectMapper.readTree(texto);
+        } catch (IOException e) {
+            throw new Exception("La línea no es un objeto JSON válido.");
+        }
+        if (!nodo.isObject()) {
+            throw new Exception("La línea no es un objeto JSON válido.");
+        }
+        return nombre -> {
+            JsonNode valor = nodo.get(nombre);
+            return valor == null || valor.isNull() || valor.asText().isBlank() ? null : valor.asText().trim();
+        };
+    }
+
+    // Valores separados por comas; un valor entre comillas dobles puede tener comas y "" como comilla
+    static String[] separarCsv(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    actual.append(c);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores.toArray(String[]::new);
+    }
+
+    // ---------------------- RESOLUCIÓN DE REFERENCIAS ----------------------
+    // Se leen del primario: lo registrado justo antes de importar debe estar
+    private Referencias cargarReferencias() {
+        return transactionTemplate.execute(estado -> {
+            Map<String, Long> clientes = new HashMap<>();
+            Map<String, Long> conductores = new HashMap<>();
+            jdbcTemplate.query("SELECT NUMERO_CEDULA, ID, TIPO_USUARIO FROM USUARIOS", fila -> {
+                ("CONDUCTOR".equals(fila.getString(3)) ? conductores : clientes).put(fila.getString(1), fila.getLong(2));
+            });
+            Map<String, Long> vehiculos = new HashMap<>();
+            jdbcTemplate.query("SELECT PLACA, ID FROM VEHICULOS", fila -> {
+                vehiculos.put(fila.getString(1), fila.getLong(2));
+            });
+            Map<Long, Long> ciudadDePunto = new HashMap<>();
+            jdbcTemplate.query("SELECT ID, ID_CIUDAD FROM PUNTOS_GEOGRAFICOS", fila -> {
+                ciudadDePunto.put(fila.getLong(1), fila.getLong(2));
+            });
+            return new Referencias(clientes, conductores, vehiculos, ciudadDePunto);
+        });
+    }
+
+    private Fila resolver(Campos campos, Referencias referencias) throws Exception {
+        for (String obligatorio : OBLIGATORIOS) {
+            if (campos.valor(obligatorio) == null) {
+                throw new Exception("Falta " + obligatorio + ".");
+            }
+        }
+        String tipoServicio = campos.valor("tipoServicio");
+        if (tipoServicio.length() > 255) {
+            throw new Exception("tipoServicio supera 255 caracteres.");
+        }
+        double costoTotal = numero(campos, "costoTotal");
+        if (costoTotal < 0) {
+            throw new Exception("costoTotal no puede ser negativo.");
+        }
+        LocalDateTime horaInicio = fecha(campos, "horaInicio");
+        LocalDateTime horaFin = campos.valor("horaFin") == null ? null : fecha(campos, "horaFin");
+        if (horaFin != null && horaFin.isBefore(horaInicio)) {
+            throw new Exception("horaFin es anterior a horaInicio.");
+        }
+        Double longitudTrayecto = campos.valor("longitudTrayecto") == null ? null : numero(campos, "longitudTrayecto");
+
+        Long clienteId = referencias.clientes().get(campos.valor("cedulaCliente"));
+        if (clienteId == null) {
+            throw new Exception("No existe un cliente con cédula " + campos.valor("cedulaCliente") + ".");
+        }
+        Long conductorId = referencias.conductores().get(campos.valor("cedulaConductor"));
+        if (conductorId == null) {
+            throw new Exception("No existe un conductor con cédula " + campos.valor("cedulaConductor") + ".");
+        }
+        String placa = campos.valor("placa");
+        Long vehiculoId = referencias.vehiculos().get(placa);
+        if (vehiculoId == null) {
+            throw new Exception("No existe un vehículo con placa " + placa + ".");
+        }
+        Long partida = punto(campos, "Partida", referencias);
+        if (partida == null) {
+            throw new Exception("Falta el punto de partida (puntoPartidaId o latitudPartida y longitudPartida).");
+        }
+        Long llegada = punto(campos, "Llegada", referencias);
+
+        return new Fila(tipoServicio, costoTotal, horaInicio, horaFin, longitudTrayecto, clienteId, conductorId,
+            vehiculoId, placa, partida, referencias.ciudadDePunto().get(partida), llegada);
+    }
+
+    // ID del punto dado por ID o por coordenadas de un punto registrado; null si la fila no trae ninguno
+    private Long punto(Campos campos, String cual, Referencias referencias) throws Exception {
+        Long puntoId;
+        String id = campos.valor("punto" + cual + "Id");
+        if (id != null) {
+            puntoId = (long) numero(campos, "punto" + cual + "Id");
+        } else {
+            if (campos.valor("latitud" + cual) == null || campos.valor("longitud" + cual) == null) {
+                return null;
+            }
+            double latitud = numero(campos, "latitud" + cual);
+            double longitud = numero(campos, "longitud" + cual);
+            puntoId = indiceEspacial.puntoDuplicado(latitud, longitud)
+                .orElseThrow(() -> new Exception("No hay un punto registrado en (" + latitud + ", " + longitud + ")."));
+        }
+        if (!referencias.ciudadDePunto().containsKey(puntoId)) {
+            throw new Exception("No existe el punto " + puntoId + ".");
+        }
+        return puntoId;
+    }
+
+    private static double numero(Campos campos, String nombre) throws Exception {
+        try {
+            return Double.parseDouble(campos.valor(nombre));
+        } catch (NumberFormatException e) {
+            throw new Exception(nombre + " no es un número: " + campos.valor(nombre) + ".");
+        }
+    }
+
+    // ISO-8601 (2024-03-01T08:30:00); también se acepta un espacio en vez de la T
+    private static LocalDateTime fecha(Campos campos, String nombre) throws Exception {
+        try {
+            return LocalDateTime.parse(campos.valor(nombre).replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new Exception(nombre + " no es una fecha ISO (aaaa-mm-ddThh:mm:ss): " + campos.valor(nombre) + ".");
+        }
+    }
+
+    // ---------------------- ESCRITURA ----------------------
+    private void escribir(String id, Bloque bloque) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            if (!bloque.filas().isEmpty()) {
+                jdbcTemplate.batchUpdate(SQL_VIAJE, bloque.filas(), bloque.filas().size(), ImportacionViajesService::asignar);
+                acumular(bloque.filas());
+            }
+            jdbcTemplate.update("UPDATE IMPORTACIONES_VIAJES SET POSICION = ?, LINEA = ?, FILAS_IMPORTADAS = FILAS_IMPORTADAS + ?, " +
+                                "FILAS_CON_ERROR = FILAS_CON_ERROR + ?, ACTUALIZADA = ? WHERE ID = ?",
+                bloque.posicion(), bloque.linea(), bloque.filas().size(), bloque.filasConError(),
+                new Timestamp(System.currentTimeMillis()), id);
+        });
+    }
+
+    private static void asignar(PreparedStatement sentencia, Fila fila) throws SQLException {
+        sentencia.setString(1, fila.tipoServicio());
+        sentencia.setDouble(2, fila.costoTotal());
+        sentencia.setTimestamp(3, Timestamp.valueOf(fila.horaInicio()));
+        if (fila.horaFin() == null) {
+            sentencia.setNull(4, Types.TIMESTAMP);
+            sentencia.setNull(5, Types.BIGINT);
+        } else {
+            sentencia.setTimestamp(4, Timestamp.valueOf(fila.horaFin()));
+            sentencia.setLong(5, Duration.between(fila.horaInicio(), fila.horaFin()).toMinutes());
+        }
+        if (fila.longitudTrayecto() == null) {
+            sentencia.setNull(6, Types.DOUBLE);
+        } else {
+            sentencia.setDouble(6, fila.longitudTrayecto());
+        }
+        sentencia.setLong(7, fila.conductorId());
+        sentencia.setLong(8, fila.clienteId());
+        sentencia.setLong(9, fila.vehiculoId());
+        sentencia.setLong(10, fila.puntoPartidaId());
+        if (fila.puntoLlegadaId() == null) {
+            sentencia.setNull(11, Types.BIGINT);
+        } else {
+            sentencia.setLong(11, fila.puntoLlegadaId());
+        }
+    }
+
+    private record ClaveGanancia(long conductorId, String placa, String tipoServicio, LocalDate dia) {}
+
+    // Lo que RF9 (ganancias del día en que terminó el viaje), el volcado de RF8 (viajes por ciudad de
+    // partida y hora) y el contador de RFC2 habrían sumado por los viajes del bloque
+    private void acumular(List<Fila> filas) {
+        Map<ClaveGanancia, double[]> ganancias = new HashMap<>();
+        Map<UsoServiciosService.ClaveUso, Long> usos = new HashMap<>();
+        Map<Long, Long> viajesPorConductor = new HashMap<>();
+        for (Fila fila : filas) {
+            if (fila.horaFin() != null) {
+                double[] ganancia = ganancias.computeIfAbsent(new ClaveGanancia(fila.conductorId(), fila.placa(),
+                    fila.tipoServicio(), fila.horaFin().toLocalDate()), k -> new double[2]);
+                ganancia[0] += fila.costoTotal() * ServicioTransaccionalService.PORCENTAJE_CONDUCTOR;
+                ganancia[1]++;
+            }
+            usos.merge(new UsoServiciosService.ClaveUso(fila.ciudadId(), fila.tipoServicio(),
+                fila.horaInicio().truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+            viajesPorConductor.merge(fila.conductorId(), 1L, Long::sum);
+        }
+
+        List<Object[]> sumar = new ArrayList<>();
+        List<Object[]> insertar = new ArrayList<>();
+        ganancias.forEach((clave, ganancia) -> {
+            java.sql.Date dia = java.sql.Date.valueOf(clave.dia());
+            sumar.add(new Object[] { ganancia[0], (long) ganancia[1], clave.conductorId(), clave.placa(), clave.tipoServicio(), dia });
+            insertar.add(new Object[] { clave.conductorId(), clave.placa(), clave.tipoServicio(), dia, ganancia[0], (long) ganancia[1] });
+        });
+        sumarOInsertar(
+            "UPDATE GANANCIAS_DIARIAS SET GANANCIA = GANANCIA + ?, NUM_VIAJES = NUM_VIAJES + ? " +
+            "WHERE ID_CONDUCTOR = ? AND PLACA = ? AND TIPO_SERVICIO = ? AND DIA = ?", sumar,
+            "INSERT INTO GANANCIAS_DIARIAS (ID_CONDUCTOR, PLACA, TIPO_SERVICIO, DIA, GANANCIA, NUM_VIAJES) VALUES (?, ?, ?, ?, ?, ?)", insertar);
+
+        sumar.clear();
+        insertar.clear();
+        usos.forEach((clave, cantidad) -> {
+            Timestamp hora = Timestamp.valueOf(clave.hora());
+            sumar.add(new Object[] { cantidad, clave.ciudadId(), clave.tipoServicio(), hora });
+            insertar.add(new Object[] { clave.ciudadId(), clave.tipoServicio(), hora, cantidad });
+        });
+        sumarOInsertar(
+            "UPDATE USO_SERVICIOS_HORA SET NUM_VIAJES = NUM_VIAJES + ? WHERE ID_CIUDAD = ? AND TIPO_SERVICIO = ? AND HORA = ?", sumar,
+            "INSERT INTO USO_SERVICIOS_HORA (ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES) VALUES (?, ?, ?, ?)", insertar);
+
+        sumar.clear();
+        insertar.clear();
+        viajesPorConductor.forEach((conductorId, cantidad) -> {
+            sumar.add(new Object[] { cantidad, conductorId });
+            insertar.add(new Object[] { conductorId, cantidad });
+        });
+        sumarOInsertar(
+            "UPDATE CONTEO_VIAJES_CONDUCTOR SET NUM_VIAJES = NUM_VIAJES + ? WHERE ID_CONDUCTOR = ?", sumar,
+            "INSERT INTO CONTEO_VIAJES_CONDUCTOR (ID_CONDUCTOR, NUM_VIAJES) VALUES (?, ?)", insertar);
+        topConductores.registrarViajesImportados(viajesPorConductor);
+    }
+
+    // Un lote de UPDATE para todas las llaves y otro de INSERT para las que aún no tenían fila.
+    // RF9, RF8 y el volcado de RFC4 pueden crear una de esas filas al mismo tiempo: si el lote de INSERT
+    // falla por la llave primaria, se deshace hasta el punto de guardado (no se sabe qué filas del lote
+    // alcanzaron a entrar) y esas llaves se suman o insertan una por una.
+    private void sumarOInsertar(String sqlSumar, List<Object[]> sumar, String sqlInsertar, List<Object[]> insertar) {
+        if (sumar.isEmpty()) {
+            return;
+        }
+        int[] actualizadas = jdbcTemplate.batchUpdate(sqlSumar, sumar);
+        List<Integer> nuevas = new ArrayList<>();
+        for (int i = 0; i < actualizadas.length; i++) {
+            if (actualizadas[i] == 0) {
+                nuevas.add(i);
+            }
+        }
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        // El punto de guardado va en la conexión de la transacción: JpaTransactionManager no los ofrece.
+        // No se libera (el driver de Oracle no lo permite); termina con la transacción.
+        boolean insertadas = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion -> {
+            Savepoint puntoGuardado = conexion.setSavepoint();
+            try {
+                jdbcTemplate.batchUpdate(sqlInsertar, nuevas.stream().map(insertar::get).toList());
+                return true;
+            } catch (DuplicateKeyException e) {
+                conexion.rollback(puntoGuardado);
+                return false;
+            }
+        });
+        if (insertadas) {
+            return;
+        }
+        // Una sentencia que falla en Oracle (o H2) solo deshace esa sentencia, no la transacción
+        for (int i : nuevas) {
+            if (jdbcTemplate.update(sqlSumar, sumar.get(i)) == 0) {
+                try {
+                    jdbcTemplate.update(sqlInsertar, insertar.get(i));
+                } catch (DuplicateKeyException e) {
+                    jdbcTemplate.update(sqlSumar, sumar.get(i));
+                }
+            }
+        }
+    }
+
+    // ---------------------- LECTOR DE LÍNEAS ----------------------
+    // Lee líneas UTF-8 de un canal con un buffer directo de tamaño fijo. posicion() es el número de
+    // bytes consumidos, es decir, el byte siguiente a la última línea entregada.
+    static final class LectorLineas {
+        private final ReadableByteChannel canal;
+        private final ByteBuffer buffer;
+        private byte[] linea = new byte[512];
+        private int largo;
+        private long posicion;
+        private boolean agotado;
+
+        LectorLineas(ReadableByteChannel canal, int tamanoBuffer) {
+            this.canal = canal;
+            this.buffer = ByteBuffer.allocateDirect(tamanoBuffer).flip();
+        }
+
+        long posicion() {
+            return posicion;
+        }
+
+        // Siguiente línea sin el fin de línea (\n o \r\n), o null al final del canal
+        String siguiente() throws IOException {
+            while (true) {
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    posicion++;
+                    if (b == '\n') {
+                        return terminarLinea();
+                    }
+                    if (largo == linea.length) {
+                        if (largo >= MAXIMO_LINEA) {
+                            throw new IOException("La línea que termina en el byte " + posicion + " supera " + MAXIMO_LINEA + " bytes.");
+                        }
+                        linea = Arrays.copyOf(linea, largo * 2);
+                    }
+                    linea[largo++] = b;
+                }
+                if (agotado || !llenar()) {
+                    agotado = true;
+                    return largo > 0 ? terminarLinea() : null;
+                }
+            }
+        }
+
+        // Salta hasta el byte "destino", que debe ser un inicio de línea: un archivo se posiciona
+        // directamente; un flujo se lee y se descarta
+        void saltarA(long destino) throws IOException {
+            if (canal instanceof SeekableByteChannel archivo) {
+                archivo.position(destino);
+                buffer.clear().flip();
+                posicion = destino;
+                return;
+            }
+            while (posicion < destino) {
+                if (!buffer.hasRemaining() && !llenar()) {
+                    agotado = true;
+                    return;
+                }
+                int saltar = (int) Math.min(buffer.remaining(), destino - posicion);
+                buffer.position(buffer.position() + saltar);
+                posicion += saltar;
+            }
+        }
+
+        // Un canal bloqueante lee al menos un byte o retorna -1; uno no bloqueante puede leer 0 bytes, y
+        // entonces se espera un momento antes de volver a intentar en lugar de ocupar un núcleo
+        private boolean llenar() throws IOException {
+            buffer.clear();
+            int leidos;
+            while ((leidos = canal.read(buffer)) == 0) {
+                LockSupport.parkNanos(ESPERA_SIN_DATOS_NANOS);
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("La lectura del archivo se interrumpió.");
+                }
+            }
+            buffer.flip();
+            return leidos > 0;
+        }
+
+        private String terminarLinea() {
+            int fin = largo > 0 && linea[largo - 1] == '\r' ? largo - 1 : largo;
+            String texto = new String(linea, 0, fin, StandardCharsets.UTF_8);
+            largo = 0;
+            return texto;
+        }
+    }
+}
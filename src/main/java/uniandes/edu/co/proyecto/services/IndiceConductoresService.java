@@ -0,0 +1,389 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Índice en memoria de los vehículos de conductores disponibles (apoyo a RF8/RF9).
+// Evita recorrer la tabla USUARIOS en cada solicitud: la búsqueda depende del número de
+// combinaciones (ciudad, nivel, tipo, capacidad), no del número de usuarios registrados.
+//
+// Cada nodo tiene su índice y solo ve los RF8/RF9 que atiende: un conductor tomado o liberado en otro
+// nodo queda desactualizado aquí. Por eso el índice se sincroniza periódicamente con la BD (la fuente
+// de verdad del estado de cada conductor), conductor por conductor y sin tocar las reservas en curso.
+@Service
+public class IndiceConductoresService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceConductoresService.class);
+
+    // Clave del índice: ciudad de expedición, nivel asignado, tipo y capacidad del vehículo
+    public record ClaveIndice(Long ciudadId, String nivelAsignado, String tipo, Integer capacidadPasajeros) {}
+
+    // Entrada del índice: un vehículo que puede ser asignado junto con su conductor
+    public record VehiculoDisponible(Long vehiculoId, Long conductorId, ClaveIndice clave) {}
+
+    // Criterios de búsqueda de RF8. Un valor null significa "cualquiera".
+    public record CriteriosBusqueda(Long ciudadId, String nivelAsignado, String tipo, Integer capacidadMinima) {
+
+        // Criterios de una solicitud: ciudad del punto de partida y preferencias de vehículo
+        public static CriteriosBusqueda para(SolicitudServicioDTO solicitud, PuntoGeoEntity partida) {
+            return new CriteriosBusqueda(
+                partida.getCiudad() == null ? null : partida.getCiudad().getId(),
+                solicitud.getNivelVehiculo(),
+                solicitud.getTipoVehiculo(),
+                solicitud.getCapacidadMinima());
+        }
+
+        public CriteriosBusqueda sinCiudad() {
+            return new CriteriosBusqueda(null, nivelAsignado, tipo, capacidadMinima);
+        }
+
+        boolean acepta(ClaveIndice clave) {
+            return (ciudadId == null || ciudadId.equals(clave.ciudadId()))
+                && (nivelAsignado == null || nivelAsignado.equalsIgnoreCase(clave.nivelAsignado()))
+                && (tipo == null || tipo.equalsIgnoreCase(clave.tipo()))
+                && (capacidadMinima == null || (clave.capacidadPasajeros() != null && clave.capacidadPasajeros() >= capacidadMinima));
+        }
+    }
+
+    @Autowired private VehiculoRepository vehiculoRepository;
+    @Autowired private IndiceEspacialService indiceEspacial;
+    @Autowired private CalificacionesService calificaciones;
+
+    // ciudad -> clave -> (vehiculoId -> entrada)
+    private final Map<Long, Map<ClaveIndice, ConcurrentSkipListMap<Long, VehiculoDisponible>>> porCiudad = new ConcurrentHashMap<>();
+
+    // conductorId -> vehículos indexados (un conductor disponible puede tener varios vehículos)
+    private final Map<Long, List<VehiculoDisponible>> porConductor = new ConcurrentHashMap<>();
+
+    // conductorId -> vehículos retirados del índice al asignarle un servicio (se reinsertan en RF9).
+    // Se escribe bajo el bloqueo de la entrada del conductor en porConductor
+    private final Map<Long, List<VehiculoDisponible>> reservados = new ConcurrentHashMap<>();
+
+    private volatile boolean construido = false;
+
+    // ---------------------- RECONSTRUCCIÓN DESDE LA BD ----------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.warn("No fue posible construir el índice de conductores al iniciar: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alpescab.conductores.sincronizacion-ms:60000}",
+               initialDelayString = "${alpescab.conductores.sincronizacion-ms:60000}")
+    public void sincronizarPeriodicamente() {
+        try {
+            int corregidos = reconstruir();
+            if (corregidos > 0) {
+                log.info("Índice de conductores sincronizado con la BD: {} conductores corregidos.", corregidos);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible sincronizar el índice de conductores: {}", e.getMessage());
+        }
+    }
+
+    // Deja el índice igual a los conductores disponibles en la BD y retorna cuántos conductores cambió.
+    // No se vacía: cada conductor se corrige bajo el mismo bloqueo que toma reservar, y los que tienen
+    // una reserva en curso en este nodo no se tocan (su RF8 los devuelve si revierte). Un RF8 o RF9 que
+    // confirma mientras se lee la BD puede quedar corregido con el estado anterior; la siguiente
+    // sincronización lo arregla, y el reclamo en la BD impide asignar dos veces al mismo conductor.
+    public synchronized int reconstruir() {
+        List<Object[]> filas = vehiculoRepository.findVehiculosDeConductoresDisponibles();
+        Map<Long, List<VehiculoDisponible>> disponibles = new HashMap<>();
+        for (Object[] fila : filas) {
+            VehiculoDisponible vehiculo = new VehiculoDisponible(
+                ((Number) fila[0]).longValue(),                         // vehiculoId
+                ((Number) fila[1]).longValue(),                         // conductorId
+                new ClaveIndice(
+                    fila[2] == null ? null : ((Number) fila[2]).longValue(), // ciudadId
+                    (String) fila[3],                                   // nivelAsignado
+                    (String) fila[4],                                   // tipo
+                    fila[5] == null ? null : ((Number) fila[5]).intValue()   // capacidadPasajeros
+                ));
+            disponibles.computeIfAbsent(vehiculo.conductorId(), id -> new ArrayList<>()).add(vehiculo);
+        }
+        Set<Long> conductores = new HashSet<>(porConductor.keySet());
+        conductores.addAll(disponibles.keySet());
+        int corregidos = 0;
+        for (Long conductorId : conductores) {
+            if (sincronizar(conductorId, disponibles.get(conductorId))) {
+                corregidos++;
+            }
+        }
+        if (!construido) {
+            construido = true;
+            log.info("Índice de conductores construido: {} conductores, {} vehículos.", porConductor.size(), filas.size());
+        }
+        return corregidos;
+    }
+
+    // Reemplaza los vehículos indexados del conductor por los de la BD (null si no está disponible)
+    private boolean sincronizar(Long conductorId, List<VehiculoDisponible> vehiculos) {
+        boolean[] cambio = new boolean[1];
+        porConductor.compute(conductorId, (id, actuales) -> {
+            if (reservados.containsKey(id)) {
+                return actuales;
+            }
+            List<VehiculoDisponible> actualesLista = actuales == null ? List.of() : actuales;
+            List<VehiculoDisponible> nuevos = vehiculos == null ? List.of() : vehiculos;
+            if (Set.copyOf(actualesLista).equals(Set.copyOf(nuevos))) {
+                return actuales;
+            }
+            cambio[0] = true;
+            actualesLista.forEach(this::quitarDeCiudad);
+            nuevos.forEach(this::agregarACiudad);
+            return nuevos.isEmpty() ? null : List.copyOf(nuevos);
+        });
+        return cambio[0];
+    }
+
+    // ---------------------- RF8: BÚSQUEDA Y RESERVA ----------------------
+
+    // Candidatos que cumplen los criterios, en orden estable (por vehículo), sin retirarlos del índice.
+    public List<VehiculoDisponible> buscarCandidatos(CriteriosBusqueda criterios, int limite) {
+        asegurarConstruido();
+        List<VehiculoDisponible> candidatos = new ArrayList<>();
+        Iterable<Map<ClaveIndice, ConcurrentSkipListMap<Long, VehiculoDisponible>>> ciudades =
+            criterios.ciudadId() == null
+                ? porCiudad.values()
+                : List.of(porCiudad.getOrDefault(criterios.ciudadId(), Map.of()));
+        for (Map<ClaveIndice, ConcurrentSkipListMap<Long, VehiculoDisponible>> claves : ciudades) {
+            for (Map.Entry<ClaveIndice, ConcurrentSkipListMap<Long, VehiculoDisponible>> entrada : claves.entrySet()) {
+                if (!criterios.acepta(entrada.getKey())) {
+                    continue;
+                }
+                for (VehiculoDisponible vehiculo : entrada.getValue().values()) {
+                    candidatos.add(vehiculo);
+                    if (candidatos.size() >= limite) {
+                        return candidatos;
+                    }
+                }
+            }
+        }
+        return candidatos;
+    }
+
+    // Retira del índice al primer candidato que cumpla los criterios.
+    // Si la transacción actual hace rollback, el conductor vuelve al índice.
+    public Optional<VehiculoDisponible> reservarCandidato(CriteriosBusqueda criterios) {
+        for (VehiculoDisponible candidato : buscarCandidatos(criterios, 16)) {
+            if (reservar(candidato.conductorId())) {
+                return Optional.of(candidato);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Reserva al conductor libre más cercano al punto de partida. La cercanía manda sobre la ciudad
+    // de expedición; si no hay conductores ubicados en el radio, se usa la búsqueda por criterios.
+    // Entre los 8 más cercanos, la distancia se ajusta con la calificación del conductor (O(1) cada uno).
+    public Optional<VehiculoDisponible> reservarMasCercano(CriteriosBusqueda criterios, double latitud, double longitud) {
+        asegurarConstruido();
+        CriteriosBusqueda cercania = criterios.sinCiudad();
+        List<GrillaEspacial.Vecino> cercanos = new ArrayList<>(indiceEspacial.conductoresMasCercanos(
+            latitud, longitud, 8, conductorId -> vehiculoCompatible(conductorId, cercania) != null));
+        cercanos.sort(Comparator.comparingDouble(vecino -> vecino.distanciaKm() + calificaciones.penalizacionKm(vecino.id())));
+        for (GrillaEspacial.Vecino vecino : cercanos) {
+            VehiculoDisponible vehiculo = vehiculoCompatible(vecino.id(), cercania);
+            if (vehiculo != null && reservar(vehiculo.conductorId())) {
+                return Optional.of(vehiculo);
+            }
+        }
+        return reservarCandidato(criterios);
+    }
+
+    // Reserva a un conductor concreto (elegido por el despacho por lotes) si sigue libre y compatible
+    public Optional<VehiculoDisponible> reservarConductor(Long conductorId, CriteriosBusqueda criterios) {
+        asegurarConstruido();
+        VehiculoDisponible vehiculo = vehiculoCompatible(conductorId, criterios.sinCiudad());
+        return vehiculo != null && reservar(conductorId) ? Optional.of(vehiculo) : Optional.empty();
+    }
+
+    // ---------------------- RF8 POR LOTES: CANDIDATOS SIN RESERVA ----------------------
+
+    // Candidato para la asignación global. distanciaKm es NaN si el conductor no tiene ubicación conocida.
+    public record Candidato(VehiculoDisponible vehiculo, double distanciaKm) {}
+
+    // Hasta k conductores libres compatibles: primero los ubicados más cerca del punto de partida y,
+    // si faltan, los de la búsqueda por criterios. No retira a nadie del índice.
+    public List<Candidato> candidatosCercanos(CriteriosBusqueda criterios, double latitud, double longitud, int k) {
+        asegurarConstruido();
+        CriteriosBusqueda cercania = criterios.sinCiudad();
+        List<Candidato> candidatos = new ArrayList<>();
+        Set<Long> incluidos = new HashSet<>();
+        for (GrillaEspacial.Vecino vecino : indiceEspacial.conductoresMasCercanos(
+                latitud, longitud, k, conductorId -> vehiculoCompatible(conductorId, cercania) != null)) {
+            VehiculoDisponible vehiculo = vehiculoCompatible(vecino.id(), cercania);
+            if (vehiculo != null && incluidos.add(vehiculo.conductorId())) {
+                candidatos.add(new Candidato(vehiculo, vecino.distanciaKm()));
+            }
+        }
+        for (CriteriosBusqueda busqueda : List.of(criterios, cercania)) {
+            if (candidatos.size() >= k) {
+                break;
+            }
+            for (VehiculoDisponible vehiculo : buscarCandidatos(busqueda, k)) {
+                if (candidatos.size() < k && incluidos.add(vehiculo.conductorId())) {
+                    candidatos.add(new Candidato(vehiculo, Double.NaN));
+                }
+            }
+        }
+        return candidatos;
+    }
+
+    // Primer vehículo indexado del conductor que cumpla los criterios (null si no está libre)
+    private VehiculoDisponible vehiculoCompatible(long conductorId, CriteriosBusqueda criterios) {
+        List<VehiculoDisponible> vehiculos = porConductor.get(conductorId);
+        if (vehiculos != null) {
+            for (VehiculoDisponible vehiculo : vehiculos) {
+                if (criterios.acepta(vehiculo.clave())) {
+                    return vehiculo;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Retira atómicamente al conductor del índice. Retorna false si otro hilo ya lo reservó.
+    public boolean reservar(Long conductorId) {
+        // computeIfPresent bloquea la entrada del conductor: las tablas por ciudad se actualizan sin carreras
+        // La reserva se registra dentro del bloqueo: la sincronización nunca ve al conductor fuera del
+        // índice sin su reserva
+        boolean[] retirado = new boolean[1];
+        porConductor.computeIfPresent(conductorId, (id, vehiculos) -> {
+            vehiculos.forEach(this::quitarDeCiudad);
+            reservados.put(id, vehiculos);
+            retirado[0] = true;
+            return null;
+        });
+        if (!retirado[0]) {
+            return false;
+        }
+        EventosTransaccion.alRevertir(() -> liberar(conductorId));
+        return true;
+    }
+
+    // El reclamo en la BD falló (otro nodo ya tomó al conductor): la reserva no debe deshacerse
+    // en un rollback. El conductor vuelve al índice cuando su viaje termine: por RF9 si lo atiende este
+    // nodo o, si no, en la primera sincronización en que la BD lo muestre disponible.
+    public void descartarReserva(Long conductorId) {
+        porConductor.compute(conductorId, (id, actuales) -> {
+            reservados.remove(id);
+            return actuales;
+        });
+    }
+
+    // ---------------------- RF9: LIBERACIÓN ----------------------
+
+    // Reinserta al conductor cuando la transacción de RF9 hace commit, con los vehículos que tenía
+    // al ser reservado. Si no hay registro (p. ej. tras un reinicio), se usan los vehículos de la
+    // entidad, que se leen aquí mientras la sesión sigue abierta.
+    public void liberarAlConfirmar(UsuarioConductorEntity conductor) {
+        Long conductorId = conductor.getId();
+        List<VehiculoDisponible> vehiculos = reservados.containsKey(conductorId)
+            ? null
+            : conductor.getVehiculos().stream().map(IndiceConductoresService::aEntrada).toList();
+        EventosTransaccion.alConfirmar(() -> {
+            if (!liberar(conductorId) && vehiculos != null) {
+                vehiculos.forEach(this::agregar);
+            }
+        });
+    }
+
+    private boolean liberar(Long conductorId) {
+        boolean[] liberado = new boolean[1];
+        porConductor.compute(conductorId, (id, actuales) -> {
+            List<VehiculoDisponible> vehiculos = reservados.remove(id);
+            if (vehiculos == null) {
+                return actuales;
+            }
+            liberado[0] = true;
+            List<VehiculoDisponible> nuevos = actuales == null ? new ArrayList<>() : new ArrayList<>(actuales);
+            for (VehiculoDisponible vehiculo : vehiculos) {
+                nuevos.removeIf(v -> Objects.equals(v.vehiculoId(), vehiculo.vehiculoId()));
+                nuevos.add(vehiculo);
+                agregarACiudad(vehiculo);
+            }
+            return List.copyOf(nuevos);
+        });
+        return liberado[0];
+    }
+
+    // ---------------------- RF4: NUEVOS VEHÍCULOS ----------------------
+    // Se llama solo para vehículos cuyo conductor está disponible
+    public void registrarVehiculoAlConfirmar(VehiculoEntity vehiculo) {
+        VehiculoDisponible entrada = aEntrada(vehiculo);
+        EventosTransaccion.alConfirmar(() -> agregar(entrada));
+    }
+
+    private static VehiculoDisponible aEntrada(VehiculoEntity vehiculo) {
+        return new VehiculoDisponible(
+            vehiculo.getId(),
+            vehiculo.getConductor().getId(),
+            new ClaveIndice(
+                vehiculo.getCiudadExpedicion() == null ? null : vehiculo.getCiudadExpedicion().getId(),
+                vehiculo.getNivelAsignado(),
+                vehiculo.getTipo(),
+                vehiculo.getCapacidadPasajeros()));
+    }
+
+    // ---------------------- MANTENIMIENTO INTERNO ----------------------
+    private void agregar(VehiculoDisponible vehiculo) {
+        porConductor.compute(vehiculo.conductorId(), (id, actuales) -> {
+            List<VehiculoDisponible> nuevos = actuales == null ? new ArrayList<>() : new ArrayList<>(actuales);
+            nuevos.removeIf(v -> Objects.equals(v.vehiculoId(), vehiculo.vehiculoId()));
+            nuevos.add(vehiculo);
+            agregarACiudad(vehiculo);
+            return List.copyOf(nuevos);
+        });
+    }
+
+    private void agregarACiudad(VehiculoDisponible vehiculo) {
+        porCiudad
+            .computeIfAbsent(llaveCiudad(vehiculo.clave()), c -> new ConcurrentHashMap<>())
+            .computeIfAbsent(vehiculo.clave(), c -> new ConcurrentSkipListMap<>())
+            .put(vehiculo.vehiculoId(), vehiculo);
+    }
+
+    private void quitarDeCiudad(VehiculoDisponible vehiculo) {
+        Map<ClaveIndice, ConcurrentSkipListMap<Long, VehiculoDisponible>> claves = porCiudad.get(llaveCiudad(vehiculo.clave()));
+        if (claves != null) {
+            ConcurrentSkipListMap<Long, VehiculoDisponible> vehiculos = claves.get(vehiculo.clave());
+            if (vehiculos != null) {
+                vehiculos.remove(vehiculo.vehiculoId());
+            }
+        }
+    }
+
+    // Los vehículos sin ciudad de expedición se agrupan bajo una llave reservada
+    private static Long llaveCiudad(ClaveIndice clave) {
+        return clave.ciudadId() == null ? -1L : clave.ciudadId();
+    }
+
+    private void asegurarConstruido() {
+        if (!construido) {
+            reconstruir();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.repositories.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Índice en memoria de las franjas de disponibilidad (RF5/RF6): un ArbolIntervalos por (vehículo, día).
+//
+// La BD es la fuente de verdad. RF5/RF6 bloquean la fila del vehículo y recargan su agenda en ese
+// momento: como todos los escritores toman el mismo bloqueo, la agenda recargada tiene todas las franjas
+// confirmadas, incluidas las escritas por otros nodos. La agenda es de la transacción (las del lote
+// semanal se verifican contra ella) y no se comparte hasta el commit.
+//
+// Las consultas de franjas libres usan agendas compartidas, cargadas con lo confirmado en la BD y
+// descartadas cuando un RF5/RF6 de este nodo confirma o cuando vencen (escrituras de otros nodos).
+// Ninguna consulta ve franjas de una transacción que aún no confirma.
+// Las cargas deben ocurrir en una transacción de escritura (RegistroService) para leer del primario.
+@Service
+public class IndiceDisponibilidadService {
+
+    @Autowired private DisponibilidadRepository disponibilidadRepository;
+
+    // vehiculoId -> agenda confirmada, para las consultas
+    private final Cache<Long, Agenda> agendas;
+
+    public IndiceDisponibilidadService(@Value("${alpescab.disponibilidad.ttl:30s}") Duration ttl,
+                                       @Value("${alpescab.disponibilidad.maximo-vehiculos:10000}") long maximoVehiculos) {
+        this.agendas = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximoVehiculos).build();
+    }
+
+    // Franjas de un vehículo, un árbol por día de la semana
+    static final class Agenda {
+        private final Map<DayOfWeek, ArbolIntervalos> porDia = new EnumMap<>(DayOfWeek.class);
+
+        // Franja que se superpone con [inicio, fin) en el día, sin contar excluirId (RF6); null si no hay
+        synchronized ArbolIntervalos.Franja superpuesta(DayOfWeek dia, LocalTime inicio, LocalTime fin, Long excluirId) {
+            ArbolIntervalos arbol = porDia.get(dia);
+            return arbol == null ? null : arbol.primeraSuperpuesta(inicio, fin, excluirId);
+        }
+
+        // RF5 agrega una franja; RF6 la reemplaza por su ID (no cambia el día, solo las horas)
+        synchronized void agregar(DayOfWeek dia, ArbolIntervalos.Franja franja) {
+            porDia.computeIfAbsent(dia, d -> new ArbolIntervalos()).agregar(franja);
+        }
+
+        synchronized List<ArbolIntervalos.Hueco> huecos(DayOfWeek dia, LocalTime desde, LocalTime hasta, long minutosMinimos) {
+            ArbolIntervalos arbol = porDia.get(dia);
+            return arbol == null
+                ? new ArbolIntervalos().huecos(desde, hasta, minutosMinimos)
+                : arbol.huecos(desde, hasta, minutosMinimos);
+        }
+    }
+
+    // ---------------------- CONSULTAS ----------------------
+
+    // Huecos libres de al menos minutosMinimos entre desde y hasta, según lo confirmado en la BD
+    public List<ArbolIntervalos.Hueco> huecos(Long vehiculoId, DayOfWeek dia, LocalTime desde, LocalTime hasta, long minutosMinimos) {
+        return agendas.get(vehiculoId, this::cargar).huecos(dia, desde, hasta, minutosMinimos);
+    }
+
+    // ---------------------- ESCRITURAS (RF5/RF6) ----------------------
+
+    // Agenda del vehículo leída de la BD, para verificar y registrar las franjas de la transacción actual.
+    // Debe llamarse con la fila del vehículo bloqueada (VehiculoRepository.findParaActualizarById).
+    // Cuando la transacción confirma, las consultas vuelven a cargar la agenda del vehículo.
+    Agenda agendaBloqueada(Long vehiculoId) {
+        EventosTransaccion.alConfirmar(() -> agendas.invalidate(vehiculoId));
+        return cargar(vehiculoId);
+    }
+
+    // Cada fila es [id, diaSemana, horaInicio, horaFin]
+    private Agenda cargar(Long vehiculoId) {
+        Agenda agenda = new Agenda();
+        for (Object[] fila : disponibilidadRepository.findFranjasPorVehiculo(vehiculoId)) {
+            agenda.agregar((DayOfWeek) fila[1],
+                new ArbolIntervalos.Franja(((Number) fila[0]).longValue(), (LocalTime) fila[2], (LocalTime) fila[3]));
+        }
+        return agenda;
+    }
+}
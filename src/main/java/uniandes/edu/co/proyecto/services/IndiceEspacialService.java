@@ -0,0 +1,152 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+
+// Índice espacial en memoria sobre los puntos geográficos (RF7) y la última ubicación conocida de
+// cada conductor (RF8/RF9). Responde consultas de k vecinos más cercanos y de radio sin recorrer
+// todos los puntos registrados.
+@Service
+public class IndiceEspacialService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceEspacialService.class);
+
+    @Autowired private PuntoGeoRepository puntoGeograficoRepository;
+    @Autowired private ServicioRepository servicioRepository;
+
+    // Radio máximo (km) para buscar un conductor alrededor del punto de partida
+    @Value("${alpescab.geo.radio-maximo-conductor-km:20}")
+    private double radioMaximoConductorKm;
+
+    // Distancia (metros) por debajo de la cual un punto nuevo se considera duplicado (0 = desactivado)
+    @Value("${alpescab.geo.umbral-duplicado-metros:10}")
+    private double umbralDuplicadoMetros;
+
+    // Límites de las consultas públicas de puntos: el recorrido de la grilla crece con el cuadrado del radio
+    @Value("${alpescab.geo.radio-maximo-consulta-km:50}")
+    private double radioMaximoConsultaKm;
+
+    @Value("${alpescab.geo.k-maximo:100}")
+    private int kMaximo;
+
+    private final double tamanoCeldaGrados;
+    private final GrillaEspacial puntos;
+    private final GrillaEspacial conductores;
+
+    public IndiceEspacialService(@Value("${alpescab.geo.tamano-celda-grados:0.01}") double tamanoCeldaGrados) {
+        this.tamanoCeldaGrados = tamanoCeldaGrados;
+        this.puntos = new GrillaEspacial(tamanoCeldaGrados);
+        this.conductores = new GrillaEspacial(tamanoCeldaGrados);
+    }
+
+    // ---------------------- RECONSTRUCCIÓN DESDE LA BD ----------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.warn("No fue posible construir el índice espacial al iniciar: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void reconstruir() {
+        List<Object[]> coordenadas = puntoGeograficoRepository.findCoordenadas();
+        List<Object[]> ubicaciones = servicioRepository.findUltimaUbicacionConductores();
+        puntos.limpiar();
+        conductores.limpiar();
+        cargar(puntos, coordenadas);
+        cargar(conductores, ubicaciones);
+        log.info("Índice espacial construido: {} puntos, {} conductores ubicados.", puntos.tamano(), conductores.tamano());
+    }
+
+    // Cada fila es [id, latitud, longitud]
+    private static void cargar(GrillaEspacial grilla, List<Object[]> filas) {
+        for (Object[] fila : filas) {
+            if (fila[1] != null && fila[2] != null) {
+                grilla.actualizar(((Number) fila[0]).longValue(), ((Number) fila[1]).doubleValue(), ((Number) fila[2]).doubleValue());
+            }
+        }
+    }
+
+    // ---------------------- PUNTOS GEOGRÁFICOS (RF7) ----------------------
+    public List<GrillaEspacial.Vecino> puntosMasCercanos(double latitud, double longitud, int k, double radioMaximoKm) {
+        validarConsulta(latitud, longitud, radioMaximoKm);
+        if (k < 1 || k > kMaximo) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + kMaximo + ".");
+        }
+        return puntos.kMasCercanos(latitud, longitud, k, radioMaximoKm, id -> true);
+    }
+
+    public List<GrillaEspacial.Vecino> puntosEnRadio(double latitud, double longitud, double radioKm) {
+        validarConsulta(latitud, longitud, radioKm);
+        return puntos.dentroDeRadio(latitud, longitud, radioKm);
+    }
+
+    private void validarConsulta(double latitud, double longitud, double radioKm) {
+        if (latitud < -90 || latitud > 90 || longitud < -180 || longitud > 180) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango.");
+        }
+        if (!(radioKm > 0 && radioKm <= radioMaximoConsultaKm)) {
+            throw new IllegalArgumentException("radioKm debe estar entre 0 y " + radioMaximoConsultaKm + " km.");
+        }
+    }
+
+    // ID del punto existente más cercano si está dentro del umbral de duplicados
+    public Optional<Long> puntoDuplicado(double latitud, double longitud) {
+        return puntoDuplicado(puntos, latitud, longitud);
+    }
+
+    // Lo mismo contra otra grilla, p. ej. la de los puntos aún no registrados de un lote (ver nuevaGrilla)
+    public Optional<Long> puntoDuplicado(GrillaEspacial grilla, double latitud, double longitud) {
+        if (umbralDuplicadoMetros <= 0) {
+            return Optional.empty();
+        }
+        return grilla.kMasCercanos(latitud, longitud, 1, umbralDuplicadoMetros / 1000.0, id -> true).stream()
+            .findFirst()
+            .map(GrillaEspacial.Vecino::id);
+    }
+
+    // Grilla vacía con las celdas del índice
+    public GrillaEspacial nuevaGrilla() {
+        return new GrillaEspacial(tamanoCeldaGrados);
+    }
+
+    // [latitud, longitud] de un punto registrado, sin ir a la BD (null si no está en el índice)
+    public double[] coordenadasPunto(long puntoId) {
+        return puntos.posicion(puntoId);
+    }
+
+    public void registrarPuntoAlConfirmar(PuntoGeoEntity punto) {
+        long id = punto.getId();
+        double latitud = punto.getLatitud();
+        double longitud = punto.getLongitud();
+        EventosTransaccion.alConfirmar(() -> puntos.actualizar(id, latitud, longitud));
+    }
+
+    // ---------------------- UBICACIÓN DE CONDUCTORES (RF8/RF9) ----------------------
+
+    // Conductores más cercanos al origen que cumplan el filtro (p. ej. estar libres en el índice de RF8)
+    public List<GrillaEspacial.Vecino> conductoresMasCercanos(double latitud, double longitud, int k, LongPredicate filtro) {
+        return conductores.kMasCercanos(latitud, longitud, k, radioMaximoConductorKm, filtro);
+    }
+
+    // Al terminar un viaje el conductor queda en el punto de llegada
+    public void actualizarConductorAlConfirmar(Long conductorId, PuntoGeoEntity ubicacion) {
+        if (ubicacion == null || ubicacion.getLatitud() == null || ubicacion.getLongitud() == null) {
+            return;
+        }
+        double latitud = ubicacion.getLatitud();
+        double longitud = ubicacion.getLongitud();
+        EventosTransaccion.alConfirmar(() -> conductores.actualizar(conductorId, latitud, longitud));
+    }
+}
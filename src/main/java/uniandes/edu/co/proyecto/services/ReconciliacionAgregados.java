@@ -0,0 +1,142 @@
+package uniandes.edu.co.proyecto.services;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Reconciliación de una tabla de agregados (una fila por llave con columnas que las transacciones
+// incrementan, p. ej. CONTEO_VIAJES_CONDUCTOR) contra el cálculo desde la tabla de origen.
+//
+// Primero compara sin bloqueos la tabla con el cálculo completo para encontrar las llaves que difieren.
+// Cada una se corrige en su propia transacción: se bloquea su fila (SELECT ... FOR UPDATE), se vuelve a
+// calcular solo esa llave y se escribe el valor. Con la fila bloqueada, una transacción que ya la
+// incrementó confirmó antes (su fila de origen se cuenta) y una que aún no la incrementa espera y suma
+// sobre el valor corregido, así que no se pierden incrementos concurrentes. Una llave sin fila se
+// inserta; si otra transacción la insertó al mismo tiempo, se vuelve a intentar con la fila bloqueada.
+// Un agregado con todas las columnas en 0 equivale a no tener fila.
+final class ReconciliacionAgregados {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacciones;
+    private final String tabla;
+    private final String llave;
+    private final String[] columnas;
+    private final String calculoTodas;
+    private final String calculoUna;
+
+    // calculoTodas retorna la llave y las columnas en el orden de "columnas" (una fila por llave);
+    // calculoUna retorna las columnas de la llave que recibe como único parámetro (una fila)
+    ReconciliacionAgregados(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String tabla,
+                            String llave, String[] columnas, String calculoTodas, String calculoUna) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacciones = new TransactionTemplate(transactionManager);
+        this.tabla = tabla;
+        this.llave = llave;
+        this.columnas = columnas;
+        this.calculoTodas = calculoTodas;
+        this.calculoUna = calculoUna;
+    }
+
+    // Corrige las filas que difieren del cálculo; retorna cuántas llaves se corrigieron
+    int reconciliar() {
+        Map<Long, long[]> guardados = leer();
+        Map<Long, long[]> calculados = consultar(calculoTodas);
+        Set<Long> llaves = new HashSet<>(guardados.keySet());
+        llaves.addAll(calculados.keySet());
+
+        int corregidas = 0;
+        for (Long id : llaves) {
+            if (!Arrays.equals(valor(guardados.get(id)), valor(calculados.get(id))) && corregir(id)) {
+                corregidas++;
+            }
+        }
+        return corregidas;
+    }
+
+    // Contenido actual de la tabla: llave -> columnas
+    Map<Long, long[]> leer() {
+        return consultar("SELECT " + llave + ", " + String.join(", ", columnas) + " FROM " + tabla);
+    }
+
+    private boolean corregir(Long id) {
+        while (true) {
+            try {
+                return Boolean.TRUE.equals(transacciones.execute(estado -> corregirBloqueada(id)));
+            } catch (DuplicateKeyException e) {
+                // Otra transacción creó la fila: ahora sí se puede bloquear
+            }
+        }
+    }
+
+    private boolean corregirBloqueada(Long id) {
+        long[] guardado = jdbcTemplate.query(
+            "SELECT " + String.join(", ", columnas) + " FROM " + tabla + " WHERE " + llave + " = ? FOR UPDATE",
+            (fila, numero) -> columnas(fila, 1), id).stream().findFirst().orElse(null);
+        long[] calculado = jdbcTemplate.queryForObject(calculoUna, (fila, numero) -> columnas(fila, 1), id);
+        if (Arrays.equals(valor(guardado), valor(calculado))) {
+            return false;
+        }
+        if (guardado == null) {
+            jdbcTemplate.update("INSERT INTO " + tabla + " (" + llave + ", " + String.join(", ", columnas) + ") VALUES (?"
+                + ", ?".repeat(columnas.length) + ")", parametros(id, calculado));
+        } else if (esVacio(calculado)) {
+            jdbcTemplate.update("DELETE FROM " + tabla + " WHERE " + llave + " = ?", id);
+        } else {
+            jdbcTemplate.update("UPDATE " + tabla + " SET " + String.join(" = ?, ", columnas) + " = ? WHERE " + llave + " = ?",
+                parametrosAlFinal(calculado, id));
+        }
+        return true;
+    }
+
+    private Map<Long, long[]> consultar(String sql) {
+        Map<Long, long[]> valores = new HashMap<>();
+        jdbcTemplate.query(sql, (ResultSet fila) -> {
+            valores.put(fila.getLong(1), columnas(fila, 2));
+        });
+        return valores;
+    }
+
+    private long[] columnas(ResultSet fila, int desde) throws SQLException {
+        long[] valores = new long[columnas.length];
+        for (int i = 0; i < columnas.length; i++) {
+            valores[i] = fila.getLong(desde + i);
+        }
+        return valores;
+    }
+
+    // Sin fila y con todas las columnas en 0 se comparan igual
+    private long[] valor(long[] valores) {
+        return valores == null ? new long[columnas.length] : valores;
+    }
+
+    private static boolean esVacio(long[] valores) {
+        return Arrays.stream(valores).allMatch(v -> v == 0);
+    }
+
+    private static Object[] parametros(Long id, long[] valores) {
+        Object[] parametros = new Object[valores.length + 1];
+        parametros[0] = id;
+        for (int i = 0; i < valores.length; i++) {
+            parametros[i + 1] = valores[i];
+        }
+        return parametros;
+    }
+
+    private static Object[] parametrosAlFinal(long[] valores, Long id) {
+        Object[] parametros = new Object[valores.length + 1];
+        for (int i = 0; i < valores.length; i++) {
+            parametros[i] = valores[i];
+        }
+        parametros[valores.length] = id;
+        return parametros;
+    }
+}
@@ -0,0 +1,385 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoLoteDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Registro masivo de ciudades, usuarios, vehículos, puntos y medios de pago (RF1-RF4, RF7) para
+// incorporar flotas completas en pocas peticiones.
+//
+// 1. Validación: campos obligatorios, valores únicos repetidos en la petición o ya registrados y
+//    referencias inexistentes, con una consulta por cada 1000 filas en vez de una por fila.
+// 2. Inserción: las filas válidas se guardan en transacciones de filas-por-transaccion filas. Como
+//    estas entidades toman su ID de una secuencia en bloques (no de una identidad), Hibernate envía
+//    los INSERT en lotes JDBC de hibernate.jdbc.batch_size.
+// 3. Si una transacción falla (p. ej. otro registro tomó la misma placa entre la validación y la
+//    inserción), sus filas se repiten una por una para reportar exactamente cuáles fallaron.
+// Las filas válidas se registran aunque otras fallen; el resultado informa cada fila por su posición.
+@Service
+public class RegistroMasivoService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroMasivoService.class);
+
+    // Oracle admite hasta 1000 expresiones en una lista IN
+    private static final int MAXIMO_IN = 1000;
+
+    @Autowired private CiudadRepository ciudadRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private VehiculoRepository vehiculoRepository;
+    @Autowired private PuntoGeoRepository puntoGeograficoRepository;
+    @Autowired private MediosPagoRepository medioDePagoRepository;
+    @Autowired private IndiceConductoresService indiceConductores;
+    @Autowired private IndiceEspacialService indiceEspacial;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${alpescab.registro-masivo.filas-por-transaccion:1000}")
+    private int filasPorTransaccion;
+
+    @Value("${alpescab.registro-masivo.maximo-filas:100000}")
+    private int maximoFilas;
+
+    // Filas de una petición con el resultado de cada una. Una fila sin ID ni error sigue pendiente.
+    // Una fila que repite a una anterior no se inserta: recibe el ID de esa fila al final.
+    private static final class Lote<T> {
+        final List<T> filas;
+        final Long[] ids;
+        final String[] errores;
+        final Map<Integer, Integer> repeticiones = new HashMap<>();
+
+        Lote(List<T> filas) {
+            this.filas = filas;
+            this.ids = new Long[filas.size()];
+            this.errores = new String[filas.size()];
+            for (int i = 0; i < filas.size(); i++) {
+                if (filas.get(i) == null) {
+                    errores[i] = "Fila vacía.";
+                }
+            }
+        }
+
+        boolean pendiente(int i) {
+            return ids[i] == null && errores[i] == null && !repeticiones.containsKey(i);
+        }
+
+        List<Integer> pendientes() {
+            List<Integer> pendientes = new ArrayList<>();
+            for (int i = 0; i < filas.size(); i++) {
+                if (pendiente(i)) {
+                    pendientes.add(i);
+                }
+            }
+            return pendientes;
+        }
+
+        void fallar(int i, String mensaje) {
+            if (errores[i] == null) {
+                errores[i] = mensaje;
+            }
+        }
+
+        // La fila i repite a la fila anterior, que sigue pendiente
+        void repetir(int i, int anterior) {
+            repeticiones.put(i, anterior);
+        }
+
+        // Cada fila repetida toma el resultado de la fila que repite, una vez insertadas todas
+        void resolverRepeticiones() {
+            repeticiones.forEach((i, anterior) -> {
+                if (ids[anterior] != null) {
+                    ids[i] = ids[anterior];
+                } else {
+                    fallar(i, "Repite la fila " + anterior + ", que no se registró.");
+                }
+            });
+        }
+    }
+
+    // ---------------------- RF1: CIUDADES ----------------------
+    public ResultadoLoteDTO registrarCiudades(List<CiudadEntity> ciudades) throws Exception {
+        Lote<CiudadEntity> lote = nuevoLote(ciudades, "RF1");
+        validar(() -> {
+            for (int i : lote.pendientes()) {
+                requerido(lote, i, "nombre", lote.filas.get(i).getNombre());
+            }
+            verificarUnico(lote, "nombre", CiudadEntity::getNombre, ciudadRepository::findNombresExistentes);
+        });
+        return insertar(lote, ciudad -> ciudad.setId(null), ciudadRepository::saveAll, CiudadEntity::getId, ciudad -> {});
+    }
+
+    // ---------------------- RF2/RF3: USUARIOS ----------------------
+    public ResultadoLoteDTO registrarClientes(List<UsuarioServicioEntity> clientes) throws Exception {
+        return registrarUsuarios(nuevoLote(clientes, "RF2"));
+    }
+
+    public ResultadoLoteDTO registrarConductores(List<UsuarioConductorEntity> conductores) throws Exception {
+        return registrarUsuarios(nuevoLote(conductores, "RF3"));
+    }
+
+    private <T extends UsuarioEntity> ResultadoLoteDTO registrarUsuarios(Lote<T> lote) {
+        validar(() -> {
+            for (int i : lote.pendientes()) {
+                T usuario = lote.filas.get(i);
+                requerido(lote, i, "nombre", usuario.getNombre());
+                requerido(lote, i, "correoElectronico", usuario.getCorreoElectronico());
+                requerido(lote, i, "numeroCelular", usuario.getNumeroCelular());
+                requerido(lote, i, "numeroCedula", usuario.getNumeroCedula());
+            }
+            verificarUnico(lote, "correoElectronico", UsuarioEntity::getCorreoElectronico, usuarioRepository::findCorreosExistentes);
+            verificarUnico(lote, "numeroCedula", UsuarioEntity::getNumeroCedula, usuarioRepository::findCedulasExistentes);
+        });
+        return insertar(lote, usuario -> {
+            usuario.setId(null);
+            usuario.setVersion(null);
+        }, usuarioRepository::saveAll, UsuarioEntity::getId, usuario -> {});
+    }
+
+    // ---------------------- RF4: VEHÍCULOS ----------------------
+    // Los vehículos de conductores disponibles entran al índice de RF8, igual que en RegistroService
+    public ResultadoLoteDTO registrarVehiculos(List<VehiculoEntity> vehiculos) throws Exception {
+        Lote<VehiculoEntity> lote = nuevoLote(vehiculos, "RF4");
+        Map<Long, Boolean> disponibles = new HashMap<>();
+        validar(() -> {
+            for (int i : lote.pendientes()) {
+                VehiculoEntity vehiculo = lote.filas.get(i);
+                requerido(lote, i, "tipo", vehiculo.getTipo());
+                requerido(lote, i, "marca", vehiculo.getMarca());
+                requerido(lote, i, "modelo", vehiculo.getModelo());
+                requerido(lote, i, "color", vehiculo.getColor());
+                requerido(lote, i, "placa", vehiculo.getPlaca());
+                requerido(lote, i, "capacidadPasajeros", vehiculo.getCapacidadPasajeros());
+                requerido(lote, i, "conductor.id", idConductor(vehiculo));
+                requerido(lote, i, "ciudadExpedicion.id", idCiudad(vehiculo.getCiudadExpedicion()));
+            }
+            verificarUnico(lote, "placa", VehiculoEntity::getPlaca, vehiculoRepository::findPlacasExistentes);
+            for (Object[] fila : porBloques(referencias(lote, RegistroMasivoService::idConductor), usuarioRepository::findEstadoConductores)) {
+                disponibles.put(((Number) fila[0]).longValue(), Boolean.TRUE.equals(fila[1]));
+            }
+            verificarReferencia(lote, "El conductor", RegistroMasivoService::idConductor, disponibles.keySet());
+            verificarReferencia(lote, "La ciudad de expedición", v -> idCiudad(v.getCiudadExpedicion()),
+                new HashSet<>(porBloques(referencias(lote, v -> idCiudad(v.getCiudadExpedicion())), ciudadRepository::findIdsExistentes)));
+        });
+        return insertar(lote, vehiculo -> {
+            vehiculo.setId(null);
+            vehiculo.setConductor(entityManager.getReference(UsuarioConductorEntity.class, idConductor(vehiculo)));
+            vehiculo.setCiudadExpedicion(entityManager.getReference(CiudadEntity.class, idCiudad(vehiculo.getCiudadExpedicion())));
+        }, vehiculoRepository::saveAll, VehiculoEntity::getId, vehiculo -> {
+            if (disponibles.get(idConductor(vehiculo))) {
+                indiceConductores.registrarVehiculoAlConfirmar(vehiculo);
+            }
+        });
+    }
+
+    // ---------------------- RF7: PUNTOS GEOGRÁFICOS ----------------------
+    // Igual que RF7, un punto prácticamente en las coordenadas de uno registrado no se inserta: su fila
+    // recibe el ID del existente. Con los puntos del mismo lote pasa lo mismo: la fila recibe el ID del
+    // primero de ellos
+    public ResultadoLoteDTO registrarPuntos(List<PuntoGeoEntity> puntos) throws Exception {
+        Lote<PuntoGeoEntity> lote = nuevoLote(puntos, "RF7");
+        validar(() -> {
+            for (int i : lote.pendientes()) {
+                PuntoGeoEntity punto = lote.filas.get(i);
+                requerido(lote, i, "direccion", punto.getDireccion());
+                requerido(lote, i, "latitud", punto.getLatitud());
+                requerido(lote, i, "longitud", punto.getLongitud());
+                requerido(lote, i, "ciudad.id", idCiudad(punto.getCiudad()));
+                if (lote.pendiente(i) && (Math.abs(punto.getLatitud()) > 90 || Math.abs(punto.getLongitud()) > 180)) {
+                    lote.fallar(i, "Coordenadas fuera de rango.");
+                }
+            }
+            verificarReferencia(lote, "La ciudad", p -> idCiudad(p.getCiudad()),
+                new HashSet<>(porBloques(referencias(lote, p -> idCiudad(p.getCiudad())), ciudadRepository::findIdsExistentes)));
+            // Puntos del lote que se van a insertar; el ID de cada uno es su fila
+            GrillaEspacial delLote = indiceEspacial.nuevaGrilla();
+            for (int i : lote.pendientes()) {
+                PuntoGeoEntity punto = lote.filas.get(i);
+                Optional<Long> existente = indiceEspacial.puntoDuplicado(punto.getLatitud(), punto.getLongitud());
+                if (existente.isPresent()) {
+                    lote.ids[i] = existente.get();
+                    continue;
+                }
+                Optional<Long> anterior = indiceEspacial.puntoDuplicado(delLote, punto.getLatitud(), punto.getLongitud());
+                if (anterior.isPresent()) {
+                    lote.repetir(i, anterior.get().intValue());
+                } else {
+                    delLote.actualizar(i, punto.getLatitud(), punto.getLongitud());
+                }
+            }
+        });
+        return insertar(lote, punto -> {
+            punto.setId(null);
+            punto.setCiudad(entityManager.getReference(CiudadEntity.class, idCiudad(punto.getCiudad())));
+        }, puntoGeograficoRepository::saveAll, PuntoGeoEntity::getId, indiceEspacial::registrarPuntoAlConfirmar);
+    }
+
+    // ---------------------- MEDIOS DE PAGO (Apoyo al RF8) ----------------------
+    public ResultadoLoteDTO registrarMediosDePago(List<MediosPagoEntity> medios) throws Exception {
+        Lote<MediosPagoEntity> lote = nuevoLote(medios, "Registro de medios de pago");
+        Function<MediosPagoEntity, Long> idCliente =
+            m -> m.getUsuarioDeServicio() == null ? null : m.getUsuarioDeServicio().getId();
+        validar(() -> {
+            for (int i : lote.pendientes()) {
+                MediosPagoEntity medio = lote.filas.get(i);
+                requerido(lote, i, "numeroTarjeta", medio.getNumeroTarjeta());
+                requerido(lote, i, "nombreEnTarjeta", medio.getNombreEnTarjeta());
+                requerido(lote, i, "fechaVencimiento", medio.getFechaVencimiento());
+                requerido(lote, i, "codigoSeguridad", medio.getCodigoSeguridad());
+                requerido(lote, i, "tipoPago", medio.getTipoPago());
+                requerido(lote, i, "usuarioDeServicio.id", idCliente.apply(medio));
+            }
+            verificarReferencia(lote, "El usuario de servicio", idCliente,
+                new HashSet<>(porBloques(referencias(lote, idCliente), usuarioRepository::findIdsClientesExistentes)));
+        });
+        return insertar(lote, medio -> {
+            medio.setId(null);
+            medio.setUsuarioDeServicio(entityManager.getReference(UsuarioServicioEntity.class, idCliente.apply(medio)));
+        }, medioDePagoRepository::saveAll, MediosPagoEntity::getId, medio -> {});
+    }
+
+    // ---------------------- VALIDACIÓN ----------------------
+    private <T> Lote<T> nuevoLote(List<T> filas, String requisito) throws Exception {
+        if (filas == null || filas.isEmpty()) {
+            throw new Exception(requisito + " Fallido: El lote no tiene filas.");
+        }
+        if (filas.size() > maximoFilas) {
+            throw new Exception(requisito + " Fallido: El lote supera el máximo de " + maximoFilas + " filas.");
+        }
+        return new Lote<>(filas);
+    }
+
+    // Las consultas de validación corren en una transacción de escritura para leer del primario: una
+    // réplica atrasada no vería, p. ej., los conductores registrados en la petición anterior
+    private void validar(Runnable validaciones) {
+        transactionTemplate.executeWithoutResult(estado -> validaciones.run());
+    }
+
+    private static void requerido(Lote<?> lote, int i, String campo, Object valor) {
+        if (valor == null || (valor instanceof String texto && texto.isBlank())) {
+            lote.fallar(i, "El campo " + campo + " es obligatorio.");
+        }
+    }
+
+    // Falla las filas cuyo valor se repite en la petición (se conserva la primera) o ya existe en la BD
+    private static <T> void verificarUnico(Lote<T> lote, String campo, Function<T, String> valor,
+                                           Function<Collection<String>, List<String>> existentes) {
+        Map<String, Integer> primeras = new HashMap<>();
+        for (int i : lote.pendientes()) {
+            Integer primera = primeras.putIfAbsent(valor.apply(lote.filas.get(i)), i);
+            if (primera != null) {
+                lote.fallar(i, "El campo " + campo + " se repite en la fila " + primera + ".");
+            }
+        }
+        Set<String> registrados = new HashSet<>(porBloques(primeras.keySet(), existentes));
+        for (int i : lote.pendientes()) {
+            if (registrados.contains(valor.apply(lote.filas.get(i)))) {
+                lote.fallar(i, "Ya existe un registro con ese " + campo + ".");
+            }
+        }
+    }
+
+    private static <T> Set<Long> referencias(Lote<T> lote, Function<T, Long> referencia) {
+        Set<Long> ids = new HashSet<>();
+        for (int i : lote.pendientes()) {
+            ids.add(referencia.apply(lote.filas.get(i)));
+        }
+        return ids;
+    }
+
+    private static <T> void verificarReferencia(Lote<T> lote, String descripcion, Function<T, Long> referencia, Set<Long> existentes) {
+        for (int i : lote.pendientes()) {
+            Long id = referencia.apply(lote.filas.get(i));
+            if (!existentes.contains(id)) {
+                lote.fallar(i, descripcion + " con ID " + id + " no existe.");
+            }
+        }
+    }
+
+    // Ejecuta la consulta por bloques de a lo sumo MAXIMO_IN valores
+    private static <K, R> List<R> porBloques(Collection<K> valores, Function<Collection<K>, List<R>> consulta) {
+        List<K> lista = new ArrayList<>(valores);
+        List<R> resultado = new ArrayList<>();
+        for (int desde = 0; desde < lista.size(); desde += MAXIMO_IN) {
+            resultado.addAll(consulta.apply(lista.subList(desde, Math.min(desde + MAXIMO_IN, lista.size()))));
+        }
+        return resultado;
+    }
+
+    private static Long idConductor(VehiculoEntity vehiculo) {
+        return vehiculo.getConductor() == null ? null : vehiculo.getConductor().getId();
+    }
+
+    private static Long idCiudad(CiudadEntity ciudad) {
+        return ciudad == null ? null : ciudad.getId();
+    }
+
+    // ---------------------- INSERCIÓN POR LOTES ----------------------
+    // preparar corre dentro de cada transacción antes de guardar: limpia el ID (una fila que se repite
+    // tras un lote fallido ya recibió uno) y cambia las referencias por proxies de la sesión actual.
+    // alGuardar corre después de guardar cada fila, dentro de la misma transacción.
+    private <T> ResultadoLoteDTO insertar(Lote<T> lote, Consumer<T> preparar, Function<List<T>, List<T>> guardar,
+                                          Function<T, Long> id, Consumer<T> alGuardar) {
+        List<Integer> pendientes = lote.pendientes();
+        for (int desde = 0; desde < pendientes.size(); desde += filasPorTransaccion) {
+            List<Integer> bloque = pendientes.subList(desde, Math.min(desde + filasPorTransaccion, pendientes.size()));
+            try {
+                guardarBloque(lote, bloque, preparar, guardar, id, alGuardar);
+            } catch (RuntimeException e) {
+                // Un lote JDBC fallido no indica qué fila lo causó
+                log.warn("Lote de {} filas fallido, se reintenta fila por fila: {}", bloque.size(), mensaje(e));
+                for (int i : bloque) {
+                    try {
+                        guardarBloque(lote, List.of(i), preparar, guardar, id, alGuardar);
+                    } catch (RuntimeException error) {
+                        lote.fallar(i, mensaje(error));
+                    }
+                }
+            }
+        }
+        lote.resolverRepeticiones();
+        return new ResultadoLoteDTO(lote.ids, lote.errores);
+    }
+
+    private <T> void guardarBloque(Lote<T> lote, List<Integer> bloque, Consumer<T> preparar, Function<List<T>, List<T>> guardar,
+                                   Function<T, Long> id, Consumer<T> alGuardar) {
+        List<T> guardadas = transactionTemplate.execute(estado -> {
+            List<T> filas = new ArrayList<>(bloque.size());
+            for (int i : bloque) {
+                T fila = lote.filas.get(i);
+                preparar.accept(fila);
+                filas.add(fila);
+            }
+            List<T> resultado = guardar.apply(filas);
+            resultado.forEach(alGuardar);
+            return resultado;
+        });
+        // Los IDs solo se asignan si la transacción hizo commit
+        for (int j = 0; j < bloque.size(); j++) {
+            lote.ids[bloque.get(j)] = id.apply(guardadas.get(j));
+        }
+    }
+
+    private static String mensaje(Throwable error) {
+        return NestedExceptionUtils.getMostSpecificCause(error).getMessage();
+    }
+}
@@ -2,14 +2,21 @@ package uniandes.edu.co.proyecto.services;
 import uniandes.edu.co.proyecto.entities.*;
 import uniandes.edu.co.proyecto.repositories.*;
 import uniandes.edu.co.proyecto.controllers.DTO.DisponibilidadDTO; 
+import uniandes.edu.co.proyecto.controllers.DTO.DisponibilidadSemanaDTO;
 import uniandes.edu.co.proyecto.controllers.DTO.RevisionDTO;      
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -24,6 +31,12 @@ public class RegistroService {
     @Autowired private RevisionRepository revisionRepository;
     @Autowired private MediosPagoRepository medioDePagoRepository;
     @Autowired private ServicioRepository servicioRepository; // NECESARIO para RF10/RF11
+    @Autowired private IndiceConductoresService indiceConductores; // Índice de RF8
+    @Autowired private IndiceEspacialService indiceEspacial;       // Índice espacial de RF7/RF8
+    @Autowired private IndiceDisponibilidadService indiceDisponibilidad; // Superposición de franjas de RF5/RF6
+    @Autowired private ApplicationEventPublisher eventos;          // Invalidación de la caché de consultas
+    @Autowired private CalificacionesService calificaciones;       // Promedios de RF10/RF11 (los usa RF8)
+    @Autowired private EventosViajeService eventosViaje;           // Bandeja de salida (outbox) de RF10/RF11
 
     // ---------------------- RF1: REGISTRAR CIUDAD ----------------------
     public CiudadEntity registrarCiudad(CiudadEntity ciudad) {
@@ -41,45 +54,46 @@ public class RegistroService {
 
     // ---------------------- RF4: REGISTRAR VEHÍCULO ----------------------
     public VehiculoEntity registrarVehiculo(VehiculoEntity vehiculo) {
-        return vehiculoRepository.save(vehiculo);
+        VehiculoEntity guardado = vehiculoRepository.save(vehiculo);
+
+        // Si el conductor está disponible, el vehículo entra al índice de RF8
+        if (guardado.getConductor() != null && guardado.getConductor().getId() != null) {
+            usuarioRepository.findById(guardado.getConductor().getId())
+                .filter(u -> u instanceof UsuarioConductorEntity c && c.isEstadoDisponible())
+                .ifPresent(u -> indiceConductores.registrarVehiculoAlConfirmar(guardado));
+        }
+        return guardado;
     }
 
     // ---------------------- RF5: REGISTRAR DISPONIBILIDAD (CORREGIDO) ----------------------
     public DisponibilidadEntity registrarDisponibilidad(DisponibilidadDTO disponibilidadDTO) throws Exception {
         
-        // 1. Obtener Vehículo (CRÍTICO: Causa del error 500)
-        VehiculoEntity vehiculo = vehiculoRepository.findById(disponibilidadDTO.getVehiculoId())
+        // 1. Obtener Vehículo (CRÍTICO: Causa del error 500). Su fila queda bloqueada hasta el commit
+        //    para que dos RF5/RF6 del mismo vehículo no verifiquen la superposición al mismo tiempo.
+        VehiculoEntity vehiculo = vehiculoRepository.findParaActualizarById(disponibilidadDTO.getVehiculoId())
             .orElseThrow(() -> new Exception("RF5 Fallido: Vehículo con ID " + disponibilidadDTO.getVehiculoId() + " no encontrado."));
 
         // 2. Mapear DTO a Entity y validar formatos
         DayOfWeek diaSemana;
-        LocalTime horaInicio;
-        LocalTime horaFin;
+        LocalTime[] horas;
         try {
-            diaSemana = DayOfWeek.valueOf(disponibilidadDTO.getDiaSemana());
-            horaInicio = LocalTime.parse(disponibilidadDTO.getHoraInicio());
-            horaFin = LocalTime.parse(disponibilidadDTO.getHoraFin());
-        } catch (IllegalArgumentException e) {
-            throw new Exception("RF5 Fallido: Formato de día o tiempo inválido.");
+            diaSemana = parsearDia(disponibilidadDTO.getDiaSemana());
+            horas = parsearHoras(disponibilidadDTO.getHoraInicio(), disponibilidadDTO.getHoraFin());
+        } catch (Exception e) {
+            throw new Exception("RF5 Fallido: " + e.getMessage());
         }
 
-        // 3. Verificar superposición (Lógica de negocio RF5)
-        List<DisponibilidadEntity> superpuestas = disponibilidadRepository.findSuperposedDisponibilidad(
-            vehiculo, 
-            diaSemana, 
-            horaInicio, 
-            horaFin
-        );
-
-        if (!superpuestas.isEmpty()) {
+        // 3. Verificar superposición (Lógica de negocio RF5) contra la agenda del vehículo, leída con su fila bloqueada
+        IndiceDisponibilidadService.Agenda agenda = indiceDisponibilidad.agendaBloqueada(vehiculo.getId());
+        if (agenda.superpuesta(diaSemana, horas[0], horas[1], null) != null) {
             throw new Exception("RF5 Fallido: La nueva disponibilidad se superpone con una franja existente.");
         }
         
         // 4. Crear y Guardar la entidad
         DisponibilidadEntity nuevaDisponibilidad = new DisponibilidadEntity(
             diaSemana, 
-            horaInicio, 
-            horaFin, 
+            horas[0], 
+            horas[1], 
             disponibilidadDTO.getTipoServicio(),
             vehiculo 
         );
@@ -87,44 +101,139 @@ public class RegistroService {
         return disponibilidadRepository.save(nuevaDisponibilidad);
     }
 
+    // ---------------------- RF5 POR LOTES: SEMANA DE UN VEHÍCULO ----------------------
+    // Valida todas las franjas en una pasada (formato, superposición con las registradas y entre ellas)
+    // y las guarda solo si todas son válidas. El error indica cada franja inválida por su posición en el lote.
+    public List<DisponibilidadEntity> registrarDisponibilidadSemana(DisponibilidadSemanaDTO semana) throws Exception {
+        List<DisponibilidadDTO> franjas = semana.getFranjas();
+        if (franjas == null || franjas.isEmpty()) {
+            throw new Exception("RF5 Fallido: El lote no tiene franjas.");
+        }
+        VehiculoEntity vehiculo = vehiculoRepository.findParaActualizarById(semana.getVehiculoId())
+            .orElseThrow(() -> new Exception("RF5 Fallido: Vehículo con ID " + semana.getVehiculoId() + " no encontrado."));
+        IndiceDisponibilidadService.Agenda agenda = indiceDisponibilidad.agendaBloqueada(vehiculo.getId());
+
+        // Franjas ya aceptadas del lote, por día; el ID de cada una es su posición
+        Map<DayOfWeek, ArbolIntervalos> delLote = new EnumMap<>(DayOfWeek.class);
+        List<DisponibilidadEntity> nuevas = new ArrayList<>(franjas.size());
+        List<String> errores = new ArrayList<>();
+        for (int i = 0; i < franjas.size(); i++) {
+            DisponibilidadDTO franja = franjas.get(i);
+            try {
+                DayOfWeek dia = parsearDia(franja.getDiaSemana());
+                LocalTime[] horas = parsearHoras(franja.getHoraInicio(), franja.getHoraFin());
+                String tipoServicio = franja.getTipoServicio() != null ? franja.getTipoServicio() : semana.getTipoServicio();
+                if (tipoServicio == null) {
+                    throw new Exception("Falta el tipo de servicio.");
+                }
+                if (agenda.superpuesta(dia, horas[0], horas[1], null) != null) {
+                    throw new Exception("Se superpone con una franja existente.");
+                }
+                ArbolIntervalos delDia = delLote.computeIfAbsent(dia, d -> new ArbolIntervalos());
+                ArbolIntervalos.Franja otra = delDia.primeraSuperpuesta(horas[0], horas[1], null);
+                if (otra != null) {
+                    throw new Exception("Se superpone con la franja " + otra.id() + " del lote.");
+                }
+                delDia.agregar(new ArbolIntervalos.Franja(i, horas[0], horas[1]));
+                nuevas.add(new DisponibilidadEntity(dia, horas[0], horas[1], tipoServicio, vehiculo));
+            } catch (Exception e) {
+                errores.add("franja " + i + ": " + e.getMessage());
+            }
+        }
+        if (!errores.isEmpty()) {
+            throw new Exception("RF5 Fallido: " + errores.size() + " franja(s) inválida(s). " + String.join(" ", errores));
+        }
+
+        return disponibilidadRepository.saveAll(nuevas);
+    }
+
     // ---------------------- RF6: MODIFICAR DISPONIBILIDAD (CORREGIDO) ----------------------
     public void modificarDisponibilidad(Long id, String nuevaHoraInicioStr, String nuevaHoraFinStr) throws Exception {
         DisponibilidadEntity actual = disponibilidadRepository.findById(id)
             .orElseThrow(() -> new Exception("RF6 Fallido: Disponibilidad con ID " + id + " no encontrada."));
         
-        LocalTime nuevaHoraInicio;
-        LocalTime nuevaHoraFin;
+        LocalTime[] horas;
         try {
-            nuevaHoraInicio = LocalTime.parse(nuevaHoraInicioStr);
-            nuevaHoraFin = LocalTime.parse(nuevaHoraFinStr);
+            horas = parsearHoras(nuevaHoraInicioStr, nuevaHoraFinStr);
         } catch (Exception e) {
-            throw new Exception("RF6 Fallido: Formato de hora inválido.");
+            throw new Exception("RF6 Fallido: " + e.getMessage());
         }
 
-        
-        VehiculoEntity vehiculo = actual.getVehiculo();
+        // Mismo bloqueo que RF5 sobre el vehículo de la franja
+        VehiculoEntity vehiculo = vehiculoRepository.findParaActualizarById(actual.getVehiculo().getId()).orElseThrow();
         DayOfWeek diaSemana = actual.getDiaSemana();
         
-        List<DisponibilidadEntity> superpuestas = disponibilidadRepository.findSuperposedDisponibilidadExcluyendoId(
-            id, 
-            vehiculo, 
-            diaSemana, 
-            nuevaHoraInicio, 
-            nuevaHoraFin
-        );
-        
-        if (!superpuestas.isEmpty()) {
+        if (indiceDisponibilidad.agendaBloqueada(vehiculo.getId()).superpuesta(diaSemana, horas[0], horas[1], id) != null) {
             throw new Exception("RF6 Fallido: La modificación se superpone con otra disponibilidad existente.");
         }
         
-        actual.setHoraInicio(nuevaHoraInicio);
-        actual.setHoraFin(nuevaHoraFin);
+        actual.setHoraInicio(horas[0]);
+        actual.setHoraFin(horas[1]);
         disponibilidadRepository.save(actual);
     }
 
+    // ---------------------- RF5/RF6: FRANJAS LIBRES DE UN VEHÍCULO ----------------------
+    // Huecos de al menos minutosMinimos entre desde y hasta sin disponibilidad registrada, para un día
+    // o para toda la semana (dia null), según las franjas confirmadas. Está aquí y no en ConsultaService
+    // porque la consulta puede cargar la agenda del vehículo, y esa carga debe leer del primario.
+    public List<DisponibilidadDTO> consultarFranjasLibres(Long vehiculoId, String dia, String desde, String hasta, long minutosMinimos) throws Exception {
+        if (!vehiculoRepository.existsById(vehiculoId)) {
+            throw new Exception("Vehículo con ID " + vehiculoId + " no encontrado.");
+        }
+        List<DayOfWeek> dias = dia == null ? List.of(DayOfWeek.values()) : List.of(parsearDia(dia));
+        LocalTime[] rango = parsearHoras(desde == null ? "00:00" : desde, hasta == null ? LocalTime.MAX.toString() : hasta);
+
+        List<DisponibilidadDTO> libres = new ArrayList<>();
+        for (DayOfWeek diaSemana : dias) {
+            for (ArbolIntervalos.Hueco hueco : indiceDisponibilidad.huecos(vehiculoId, diaSemana, rango[0], rango[1], minutosMinimos)) {
+                DisponibilidadDTO libre = new DisponibilidadDTO();
+                libre.setVehiculoId(vehiculoId);
+                libre.setDiaSemana(diaSemana.name());
+                libre.setHoraInicio(hueco.inicio().truncatedTo(ChronoUnit.MINUTES).toString());
+                libre.setHoraFin(hueco.fin().truncatedTo(ChronoUnit.MINUTES).toString());
+                libres.add(libre);
+            }
+        }
+        return libres;
+    }
+
+    private static DayOfWeek parsearDia(String dia) throws Exception {
+        try {
+            return DayOfWeek.valueOf(String.valueOf(dia));
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Formato de día inválido.");
+        }
+    }
+
+    // Horas "HH:mm" de una franja, con la de inicio antes que la de fin
+    private static LocalTime[] parsearHoras(String horaInicio, String horaFin) throws Exception {
+        LocalTime inicio;
+        LocalTime fin;
+        try {
+            inicio = LocalTime.parse(String.valueOf(horaInicio));
+            fin = LocalTime.parse(String.valueOf(horaFin));
+        } catch (DateTimeParseException e) {
+            throw new Exception("Formato de hora inválido.");
+        }
+        if (!inicio.isBefore(fin)) {
+            throw new Exception("La hora de inicio debe ser anterior a la hora de fin.");
+        }
+        return new LocalTime[] { inicio, fin };
+    }
+
     // ---------------------- RF7: REGISTRAR PUNTO GEOGRÁFICO ----------------------
     public PuntoGeoEntity registrarPuntoGeografico(PuntoGeoEntity punto) {
-        return puntoGeograficoRepository.save(punto);
+        // Si ya existe un punto prácticamente en las mismas coordenadas, se reutiliza
+        if (punto.getLatitud() != null && punto.getLongitud() != null) {
+            Optional<PuntoGeoEntity> duplicado = indiceEspacial.puntoDuplicado(punto.getLatitud(), punto.getLongitud())
+                .flatMap(puntoGeograficoRepository::findById);
+            if (duplicado.isPresent()) {
+                return duplicado.get();
+            }
+        }
+        PuntoGeoEntity guardado = puntoGeograficoRepository.save(punto);
+        indiceEspacial.registrarPuntoAlConfirmar(guardado);
+        return guardado;
     }
 
     // ---------------------- RF10/RF11: REGISTRAR REVISIÓN (CORREGIDO) ----------------------
@@ -162,7 +271,11 @@ public class RegistroService {
             conductorRevisado         
         );
         
-        return revisionRepository.save(revision);
+        RevisionEntity guardada = revisionRepository.save(revision);
+        calificaciones.registrarRevision(conductorRevisado.getId(), calificacion, true);
+        eventosViaje.revisionRegistrada(guardada);
+        eventos.publishEvent(new CambioViajeEvent(clienteRevisor.getId(), conductorRevisado.getId()));
+        return guardada;
     }
     
     // ---------------------- GESTIÓN DE MEDIOS DE PAGO (Apoyo al RF8) ----------------------
@@ -0,0 +1,305 @@
+package uniandes.edu.co.proyecto.services;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+// Relay de la bandeja EVENTOS_VIAJE hacia los consumidores en proceso (ConsumidorEventosViaje).
+// Cada ciclo lee, para cada consumidor, los eventos siguientes a su posición en orden de ID y en lotes;
+// la posición avanza después de que el consumidor procesa el lote. Un consumidor que falla se queda en
+// su posición y recibe de nuevo los mismos eventos en el siguiente ciclo, sin que los demás se detengan.
+// La posición de un consumidor que guardaPosicion() se guarda en CONSUMIDORES_EVENTOS; la de uno con
+// estado en memoria es de esta instancia (cada instancia tiene el suyo) y no se guarda.
+//
+// El orden de ID respeta el orden por viaje: RF9 y RF10 solo pueden escribir un evento de un viaje
+// después de que RF8 confirmó el suyo. Pero un ID más bajo puede confirmarse después de uno más alto
+// (dos RF8 concurrentes), así que el relay no pasa de un hueco en los IDs hasta que se llena o hasta que
+// lleva espera-huecos-ms abierto. Los IDs de un hueco que se pasa quedan pendientes en la suscripción y
+// se vuelven a buscar cada espera-huecos-ms: si su transacción confirma tarde, el evento se entrega
+// entonces (fuera de orden); si no aparecen en espera-saltados-ms (la transacción se revirtió), se olvidan.
+@Service
+public class RelayEventosService {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayEventosService.class);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired(required = false) private List<ConsumidorEventosViaje> consumidoresRegistrados;
+
+    @Value("${alpescab.eventos.lote:500}")
+    private int lote;
+
+    // Tiempo que un hueco en los IDs detiene la entrega. Una transacción de RF8-RF10 que tarde más que
+    // esto en confirmarse después de escribir su evento lo hace llegar tarde, fuera de orden
+    @Value("${alpescab.eventos.espera-huecos-ms:10000}")
+    private long esperaHuecosMs;
+
+    // Tiempo que se sigue buscando un ID saltado antes de darlo por revertido
+    @Value("${alpescab.eventos.espera-saltados-ms:3600000}")
+    private long esperaSaltadosMs;
+
+    // Los eventos entregados a todos los consumidores se borran después de este tiempo
+    @Value("${alpescab.eventos.retencion-ms:86400000}")
+    private long retencionMs;
+
+    private static final class Suscripcion {
+        private final ConsumidorEventosViaje consumidor;
+        private volatile long posicion;
+        // ID saltado que aún puede aparecer -> momento en que se saltó
+        private final NavigableMap<Long, Long> saltados = new TreeMap<>();
+        private long saltadosRevisados;
+
+        private Suscripcion(ConsumidorEventosViaje consumidor, long posicion) {
+            this.consumidor = consumidor;
+            this.posicion = posicion;
+        }
+    }
+
+    private final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+
+    // Primer ID de cada hueco visto -> momento en que se vio por primera vez
+    private final Map<Long, Long> huecos = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (consumidoresRegistrados == null) {
+            return;
+        }
+        for (ConsumidorEventosViaje consumidor : consumidoresRegistrados) {
+            try {
+                suscribir(consumidor);
+            } catch (Exception e) {
+                log.warn("No fue posible suscribir al consumidor de eventos {}: {}", consumidor.nombre(), e.getMessage());
+            }
+        }
+    }
+
+    // Un consumidor nuevo empieza después del último evento existente: construye su estado inicial
+    // desde las tablas. Uno conocido retoma desde su posición guardada. Uno con estado en memoria
+    // siempre empieza después del último evento.
+    public synchronized void suscribir(ConsumidorEventosViaje consumidor) {
+        long posicion;
+        if (!consumidor.guardaPosicion()) {
+            posicion = ultimoEvento();
+            // Una fila que quedó de cuando se guardaba su posición retendría la bandeja en limpiar
+            jdbcTemplate.update("DELETE FROM CONSUMIDORES_EVENTOS WHERE NOMBRE = ?", consumidor.nombre());
+            agregar(consumidor, posicion);
+            return;
+        }
+        List<Long> guardada = jdbcTemplate.queryForList(
+            "SELECT POSICION FROM CONSUMIDORES_EVENTOS WHERE NOMBRE = ?", Long.class, consumidor.nombre());
+        if (guardada.isEmpty()) {
+            posicion = ultimoEvento();
+            jdbcTemplate.update("INSERT INTO CONSUMIDORES_EVENTOS (NOMBRE, POSICION, ACTUALIZADO) VALUES (?, ?, ?)",
+                consumidor.nombre(), posicion, new Timestamp(System.currentTimeMillis()));
+        } else {
+            posicion = guardada.get(0);
+        }
+        agregar(consumidor, posicion);
+    }
+
+    private void agregar(ConsumidorEventosViaje consumidor, long posicion) {
+        suscripciones.removeIf(s -> s.consumidor.nombre().equals(consumidor.nombre()));
+        suscripciones.add(new Suscripcion(consumidor, posicion));
+        log.info("Consumidor de eventos {} suscrito desde el evento {}.", consumidor.nombre(), posicion);
+    }
+
+    private long ultimoEvento() {
+        Long maximo = jdbcTemplate.queryForObject("SELECT MAX(ID) FROM EVENTOS_VIAJE", Long.class);
+        return maximo == null ? 0 : maximo;
+    }
+
+    // Posición del consumidor en esta instancia (null si no está suscrito)
+    public Long posicion(String nombre) {
+        return suscripciones.stream().filter(s -> s.consumidor.nombre().equals(nombre))
+            .map(s -> s.posicion).findFirst().orElse(null);
+    }
+
+    // IDs saltados del consumidor que aún se buscan
+    public synchronized int saltados(String nombre) {
+        return suscripciones.stream().filter(s -> s.consumidor.nombre().equals(nombre))
+            .mapToInt(s -> s.saltados.size()).findFirst().orElse(0);
+    }
+
+    // ---------------------- ENTREGA ----------------------
+    @Scheduled(fixedDelayString = "${alpescab.eventos.relay-ms:1000}",
+               initialDelayString = "${alpescab.eventos.relay-ms:1000}")
+    public void entregarPeriodicamente() {
+        try {
+            entregar();
+        } catch (Exception e) {
+            log.warn("No fue posible entregar los eventos de los viajes: {}", e.getMessage());
+        }
+    }
+
+    // Entrega a cada consumidor los saltados que aparecieron y lotes desde su posición hasta el último
+    // evento visible (o un hueco reciente). Cada uno lee por su cuenta: uno que falla o va atrasado no
+    // detiene a los demás. Retorna cuántos eventos entregó en total (uno entregado a dos consumidores
+    // cuenta dos veces)
+    public synchronized long entregar() {
+        long entregados = 0;
+        for (Suscripcion suscripcion : suscripciones) {
+            entregados += entregarSaltados(suscripcion) + entregar(suscripcion);
+        }
+        long minima = suscripciones.stream().mapToLong(s -> s.posicion).min().orElse(Long.MAX_VALUE);
+        huecos.keySet().removeIf(id -> id <= minima);
+        return entregados;
+    }
+
+    private long entregar(Suscripcion suscripcion) {
+        long entregados = 0;
+        while (true) {
+            long posicion = suscripcion.posicion;
+            List<EventosViajeService.EventoViaje> eventos = leer(posicion);
+            List<EventosViajeService.EventoViaje> listos = hastaElPrimerHueco(suscripcion, eventos);
+            if (listos.isEmpty() || !consumir(suscripcion, listos)) {
+                return entregados;
+            }
+            long nueva = listos.get(listos.size() - 1).id();
+            if (suscripcion.consumidor.guardaPosicion()) {
+                jdbcTemplate.update("UPDATE CONSUMIDORES_EVENTOS SET POSICION = ?, ACTUALIZADO = ? WHERE NOMBRE = ?",
+                    nueva, new Timestamp(System.currentTimeMillis()), suscripcion.consumidor.nombre());
+            }
+            suscripcion.posicion = nueva;
+            entregados += listos.size();
+            // Se sigue con el siguiente lote solo si este estaba lleno y no se detuvo en un hueco
+            if (eventos.size() < lote || listos.size() < eventos.size()) {
+                return entregados;
+            }
+        }
+    }
+
+    private boolean consumir(Suscripcion suscripcion, List<EventosViajeService.EventoViaje> eventos) {
+        try {
+            suscripcion.consumidor.consumir(eventos);
+            return true;
+        } catch (Exception e) {
+            log.warn("El consumidor de eventos {} falló en los eventos {}-{}; se reintentará: {}", suscripcion.consumidor.nombre(),
+                eventos.get(0).id(), eventos.get(eventos.size() - 1).id(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Busca los IDs saltados de la suscripción (a lo más cada espera-huecos-ms) y entrega los que ya
+    // aparecieron; olvida los que llevan más de espera-saltados-ms sin aparecer
+    private long entregarSaltados(Suscripcion suscripcion) {
+        long ahora = System.currentTimeMillis();
+        if (suscripcion.saltados.isEmpty() || ahora - suscripcion.saltadosRevisados < esperaHuecosMs) {
+            return 0;
+        }
+        suscripcion.saltadosRevisados = ahora;
+        int antes = suscripcion.saltados.size();
+        suscripcion.saltados.values().removeIf(saltadoEn -> ahora - saltadoEn >= esperaSaltadosMs);
+        if (suscripcion.saltados.size() < antes) {
+            log.info("Consumidor de eventos {}: {} IDs saltados no aparecieron y se dan por revertidos.",
+                suscripcion.consumidor.nombre(), antes - suscripcion.saltados.size());
+        }
+        if (suscripcion.saltados.isEmpty()) {
+            return 0;
+        }
+        List<Long> buscados = suscripcion.saltados.keySet().stream().limit(lote).toList();
+        List<EventosViajeService.EventoViaje> eventos = consultar(
+            "SELECT ID, TIPO, ID_VIAJE, DATOS, CREADO FROM EVENTOS_VIAJE WHERE ID IN (" +
+            buscados.stream().map(id -> "?").collect(Collectors.joining(", ")) + ") ORDER BY ID", buscados.toArray());
+        if (eventos.isEmpty() || !consumir(suscripcion, eventos)) {
+            return 0;
+        }
+        eventos.forEach(evento -> suscripcion.saltados.remove(evento.id()));
+        log.info("Consumidor de eventos {}: {} eventos entregados tarde.", suscripcion.consumidor.nombre(), eventos.size());
+        return eventos.size();
+    }
+
+    private List<EventosViajeService.EventoViaje> leer(long desde) {
+        return jdbcTemplate.query(conexion -> {
+            var sentencia = conexion.prepareStatement(
+                "SELECT ID, TIPO, ID_VIAJE, DATOS, CREADO FROM EVENTOS_VIAJE WHERE ID > ? ORDER BY ID");
+            sentencia.setLong(1, desde);
+            sentencia.setMaxRows(lote);
+            sentencia.setFetchSize(lote);
+            return sentencia;
+        }, this::evento);
+    }
+
+    private List<EventosViajeService.EventoViaje> consultar(String sql, Object... parametros) {
+        return jdbcTemplate.query(sql, this::evento, parametros);
+    }
+
+    private EventosViajeService.EventoViaje evento(ResultSet fila, int numero) throws SQLException {
+        try {
+            return new EventosViajeService.EventoViaje(fila.getLong(1), fila.getString(2), fila.getLong(3),
+                objectMapper.readTree(fila.getString(4)), fila.getTimestamp(5));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Los eventos anteriores al primer hueco que aún puede llenarse. Los IDs de un hueco vencido se
+    // pasan y quedan en los saltados de la suscripción (los de un hueco más grande que un lote, p. ej.
+    // un salto de la secuencia, solo los primeros)
+    private List<EventosViajeService.EventoViaje> hastaElPrimerHueco(Suscripcion suscripcion,
+                                                                   List<EventosViajeService.EventoViaje> eventos) {
+        long ahora = System.currentTimeMillis();
+        long esperado = suscripcion.posicion + 1;
+        List<EventosViajeService.EventoViaje> listos = new ArrayList<>(eventos.size());
+        for (EventosViajeService.EventoViaje evento : eventos) {
+            if (evento.id() != esperado) {
+                long vistoEn = huecos.computeIfAbsent(esperado, id -> ahora);
+                if (ahora - vistoEn < esperaHuecosMs) {
+                    break;
+                }
+                for (long id = esperado; id < evento.id() && id - esperado < lote; id++) {
+                    suscripcion.saltados.putIfAbsent(id, ahora);
+                }
+            }
+            listos.add(evento);
+            esperado = evento.id() + 1;
+        }
+        return listos;
+    }
+
+    // ---------------------- RETENCIÓN ----------------------
+    @Scheduled(fixedDelayString = "${alpescab.eventos.limpieza-ms:3600000}",
+               initialDelayString = "${alpescab.eventos.limpieza-ms:3600000}")
+    public void limpiarPeriodicamente() {
+        try {
+            limpiar();
+        } catch (Exception e) {
+            log.warn("No fue posible limpiar la bandeja de eventos: {}", e.getMessage());
+        }
+    }
+
+    // Borra los eventos que superan la retención y que ya recibieron los consumidores registrados en la BD
+    // (uno detenido conserva sus eventos pendientes) y los de esta instancia. Los consumidores en memoria
+    // de otras instancias no van tan atrasados como la retención.
+    public int limpiar() {
+        Long guardada = jdbcTemplate.queryForObject("SELECT MIN(POSICION) FROM CONSUMIDORES_EVENTOS", Long.class);
+        long minima = Math.min(guardada == null ? Long.MAX_VALUE : guardada,
+            suscripciones.stream().mapToLong(s -> s.posicion).min().orElse(Long.MAX_VALUE));
+        int borrados = jdbcTemplate.update("DELETE FROM EVENTOS_VIAJE WHERE ID <= ? AND CREADO < ?",
+            minima, new Timestamp(System.currentTimeMillis() - retencionMs));
+        if (borrados > 0) {
+            log.info("Bandeja de eventos: {} eventos entregados borrados.", borrados);
+        }
+        return borrados;
+    }
+}
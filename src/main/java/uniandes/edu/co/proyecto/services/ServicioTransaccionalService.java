@@ -2,80 +2,183 @@ package uniandes.edu.co.proyecto.services;
 import uniandes.edu.co.proyecto.entities.*;
 import uniandes.edu.co.proyecto.repositories.*;
 import uniandes.edu.co.proyecto.controllers.DTO.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-//import java.util.Optional;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ServicioTransaccionalService {
 
+    private static final Logger log = LoggerFactory.getLogger(ServicioTransaccionalService.class);
+
     @Autowired private UsuarioRepository usuarioRepository;
     @Autowired private ServicioRepository servicioRepository;
-    @Autowired private MediosPagoRepository medioDePagoRepository;
     @Autowired private PuntoGeoRepository puntoGeograficoRepository;
+    @Autowired private VehiculoRepository vehiculoRepository;
+    @Autowired private IndiceConductoresService indiceConductores;
+    @Autowired private IndiceEspacialService indiceEspacial;
+    @Autowired private EstimadorTarifaService estimadorTarifa;
+    @Autowired private TopConductoresService topConductores;
+    @Autowired private GananciaDiariaRepository gananciaDiariaRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private UsoServiciosService usoServicios;
+    @Autowired private ApplicationEventPublisher eventos;
+    @Autowired private EventosViajeService eventosViaje;   // Bandeja de salida (outbox) de RF8/RF9
+    @Autowired private TrayectoriasService trayectorias;
+    @Autowired private MeterRegistry meterRegistry;
+    @PersistenceContext private EntityManager entityManager;
+
+    // Parte del costo del viaje que recibe el conductor (ALPESCAB retiene el 40%)
+    static final double PORCENTAJE_CONDUCTOR = 0.60;
+
+    // Número máximo de candidatos que RF8 intenta reclamar antes de desistir
+    @Value("${alpescab.despacho.max-intentos-reclamo:5}")
+    private int maxIntentosReclamo;
 
     // ---------------------- RF8: SOLICITAR UN SERVICIO (TRANSACCIONAL) ----------------------
     // Debe ser atómica. Si una falla, todas fallan (rollback).
-    @Transactional
+    // rollbackFor: las fallas de negocio se reportan con Exception (checked), que por defecto no revierte.
+    @Transactional(rollbackFor = Exception.class)
     public ServicioEntity solicitarServicio(SolicitudServicioDTO solicitud) throws Exception {
+        return solicitarServicio(solicitud, null, Collections.emptyMap());
+    }
+
+    // Variante usada por el despacho por lotes: conductorPreferido es el conductor que le dio la
+    // asignación global. Si ya no está libre, se sigue con la búsqueda normal del más cercano.
+    // puntosDelLote son los puntos (con su ciudad) que el lote ya leyó en una sola consulta; aquí
+    // solo se consultan los que no estén ahí.
+    @Transactional(rollbackFor = Exception.class)
+    public ServicioEntity solicitarServicio(SolicitudServicioDTO solicitud, Long conductorPreferido,
+                                            Map<Long, PuntoGeoEntity> puntosDelLote) throws Exception {
         
         // 1. Mapeo: Obtener las entidades a partir de los IDs del DTO.
+        // Cada consulta es un viaje a la BD, por lo que se agrupan: RF8 usa un número fijo de sentencias.
         
-        // Obtener Cliente y validar tipo de usuario
-        UsuarioEntity clienteGenerico = usuarioRepository.findById(solicitud.getClienteId())
-                .orElseThrow(() -> new Exception("RF8 Fallido: Cliente con ID " + solicitud.getClienteId() + " no encontrado."));
+        // Obtener Cliente, validar tipo de usuario y saber si tiene medio de pago (una consulta)
+        List<Object[]> filaCliente = usuarioRepository.findConMedioDePago(solicitud.getClienteId());
+        if (filaCliente.isEmpty()) {
+            throw falloRf8("cliente_invalido", "Cliente con ID " + solicitud.getClienteId() + " no encontrado.");
+        }
         
-        if (!(clienteGenerico instanceof UsuarioServicioEntity cliente)) {
-            throw new Exception("RF8 Fallido: El ID proporcionado no pertenece a un Usuario de Servicio.");
+        if (!(filaCliente.get(0)[0] instanceof UsuarioServicioEntity cliente)) {
+            throw falloRf8("cliente_invalido", "El ID proporcionado no pertenece a un Usuario de Servicio.");
         }
+        boolean tieneMedioDePago = (Boolean) filaCliente.get(0)[1];
         
-        // Obtener Punto de Partida
-        PuntoGeoEntity partida = puntoGeograficoRepository.findById(solicitud.getPuntoPartidaId())
-                .orElseThrow(() -> new Exception("RF8 Fallido: Punto de partida no encontrado."));
+        // Obtener Punto de Partida y Puntos de Llegada con sus ciudades (una consulta)
+        List<Long> idsLlegada = solicitud.getPuntosLlegadaIds() == null ? List.of() : solicitud.getPuntosLlegadaIds();
+        Set<Long> idsPuntos = new HashSet<>(idsLlegada);
+        if (solicitud.getPuntoPartidaId() != null) {
+            idsPuntos.add(solicitud.getPuntoPartidaId());
+        }
+        Map<Long, PuntoGeoEntity> puntos = new HashMap<>();
+        Set<Long> idsFaltantes = new HashSet<>();
+        for (Long id : idsPuntos) {
+            PuntoGeoEntity cargado = id == null ? null : puntosDelLote.get(id);
+            if (cargado != null) {
+                puntos.put(id, cargado);
+            } else if (id != null) {
+                idsFaltantes.add(id);
+            }
+        }
+        if (!idsFaltantes.isEmpty()) {
+            puntoGeograficoRepository.findAllConCiudadById(idsFaltantes).forEach(p -> puntos.put(p.getId(), p));
+        }
+
+        PuntoGeoEntity partida = puntos.get(solicitud.getPuntoPartidaId());
+        if (partida == null) {
+            throw falloRf8("parada_invalida", "Punto de partida no encontrado.");
+        }
 
-        // Obtener Puntos de Llegada
-        List<PuntoGeoEntity> llegadas = solicitud.getPuntosLlegadaIds().stream()
-                .map(id -> puntoGeograficoRepository.findById(id).orElse(null))
+        // Se conserva el orden de la solicitud: la última parada es el destino final
+        List<PuntoGeoEntity> llegadas = idsLlegada.stream()
+                .map(puntos::get)
                 .filter(p -> p != null)
                 .collect(Collectors.toList());
 
         if (llegadas.isEmpty()) {
-             throw new Exception("RF8 Fallido: Se requiere al menos un punto de llegada válido.");
+             throw falloRf8("parada_invalida", "Se requiere al menos un punto de llegada válido.");
         }
         
         // 2. Lógica de Negocio y Consistencia
         
         // Verificar que el usuario tiene un medio de pago registrado.
-        List<MediosPagoEntity> pagos = medioDePagoRepository.findByUsuarioDeServicio(cliente);
-        if (pagos.isEmpty()) {
-            throw new Exception("RF8 Fallido: El usuario no tiene un medio de pago registrado disponible.");
+        if (!tieneMedioDePago) {
+            throw falloRf8("sin_medio_pago", "El usuario no tiene un medio de pago registrado disponible.");
         }
 
-        // Buscar un conductor disponible (Implementación simplificada)
-        UsuarioConductorEntity conductorDisponible = usuarioRepository.findConductorDisponible();
+        // 3. Asignación Atómica del Conductor
         
-        if (conductorDisponible == null || conductorDisponible.getVehiculos().isEmpty()) {
-            throw new Exception("RF8 Fallido: No se encontró un conductor o vehículo disponible en este momento.");
+        // Buscar un conductor disponible en el índice en memoria: el más cercano al punto de partida;
+        // si no hay conductores ubicados cerca, primero en la ciudad del punto de partida y luego en
+        // cualquier ciudad. El conductor queda reservado en el índice (si la transacción falla, vuelve
+        // a estar disponible).
+        IndiceConductoresService.CriteriosBusqueda criterios = IndiceConductoresService.CriteriosBusqueda.para(solicitud, partida);
+
+        // El candidato se reclama en la BD con un UPDATE condicionado a ESTADO_DISPONIBLE = true.
+        // Si afecta 0 filas, otra transacción ya lo tomó: se intenta con el siguiente candidato.
+        IndiceConductoresService.VehiculoDisponible candidato = null;
+        for (int intento = 0; intento < maxIntentosReclamo && candidato == null; intento++) {
+            Optional<IndiceConductoresService.VehiculoDisponible> preferido = intento == 0 && conductorPreferido != null
+                ? indiceConductores.reservarConductor(conductorPreferido, criterios)
+                : Optional.empty();
+            IndiceConductoresService.VehiculoDisponible posible = preferido
+                .or(() -> indiceConductores.reservarMasCercano(criterios, partida.getLatitud(), partida.getLongitud()))
+                .or(() -> indiceConductores.reservarCandidato(criterios.sinCiudad()))
+                .orElseThrow(() -> falloRf8("sin_conductor", "No se encontró un conductor o vehículo disponible en este momento."));
+
+            if (usuarioRepository.reclamarConductor(posible.conductorId()) == 1) {
+                candidato = posible;
+            } else {
+                indiceConductores.descartarReserva(posible.conductorId());
+            }
+        }
+        if (candidato == null) {
+            throw falloRf8("conductores_tomados", "Los conductores disponibles fueron asignados a otras solicitudes, intente de nuevo.");
         }
-        
-        // 3. Modificaciones Atómicas
-        
-        // Actualizar el estado del conductor (Importante para la atomicidad)
-        conductorDisponible.setEstadoDisponible(false); // Marcar como NO disponible
-        usuarioRepository.save(conductorDisponible);
 
-        // Asignar el vehículo (se asume el primer vehículo para el ejemplo)
-        VehiculoEntity vehiculoAsignado = conductorDisponible.getVehiculos().get(0); 
+        // Se lee después del reclamo, por lo que el conductor refleja ESTADO_DISPONIBLE = false y la
+        // nueva versión. El vehículo trae a su conductor y su ciudad en la misma consulta.
+        VehiculoEntity vehiculoAsignado = vehiculoRepository.findConConductorById(candidato.vehiculoId())
+            .orElseThrow(() -> falloRf8("vehiculo_invalido", "El vehículo asignado ya no existe."));
+        UsuarioConductorEntity conductorDisponible = vehiculoAsignado.getConductor();
+        if (!conductorDisponible.getId().equals(candidato.conductorId())) {
+            throw falloRf8("vehiculo_invalido", "El vehículo asignado ya no pertenece al conductor.");
+        }
         
         // 4. Registrar el inicio del viaje.
+        // El costo se calcula en el servidor con la ruta y la tarifa del nivel del vehículo asignado.
+        double costoTotal;
+        try {
+            costoTotal = estimadorTarifa.costo(solicitud.getTipoServicio(), vehiculoAsignado.getNivelAsignado(), partida, llegadas);
+        } catch (IllegalArgumentException e) {
+            throw falloRf8("sin_tarifa", e.getMessage());
+        }
         ServicioEntity nuevoServicio = new ServicioEntity(
             solicitud.getTipoServicio(), 
-            solicitud.getCostoEstimado(), 
+            costoTotal, 
             new Date(), // Hora de inicio actual
             conductorDisponible, 
             cliente, 
@@ -85,14 +188,47 @@ public class ServicioTransaccionalService {
         );
         
         // Se guarda el registro del servicio (Si esto falla, todo el RF8 hace Rollback)
-        return servicioRepository.save(nuevoServicio);
+        ServicioEntity guardado = servicioRepository.save(nuevoServicio);
+
+        // 5. Contar el viaje para el top de conductores (RFC2), en la misma transacción,
+        // y para el uso por ciudad (RFC4), en memoria al confirmar
+        topConductores.registrarViaje(conductorDisponible.getId());
+        usoServicios.registrarViaje(partida.getCiudad() == null ? null : partida.getCiudad().getId(),
+            guardado.getTipoServicio(), guardado.getHoraInicio());
+        eventosViaje.viajeSolicitado(guardado);
+        trayectorias.abrirAlConfirmar(guardado.getId(), partida);
+        eventos.publishEvent(new CambioViajeEvent(cliente.getId(), conductorDisponible.getId()));
+        return guardado;
+    }
+
+    // Cuenta el rechazo en alpescab.rf8.fallos{motivo} y construye la excepción de negocio
+    private Exception falloRf8(String motivo, String mensaje) {
+        meterRegistry.counter("alpescab.rf8.fallos", "motivo", motivo).increment();
+        return new Exception("RF8 Fallido: " + mensaje);
     }
     
     // ---------------------- RF9: REGISTRAR EL FINAL DE UN VIAJE (TRANSACCIONAL) ----------------------
-    @Transactional
+    // La longitud del trayecto es la acumulada con las posiciones GPS del viaje (TrayectoriasService);
+    // longitudTrayecto, la que envía el cliente, solo se usa si este nodo no recibió posiciones.
+    @Transactional(rollbackFor = Exception.class)
     public ServicioEntity finalizarServicio(Long servicioId, Double longitudTrayecto) throws Exception {
         ServicioEntity servicio = servicioRepository.findById(servicioId)
             .orElseThrow(() -> new Exception("RF9 Fallido: Servicio con ID " + servicioId + " no encontrado."));
+        if (servicio.getHoraFin() != null) {
+            throw new Exception("RF9 Fallido: El servicio con ID " + servicioId + " ya fue finalizado.");
+        }
+        Double medida = trayectorias.longitudKm(servicioId);
+        if (medida != null) {
+            longitudTrayecto = medida;
+        } else if (longitudTrayecto == null) {
+            throw new Exception("RF9 Fallido: No se recibieron posiciones del viaje ni el campo 'longitudTrayecto'.");
+        } else {
+            // Sin posiciones en este nodo (el dispositivo no las envió o llegaron a otro) se cobra con la
+            // longitud que declara el cliente: se registra para poder auditarlo
+            meterRegistry.counter("alpescab.rf9.longitud.cliente").increment();
+            log.warn("RF9: el viaje {} se finaliza con la longitud enviada por el cliente ({} km), sin posiciones en este nodo.",
+                servicioId, longitudTrayecto);
+        }
         
         Date horaFin = new Date();
         
@@ -102,12 +238,44 @@ public class ServicioTransaccionalService {
         long duracionMs = horaFin.getTime() - servicio.getHoraInicio().getTime();
         servicio.setDuracionMinutos(duracionMs / (1000 * 60)); // Duración en minutos
         
-        // 2. Marcar el conductor disponible nuevamente (Transaccional)
-        UsuarioConductorEntity conductor = servicio.getConductor();
-        conductor.setEstadoDisponible(true);
-        usuarioRepository.save(conductor);
+        // 2. Guardar el servicio actualizado. El flush verifica la versión: si otro RF9 finalizó
+        // el mismo viaje de forma concurrente, falla aquí con un conflicto optimista.
+        ServicioEntity finalizado;
+        try {
+            finalizado = servicioRepository.saveAndFlush(servicio);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new Exception("RF9 Fallido: El servicio con ID " + servicioId + " fue modificado por otra transacción.");
+        }
+        
+        // 3. Marcar el conductor disponible nuevamente con el mismo mecanismo atómico de RF8
+        UsuarioConductorEntity conductor = finalizado.getConductor();
+        if (usuarioRepository.liberarConductor(conductor.getId()) != 1) {
+            throw new Exception("RF9 Fallido: El conductor del servicio no se encontraba ocupado.");
+        }
+        entityManager.refresh(conductor); // Sincronizar la entidad con la fila actualizada
+        indiceConductores.liberarAlConfirmar(conductor);
+        indiceEspacial.actualizarConductorAlConfirmar(conductor.getId(), finalizado.getPuntoLlegadaFinal());
+
+        // 4. Sumar el viaje a las ganancias del conductor (RFC3) del día en que terminó.
+        // La fila se crea en el primer viaje del día. La importación de viajes también la suma o la crea,
+        // así que si otra transacción la insertó al mismo tiempo, la inserción falla por la llave primaria
+        // y se vuelve a sumar (con JDBC: una falla de una consulta de JPA marcaría RF9 para revertirse).
+        // COSTO_TOTAL admite NULL en el esquema (viajes anteriores a RF8): ese viaje cuenta sin ganancia.
+        LocalDate dia = horaFin.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        String placa = finalizado.getVehiculo().getPlaca();
+        double ganancia = finalizado.getCostoTotal() == null ? 0 : finalizado.getCostoTotal() * PORCENTAJE_CONDUCTOR;
+        if (gananciaDiariaRepository.sumar(conductor.getId(), placa, finalizado.getTipoServicio(), dia, ganancia) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO GANANCIAS_DIARIAS (ID_CONDUCTOR, PLACA, TIPO_SERVICIO, DIA, GANANCIA, NUM_VIAJES) " +
+                    "VALUES (?, ?, ?, ?, ?, 1)", conductor.getId(), placa, finalizado.getTipoServicio(), dia, ganancia);
+            } catch (DuplicateKeyException e) {
+                gananciaDiariaRepository.sumar(conductor.getId(), placa, finalizado.getTipoServicio(), dia, ganancia);
+            }
+        }
+        eventosViaje.viajeFinalizado(finalizado);
+        trayectorias.cerrarAlConfirmar(servicioId);
+        eventos.publishEvent(new CambioViajeEvent(finalizado.getUsuarioCliente().getId(), conductor.getId()));
         
-        // 3. Guardar el servicio actualizado
-        return servicioRepository.save(servicio);
+        return finalizado;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.repositories.*;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Top de conductores con más viajes (RFC2), mantenido de forma incremental.
+// RF8 incrementa el contador del conductor en la BD (CONTEO_VIAJES_CONDUCTOR) dentro de su transacción
+// y, al confirmar, en memoria. La consulta lee los K primeros ya ordenados: no agrupa la tabla VIAJE.
+// Un trabajo periódico recalcula los contadores desde VIAJE y corrige cualquier diferencia.
+@Service
+public class TopConductoresService {
+
+    private static final Logger log = LoggerFactory.getLogger(TopConductoresService.class);
+
+    // Posición de un conductor en el top: más viajes primero; a igual número, el menor ID
+    public record Posicion(Long conductorId, long numViajes) {}
+
+    private static final Comparator<Posicion> ORDEN = Comparator
+        .comparingLong(Posicion::numViajes).reversed()
+        .thenComparing(Posicion::conductorId);
+
+    @Autowired private ConteoViajesConductorRepository conteoRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    // Número de conductores que se mantienen ordenados
+    @Value("${alpescab.top-conductores.tamano:20}")
+    private int tamano;
+
+    // conductorId -> viajes (todos los conductores con viajes). Protegido por el monitor de la instancia.
+    private final Map<Long, Long> conteos = new HashMap<>();
+
+    // Los 'tamano' primeros según ORDEN. Los contadores solo crecen entre reconciliaciones, así que un
+    // conductor fuera del top solo puede entrar cuando se incrementa su propio contador.
+    private final TreeSet<Posicion> top = new TreeSet<>(ORDEN);
+
+    private volatile boolean construido = false;
+    private final Object construccion = new Object();
+
+    private ReconciliacionAgregados reconciliacion;
+
+    @PostConstruct
+    void crearReconciliacion() {
+        reconciliacion = new ReconciliacionAgregados(jdbcTemplate, transactionManager,
+            "CONTEO_VIAJES_CONDUCTOR", "ID_CONDUCTOR", new String[] { "NUM_VIAJES" },
+            "SELECT ID_CONDUCTOR, COUNT(*) FROM VIAJE GROUP BY ID_CONDUCTOR",
+            "SELECT COUNT(*) FROM VIAJE WHERE ID_CONDUCTOR = ?");
+    }
+
+    // ---------------------- RF8: REGISTRO DE UN VIAJE ----------------------
+
+    // Se une a la transacción de RF8: si el viaje no se confirma, el contador tampoco.
+    // Si el conductor aún no tiene contador se inserta; si la reconciliación lo insertó al mismo tiempo,
+    // la inserción falla por la llave primaria y se vuelve a sumar (con JDBC: una falla de una consulta
+    // de JPA marcaría la transacción de RF8 para revertirse).
+    @Transactional
+    public void registrarViaje(Long conductorId) {
+        if (conteoRepository.incrementar(conductorId) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO CONTEO_VIAJES_CONDUCTOR (ID_CONDUCTOR, NUM_VIAJES) VALUES (?, 1)", conductorId);
+            } catch (DuplicateKeyException e) {
+                conteoRepository.incrementar(conductorId);
+            }
+        }
+        EventosTransaccion.alConfirmar(() -> sumarEnMemoria(conductorId, 1));
+    }
+
+    // Importación de viajes históricos: el bloque ya sumó sus viajes a CONTEO_VIAJES_CONDUCTOR en su
+    // transacción; aquí solo se reflejan en memoria cuando se confirma.
+    public void registrarViajesImportados(Map<Long, Long> viajesPorConductor) {
+        EventosTransaccion.alConfirmar(() -> viajesPorConductor.forEach(this::sumarEnMemoria));
+    }
+
+    private synchronized void sumarEnMemoria(Long conductorId, long cantidad) {
+        long anterior = conteos.getOrDefault(conductorId, 0L);
+        conteos.put(conductorId, anterior + cantidad);
+        top.remove(new Posicion(conductorId, anterior));
+        top.add(new Posicion(conductorId, anterior + cantidad));
+        if (top.size() > tamano) {
+            top.pollLast();
+        }
+    }
+
+    // ---------------------- RFC2: CONSULTA ----------------------
+
+    // Copia de los K primeros, O(K)
+    public List<Posicion> top() {
+        asegurarConstruido();
+        synchronized (this) {
+            return List.copyOf(top);
+        }
+    }
+
+    // ---------------------- RECONCILIACIÓN DESDE VIAJE ----------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            reconciliar();
+        } catch (Exception e) {
+            log.warn("No fue posible construir el top de conductores al iniciar: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alpescab.top-conductores.reconciliacion-ms:600000}",
+               initialDelayString = "${alpescab.top-conductores.reconciliacion-ms:600000}")
+    public void reconciliarPeriodicamente() {
+        try {
+            reconciliar();
+        } catch (Exception e) {
+            log.warn("No fue posible reconciliar el top de conductores: {}", e.getMessage());
+        }
+    }
+
+    // Corrige los contadores que difieran de VIAJE (ver ReconciliacionAgregados: cada corrección bloquea
+    // la fila, así que no pisa los incrementos de RF8 concurrentes) y reconstruye el top con la tabla.
+    public void reconciliar() {
+        int corregidos = reconciliacion.reconciliar();
+        Map<Long, Long> reales = new HashMap<>();
+        reconciliacion.leer().forEach((conductorId, columnas) -> reales.put(conductorId, columnas[0]));
+        log.info("Contadores de viajes reconciliados: {} conductores, {} corregidos.", reales.size(), corregidos);
+
+        synchronized (this) {
+            conteos.clear();
+            conteos.putAll(reales);
+            top.clear();
+            reales.forEach((conductorId, numViajes) -> {
+                top.add(new Posicion(conductorId, numViajes));
+                if (top.size() > tamano) {
+                    top.pollLast();
+                }
+            });
+            construido = true;
+        }
+    }
+
+    // Solo el primer hilo construye; los demás esperan a que termine en vez de reconstruir también
+    private void asegurarConstruido() {
+        if (!construido) {
+            synchronized (construccion) {
+                if (!construido) {
+                    reconciliar();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Posiciones GPS de un viaje en curso en un anillo de capacidad fija (potencia de 2) y la longitud del
+// trayecto acumulada de forma incremental: cada posición suma la distancia de haversine desde la
+// anterior, así que RF9 no vuelve a recorrer los puntos.
+//
+// Varios hilos registran posiciones sin bloqueo: cada uno reclama una secuencia con CAS, escribe la
+// posición en los arreglos primitivos y la publica en "publicadas". El hilo que gana la bandera
+// "drenando" acumula las posiciones publicadas en orden de secuencia y libera sus casillas; los demás
+// siguen sin esperarlo. Ni el registro ni la acumulación crean objetos.
+//
+// Se descartan posiciones con un momento anterior a la última acumulada (llegaron desordenadas) y las
+// que implican una velocidad mayor a velocidadMaximaKmh desde la anterior (saltos del GPS). El punto de
+// partida con que se abre un viaje no tiene momento del dispositivo (los momentos de las posiciones son
+// del reloj del conductor, no del servidor): la primera posición suma su distancia desde la partida sin
+// esas dos comparaciones.
+public final class Trayectoria {
+
+    private final int mascara;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] momentos;
+    // publicadas[i] = secuencia + 1 de la última posición escrita en la casilla i
+    private final AtomicLongArray publicadas;
+    private final AtomicLong siguiente = new AtomicLong();
+    private final AtomicBoolean drenando = new AtomicBoolean();
+    private final double velocidadMaximaKmh;
+
+    // Estado del hilo que drena. "consumidas" es volátil: los productores la leen para saber si hay espacio
+    private volatile long consumidas;
+    private boolean tienePunto;
+    private boolean sinMomento;
+    private double ultimaLatitud;
+    private double ultimaLongitud;
+    private long ultimoMomento;
+    private volatile double distanciaKm;
+    private volatile long acumuladas;
+    private volatile long descartadas;
+    private volatile long ultimaActividad = System.currentTimeMillis();
+
+    public Trayectoria(int capacidad, double velocidadMaximaKmh) {
+        if (capacidad < 2 || capacidad > 1 << 24) {
+            throw new IllegalArgumentException("Capacidad fuera de rango: " + capacidad);
+        }
+        int potencia = Integer.highestOneBit(capacidad - 1) << 1;
+        this.mascara = potencia - 1;
+        this.latitudes = new double[potencia];
+        this.longitudes = new double[potencia];
+        this.momentos = new long[potencia];
+        this.publicadas = new AtomicLongArray(potencia);
+        this.velocidadMaximaKmh = velocidadMaximaKmh;
+    }
+
+    // Trayectoria que empieza en el punto de partida del viaje, que cuenta como primera posición
+    public Trayectoria(int capacidad, double velocidadMaximaKmh, double latitudPartida, double longitudPartida) {
+        this(capacidad, velocidadMaximaKmh);
+        tienePunto = true;
+        sinMomento = true;
+        ultimaLatitud = latitudPartida;
+        ultimaLongitud = longitudPartida;
+        acumuladas = 1;
+    }
+
+    // La primera posición de una trayectoria sin punto de partida no suma distancia.
+    // Retorna false si el anillo sigue lleno después de intentar drenarlo (la posición se pierde)
+    public boolean registrar(double latitud, double longitud, long momento) {
+        int capacidad = mascara + 1;
+        long secuencia;
+        do {
+            secuencia = siguiente.get();
+            if (secuencia - consumidas >= capacidad) {
+                drenar();
+                if (secuencia - consumidas >= capacidad) {
+                    return false;
+                }
+            }
+        } while (!siguiente.compareAndSet(secuencia, secuencia + 1));
+
+        int casilla = (int) secuencia & mascara;
+        latitudes[casilla] = latitud;
+        longitudes[casilla] = longitud;
+        momentos[casilla] = momento;
+        publicadas.set(casilla, secuencia + 1);
+        ultimaActividad = System.currentTimeMillis();
+        drenar();
+        return true;
+    }
+
+    // Acumula las posiciones publicadas en orden. Si otro hilo está drenando, retorna de inmediato: ese
+    // hilo vuelve a revisar al soltar la bandera, así que ninguna posición publicada queda pendiente.
+    public void drenar() {
+        do {
+            if (!drenando.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long secuencia = consumidas;
+                int casilla = (int) secuencia & mascara;
+                while (publicadas.get(casilla) == secuencia + 1) {
+                    acumular(latitudes[casilla], longitudes[casilla], momentos[casilla]);
+                    secuencia++;
+                    casilla = (int) secuencia & mascara;
+                }
+                consumidas = secuencia;
+            } finally {
+                drenando.set(false);
+            }
+        } while (publicadas.get((int) consumidas & mascara) == consumidas + 1);
+    }
+
+    private void acumular(double latitud, double longitud, long momento) {
+        if (!tienePunto) {
+            tienePunto = true;
+        } else if (sinMomento) {
+            sinMomento = false;
+            distanciaKm += CalculoGeografico.haversineKm(ultimaLatitud, ultimaLongitud, latitud, longitud);
+        } else {
+            if (momento < ultimoMomento) {
+                descartadas++;
+                return;
+            }
+            double km = CalculoGeografico.haversineKm(ultimaLatitud, ultimaLongitud, latitud, longitud);
+            double horas = (momento - ultimoMomento) / 3_600_000.0;
+            if (km > velocidadMaximaKmh * horas) {
+                descartadas++;
+                return;
+            }
+            distanciaKm += km;
+        }
+        ultimaLatitud = latitud;
+        ultimaLongitud = longitud;
+        ultimoMomento = momento;
+        acumuladas++;
+    }
+
+    // Longitud del trayecto en km con todas las posiciones registradas hasta ahora
+    public double longitudKm() {
+        drenar();
+        while (drenando.get()) {
+            Thread.onSpinWait(); // Otro hilo está acumulando; al soltar la bandera revisa lo pendiente
+        }
+        return distanciaKm;
+    }
+
+    public long acumuladas() {
+        return acumuladas;
+    }
+
+    public long descartadas() {
+        return descartadas;
+    }
+
+    public long ultimaActividad() {
+        return ultimaActividad;
+    }
+}
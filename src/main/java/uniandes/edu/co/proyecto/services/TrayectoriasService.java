@@ -0,0 +1,149 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.entities.PuntoGeoEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Trayectorias de los viajes en curso, en memoria: las posiciones GPS que envía el conductor durante el
+// viaje se acumulan en la Trayectoria del viaje (anillo sin bloqueo, sin escrituras en la BD por
+// posición) y RF9 toma de ahí la longitud del trayecto en lugar de confiar en la que envía el cliente.
+//
+// RF8 abre la trayectoria en el punto de partida al confirmar. Un viaje en curso que no está en memoria
+// (abierto en otro nodo o antes de reiniciar) se abre con su punto de partida en la primera posición que
+// llega, con una sola lectura a la BD. Las posiciones de un viaje deben llegar al mismo nodo que
+// atiende su RF9; si no, RF9 usa la longitud enviada. Un viaje que no existe o ya terminó se recuerda
+// por un tiempo corto: un dispositivo que sigue enviando posiciones no lee la BD en cada envío.
+@Service
+public class TrayectoriasService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrayectoriasService.class);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    // Posiciones por viaje que caben sin acumular (se redondea a potencia de 2)
+    @Value("${alpescab.trayectorias.capacidad:1024}")
+    private int capacidad;
+
+    // Una posición que implica una velocidad mayor desde la anterior se descarta como salto del GPS
+    @Value("${alpescab.trayectorias.velocidad-maxima-kmh:200}")
+    private double velocidadMaximaKmh;
+
+    // Las trayectorias sin posiciones por más de este tiempo (viajes abandonados) se descartan
+    @Value("${alpescab.trayectorias.inactividad-ms:21600000}")
+    private long inactividadMs;
+
+    private final Map<Long, Trayectoria> trayectorias = new ConcurrentHashMap<>();
+
+    // IDs de viajes que no existen o ya terminaron
+    private final Cache<Long, Boolean> cerrados;
+
+    public TrayectoriasService(@Value("${alpescab.trayectorias.cerrados-ttl:5m}") Duration ttlCerrados,
+                               @Value("${alpescab.trayectorias.cerrados-maximo:100000}") long maximoCerrados) {
+        this.cerrados = Caffeine.newBuilder().expireAfterWrite(ttlCerrados).maximumSize(maximoCerrados).build();
+    }
+
+    // ---------------------- RF8: APERTURA ----------------------
+    public void abrirAlConfirmar(Long viajeId, PuntoGeoEntity partida) {
+        double latitud = partida.getLatitud();
+        double longitud = partida.getLongitud();
+        EventosTransaccion.alConfirmar(() -> abrir(viajeId, latitud, longitud));
+    }
+
+    private Trayectoria abrir(Long viajeId, double latitud, double longitud) {
+        Trayectoria nueva = new Trayectoria(capacidad, velocidadMaximaKmh, latitud, longitud);
+        Trayectoria existente = trayectorias.putIfAbsent(viajeId, nueva);
+        return existente != null ? existente : nueva;
+    }
+
+    // ---------------------- POSICIONES DEL VIAJE ----------------------
+
+    // Registra las posiciones (en orden de llegada) y retorna cuántas entraron al anillo. Los tres arreglos
+    // tienen el mismo tamaño; momentos en ms desde la época. Retorna -1 si el viaje no existe o ya terminó.
+    public int registrarPosiciones(Long viajeId, double[] latitudes, double[] longitudes, long[] momentos) {
+        if (latitudes.length != longitudes.length || latitudes.length != momentos.length) {
+            throw new IllegalArgumentException("Las latitudes, longitudes y momentos deben tener el mismo tamaño.");
+        }
+        Trayectoria trayectoria = trayectorias.get(viajeId);
+        if (trayectoria == null) {
+            if (cerrados.getIfPresent(viajeId) != null) {
+                return -1;
+            }
+            trayectoria = abrirDesdeBD(viajeId);
+            if (trayectoria == null) {
+                cerrados.put(viajeId, Boolean.TRUE);
+                return -1;
+            }
+        }
+        int registradas = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            if (trayectoria.registrar(latitudes[i], longitudes[i], momentos[i])) {
+                registradas++;
+            }
+        }
+        return registradas;
+    }
+
+    // Abre la trayectoria en el punto de partida del viaje; null si el viaje no existe o ya terminó
+    private Trayectoria abrirDesdeBD(Long viajeId) {
+        List<double[]> filas = jdbcTemplate.query(
+            "SELECT p.LATITUD, p.LONGITUD FROM VIAJE v JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO " +
+            "WHERE v.ID = ? AND v.HORA_FIN IS NULL",
+            (fila, numero) -> new double[] { fila.getDouble(1), fila.getDouble(2) }, viajeId);
+        if (filas.isEmpty()) {
+            return null;
+        }
+        return abrir(viajeId, filas.get(0)[0], filas.get(0)[1]);
+    }
+
+    // ---------------------- RF9: LONGITUD DEL TRAYECTO ----------------------
+
+    // Longitud acumulada del viaje en km, o null si este nodo no recibió posiciones del viaje
+    public Double longitudKm(Long viajeId) {
+        Trayectoria trayectoria = trayectorias.get(viajeId);
+        if (trayectoria == null) {
+            return null;
+        }
+        double longitud = trayectoria.longitudKm();
+        return trayectoria.acumuladas() > 1 ? longitud : null;
+    }
+
+    public void cerrarAlConfirmar(Long viajeId) {
+        EventosTransaccion.alConfirmar(() -> {
+            cerrados.put(viajeId, Boolean.TRUE);
+            trayectorias.remove(viajeId);
+        });
+    }
+
+    // ---------------------- LIMPIEZA ----------------------
+    @Scheduled(fixedDelayString = "${alpescab.trayectorias.limpieza-ms:600000}",
+               initialDelayString = "${alpescab.trayectorias.limpieza-ms:600000}")
+    public void limpiarPeriodicamente() {
+        try {
+            limpiar();
+        } catch (Exception e) {
+            log.warn("No fue posible limpiar las trayectorias inactivas: {}", e.getMessage());
+        }
+    }
+
+    public int limpiar() {
+        long limite = System.currentTimeMillis() - inactividadMs;
+        int antes = trayectorias.size();
+        trayectorias.values().removeIf(t -> t.ultimaActividad() < limite);
+        int descartadas = antes - trayectorias.size();
+        if (descartadas > 0) {
+            log.info("Trayectorias: {} viajes inactivos descartados.", descartadas);
+        }
+        return descartadas;
+    }
+}
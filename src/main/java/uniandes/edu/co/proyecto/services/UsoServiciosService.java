@@ -0,0 +1,211 @@
+package uniandes.edu.co.proyecto.services;
+import uniandes.edu.co.proyecto.repositories.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Uso de servicios por ciudad y hora (RFC4).
+// RF8 solo incrementa un contador en memoria al confirmar; los contadores se vuelcan periódicamente a
+// USO_SERVICIOS_HORA con una sentencia por (ciudad, tipo, hora), no una por viaje. RFC4 ve los
+// viajes con un retraso de a lo sumo un intervalo de volcado.
+//
+// Lo que está en memoria se pierde si el proceso termina sin volcar (caída, kill -9). Por eso las horas
+// recientes que ya no reciben volcados se reconcilian periódicamente con VIAJE, como los agregados de
+// TopConductoresService y CalificacionesService.
+@Service
+public class UsoServiciosService {
+
+    private static final Logger log = LoggerFactory.getLogger(UsoServiciosService.class);
+
+    // Contador pendiente de volcar
+    record ClaveUso(Long ciudadId, String tipoServicio, LocalDateTime hora) {}
+
+    @Autowired private UsoServiciosHoraRepository usoRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private CacheConsultasService cacheConsultas;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    // Horas hacia atrás que revisa la reconciliación (un viaje perdido más antiguo se corrige a mano)
+    @Value("${alpescab.uso-servicios.reconciliacion-horas:48}")
+    private int horasReconciliacion;
+
+    // LongAdder reparte los incrementos concurrentes de RF8 en varias celdas (no compiten por un solo valor)
+    private final Map<ClaveUso, LongAdder> pendientes = new ConcurrentHashMap<>();
+
+    // ---------------------- RF8: REGISTRO DE UN VIAJE ----------------------
+    public void registrarViaje(Long ciudadId, String tipoServicio, Date horaInicio) {
+        if (ciudadId == null) {
+            return;
+        }
+        ClaveUso clave = new ClaveUso(ciudadId, tipoServicio, hora(horaInicio));
+        EventosTransaccion.alConfirmar(() -> pendientes.computeIfAbsent(clave, k -> new LongAdder()).increment());
+    }
+
+    static LocalDateTime hora(Date fecha) {
+        return fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    // ---------------------- VOLCADO A LA BD ----------------------
+    @Scheduled(fixedDelayString = "${alpescab.uso-servicios.volcado-ms:10000}",
+               initialDelayString = "${alpescab.uso-servicios.volcado-ms:10000}")
+    public void volcarPeriodicamente() {
+        try {
+            volcar();
+        } catch (Exception e) {
+            log.warn("No fue posible volcar el uso de servicios: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        volcarPeriodicamente();
+    }
+
+    // Toma lo acumulado en cada contador y lo suma a su hora en una sola transacción.
+    // Si la transacción falla, las cantidades vuelven a los contadores para el siguiente volcado.
+    // La importación de viajes también crea filas de una hora: si la inserción choca con la suya, la
+    // fila ya existe y se vuelve a sumar (con JDBC: una falla de JPA marcaría el volcado para revertirse).
+    public synchronized void volcar() {
+        LocalDateTime horaAnterior = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(1);
+        Map<ClaveUso, Long> lote = new HashMap<>();
+        pendientes.forEach((clave, contador) -> {
+            long cantidad = contador.sumThenReset();
+            if (cantidad > 0) {
+                lote.put(clave, cantidad);
+            }
+            // RF8 solo registra la hora actual: las horas pasadas ya no reciben incrementos
+            if (clave.hora().isBefore(horaAnterior)) {
+                pendientes.remove(clave, contador);
+            }
+        });
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(estado -> lote.forEach((clave, cantidad) -> {
+                if (usoRepository.sumar(clave.ciudadId(), clave.tipoServicio(), clave.hora(), cantidad) == 0) {
+                    try {
+                        jdbcTemplate.update("INSERT INTO USO_SERVICIOS_HORA (ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES) VALUES (?, ?, ?, ?)",
+                            clave.ciudadId(), clave.tipoServicio(), Timestamp.valueOf(clave.hora()), cantidad);
+                    } catch (DuplicateKeyException e) {
+                        usoRepository.sumar(clave.ciudadId(), clave.tipoServicio(), clave.hora(), cantidad);
+                    }
+                }
+            }));
+        } catch (RuntimeException e) {
+            lote.forEach((clave, cantidad) -> pendientes.computeIfAbsent(clave, k -> new LongAdder()).add(cantidad));
+            throw e;
+        }
+        cacheConsultas.alVolcarUsoServicios();
+    }
+
+    // ---------------------- RECONCILIACIÓN CON VIAJE ----------------------
+    @Scheduled(fixedDelayString = "${alpescab.uso-servicios.reconciliacion-ms:3600000}",
+               initialDelayString = "${alpescab.uso-servicios.reconciliacion-ms:3600000}")
+    public void reconciliarPeriodicamente() {
+        try {
+            int corregidas = reconciliar();
+            if (corregidas > 0) {
+                log.warn("Uso de servicios: {} horas no coincidían con VIAJE y se corrigieron.", corregidas);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible reconciliar el uso de servicios: {}", e.getMessage());
+        }
+    }
+
+    // Compara las horas cerradas recientes de USO_SERVICIOS_HORA con el conteo desde VIAJE y corrige las
+    // que difieren; retorna cuántas se corrigieron. La hora actual y la anterior aún reciben volcados, y
+    // una hora con un contador pendiente (volcado fallido) se deja para el siguiente volcado: con el
+    // monitor tomado, ningún volcado suma a las horas que se corrigen.
+    public synchronized int reconciliar() {
+        LocalDateTime hasta = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(1);
+        LocalDateTime desde = hasta.minusHours(horasReconciliacion);
+
+        Map<ClaveUso, Long> guardados = new HashMap<>();
+        jdbcTemplate.query("SELECT ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES FROM USO_SERVICIOS_HORA WHERE HORA >= ? AND HORA < ?",
+            (ResultSet fila) -> {
+                guardados.put(new ClaveUso(fila.getLong(1), fila.getString(2), fila.getTimestamp(3).toLocalDateTime()), fila.getLong(4));
+            }, Timestamp.valueOf(desde), Timestamp.valueOf(hasta));
+        // Se agrupa por hora aquí: truncar a la hora no se escribe igual en Oracle y en H2
+        Map<ClaveUso, Long> calculados = new HashMap<>();
+        jdbcTemplate.query("SELECT p.ID_CIUDAD, v.TIPO_SERVICIO, v.HORA_INICIO FROM VIAJE v " +
+            "JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO WHERE v.HORA_INICIO >= ? AND v.HORA_INICIO < ?",
+            (ResultSet fila) -> {
+                calculados.merge(new ClaveUso(fila.getLong(1), fila.getString(2),
+                    fila.getTimestamp(3).toLocalDateTime().truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+            }, Timestamp.valueOf(desde), Timestamp.valueOf(hasta));
+
+        Set<ClaveUso> claves = new HashSet<>(guardados.keySet());
+        claves.addAll(calculados.keySet());
+        int corregidas = 0;
+        for (ClaveUso clave : claves) {
+            if (!Objects.equals(guardados.getOrDefault(clave, 0L), calculados.getOrDefault(clave, 0L))
+                    && !pendientes.containsKey(clave) && corregir(clave)) {
+                corregidas++;
+            }
+        }
+        if (corregidas > 0) {
+            cacheConsultas.alVolcarUsoServicios();
+        }
+        return corregidas;
+    }
+
+    // Corrige una hora con su fila bloqueada: la importación que ya sumó a la fila confirmó antes (sus
+    // viajes se cuentan) y la que aún no suma espera y suma sobre el valor corregido
+    private boolean corregir(ClaveUso clave) {
+        Timestamp hora = Timestamp.valueOf(clave.hora());
+        TransactionTemplate transacciones = new TransactionTemplate(transactionManager);
+        while (true) {
+            try {
+                return Boolean.TRUE.equals(transacciones.execute(estado -> {
+                    Long guardado = jdbcTemplate.query("SELECT NUM_VIAJES FROM USO_SERVICIOS_HORA " +
+                        "WHERE ID_CIUDAD = ? AND TIPO_SERVICIO = ? AND HORA = ? FOR UPDATE",
+                        (fila, numero) -> fila.getLong(1), clave.ciudadId(), clave.tipoServicio(), hora).stream().findFirst().orElse(null);
+                    long calculado = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM VIAJE v " +
+                        "JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO " +
+                        "WHERE p.ID_CIUDAD = ? AND v.TIPO_SERVICIO = ? AND v.HORA_INICIO >= ? AND v.HORA_INICIO < ?",
+                        Long.class, clave.ciudadId(), clave.tipoServicio(), hora, Timestamp.valueOf(clave.hora().plusHours(1)));
+                    if ((guardado == null ? 0 : guardado) == calculado) {
+                        return false;
+                    }
+                    if (guardado == null) {
+                        jdbcTemplate.update("INSERT INTO USO_SERVICIOS_HORA (ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES) VALUES (?, ?, ?, ?)",
+                            clave.ciudadId(), clave.tipoServicio(), hora, calculado);
+                    } else if (calculado == 0) {
+                        jdbcTemplate.update("DELETE FROM USO_SERVICIOS_HORA WHERE ID_CIUDAD = ? AND TIPO_SERVICIO = ? AND HORA = ?",
+                            clave.ciudadId(), clave.tipoServicio(), hora);
+                    } else {
+                        jdbcTemplate.update("UPDATE USO_SERVICIOS_HORA SET NUM_VIAJES = ? WHERE ID_CIUDAD = ? AND TIPO_SERVICIO = ? AND HORA = ?",
+                            calculado, clave.ciudadId(), clave.tipoServicio(), hora);
+                    }
+                    return true;
+                }));
+            } catch (DuplicateKeyException e) {
+                // Otra transacción creó la fila: ahora sí se puede bloquear
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package uniandes.edu.co.proyecto.config;
+
+// Cuenta las sentencias SQL que el hilo actual envía por las conexiones del DataSource (Hibernate y
+// JdbcTemplate por igual), con el mismo contador de las métricas por petición, para las pruebas de
+// otros paquetes.
+public final class SentenciasPrueba {
+
+	public interface Accion<T> {
+		T ejecutar() throws Exception;
+	}
+
+	public record Medicion<T>(T resultado, long sentencias) {}
+
+	private SentenciasPrueba() {}
+
+	public static <T> Medicion<T> contar(Accion<T> accion) throws Exception {
+		MedicionPeticion.iniciar();
+		T resultado = accion.ejecutar();
+		return new Medicion<>(resultado, MedicionPeticion.terminar().sentencias());
+	}
+}
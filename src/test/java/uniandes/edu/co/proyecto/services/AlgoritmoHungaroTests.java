@@ -0,0 +1,73 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class AlgoritmoHungaroTests {
+
+	@Test
+	void coincideConFuerzaBrutaEnMatricesRectangulares() {
+		Random aleatorio = new Random(42);
+		for (int caso = 0; caso < 300; caso++) {
+			int filas = 1 + aleatorio.nextInt(6);
+			int columnas = 1 + aleatorio.nextInt(6);
+			double[][] costos = new double[filas][columnas];
+			for (int i = 0; i < filas; i++) {
+				for (int j = 0; j < columnas; j++) {
+					costos[i][j] = aleatorio.nextInt(100);
+				}
+			}
+
+			int[] asignacion = AlgoritmoHungaro.asignar(costos);
+			Set<Integer> usadas = new HashSet<>();
+			double total = 0;
+			int asignadas = 0;
+			for (int i = 0; i < filas; i++) {
+				if (asignacion[i] >= 0) {
+					assertEquals(true, usadas.add(asignacion[i]), "Columna asignada dos veces");
+					total += costos[i][asignacion[i]];
+					asignadas++;
+				}
+			}
+			assertEquals(Math.min(filas, columnas), asignadas);
+			assertEquals(minimo(costos, 0, new boolean[columnas], filas - Math.min(filas, columnas)), total, 1e-9);
+		}
+	}
+
+	@Test
+	void paresNoAsignablesQuedanSinAsignar() {
+		double N = AlgoritmoHungaro.NO_ASIGNABLE;
+		double[][] costos = {
+			{ 1, N },
+			{ N, N },
+			{ 2, 3 },
+		};
+		// La fila 1 no tiene ningún par posible; las otras dos se reparten las columnas
+		assertArrayEquals(new int[] { 0, -1, 1 }, AlgoritmoHungaro.asignar(costos));
+	}
+
+	// Costo mínimo asignando cada fila a una columna distinta; hasta "omitibles" filas pueden quedar sin columna
+	private static double minimo(double[][] costos, int fila, boolean[] usadas, int omitibles) {
+		if (fila == costos.length) {
+			return 0;
+		}
+		double mejor = Double.POSITIVE_INFINITY;
+		if (omitibles > 0) {
+			mejor = minimo(costos, fila + 1, usadas, omitibles - 1);
+		}
+		for (int j = 0; j < usadas.length; j++) {
+			if (!usadas[j]) {
+				usadas[j] = true;
+				mejor = Math.min(mejor, costos[fila][j] + minimo(costos, fila + 1, usadas, omitibles));
+				usadas[j] = false;
+			}
+		}
+		return mejor;
+	}
+}
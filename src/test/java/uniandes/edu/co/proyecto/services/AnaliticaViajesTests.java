@@ -0,0 +1,120 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import uniandes.edu.co.proyecto.controllers.DTO.GananciaConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.TopConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.UtilizacionServiciosDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Analítica en columnas: RFC2-RFC4 por rango sobre la instantánea, viajes nuevos por delta y viajes
+// que terminan después de entrar a la instantánea.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class AnaliticaViajesTests {
+
+	@Autowired private AnaliticaViajesService analiticaViajesService;
+	@Autowired private ImportacionViajesService importacionViajesService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private PuntoGeoRepository puntoRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private String viaje(String tipo, int costo, String inicio, String fin, String sufijo, Long puntoId) {
+		return String.format("{\"tipoServicio\":\"%s\",\"costoTotal\":%d,\"horaInicio\":\"%s\",\"horaFin\":%s," +
+			"\"cedulaCliente\":\"C%s\",\"cedulaConductor\":\"K%s\",\"placa\":\"A%s\",\"puntoPartidaId\":%d}\n",
+			tipo, costo, inicio, fin == null ? "null" : "\"" + fin + "\"", sufijo, sufijo, sufijo, puntoId);
+	}
+
+	private void importar(String sufijo, String ndjson) throws Exception {
+		importacionViajesService.importar("analitica-" + UUID.randomUUID(), "ndjson",
+			Channels.newChannel(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	void respondeRfc2Rfc3Rfc4PorRangoConDeltas() throws Exception {
+		String sufijo = DatosPrueba.sufijo();
+		String ciudad = "Ciudad " + sufijo;
+		CiudadEntity entidadCiudad = datos.ciudad(sufijo);
+		datos.cliente("C" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("K" + sufijo);
+		datos.vehiculo("A" + sufijo, "ESTANDAR", entidadCiudad, conductor);
+		Long puntoId = puntoRepository.save(new PuntoGeoEntity("Parque " + sufijo, "Calle 10", 4.7, -74.1, entidadCiudad)).getId();
+
+		importar(sufijo,
+			viaje("Transporte de pasajeros", 10000, "2021-06-01T08:00:00", "2021-06-01T08:30:00", sufijo, puntoId) +
+			viaje("Transporte de pasajeros", 20000, "2021-06-02T08:00:00", "2021-06-02T08:45:00", sufijo, puntoId) +
+			viaje("Entrega de comida", 5000, "2021-06-02T12:00:00", null, sufijo, puntoId) +
+			viaje("Transporte de pasajeros", 30000, "2021-07-01T08:00:00", "2021-07-01T09:00:00", sufijo, puntoId));
+		analiticaViajesService.reconstruir();
+
+		LocalDate desde = LocalDate.of(2021, 6, 1);
+		LocalDate hasta = LocalDate.of(2021, 6, 30);
+		List<TopConductorDTO> top = analiticaViajesService.topConductores(desde, hasta, ciudad, 5);
+		assertEquals(1, top.size());
+		assertEquals(conductor.getId(), top.get(0).getConductorId());
+		assertEquals(3L, top.get(0).getNumeroServicios());
+
+		List<UtilizacionServiciosDTO> uso = analiticaViajesService.usoServicios(ciudad, desde, hasta);
+		assertEquals(2, uso.size());
+		assertEquals("Transporte de pasajeros", uso.get(0).getTipoServicio());
+		assertEquals(2L, uso.get(0).getNumeroServicios());
+
+		// Solo los viajes terminados, al 60% para el conductor
+		List<GananciaConductorDTO> ganancias = analiticaViajesService.gananciasConductor(conductor.getId(), desde, hasta);
+		assertEquals(1, ganancias.size());
+		assertEquals("A" + sufijo, ganancias.get(0).getPlacaVehiculo());
+		assertEquals(18000.0, ganancias.get(0).getGananciasTotales(), 0.001);
+
+		// Delta: un viaje nuevo y el de comida que termina (RF9)
+		importar(sufijo, viaje("Entrega de comida", 8000, "2021-06-20T19:00:00", "2021-06-20T19:30:00", sufijo, puntoId));
+		jdbcTemplate.update("UPDATE VIAJE SET HORA_FIN = TIMESTAMP '2021-06-02 12:40:00', DURACION_MINUTOS = 40 " +
+			"WHERE ID_CONDUCTOR = ? AND HORA_FIN IS NULL", conductor.getId());
+		analiticaViajesService.actualizar();
+
+		assertEquals(4L, analiticaViajesService.topConductores(desde, hasta, ciudad, 5).get(0).getNumeroServicios());
+		assertEquals(2L, analiticaViajesService.usoServicios(ciudad, desde, hasta).stream()
+			.filter(u -> u.getTipoServicio().equals("Entrega de comida")).findFirst().get().getNumeroServicios());
+		ganancias = analiticaViajesService.gananciasConductor(conductor.getId(), desde, hasta);
+		assertEquals(2, ganancias.size());
+		assertEquals("Entrega de comida", ganancias.get(0).getTipoServicio());
+		assertEquals((5000 + 8000) * 0.6, ganancias.get(0).getGananciasTotales(), 0.001);
+		// Un segundo delta sin cambios no repite viajes
+		analiticaViajesService.actualizar();
+		assertEquals(4L, analiticaViajesService.topConductores(desde, hasta, null, 1000).stream()
+			.filter(t -> t.getConductorId().equals(conductor.getId())).findFirst().get().getNumeroServicios());
+
+		assertThrows(Exception.class, () -> analiticaViajesService.usoServicios("No existe " + sufijo, desde, hasta));
+	}
+
+	@Test
+	void sinInstantaneaRespondeNoDisponibleYLaConstruyeEnSegundoPlano() throws Exception {
+		Object anterior = ReflectionTestUtils.getField(analiticaViajesService, "actual");
+		ReflectionTestUtils.setField(analiticaViajesService, "actual", null);
+		ReflectionTestUtils.invokeMethod(AnaliticaViajesService.class, "descartar", anterior);
+
+		// La consulta no lee VIAJE en su hilo: responde de inmediato y la construcción sigue aparte
+		assertThrows(AnaliticaViajesService.InstantaneaNoDisponibleException.class, () -> analiticaViajesService.estado());
+		long limite = System.currentTimeMillis() + 10_000;
+		while (ReflectionTestUtils.getField(analiticaViajesService, "actual") == null && System.currentTimeMillis() < limite) {
+			Thread.sleep(50);
+		}
+		assertTrue(analiticaViajesService.estado().filas() >= 0);
+	}
+}
@@ -0,0 +1,96 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ArbolIntervalosTests {
+
+	private static LocalTime minuto(int m) {
+		return LocalTime.MIN.plusMinutes(m);
+	}
+
+	// Mismo criterio que findSuperposedDisponibilidad: inicio < d.fin AND fin > d.inicio
+	private static boolean chocan(ArbolIntervalos.Franja franja, LocalTime inicio, LocalTime fin) {
+		return inicio.isBefore(franja.fin()) && fin.isAfter(franja.inicio());
+	}
+
+	@Test
+	void coincideConFuerzaBrutaConFranjasDisjuntasYSuperpuestas() {
+		Random aleatorio = new Random(42);
+		for (int caso = 0; caso < 200; caso++) {
+			// La mitad de los casos respeta la validación de RF5; la otra mitad tiene datos superpuestos
+			boolean validar = caso % 2 == 0;
+			ArbolIntervalos arbol = new ArbolIntervalos();
+			List<ArbolIntervalos.Franja> franjas = new ArrayList<>();
+			for (long id = 1; id <= 40; id++) {
+				int inicio = aleatorio.nextInt(1380);
+				ArbolIntervalos.Franja franja = new ArbolIntervalos.Franja(id, minuto(inicio), minuto(inicio + 1 + aleatorio.nextInt(59)));
+				if (validar && franjas.stream().anyMatch(f -> chocan(f, franja.inicio(), franja.fin()))) {
+					continue;
+				}
+				franjas.add(franja);
+				arbol.agregar(franja);
+			}
+			if (aleatorio.nextBoolean() && !franjas.isEmpty()) {
+				franjas.remove(0);
+				arbol.quitar(1);
+			}
+
+			for (int consulta = 0; consulta < 50; consulta++) {
+				int inicio = aleatorio.nextInt(1400);
+				LocalTime desde = minuto(inicio);
+				LocalTime hasta = minuto(inicio + 1 + aleatorio.nextInt(39));
+				Long excluir = aleatorio.nextBoolean() || franjas.isEmpty() ? null : franjas.get(aleatorio.nextInt(franjas.size())).id();
+				boolean esperado = franjas.stream().anyMatch(f -> (excluir == null || f.id() != excluir) && chocan(f, desde, hasta));
+				ArbolIntervalos.Franja encontrada = arbol.primeraSuperpuesta(desde, hasta, excluir);
+				assertEquals(esperado, encontrada != null);
+				if (encontrada != null) {
+					assertEquals(true, chocan(encontrada, desde, hasta));
+				}
+			}
+
+			// Los huecos más las franjas cubren el día sin dejar minutos sueltos
+			boolean[] ocupado = new boolean[1440];
+			franjas.forEach(f -> {
+				for (int m = f.inicio().toSecondOfDay() / 60; m < f.fin().toSecondOfDay() / 60; m++) {
+					ocupado[m] = true;
+				}
+			});
+			boolean[] libre = new boolean[1440];
+			for (ArbolIntervalos.Hueco hueco : arbol.huecos(LocalTime.MIN, LocalTime.MAX, 0)) {
+				int fin = hueco.fin().equals(LocalTime.MAX) ? 1440 : hueco.fin().toSecondOfDay() / 60;
+				for (int m = hueco.inicio().toSecondOfDay() / 60; m < fin; m++) {
+					libre[m] = true;
+				}
+			}
+			for (int m = 0; m < 1440; m++) {
+				assertEquals(!ocupado[m], libre[m], "Minuto " + m);
+			}
+		}
+	}
+
+	@Test
+	void huecosRespetanElRangoYLaDuracionMinima() {
+		ArbolIntervalos arbol = new ArbolIntervalos();
+		arbol.agregar(new ArbolIntervalos.Franja(1, LocalTime.of(8, 0), LocalTime.of(10, 0)));
+		arbol.agregar(new ArbolIntervalos.Franja(2, LocalTime.of(10, 20), LocalTime.of(12, 0)));
+		arbol.agregar(new ArbolIntervalos.Franja(3, LocalTime.of(14, 0), LocalTime.of(15, 0)));
+
+		List<ArbolIntervalos.Hueco> huecos = arbol.huecos(LocalTime.of(9, 0), LocalTime.of(18, 0), 30);
+		assertEquals(List.of(
+			new ArbolIntervalos.Hueco(LocalTime.of(12, 0), LocalTime.of(14, 0)),
+			new ArbolIntervalos.Hueco(LocalTime.of(15, 0), LocalTime.of(18, 0))), huecos);
+
+		// Mover la franja 2 (RF6) libera el hueco de las 10:00
+		arbol.agregar(new ArbolIntervalos.Franja(2, LocalTime.of(11, 0), LocalTime.of(12, 0)));
+		assertNull(arbol.primeraSuperpuesta(LocalTime.of(10, 0), LocalTime.of(11, 0), null));
+		assertEquals(1L, arbol.primeraSuperpuesta(LocalTime.of(9, 30), LocalTime.of(10, 30), null).id());
+	}
+}
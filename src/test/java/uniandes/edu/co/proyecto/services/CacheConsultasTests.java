@@ -0,0 +1,111 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+import uniandes.edu.co.proyecto.controllers.DTO.HistoricoViajeDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.RevisionDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Caché de consultas: una sola carga para consultas iguales concurrentes, invalidación con RF10 y ETag/304.
+// MockMvc cambia el contexto de Spring, así que usa su propia base en memoria.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:alpescab-cache;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+@ActiveProfiles("pruebas")
+class CacheConsultasTests {
+
+	@Autowired private ConsultaService consultaService;
+	@Autowired private RegistroService registroService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+	@Autowired private MockMvc mockMvc;
+
+	private Long clienteId;
+	private Long viajeId;
+
+	@BeforeEach
+	void crearViaje() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.cliente("K" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("L" + sufijo);
+		VehiculoEntity vehiculo = datos.vehiculo("K" + sufijo, "ESTANDAR", ciudad, conductor);
+		PuntoGeoEntity punto = datos.punto("Punto " + sufijo, 4.60, -74.08, ciudad);
+		clienteId = cliente.getId();
+		viajeId = servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+			conductor, cliente, vehiculo, punto, List.of(punto))).getId();
+	}
+
+	@Test
+	void consultasConcurrentesIgualesCarganUnaSolaVez() throws Exception {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		int hilos = 16;
+		CountDownLatch salida = new CountDownLatch(1);
+		List<Future<List<HistoricoViajeDTO>>> resultados = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < hilos; i++) {
+				resultados.add(executor.submit(() -> {
+					salida.await();
+					return consultaService.consultarHistoricoPlano(clienteId);
+				}));
+			}
+			salida.countDown();
+			for (Future<List<HistoricoViajeDTO>> resultado : resultados) {
+				assertEquals(viajeId, resultado.get().get(0).getIdViaje());
+			}
+		}
+		// Validación del cliente y consulta plana de una sola carga
+		assertEquals(2, estadisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	void revisionInvalidaElHistoricoDelCliente() throws Exception {
+		assertNull(consultaService.consultarHistoricoPlano(clienteId).get(0).getCalificacion());
+
+		RevisionDTO revision = new RevisionDTO();
+		revision.setServicioId(viajeId);
+		revision.setCalificacion(5);
+		revision.setComentario("Muy bien");
+		registroService.registrarRevision(revision);
+
+		assertEquals(5, consultaService.consultarHistoricoPlano(clienteId).get(0).getCalificacion());
+	}
+
+	@Test
+	void respuestaSinCambiosDevuelve304() throws Exception {
+		String url = "/api/alpescab/consulta/historico/usuario/" + clienteId + "/plano";
+		String etag = mockMvc.perform(get(url))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get(url).header("If-None-Match", etag))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string("ETag", etag));
+	}
+}
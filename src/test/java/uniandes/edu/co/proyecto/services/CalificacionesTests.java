@@ -0,0 +1,118 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import uniandes.edu.co.proyecto.controllers.DTO.PerfilCalificacionDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.RevisionDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Calificaciones por usuario: RF10/RF11 suma cada revisión al agregado (BD y memoria), el ranking de
+// conductores se mantiene ordenado y la reconciliación corrige los agregados desde REVISION.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class CalificacionesTests {
+
+	@Autowired private CalificacionesService calificacionesService;
+	@Autowired private RegistroService registroService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private UsuarioServicioEntity cliente;
+	private UsuarioConductorEntity regular;
+	private UsuarioConductorEntity excelente;
+	private VehiculoEntity vehiculoRegular;
+	private VehiculoEntity vehiculoExcelente;
+	private PuntoGeoEntity punto;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		cliente = datos.cliente("Q" + sufijo);
+		regular = datos.conductor("R" + sufijo);
+		excelente = datos.conductor("E" + sufijo);
+		vehiculoRegular = datos.vehiculo("R" + sufijo, "ESTANDAR", ciudad, regular);
+		vehiculoExcelente = datos.vehiculo("E" + sufijo, "ESTANDAR", ciudad, excelente);
+		punto = datos.punto("Punto " + sufijo, 4.60, -74.08, ciudad);
+	}
+
+	private void calificar(UsuarioConductorEntity conductor, VehiculoEntity vehiculo, int calificacion) throws Exception {
+		Long viajeId = servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+			conductor, cliente, vehiculo, punto, List.of(punto))).getId();
+		RevisionDTO revision = new RevisionDTO();
+		revision.setServicioId(viajeId);
+		revision.setCalificacion(calificacion);
+		registroService.registrarRevision(revision);
+	}
+
+	private int posicion(List<PerfilCalificacionDTO> ranking, Long conductorId) {
+		for (int i = 0; i < ranking.size(); i++) {
+			if (ranking.get(i).getUsuarioId().equals(conductorId)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	void cadaRevisionActualizaElPerfilYElRanking() throws Exception {
+		calificar(regular, vehiculoRegular, 5);
+		calificar(regular, vehiculoRegular, 4);
+		calificar(regular, vehiculoRegular, 3);
+		calificar(excelente, vehiculoExcelente, 5);
+
+		PerfilCalificacionDTO perfil = calificacionesService.perfil(regular.getId());
+		assertEquals(4.0, perfil.getPromedio(), 1e-9);
+		assertEquals(3L, perfil.getNumeroRevisiones());
+		assertEquals(List.of(0L, 0L, 0L, 1L, 1L, 1L), perfil.getHistograma());
+		assertEquals(4.0, calificacionesService.promedio(regular.getId()), 1e-9);
+		assertEquals(0.5, calificacionesService.penalizacionKm(regular.getId()), 1e-9);
+		assertEquals(0.0, calificacionesService.penalizacionKm(cliente.getId()));
+		assertNull(calificacionesService.perfil(cliente.getId()).getPromedio());
+
+		List<PerfilCalificacionDTO> todos = calificacionesService.mejoresConductores(Integer.MAX_VALUE, 1);
+		assertTrue(posicion(todos, excelente.getId()) >= 0);
+		assertTrue(posicion(todos, excelente.getId()) < posicion(todos, regular.getId()));
+		// Con un mínimo de revisiones, el conductor con una sola revisión no entra
+		assertEquals(-1, posicion(calificacionesService.mejoresConductores(Integer.MAX_VALUE, 2), excelente.getId()));
+
+		assertEquals(12L, jdbcTemplate.queryForObject(
+			"SELECT SUMA FROM CALIFICACIONES_USUARIO WHERE ID_USUARIO = ?", Long.class, regular.getId()));
+	}
+
+	@Test
+	void unaRevisionRechazadaNoSumaYLaReconciliacionCorrigeLosAgregados() throws Exception {
+		calificar(regular, vehiculoRegular, 2);
+		assertThrows(Exception.class, () -> calificar(regular, vehiculoRegular, 7));
+		assertEquals(1L, calificacionesService.perfil(regular.getId()).getNumeroRevisiones());
+
+		// Agregado perdido en la BD y desactualizado en otro usuario
+		jdbcTemplate.update("DELETE FROM CALIFICACIONES_USUARIO WHERE ID_USUARIO = ?", regular.getId());
+		calificar(excelente, vehiculoExcelente, 5);
+		jdbcTemplate.update("UPDATE CALIFICACIONES_USUARIO SET SUMA = 0, NUM_REVISIONES = 9, ESTRELLAS_5 = 9 WHERE ID_USUARIO = ?", excelente.getId());
+
+		calificacionesService.reconciliar();
+
+		assertEquals(2L, jdbcTemplate.queryForObject(
+			"SELECT SUMA FROM CALIFICACIONES_USUARIO WHERE ID_USUARIO = ?", Long.class, regular.getId()));
+		assertEquals(1L, jdbcTemplate.queryForObject(
+			"SELECT NUM_REVISIONES FROM CALIFICACIONES_USUARIO WHERE ID_USUARIO = ?", Long.class, excelente.getId()));
+		assertEquals(5.0, calificacionesService.promedio(excelente.getId()), 1e-9);
+		assertEquals(2.0, calificacionesService.promedio(regular.getId()), 1e-9);
+	}
+}
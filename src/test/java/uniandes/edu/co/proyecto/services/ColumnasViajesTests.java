@@ -0,0 +1,74 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class ColumnasViajesTests {
+
+	@Test
+	void elRecorridoParaleloCoincideConElSecuencial() throws Exception {
+		Path archivo = Files.createTempFile("columnas", ".col");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try (ColumnasViajes columnas = ColumnasViajes.crear(archivo, 300_000)) {
+			// Suficientes filas para que el recorrido se divida en varias tareas
+			Random aleatorio = new Random(7);
+			long[] esperado = new long[5];
+			for (int i = 0; i < 250_000; i++) {
+				int tipo = aleatorio.nextInt(5);
+				int fila = columnas.agregar(aleatorio.nextInt(100), i, 1 + aleatorio.nextInt(3), tipo, 1_600_000_000L + i, -1, Double.NaN, 1000);
+				if (i % 3 == 0) {
+					columnas.terminar(fila, 20, 4.5, 2000);
+				}
+				if (columnas.ciudad(fila) == 2) {
+					esperado[tipo]++;
+				}
+			}
+			assertEquals(250_000, columnas.filas());
+
+			long[] conteo = columnas.recorrer(pool, () -> new long[5], (parcial, fila) -> {
+				if (columnas.ciudad(fila) == 2) {
+					parcial[columnas.tipo(fila)]++;
+				}
+			}, (a, b) -> {
+				for (int i = 0; i < a.length; i++) {
+					a[i] += b[i];
+				}
+				return a;
+			});
+			assertArrayEquals(esperado, conteo);
+
+			double costos = columnas.recorrer(pool, () -> new double[1], (suma, fila) -> suma[0] += columnas.costo(fila),
+				(a, b) -> { a[0] += b[0]; return a; })[0];
+			// Un tercio de las filas terminó con costo 2000; el resto sigue en 1000
+			assertEquals(83_334 * 2000.0 + 166_666 * 1000.0, costos, 0.001);
+			assertEquals(20, columnas.duracion(0));
+			assertEquals(-1, columnas.duracion(1));
+			assertTrue(Double.isNaN(columnas.distancia(1)));
+		} finally {
+			pool.shutdown();
+			Files.delete(archivo);
+		}
+	}
+
+	@Test
+	void noAgregaMasDeSuCapacidad() throws Exception {
+		Path archivo = Files.createTempFile("columnas", ".col");
+		try (ColumnasViajes columnas = ColumnasViajes.crear(archivo, 2)) {
+			columnas.agregar(1, 1, 1, 0, 0, 10, 1.0, 100);
+			columnas.agregar(2, 2, 1, 0, 0, 10, 1.0, 100);
+			assertTrue(columnas.llena());
+			assertThrows(IllegalStateException.class, () -> columnas.agregar(3, 3, 1, 0, 0, 10, 1.0, 100));
+		} finally {
+			Files.delete(archivo);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package uniandes.edu.co.proyecto.services;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Datos compartidos por las pruebas: cada prueba crea su ciudad, usuarios, vehículos y puntos con un
+// sufijo aleatorio, así que no chocan con los de otras pruebas en la misma base en memoria. Los nombres
+// y correos se derivan de la cédula o la placa, que cada prueba elige.
+@Component
+public class DatosPrueba {
+
+	@Autowired private CiudadRepository ciudadRepository;
+	@Autowired private UsuarioRepository usuarioRepository;
+	@Autowired private VehiculoRepository vehiculoRepository;
+	@Autowired private PuntoGeoRepository puntoGeoRepository;
+	@Autowired private MediosPagoRepository mediosPagoRepository;
+
+	public static String sufijo() {
+		return UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	public CiudadEntity ciudad(String sufijo) {
+		return ciudadRepository.save(new CiudadEntity("Ciudad " + sufijo));
+	}
+
+	public UsuarioServicioEntity cliente(String cedula) {
+		return usuarioRepository.save(new UsuarioServicioEntity(
+			"Cliente " + cedula, "cliente." + cedula + "@email.com", "3000000000", cedula));
+	}
+
+	public UsuarioServicioEntity clienteConMedioDePago(String cedula) {
+		UsuarioServicioEntity cliente = cliente(cedula);
+		mediosPagoRepository.save(new MediosPagoEntity("4111111111111111", "CLIENTE", new Date(), "123", "Crédito", cliente));
+		return cliente;
+	}
+
+	public UsuarioConductorEntity conductor(String cedula) {
+		return usuarioRepository.save(new UsuarioConductorEntity(
+			"Conductor " + cedula, "conductor." + cedula + "@email.com", "3100000000", cedula));
+	}
+
+	public VehiculoEntity vehiculo(String placa, String nivel, CiudadEntity ciudad, UsuarioConductorEntity conductor) {
+		return vehiculoRepository.save(new VehiculoEntity("CARRO", "Renault", "Logan", "Gris", placa, 4, nivel, ciudad, conductor));
+	}
+
+	public PuntoGeoEntity punto(String direccion, double latitud, double longitud, CiudadEntity ciudad) {
+		return puntoGeoRepository.save(new PuntoGeoEntity(null, direccion, latitud, longitud, ciudad));
+	}
+}
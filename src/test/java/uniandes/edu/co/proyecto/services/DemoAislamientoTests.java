@@ -0,0 +1,86 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Isolation;
+
+import uniandes.edu.co.proyecto.controllers.DTO.ComparacionLecturasDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class DemoAislamientoTests {
+
+	@Autowired private DemoAislamientoService demoAislamiento;
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private DatosPrueba datos;
+
+	private SolicitudServicioDTO solicitud;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.clienteConMedioDePago("A" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("B" + sufijo);
+		datos.vehiculo("A" + sufijo, "ESTANDAR", ciudad, conductor);
+		indiceConductores.reconstruir();
+
+		solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(cliente.getId());
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(datos.punto("Origen " + sufijo, 4.62, -74.06, ciudad).getId());
+		solicitud.setPuntosLlegadaIds(List.of(datos.punto("Destino " + sufijo, 4.63, -74.06, ciudad).getId()));
+	}
+
+	@Test
+	void readCommittedVeViajesConfirmadosEntreLecturas() throws Exception {
+		CompletableFuture<ComparacionLecturasDTO> prueba =
+			demoAislamiento.compararLecturas(solicitud.getClienteId(), Isolation.READ_COMMITTED, 3);
+		TimeUnit.SECONDS.sleep(1); // La primera lectura ya ocurrió; la transacción está en la espera
+		ServicioEntity nuevo = servicioTransaccionalService.solicitarServicio(solicitud);
+		try {
+			ComparacionLecturasDTO comparacion = prueba.get(20, TimeUnit.SECONDS);
+			assertEquals(0, comparacion.getViajesPrimeraLectura());
+			assertEquals(List.of(nuevo.getId()), comparacion.getViajesNuevos());
+			assertTrue(comparacion.getViajesModificados().isEmpty());
+		} finally {
+			servicioTransaccionalService.finalizarServicio(nuevo.getId(), 1.0);
+		}
+	}
+
+	@Test
+	void rechazaPruebasPorEncimaDelCupoDeConexiones() throws Exception {
+		Long clienteId = solicitud.getClienteId();
+		CompletableFuture<ComparacionLecturasDTO> primera = demoAislamiento.compararLecturas(clienteId, Isolation.SERIALIZABLE, 2);
+		CompletableFuture<ComparacionLecturasDTO> segunda = demoAislamiento.compararLecturas(clienteId, Isolation.SERIALIZABLE, 2);
+		CompletableFuture<ComparacionLecturasDTO> rechazada = demoAislamiento.compararLecturas(clienteId, Isolation.SERIALIZABLE, 2);
+
+		ExecutionException error = assertThrows(ExecutionException.class, () -> rechazada.get(1, TimeUnit.SECONDS));
+		assertInstanceOf(DemoAislamientoService.CupoAgotadoException.class, error.getCause());
+		// Otro nivel de aislamiento tiene su propio cupo
+		assertTrue(demoAislamiento.compararLecturas(clienteId, Isolation.READ_COMMITTED, 0).get(10, TimeUnit.SECONDS).isLecturasIguales());
+
+		assertTrue(primera.get(20, TimeUnit.SECONDS).isLecturasIguales());
+		assertTrue(segunda.get(20, TimeUnit.SECONDS).isLecturasIguales());
+		// Al terminar, el cupo se libera
+		assertEquals(0, demoAislamiento.compararLecturas(clienteId, Isolation.SERIALIZABLE, 0).get(10, TimeUnit.SECONDS).getViajesSegundaLectura());
+	}
+}
@@ -0,0 +1,77 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.entities.*;
+
+// RF8 en modo por lotes: la asignación global minimiza la distancia total de recogida, donde el
+// orden de llegada habría elegido peor. Usa su propia base en memoria.
+@SpringBootTest(properties = {
+	"alpescab.despacho.modo=lotes",
+	"spring.datasource.url=jdbc:h2:mem:alpescab-lotes;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+})
+@ActiveProfiles("pruebas")
+class DespachoPorLotesTests {
+
+	@Autowired private DespachoPorLotesService despachoPorLotes;
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private IndiceEspacialService indiceEspacial;
+	@Autowired private DatosPrueba datos;
+
+	@Test
+	void loteMinimizaDistanciaTotalDeRecogida() throws Exception {
+		assertTrue(despachoPorLotes.estaActivo());
+		CiudadEntity ciudad = datos.ciudad("lotes");
+		UsuarioServicioEntity cliente = datos.clienteConMedioDePago("CL1");
+
+		// Conductores sobre la misma latitud: A en 0.00 y B en 0.02 grados de longitud
+		PuntoGeoEntity ubicacionA = punto("A", 0.000, ciudad);
+		PuntoGeoEntity ubicacionB = punto("B", 0.020, ciudad);
+		Long conductorA = conductor("A", ciudad);
+		Long conductorB = conductor("B", ciudad);
+		indiceConductores.reconstruir();
+		indiceEspacial.reconstruir();
+		indiceEspacial.actualizarConductorAlConfirmar(conductorA, ubicacionA);
+		indiceEspacial.actualizarConductorAlConfirmar(conductorB, ubicacionB);
+
+		// La primera solicitud está un poco más cerca de A; atendida en orden de llegada tomaría a A
+		// y dejaría a la segunda (junto a A) con B. La asignación global cruza los pares.
+		PuntoGeoEntity llegada = punto("Llegada", 0.050, ciudad);
+		CompletableFuture<ServicioEntity> primera = despachoPorLotes.encolar(solicitud(cliente, punto("R1", 0.009, ciudad), llegada));
+		CompletableFuture<ServicioEntity> segunda = despachoPorLotes.encolar(solicitud(cliente, punto("R2", 0.001, ciudad), llegada));
+
+		assertEquals(conductorB, primera.get(10, TimeUnit.SECONDS).getConductor().getId());
+		assertEquals(conductorA, segunda.get(10, TimeUnit.SECONDS).getConductor().getId());
+	}
+
+	private PuntoGeoEntity punto(String nombre, double desplazamientoLongitud, CiudadEntity ciudad) {
+		return datos.punto("Punto " + nombre, 4.60, -74.08 + desplazamientoLongitud, ciudad);
+	}
+
+	private Long conductor(String nombre, CiudadEntity ciudad) {
+		UsuarioConductorEntity conductor = datos.conductor("DL" + nombre);
+		datos.vehiculo("L" + nombre, "ESTANDAR", ciudad, conductor);
+		return conductor.getId();
+	}
+
+	private SolicitudServicioDTO solicitud(UsuarioServicioEntity cliente, PuntoGeoEntity partida, PuntoGeoEntity llegada) {
+		SolicitudServicioDTO solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(cliente.getId());
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(partida.getId());
+		solicitud.setPuntosLlegadaIds(List.of(llegada.getId()));
+		solicitud.setCostoEstimado(10000.0);
+		return solicitud;
+	}
+}
@@ -0,0 +1,212 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.DisponibilidadDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.DisponibilidadSemanaDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RF5/RF6 con el índice de franjas: superposición, lote semanal todo o nada, franjas libres y
+// registros concurrentes sobre el mismo vehículo, franjas escritas fuera de este nodo y franjas sin confirmar.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class DisponibilidadTests {
+
+	@Autowired private RegistroService registroService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private DisponibilidadRepository disponibilidadRepository;
+	@Autowired private VehiculoRepository vehiculoRepository;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	private Long vehiculoId;
+
+	@BeforeEach
+	void crearVehiculo() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("F" + sufijo);
+		vehiculoId = datos.vehiculo("F" + sufijo, "ESTANDAR", ciudad, conductor).getId();
+	}
+
+	private DisponibilidadDTO franja(String dia, String inicio, String fin) {
+		DisponibilidadDTO dto = new DisponibilidadDTO();
+		dto.setVehiculoId(vehiculoId);
+		dto.setDiaSemana(dia);
+		dto.setHoraInicio(inicio);
+		dto.setHoraFin(fin);
+		dto.setTipoServicio("Transporte de pasajeros");
+		return dto;
+	}
+
+	private long franjasDelVehiculo() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM DISPONIBILIDADES WHERE ID_VEHICULO = ?", Long.class, vehiculoId);
+	}
+
+	@Test
+	void rf5Rf6RechazanSuperposiciones() throws Exception {
+		DisponibilidadEntity manana = registroService.registrarDisponibilidad(franja("MONDAY", "08:00", "10:00"));
+		registroService.registrarDisponibilidad(franja("MONDAY", "10:00", "12:00"));
+		registroService.registrarDisponibilidad(franja("TUESDAY", "09:00", "11:00"));
+
+		Exception error = assertThrows(Exception.class,
+			() -> registroService.registrarDisponibilidad(franja("MONDAY", "09:30", "10:30")));
+		assertTrue(error.getMessage().contains("se superpone"));
+		assertThrows(Exception.class, () -> registroService.registrarDisponibilidad(franja("MONDAY", "11:00", "09:00")));
+
+		// RF6: la franja puede moverse sobre sí misma, pero no sobre la de las 10:00
+		registroService.modificarDisponibilidad(manana.getId(), "07:00", "09:00");
+		assertThrows(Exception.class, () -> registroService.modificarDisponibilidad(manana.getId(), "09:00", "10:30"));
+		registroService.registrarDisponibilidad(franja("MONDAY", "09:00", "10:00"));
+		assertEquals(4, franjasDelVehiculo());
+	}
+
+	@Test
+	void loteSemanalSeGuardaCompletoONoSeGuarda() throws Exception {
+		registroService.registrarDisponibilidad(franja("WEDNESDAY", "06:00", "08:00"));
+
+		DisponibilidadSemanaDTO semana = new DisponibilidadSemanaDTO();
+		semana.setVehiculoId(vehiculoId);
+		semana.setTipoServicio("Entrega de comida");
+		List<DisponibilidadDTO> franjas = new ArrayList<>();
+		for (String dia : List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY")) {
+			franjas.add(franja(dia, "08:00", "12:00"));
+			franjas.add(franja(dia, "14:00", "18:00"));
+		}
+		franjas.add(franja("FRIDAY", "17:00", "19:00"));    // 10: choca con la franja 9 del lote
+		franjas.add(franja("WEDNESDAY", "07:00", "08:00")); // 11: choca con la registrada
+		franjas.add(franja("DOMINGO", "08:00", "09:00"));   // 12: día inválido
+		semana.setFranjas(franjas);
+
+		Exception error = assertThrows(Exception.class, () -> registroService.registrarDisponibilidadSemana(semana));
+		assertTrue(error.getMessage().startsWith("RF5 Fallido: 3 franja(s)"), error.getMessage());
+		assertTrue(error.getMessage().contains("franja 10: Se superpone con la franja 9 del lote."));
+		assertTrue(error.getMessage().contains("franja 11: "));
+		assertTrue(error.getMessage().contains("franja 12: "));
+		assertEquals(1, franjasDelVehiculo());
+
+		franjas.subList(10, 13).clear();
+		franjas.forEach(f -> f.setTipoServicio(null));
+		List<DisponibilidadEntity> guardadas = registroService.registrarDisponibilidadSemana(semana);
+		assertEquals(10, guardadas.size());
+		assertEquals("Entrega de comida", guardadas.get(0).getTipoServicio());
+		assertEquals(11, franjasDelVehiculo());
+		assertThrows(Exception.class, () -> registroService.registrarDisponibilidad(franja("FRIDAY", "17:00", "19:00")));
+	}
+
+	@Test
+	void franjasLibresDescuentanLasRegistradas() throws Exception {
+		registroService.registrarDisponibilidad(franja("SATURDAY", "08:00", "10:00"));
+		registroService.registrarDisponibilidad(franja("SATURDAY", "10:15", "12:00"));
+
+		List<DisponibilidadDTO> libres = registroService.consultarFranjasLibres(vehiculoId, "SATURDAY", "07:00", "13:00", 30);
+		assertEquals(2, libres.size());
+		assertEquals("07:00", libres.get(0).getHoraInicio());
+		assertEquals("08:00", libres.get(0).getHoraFin());
+		assertEquals("12:00", libres.get(1).getHoraInicio());
+		assertEquals("13:00", libres.get(1).getHoraFin());
+
+		// Sin rango: hasta el final del día, los 7 días
+		List<DisponibilidadDTO> semana = registroService.consultarFranjasLibres(vehiculoId, null, null, null, 30);
+		assertEquals(8, semana.size());
+		assertEquals("23:59", semana.get(semana.size() - 1).getHoraFin());
+	}
+
+	@Test
+	void registrosConcurrentesDelMismoVehiculoNoSeSuperponen() throws Exception {
+		int hilos = 8;
+		CountDownLatch salida = new CountDownLatch(1);
+		List<Future<Boolean>> resultados = new ArrayList<>();
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			for (int i = 0; i < hilos; i++) {
+				String inicio = String.format("%02d:00", 8 + i % 2);
+				resultados.add(ejecutor.submit(() -> {
+					salida.await();
+					try {
+						registroService.registrarDisponibilidad(franja("SUNDAY", inicio, "10:00"));
+						return true;
+					} catch (Exception e) {
+						return false;
+					}
+				}));
+			}
+			salida.countDown();
+			int exitos = 0;
+			for (Future<Boolean> resultado : resultados) {
+				exitos += resultado.get() ? 1 : 0;
+			}
+			assertEquals(1, exitos);
+			assertEquals(1, franjasDelVehiculo());
+		} finally {
+			ejecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	void lasFranjasEscritasPorOtroNodoSeVerificanAlRegistrar() throws Exception {
+		// La consulta deja la agenda del vehículo en memoria
+		assertEquals(1, registroService.consultarFranjasLibres(vehiculoId, "MONDAY", "08:00", "14:00", 30).size());
+
+		// Otro nodo registra una franja: este no se entera, pero RF5 la ve al recargar con la fila bloqueada
+		disponibilidadRepository.save(new DisponibilidadEntity(DayOfWeek.MONDAY, LocalTime.of(8, 0), LocalTime.of(10, 0),
+			"Transporte de pasajeros", vehiculoRepository.findById(vehiculoId).orElseThrow()));
+		Exception error = assertThrows(Exception.class,
+			() -> registroService.registrarDisponibilidad(franja("MONDAY", "09:00", "11:00")));
+		assertTrue(error.getMessage().contains("se superpone"));
+
+		// El RF5 confirmado de este nodo descarta la agenda: la consulta ve las dos franjas
+		registroService.registrarDisponibilidad(franja("MONDAY", "12:00", "13:00"));
+		List<DisponibilidadDTO> libres = registroService.consultarFranjasLibres(vehiculoId, "MONDAY", "08:00", "14:00", 30);
+		assertEquals(2, libres.size());
+		assertEquals("10:00", libres.get(0).getHoraInicio());
+		assertEquals("13:00", libres.get(1).getHoraInicio());
+	}
+
+	@Test
+	void lasConsultasNoVenFranjasSinConfirmar() throws Exception {
+		ExecutorService consulta = Executors.newSingleThreadExecutor();
+		try {
+			transactionTemplate.executeWithoutResult(estado -> {
+				try {
+					registroService.registrarDisponibilidad(franja("THURSDAY", "08:00", "10:00"));
+					registroService.registrarDisponibilidad(franja("THURSDAY", "10:00", "12:00"));
+					// Otro hilo consulta mientras la transacción sigue abierta
+					List<DisponibilidadDTO> libres = consulta.submit(
+						() -> registroService.consultarFranjasLibres(vehiculoId, "THURSDAY", "07:00", "13:00", 30)).get();
+					assertEquals(1, libres.size());
+					assertEquals("07:00", libres.get(0).getHoraInicio());
+					assertEquals("13:00", libres.get(0).getHoraFin());
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+				estado.setRollbackOnly();
+			});
+		} finally {
+			consulta.shutdown();
+		}
+		assertEquals(0, franjasDelVehiculo());
+		assertEquals(1, registroService.consultarFranjasLibres(vehiculoId, "THURSDAY", "07:00", "13:00", 30).size());
+		registroService.registrarDisponibilidad(franja("THURSDAY", "09:00", "11:00"));
+	}
+}
@@ -0,0 +1,71 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import uniandes.edu.co.proyecto.controllers.DTO.CotizacionDTO;
+
+class EstimadorTarifaTests {
+
+	private final EstimadorTarifaService estimador = new EstimadorTarifaService(1000);
+
+	private final long[] ids = { 1, 2, 3, 4 };
+	private final double[] latitudes = { 4.6097, 4.6486, 4.6768, 4.7110 };
+	private final double[] longitudes = { -74.0817, -74.0628, -74.0483, -74.0721 };
+
+	@Test
+	void distanciaDeLaRutaEsLaSumaDeLosTramos() {
+		double esperada = 0;
+		for (int i = 0; i + 1 < ids.length; i++) {
+			esperada += CalculoGeografico.haversineKm(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+		}
+		assertEquals(esperada, estimador.distanciaRutaKm(ids, latitudes, longitudes), 1e-9);
+		// Segunda vez, todos los tramos salen de la caché
+		assertEquals(esperada, estimador.distanciaRutaKm(ids, latitudes, longitudes), 1e-9);
+	}
+
+	@Test
+	void otroOrdenDeParadasReutilizaTramosEnCache() {
+		double directa = estimador.distanciaRutaKm(ids, latitudes, longitudes);
+		long[] inversa = { 4, 3, 2, 1 };
+		double[] latInversa = { latitudes[3], latitudes[2], latitudes[1], latitudes[0] };
+		double[] lonInversa = { longitudes[3], longitudes[2], longitudes[1], longitudes[0] };
+		assertEquals(directa, estimador.distanciaRutaKm(inversa, latInversa, lonInversa), 1e-9);
+	}
+
+	@Test
+	void tarifaDependeDelTipoYNivel() {
+		CotizacionDTO estandar = estimador.cotizar("Transporte de pasajeros", "ESTANDAR", ids, latitudes, longitudes);
+		CotizacionDTO confort = estimador.cotizar("Transporte de pasajeros", "Confort", ids, latitudes, longitudes);
+		CotizacionDTO mercancias = estimador.cotizar("Transporte de mercancías", null, ids, latitudes, longitudes);
+
+		double km = estandar.getDistanciaKm();
+		assertEquals(Math.ceil((4000 + 1500 * km) / 100) * 100, estandar.getCostoEstimado(), 1e-9);
+		assertEquals(Math.ceil((5500 + 2100 * km) / 100) * 100, confort.getCostoEstimado(), 1e-9);
+		assertEquals(Math.ceil((8000 + 2500 * km) / 100) * 100, mercancias.getCostoEstimado(), 1e-9);
+		assertEquals(estandar.getTarifaPorKm(), EstimadorTarifaService.tarifa("Transporte de pasajeros", "Estándar").porKm());
+	}
+
+	@Test
+	void nivelComfortDeLosVehiculosTieneSuTarifa() {
+		// VEHICULOS.NIVEL usa COMFORT (ver sql/Proyecto1.sql); "Confort" es la misma tarifa
+		EstimadorTarifaService.Tarifa comfort = EstimadorTarifaService.tarifa("Transporte de pasajeros", "COMFORT");
+		assertEquals(new EstimadorTarifaService.Tarifa(5500, 2100), comfort);
+		assertEquals(comfort, EstimadorTarifaService.tarifa("Transporte de pasajeros", "Confort"));
+	}
+
+	@Test
+	void nivelOTipoDesconocidoSeRechaza() {
+		assertThrows(IllegalArgumentException.class, () -> EstimadorTarifaService.tarifa("Transporte de pasajeros", "PREMIUM"));
+		assertThrows(IllegalArgumentException.class, () -> EstimadorTarifaService.tarifa("Mudanzas", null));
+	}
+
+	@Test
+	void trayectosCortosPaganLaTarifaMinima() {
+		CotizacionDTO corta = estimador.cotizar("Entrega de comida", null,
+			new long[] { 10, 11 }, new double[] { 4.60, 4.601 }, new double[] { -74.08, -74.08 });
+		assertEquals(EstimadorTarifaService.TARIFA_MINIMA, corta.getCostoEstimado(), 1e-9);
+	}
+}
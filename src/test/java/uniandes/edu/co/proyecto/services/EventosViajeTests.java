@@ -0,0 +1,213 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.RevisionDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Bandeja de eventos de los viajes: RF10 escribe su evento solo si confirma, el relay entrega en orden
+// de ID, reintenta el lote de un consumidor que falla, guarda su posición y espera por los huecos; un
+// evento que confirma después de vencido su hueco se entrega tarde.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class EventosViajeTests {
+
+	@Autowired private RelayEventosService relay;
+	@Autowired private RegistroService registroService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private PlatformTransactionManager transactionManager;
+
+	private UsuarioServicioEntity cliente;
+	private UsuarioConductorEntity conductor;
+	private VehiculoEntity vehiculo;
+	private PuntoGeoEntity punto;
+	private Consumidor consumidor;
+
+	// Guarda las revisiones de los viajes de la prueba; falla las primeras "fallas" entregas
+	private static class Consumidor implements ConsumidorEventosViaje {
+		private final String nombre;
+		private final List<Long> viajes;
+		private final List<EventosViajeService.EventoViaje> recibidos = new ArrayList<>();
+		private int fallas;
+		private boolean enMemoria;
+
+		Consumidor(String nombre, List<Long> viajes) {
+			this.nombre = nombre;
+			this.viajes = viajes;
+		}
+
+		@Override
+		public String nombre() {
+			return nombre;
+		}
+
+		@Override
+		public void consumir(List<EventosViajeService.EventoViaje> eventos) {
+			if (fallas > 0) {
+				fallas--;
+				throw new IllegalStateException("Falla simulada");
+			}
+			eventos.stream().filter(e -> viajes.contains(e.viajeId())).forEach(recibidos::add);
+		}
+
+		@Override
+		public boolean guardaPosicion() {
+			return !enMemoria;
+		}
+	}
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		cliente = datos.cliente("V" + sufijo);
+		conductor = datos.conductor("W" + sufijo);
+		vehiculo = datos.vehiculo("V" + sufijo, "ESTANDAR", ciudad, conductor);
+		punto = datos.punto("Punto " + sufijo, 4.60, -74.08, ciudad);
+		consumidor = new Consumidor("pruebas-" + sufijo, new ArrayList<>());
+		relay.suscribir(consumidor);
+	}
+
+	@AfterEach
+	void restaurarEspera() {
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 10000L);
+	}
+
+	private Long calificar(int calificacion) throws Exception {
+		Long viajeId = servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+			conductor, cliente, vehiculo, punto, List.of(punto))).getId();
+		consumidor.viajes.add(viajeId);
+		RevisionDTO revision = new RevisionDTO();
+		revision.setServicioId(viajeId);
+		revision.setCalificacion(calificacion);
+		registroService.registrarRevision(revision);
+		return viajeId;
+	}
+
+	@Test
+	void entregaEnOrdenYReintentaElLoteQueFalla() throws Exception {
+		Long primero = calificar(5);
+		assertThrows(Exception.class, () -> calificar(9)); // Rechazada: sin evento
+		Long tercero = calificar(3);
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 0L); // Otras pruebas pueden dejar huecos
+
+		consumidor.fallas = 1;
+		relay.entregar();
+		assertTrue(consumidor.recibidos.isEmpty());
+
+		relay.entregar();
+		assertEquals(List.of(primero, tercero), consumidor.recibidos.stream().map(EventosViajeService.EventoViaje::viajeId).toList());
+		EventosViajeService.EventoViaje evento = consumidor.recibidos.get(0);
+		assertEquals(EventoViajeEntity.REVISION_REGISTRADA, evento.tipo());
+		assertEquals(5, evento.datos().get("calificacion").asInt());
+		assertEquals(conductor.getId(), evento.datos().get("revisadoId").asLong());
+		assertTrue(consumidor.recibidos.get(0).id() < consumidor.recibidos.get(1).id());
+
+		// La posición guardada es la del último evento entregado; una nueva suscripción la retoma
+		Long guardada = jdbcTemplate.queryForObject(
+			"SELECT POSICION FROM CONSUMIDORES_EVENTOS WHERE NOMBRE = ?", Long.class, consumidor.nombre());
+		assertEquals(relay.posicion(consumidor.nombre()), guardada);
+		assertTrue(guardada >= consumidor.recibidos.get(1).id());
+		relay.suscribir(consumidor);
+		relay.entregar();
+		assertEquals(2, consumidor.recibidos.size());
+	}
+
+	@Test
+	void unHuecoRecienteDetieneLaEntregaHastaQueVence() throws Exception {
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 0L);
+		relay.entregar();
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 10000L);
+
+		// Un ID de la bandeja que se consume en una transacción revertida
+		new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+			jdbcTemplate.update("INSERT INTO EVENTOS_VIAJE (TIPO, ID_VIAJE, DATOS, CREADO) VALUES (?, ?, ?, ?)",
+				EventoViajeEntity.VIAJE_SOLICITADO, 0L, "{}", new Timestamp(System.currentTimeMillis()));
+			estado.setRollbackOnly();
+		});
+		Long viajeId = calificar(4);
+
+		relay.entregar();
+		assertTrue(consumidor.recibidos.isEmpty());
+
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 0L);
+		relay.entregar();
+		assertEquals(List.of(viajeId), consumidor.recibidos.stream().map(EventosViajeService.EventoViaje::viajeId).toList());
+	}
+
+	@Test
+	void unEventoQueConfirmaDespuesDeVencerSuHuecoSeEntregaTarde() throws Exception {
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 0L);
+		relay.entregar();
+
+		// Un RF8 que escribió su evento pero aún no confirma
+		Long tardio = System.nanoTime();
+		consumidor.viajes.add(tardio);
+		CountDownLatch escrito = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		CompletableFuture<Void> transaccion = CompletableFuture.runAsync(() ->
+			new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+				jdbcTemplate.update("INSERT INTO EVENTOS_VIAJE (TIPO, ID_VIAJE, DATOS, CREADO) VALUES (?, ?, ?, ?)",
+					EventoViajeEntity.VIAJE_SOLICITADO, tardio, "{}", new Timestamp(System.currentTimeMillis()));
+				escrito.countDown();
+				try {
+					confirmar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+		escrito.await();
+		Long viajeId = calificar(4);
+
+		relay.entregar();
+		assertEquals(List.of(viajeId), consumidor.recibidos.stream().map(EventosViajeService.EventoViaje::viajeId).toList());
+		assertEquals(1, relay.saltados(consumidor.nombre()));
+
+		confirmar.countDown();
+		transaccion.get();
+		relay.entregar();
+		assertEquals(List.of(viajeId, tardio), consumidor.recibidos.stream().map(EventosViajeService.EventoViaje::viajeId).toList());
+		assertEquals(0, relay.saltados(consumidor.nombre()));
+	}
+
+	@Test
+	void unConsumidorEnMemoriaNoGuardaSuPosicion() throws Exception {
+		Consumidor enMemoria = new Consumidor(consumidor.nombre() + "-memoria", consumidor.viajes);
+		enMemoria.enMemoria = true;
+		// Una fila de cuando su posición se guardaba detendría la limpieza de la bandeja
+		jdbcTemplate.update("INSERT INTO CONSUMIDORES_EVENTOS (NOMBRE, POSICION, ACTUALIZADO) VALUES (?, 0, ?)",
+			enMemoria.nombre(), new Timestamp(System.currentTimeMillis()));
+		relay.suscribir(enMemoria);
+		Long viajeId = calificar(2);
+
+		ReflectionTestUtils.setField(relay, "esperaHuecosMs", 0L);
+		relay.entregar();
+		assertEquals(List.of(viajeId), enMemoria.recibidos.stream().map(EventosViajeService.EventoViaje::viajeId).toList());
+		assertEquals(enMemoria.recibidos.get(0).id(), relay.posicion(enMemoria.nombre()));
+		assertEquals(0, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM CONSUMIDORES_EVENTOS WHERE NOMBRE = ?", Integer.class, enMemoria.nombre()));
+	}
+}
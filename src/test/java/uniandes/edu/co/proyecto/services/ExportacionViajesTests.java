@@ -0,0 +1,111 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoImportacionDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Exportación de viajes: filtro por rango y ciudad, CSV y NDJSON sin cargar entidades, y un archivo
+// exportado que la importación vuelve a leer.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class ExportacionViajesTests {
+
+	@Autowired private ExportacionViajesService exportacionViajesService;
+	@Autowired private ImportacionViajesService importacionViajesService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private PuntoGeoRepository puntoRepository;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+	@Autowired private ObjectMapper objectMapper;
+
+	private String sufijo;
+	private String ciudad;
+
+	@BeforeEach
+	void crearViajes() throws Exception {
+		sufijo = DatosPrueba.sufijo();
+		ciudad = "Ciudad " + sufijo;
+		CiudadEntity entidadCiudad = datos.ciudad(sufijo);
+		datos.cliente("C" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("K" + sufijo);
+		datos.vehiculo("E" + sufijo, "ESTANDAR", entidadCiudad, conductor);
+		Long puntoId = puntoRepository.save(new PuntoGeoEntity("Plaza " + sufijo, "Carrera 7", 4.6, -74.0, entidadCiudad)).getId();
+
+		StringBuilder ndjson = new StringBuilder();
+		for (int dia = 1; dia <= 5; dia++) {
+			ndjson.append(String.format("{\"tipoServicio\":\"Transporte de pasajeros\",\"costoTotal\":%d,\"horaInicio\":\"2022-03-%02dT07:00:00\"," +
+				"\"horaFin\":%s,\"cedulaCliente\":\"C%s\",\"cedulaConductor\":\"K%s\",\"placa\":\"E%s\",\"puntoPartidaId\":%d}\n",
+				1000 * dia, dia, dia == 3 ? "null" : String.format("\"2022-03-%02dT07:25:00\"", dia), sufijo, sufijo, sufijo, puntoId));
+		}
+		importacionViajesService.importar("exportacion-" + sufijo, "ndjson",
+			Channels.newChannel(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8))));
+	}
+
+	private String exportar(LocalDate desde, LocalDate hasta, String formato) throws Exception {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		exportacionViajesService.exportar(desde, hasta, ciudad, formato, salida);
+		return salida.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void exportaElRangoEnCsvYNdjsonSinCargarEntidades() throws Exception {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		String[] csv = exportar(LocalDate.of(2022, 3, 2), LocalDate.of(2022, 3, 4), "csv").split("\n");
+		assertEquals(0, estadisticas.getEntityLoadCount());
+		assertEquals(4, csv.length);
+		assertTrue(csv[0].startsWith("id,tipoServicio,costoTotal,horaInicio,horaFin,duracionMinutos"));
+		String[] primera = csv[1].split(",", -1);
+		assertEquals("2000.0", primera[2]);
+		assertEquals("2022-03-02T07:00:00", primera[3]);
+		assertEquals("25", primera[5]);
+		assertEquals("C" + sufijo, primera[7]);
+		assertEquals(ciudad, primera[12]);
+		assertEquals("", csv[2].split(",", -1)[4]); // Viaje sin terminar
+
+		String[] lineas = exportar(LocalDate.of(2022, 3, 1), LocalDate.of(2022, 3, 5), "ndjson").split("\n");
+		assertEquals(5, lineas.length);
+		JsonNode ultimo = objectMapper.readTree(lineas[4]);
+		assertEquals(5000.0, ultimo.get("costoTotal").asDouble());
+		assertEquals("E" + sufijo, ultimo.get("placa").asText());
+		assertTrue(objectMapper.readTree(lineas[2]).get("horaFin").isNull());
+
+		assertThrows(Exception.class, () -> exportacionViajesService.validar(LocalDate.of(2022, 3, 5), LocalDate.of(2022, 3, 1), null, "csv"));
+		assertThrows(Exception.class, () -> exportacionViajesService.validar(LocalDate.of(2022, 3, 1), LocalDate.of(2022, 3, 5), "No existe " + sufijo, "csv"));
+	}
+
+	@Test
+	void elCsvExportadoSePuedeImportar() throws Exception {
+		String csv = exportar(LocalDate.of(2022, 3, 1), LocalDate.of(2022, 3, 5), "csv");
+
+		ResultadoImportacionDTO resultado = importacionViajesService.importar("reimportacion-" + sufijo, "csv",
+			Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+
+		assertEquals(5, resultado.getFilasImportadas());
+		assertEquals(0, resultado.getFilasConError());
+		// Encabezado más los 5 viajes originales y sus 5 copias
+		assertEquals(11, exportar(LocalDate.of(2022, 3, 1), LocalDate.of(2022, 3, 5), "csv").split("\n").length);
+	}
+}
@@ -0,0 +1,98 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.GananciaConductorDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RFC3 sobre GANANCIAS_DIARIAS: RF9 suma cada viaje finalizado y la consulta filtra por días.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class GananciasConductorTests {
+
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private ConsultaService consultaService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private UsuarioRepository usuarioRepository;
+	@Autowired private VehiculoRepository vehiculoRepository;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	private UsuarioConductorEntity conductor;
+	private UsuarioServicioEntity cliente;
+	private VehiculoEntity carro;
+	private VehiculoEntity moto;
+	private PuntoGeoEntity punto;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		cliente = datos.cliente("G" + sufijo);
+		conductor = datos.conductor("J" + sufijo);
+		carro = datos.vehiculo("GC" + sufijo, "ESTANDAR", ciudad, conductor);
+		moto = vehiculoRepository.save(new VehiculoEntity("MOTO", "Yamaha", "NMAX", "Negro", "GM" + sufijo, 1, "ESTANDAR", ciudad, conductor));
+		punto = datos.punto("Punto " + sufijo, 4.60, -74.08, ciudad);
+	}
+
+	@Test
+	void rf9AcumulaGananciasPorVehiculoYTipo() throws Exception {
+		finalizarViaje(carro, "Transporte de pasajeros", 10000.0);
+		finalizarViaje(carro, "Transporte de pasajeros", 20000.0);
+		finalizarViaje(carro, "Domicilio de comida", 5000.0);
+		finalizarViaje(moto, "Domicilio de comida", 8000.0);
+
+		List<GananciaConductorDTO> ganancias = consultaService.findGananciasConductor(conductor.getId(), null, null, false);
+		assertEquals(3, ganancias.size());
+		assertEquals(18000.0, ganancia(ganancias, carro.getPlaca(), "Transporte de pasajeros"), 1e-6);
+		assertEquals(3000.0, ganancia(ganancias, carro.getPlaca(), "Domicilio de comida"), 1e-6);
+		assertEquals(4800.0, ganancia(ganancias, moto.getPlaca(), "Domicilio de comida"), 1e-6);
+	}
+
+	@Test
+	void rangoDeDiasFiltraLasGanancias() throws Exception {
+		finalizarViaje(carro, "Transporte de pasajeros", 10000.0);
+		LocalDate hoy = LocalDate.now(ZoneId.systemDefault());
+		Date ayer = Date.from(hoy.minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		Date manana = Date.from(hoy.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+		assertTrue(consultaService.findGananciasConductor(conductor.getId(), null, ayer, false).isEmpty());
+		assertTrue(consultaService.findGananciasConductor(conductor.getId(), manana, null, false).isEmpty());
+
+		List<GananciaConductorDTO> porDia = consultaService.findGananciasConductor(conductor.getId(), ayer, manana, true);
+		assertEquals(1, porDia.size());
+		assertEquals(hoy, porDia.get(0).getDia());
+		assertEquals(6000.0, porDia.get(0).getGananciasTotales(), 1e-6);
+	}
+
+	// Viaje en curso con el conductor ocupado (como lo deja RF8) y luego finalizado con RF9
+	private void finalizarViaje(VehiculoEntity vehiculo, String tipoServicio, double costo) throws Exception {
+		ServicioEntity viaje = servicioRepository.save(new ServicioEntity(tipoServicio, costo, new Date(),
+			conductor, cliente, vehiculo, punto, List.of(punto)));
+		transactionTemplate.execute(estado -> usuarioRepository.reclamarConductor(conductor.getId()));
+		servicioTransaccionalService.finalizarServicio(viaje.getId(), 1.0);
+	}
+
+	private static double ganancia(List<GananciaConductorDTO> ganancias, String placa, String tipoServicio) {
+		return ganancias.stream()
+			.filter(g -> g.getPlacaVehiculo().equals(placa) && g.getTipoServicio().equals(tipoServicio))
+			.max(Comparator.comparing(GananciaConductorDTO::getGananciasTotales))
+			.orElseThrow()
+			.getGananciasTotales();
+	}
+}
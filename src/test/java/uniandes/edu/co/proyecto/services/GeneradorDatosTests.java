@@ -0,0 +1,95 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import uniandes.edu.co.proyecto.controllers.DTO.GananciaConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.TopConductorDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.UtilizacionServiciosDTO;
+import uniandes.edu.co.proyecto.entities.ServicioEntity;
+
+// Datos generados para el perfil local (H2 en modo Oracle): cantidades, agregados de RFC2-RFC4
+// consistentes con VIAJE, e identidades que continúan después de los IDs generados. El generador solo
+// existe con el perfil local; el de pruebas va después para que sus valores prevalezcan.
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:alpescab-generador;MODE=Oracle;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+	"alpescab.generador.conductores=20",
+	"alpescab.generador.clientes=50",
+	"alpescab.generador.puntos=40",
+	"alpescab.generador.viajes=500",
+	"alpescab.generador.lote=64"
+})
+@ActiveProfiles({ "local", "pruebas" })
+class GeneradorDatosTests {
+
+	@Autowired private ConsultaService consultaService;
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private long contar(String sql, Object... parametros) {
+		return jdbcTemplate.queryForObject(sql, Long.class, parametros);
+	}
+
+	@Test
+	void generaLasCantidadesConfiguradas() {
+		assertEquals(70, contar("SELECT COUNT(*) FROM USUARIOS"));
+		assertEquals(20, contar("SELECT COUNT(*) FROM USUARIOS WHERE TIPO_USUARIO = 'CONDUCTOR'"));
+		assertEquals(50, contar("SELECT COUNT(*) FROM MEDIOS_DE_PAGO"));
+		assertEquals(40, contar("SELECT COUNT(*) FROM PUNTOS_GEOGRAFICOS"));
+		assertEquals(80, contar("SELECT COUNT(*) FROM DISPONIBILIDADES"));
+		assertEquals(500, contar("SELECT COUNT(*) FROM VIAJE"));
+		// Solo los niveles que admite el esquema (CHECK de VEHICULOS.NIVEL)
+		assertEquals(0, contar("SELECT COUNT(*) FROM VEHICULOS WHERE NIVEL_ASIGNADO NOT IN ('ESTANDAR', 'COMFORT', 'LARGE')"));
+		// Cada viaje sale y llega en la ciudad del vehículo
+		assertEquals(0, contar("SELECT COUNT(*) FROM VIAJE v JOIN VEHICULOS ve ON ve.ID = v.ID_VEHICULO " +
+			"JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO JOIN PUNTOS_GEOGRAFICOS f ON f.ID = v.ID_PUNTO_FIN " +
+			"WHERE p.ID_CIUDAD <> ve.ID_CIUDAD_EXPEDICION OR f.ID_CIUDAD <> ve.ID_CIUDAD_EXPEDICION"));
+	}
+
+	@Test
+	void agregadosCoincidenConLosViajes() throws Exception {
+		List<TopConductorDTO> top = consultaService.findTop20Conductores();
+		assertEquals(20, top.size());
+		assertEquals(contar("SELECT COUNT(*) FROM VIAJE WHERE ID_CONDUCTOR = ?", top.get(0).getConductorId()),
+			top.get(0).getNumeroServicios());
+
+		Long conductorId = top.get(0).getConductorId();
+		List<GananciaConductorDTO> ganancias = consultaService.findGananciasConductor(conductorId, null, null, false);
+		double total = ganancias.stream().mapToDouble(GananciaConductorDTO::getGananciasTotales).sum();
+		double esperado = jdbcTemplate.queryForObject("SELECT SUM(COSTO_TOTAL) FROM VIAJE WHERE ID_CONDUCTOR = ?", Double.class, conductorId)
+			* ServicioTransaccionalService.PORCENTAJE_CONDUCTOR;
+		assertEquals(esperado, total, 1e-6);
+
+		Date desde = Date.from(LocalDate.now().minusDays(400).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		List<UtilizacionServiciosDTO> uso = consultaService.findUsoServicios("BOGOTA", desde, new Date());
+		assertEquals(contar("SELECT COUNT(*) FROM VIAJE v JOIN PUNTOS_GEOGRAFICOS p ON p.ID = v.ID_PUNTO_INICIO WHERE p.ID_CIUDAD = 1"),
+			uso.stream().mapToLong(UtilizacionServiciosDTO::getNumeroServicios).sum());
+	}
+
+	@Test
+	void rf8Rf9ContinuanDespuesDeLosDatosGenerados() throws Exception {
+		SolicitudServicioDTO solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(21L); // Primer cliente
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(1L); // Puntos 1 y 11: BOGOTA
+		solicitud.setPuntosLlegadaIds(List.of(11L));
+
+		ServicioEntity nuevo = servicioTransaccionalService.solicitarServicio(solicitud);
+		try {
+			assertEquals(501L, nuevo.getId());
+		} finally {
+			servicioTransaccionalService.finalizarServicio(nuevo.getId(), 2.0);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// Grilla espacial: k vecinos en orden de distancia y con filtro, corte en el radio, movimiento de elementos
+// y vecinos al otro lado del antimeridiano.
+class GrillaEspacialTests {
+
+	private static List<Long> ids(List<GrillaEspacial.Vecino> vecinos) {
+		return vecinos.stream().map(GrillaEspacial.Vecino::id).toList();
+	}
+
+	@Test
+	void kMasCercanosRetornaLosMasProximosEnOrden() {
+		// 30 elementos hacia el norte, ~111 m entre cada uno: ocupan varias celdas
+		GrillaEspacial grilla = new GrillaEspacial(0.01);
+		for (int i = 30; i >= 1; i--) {
+			grilla.actualizar(i, 4.60 + i * 0.001, -74.08);
+		}
+
+		assertEquals(List.of(1L, 2L, 3L), ids(grilla.kMasCercanos(4.60, -74.08, 3, 50, id -> true)));
+		assertEquals(List.of(2L, 4L, 6L), ids(grilla.kMasCercanos(4.60, -74.08, 3, 50, id -> id % 2 == 0)));
+		List<GrillaEspacial.Vecino> todos = grilla.kMasCercanos(4.60, -74.08, 100, 50, id -> true);
+		assertEquals(30, todos.size());
+		for (int i = 1; i < todos.size(); i++) {
+			assertTrue(todos.get(i - 1).distanciaKm() <= todos.get(i).distanciaKm());
+		}
+
+		// Un elemento movido junto al origen pasa a ser el más cercano; uno eliminado ya no aparece
+		grilla.actualizar(30, 4.60, -74.0801);
+		assertEquals(30L, grilla.kMasCercanos(4.60, -74.08, 1, 50, id -> true).get(0).id());
+		grilla.eliminar(30);
+		assertEquals(1L, grilla.kMasCercanos(4.60, -74.08, 1, 50, id -> true).get(0).id());
+		assertEquals(29, grilla.tamano());
+	}
+
+	@Test
+	void dentroDeRadioCortaEnElRadio() {
+		GrillaEspacial grilla = new GrillaEspacial(0.01);
+		double kmPorGrado = CalculoGeografico.haversineKm(4.60, -74.08, 5.60, -74.08);
+		grilla.actualizar(1, 4.60 + 0.99 / kmPorGrado, -74.08);
+		grilla.actualizar(2, 4.60 + 1.01 / kmPorGrado, -74.08);
+		grilla.actualizar(3, 4.60 - 0.5 / kmPorGrado, -74.08);
+
+		List<GrillaEspacial.Vecino> vecinos = grilla.dentroDeRadio(4.60, -74.08, 1.0);
+		assertEquals(List.of(3L, 1L), ids(vecinos));
+		assertTrue(vecinos.stream().allMatch(v -> v.distanciaKm() <= 1.0));
+		assertEquals(List.of(3L), ids(grilla.kMasCercanos(4.60, -74.08, 5, 0.6, id -> true)));
+	}
+
+	@Test
+	void losVecinosCruzanElAntimeridiano() {
+		GrillaEspacial grilla = new GrillaEspacial(0.01);
+		grilla.actualizar(1, 0.0, 179.999);
+		grilla.actualizar(2, 0.0, -179.999);
+		grilla.actualizar(3, 0.0, 179.9);
+
+		List<GrillaEspacial.Vecino> vecinos = grilla.dentroDeRadio(0.0, 179.9995, 1.0);
+		assertEquals(List.of(1L, 2L), ids(vecinos));
+		assertEquals(CalculoGeografico.haversineKm(0.0, 179.9995, 0.0, -179.999), vecinos.get(1).distanciaKm(), 1e-9);
+		assertEquals(2L, grilla.kMasCercanos(0.0, -179.9995, 1, 1.0, id -> id != 1).get(0).id());
+	}
+}
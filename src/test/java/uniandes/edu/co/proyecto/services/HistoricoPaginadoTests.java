@@ -0,0 +1,100 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uniandes.edu.co.proyecto.controllers.DTO.PaginaDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RFC1 paginado por llave y en streaming: mismos viajes, mismo orden, sin repetidos ni saltos.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class HistoricoPaginadoTests {
+
+	@Autowired private ConsultaService consultaService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private RevisionRepository revisionRepository;
+	@Autowired private ObjectMapper objectMapper;
+
+	private Long clienteId;
+	private List<Long> esperados;
+
+	@BeforeEach
+	void crearViajes() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.cliente("H" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("I" + sufijo);
+		VehiculoEntity vehiculo = datos.vehiculo("H" + sufijo, "ESTANDAR", ciudad, conductor);
+		PuntoGeoEntity partida = datos.punto("Origen " + sufijo, 4.60, -74.08, ciudad);
+		PuntoGeoEntity llegada = datos.punto("Destino " + sufijo, 4.61, -74.08, ciudad);
+		clienteId = cliente.getId();
+
+		// Varios viajes comparten la misma hora de inicio: el ID desempata
+		long base = System.currentTimeMillis() - 86_400_000L;
+		long[] desplazamientos = { 0, 60_000, 60_000, 120_000, 120_000, 120_000, 180_000 };
+		List<ServicioEntity> viajes = new ArrayList<>();
+		for (long desplazamiento : desplazamientos) {
+			viajes.add(servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0,
+				new Date(base + desplazamiento), conductor, cliente, vehiculo, partida, List.of(llegada))));
+		}
+		revisionRepository.save(new RevisionEntity(5, "Excelente", viajes.get(0), cliente, conductor));
+
+		esperados = viajes.stream()
+			.sorted(Comparator.comparing(ServicioEntity::getHoraInicio).thenComparing(ServicioEntity::getId).reversed())
+			.map(ServicioEntity::getId)
+			.toList();
+	}
+
+	@Test
+	void paginasRecorrenElHistoricoCompletoEnOrden() throws Exception {
+		List<Long> recibidos = new ArrayList<>();
+		String cursor = null;
+		int paginas = 0;
+		do {
+			PaginaDTO<ServicioEntity> pagina = consultaService.consultarHistoricoPaginado(clienteId, cursor, 3);
+			pagina.getElementos().forEach(viaje -> recibidos.add(viaje.getId()));
+			cursor = pagina.getSiguienteCursor();
+			paginas++;
+		} while (cursor != null);
+
+		assertEquals(esperados, recibidos);
+		assertEquals(3, paginas);
+	}
+
+	@Test
+	void ultimaPaginaExactaNoDejaCursor() throws Exception {
+		PaginaDTO<ServicioEntity> pagina = consultaService.consultarHistoricoPaginado(clienteId, null, esperados.size());
+		assertEquals(esperados.size(), pagina.getElementos().size());
+		assertNull(pagina.getSiguienteCursor());
+	}
+
+	@Test
+	void streamingEscribeUnViajePorLinea() throws Exception {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		consultaService.escribirHistoricoNdjson(clienteId, salida);
+
+		List<Long> recibidos = new ArrayList<>();
+		for (String linea : salida.toString(StandardCharsets.UTF_8).split("\n")) {
+			recibidos.add(objectMapper.readTree(linea).get("id").asLong());
+		}
+		assertEquals(esperados, recibidos);
+	}
+}
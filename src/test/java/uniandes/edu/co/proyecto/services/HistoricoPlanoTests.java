@@ -0,0 +1,104 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManagerFactory;
+import uniandes.edu.co.proyecto.controllers.DTO.HistoricoViajeDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RFC1 plano: mismos viajes que la versión con entidades, en una sola sentencia SQL.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class HistoricoPlanoTests {
+
+	private static final Logger log = LoggerFactory.getLogger(HistoricoPlanoTests.class);
+	private static final int VIAJES = 12;
+
+	@Autowired private ConsultaService consultaService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private RevisionRepository revisionRepository;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+
+	private Long clienteId;
+	private Long viajeCalificado;
+	private Long viajeSinLlegada;
+
+	@BeforeEach
+	void crearViajes() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.cliente("P" + sufijo);
+		clienteId = cliente.getId();
+
+		// Cada viaje con conductor, vehículo y puntos distintos, como en un histórico real
+		long base = System.currentTimeMillis() - 86_400_000L;
+		List<ServicioEntity> viajes = new ArrayList<>();
+		for (int i = 0; i < VIAJES; i++) {
+			UsuarioConductorEntity conductor = datos.conductor("Q" + i + sufijo);
+			VehiculoEntity vehiculo = datos.vehiculo("P" + i + sufijo, "COMFORT", ciudad, conductor);
+			PuntoGeoEntity partida = datos.punto("Origen " + i + " " + sufijo, 4.60, -74.08, ciudad);
+			List<PuntoGeoEntity> llegadas = i == 0 ? List.of()
+				: List.of(datos.punto("Destino " + i + " " + sufijo, 4.61, -74.08, ciudad));
+			viajes.add(servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0 + i,
+				new Date(base + i * 60_000L), conductor, cliente, vehiculo, partida, llegadas)));
+		}
+		ServicioEntity calificado = viajes.get(VIAJES - 1);
+		revisionRepository.save(new RevisionEntity(4, "Buen viaje", calificado, cliente, calificado.getConductor()));
+		viajeCalificado = calificado.getId();
+		viajeSinLlegada = viajes.get(0).getId();
+	}
+
+	@Test
+	void proyeccionPlanaUsaUnaSentenciaYTraeLosMismosViajes() throws Exception {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		estadisticas.clear();
+		long inicio = System.nanoTime();
+		List<ServicioEntity> entidades = consultaService.consultarHistoricoUsuario(clienteId);
+		long microsEntidades = (System.nanoTime() - inicio) / 1_000;
+		long sentenciasEntidades = estadisticas.getPrepareStatementCount();
+
+		estadisticas.clear();
+		inicio = System.nanoTime();
+		List<HistoricoViajeDTO> plano = consultaService.consultarHistoricoPlano(clienteId);
+		long microsPlano = (System.nanoTime() - inicio) / 1_000;
+		long sentenciasPlano = estadisticas.getPrepareStatementCount();
+
+		log.info("RFC1 con {} viajes -> entidades: {} sentencias, {} us | plano: {} sentencias, {} us",
+			VIAJES, sentenciasEntidades, microsEntidades, sentenciasPlano, microsPlano);
+
+		// La validación del cliente más la consulta con JOINs
+		assertTrue(sentenciasPlano <= 2, "RFC1 plano ejecutó " + sentenciasPlano + " sentencias");
+		assertTrue(sentenciasPlano < sentenciasEntidades);
+
+		assertEquals(entidades.stream().map(ServicioEntity::getId).sorted().toList(),
+			plano.stream().map(HistoricoViajeDTO::getIdViaje).sorted().toList());
+		// Más reciente primero
+		assertEquals(viajeCalificado, plano.get(0).getIdViaje());
+		assertEquals(4, plano.get(0).getCalificacion());
+		assertEquals("COMFORT", plano.get(0).getVehiculoNivel());
+		// Un viaje sin punto de llegada también aparece
+		HistoricoViajeDTO sinLlegada = plano.get(plano.size() - 1);
+		assertEquals(viajeSinLlegada, sinLlegada.getIdViaje());
+		assertNull(sinLlegada.getDireccionFin());
+		assertNull(sinLlegada.getCalificacion());
+	}
+}
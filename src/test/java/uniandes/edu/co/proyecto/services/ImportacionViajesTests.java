@@ -0,0 +1,208 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoImportacionDTO;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoLoteDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Importación de viajes históricos: referencias resueltas en memoria, errores por línea, agregados de
+// RFC2-RFC4 y reanudación desde el punto de control sin repetir filas.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class ImportacionViajesTests {
+
+	@Autowired private ImportacionViajesService importacionViajesService;
+	@Autowired private RegistroMasivoService registroMasivoService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	private String sufijo;
+	private Long conductorId;
+	private Long puntoId;
+
+	@BeforeEach
+	void crearReferencias() throws Exception {
+		sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		datos.cliente("C" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("K" + sufijo);
+		conductorId = conductor.getId();
+		datos.vehiculo("I" + sufijo, "ESTANDAR", ciudad, conductor);
+		// Las coordenadas de los viajes se resuelven con el índice espacial: el punto se registra por RF7 masivo
+		CiudadEntity referencia = new CiudadEntity();
+		referencia.setId(ciudad.getId());
+		double latitud = 1 + Math.abs(sufijo.hashCode() % 1000) / 100.0;
+		puntoId = registroMasivoService.registrarPuntos(List.of(
+			new PuntoGeoEntity("Terminal " + sufijo, "Calle 1", latitud, -70.0, referencia))).getIds().get(0);
+		// Bloques pequeños para que el archivo de prueba ocupe varias transacciones
+		ReflectionTestUtils.setField(importacionViajesService, "filasPorTransaccion", 2);
+	}
+
+	@AfterEach
+	void restaurar() {
+		ReflectionTestUtils.setField(importacionViajesService, "filasPorTransaccion", 5000);
+	}
+
+	private String viajeJson(int minuto) {
+		return String.format("{\"tipoServicio\":\"Transporte de pasajeros\",\"costoTotal\":10000,\"horaInicio\":\"2023-05-01T08:%02d:00\"," +
+			"\"horaFin\":\"2023-05-01T09:%02d:00\",\"cedulaCliente\":\"C%s\",\"cedulaConductor\":\"K%s\",\"placa\":\"I%s\"," +
+			"\"puntoPartidaId\":%d}\n", minuto, minuto, sufijo, sufijo, sufijo, puntoId);
+	}
+
+	private long viajesDelConductor() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM VIAJE WHERE ID_CONDUCTOR = ?", Long.class, conductorId);
+	}
+
+	@Test
+	void importaCsvConErroresPorLineaYAgregados() throws Exception {
+		double latitud = jdbcTemplate.queryForObject("SELECT LATITUD FROM PUNTOS_GEOGRAFICOS WHERE ID = ?", Double.class, puntoId);
+		String csv = "placa,cedulaCliente,cedulaConductor,tipoServicio,costoTotal,horaInicio,horaFin,latitudPartida,longitudPartida,puntoLlegadaId\n" +
+			"I" + sufijo + ",C" + sufijo + ",K" + sufijo + ",\"Transporte de pasajeros\",10000,2023-05-01T08:10:00,2023-05-01T08:40:00," + latitud + ",-70.0," + puntoId + "\n" +
+			"I" + sufijo + ",C" + sufijo + ",K" + sufijo + ",Transporte de pasajeros,20000,2023-05-01 08:50:00,2023-05-01 09:20:00," + latitud + ",-70.0,\r\n" +
+			"I" + sufijo + ",C" + sufijo + ",C" + sufijo + ",Transporte de pasajeros,5000,2023-05-01T10:00:00,,,,\n" +     // 4: cédula de un cliente como conductor
+			"X" + sufijo + ",C" + sufijo + ",K" + sufijo + ",Transporte de pasajeros,5000,2023-05-01T10:00:00,,," + "\n" + // 5: placa
+			"\n" +
+			"I" + sufijo + ",C" + sufijo + ",K" + sufijo + ",Transporte de pasajeros,mil,2023-05-01T10:00:00,,,,\n" +     // 7: costo
+			"I" + sufijo + ",C" + sufijo + ",K" + sufijo + ",Entrega de comida,7000,2023-05-02T11:00:00,," + latitud + ",-70.0," + puntoId;   // sin fin de línea
+		Path archivo = Files.createTempFile("viajes", ".csv");
+		Files.writeString(archivo, csv);
+
+		ResultadoImportacionDTO resultado;
+		try (FileChannel canal = FileChannel.open(archivo)) {
+			resultado = importacionViajesService.importar("csv-" + sufijo, "csv", canal);
+		} finally {
+			Files.delete(archivo);
+		}
+
+		assertEquals("TERMINADA", resultado.getEstado());
+		assertEquals(3, resultado.getFilasImportadas());
+		assertEquals(3, resultado.getFilasConError());
+		assertEquals(List.of(4, 5, 7), resultado.getErrores().stream().map(ResultadoLoteDTO.ErrorFilaDTO::getFila).toList());
+		assertTrue(resultado.getErrores().get(0).getMensaje().contains("No existe un conductor"), resultado.getErrores().get(0).getMensaje());
+		assertTrue(resultado.getErrores().get(1).getMensaje().contains("placa"));
+		assertTrue(resultado.getErrores().get(2).getMensaje().contains("costoTotal"));
+		assertEquals(csv.getBytes(StandardCharsets.UTF_8).length, resultado.getPosicion());
+
+		assertEquals(3, viajesDelConductor());
+		assertEquals(30L, jdbcTemplate.queryForObject(
+			"SELECT DURACION_MINUTOS FROM VIAJE WHERE ID_CONDUCTOR = ? AND COSTO_TOTAL = 10000", Long.class, conductorId));
+		// RF9: solo los viajes finalizados suman ganancias, en el día en que terminaron
+		assertEquals(18000.0, jdbcTemplate.queryForObject(
+			"SELECT SUM(GANANCIA) FROM GANANCIAS_DIARIAS WHERE ID_CONDUCTOR = ?", Double.class, conductorId), 0.001);
+		assertEquals(3L, jdbcTemplate.queryForObject(
+			"SELECT NUM_VIAJES FROM CONTEO_VIAJES_CONDUCTOR WHERE ID_CONDUCTOR = ?", Long.class, conductorId));
+		assertEquals(2L, jdbcTemplate.queryForObject(
+			"SELECT SUM(NUM_VIAJES) FROM USO_SERVICIOS_HORA u JOIN PUNTOS_GEOGRAFICOS p ON p.ID_CIUDAD = u.ID_CIUDAD " +
+			"WHERE p.ID = ? AND u.TIPO_SERVICIO = 'Transporte de pasajeros'", Long.class, puntoId));
+	}
+
+	// Canal que falla después de entregar cierta cantidad de bytes, como una conexión que se corta
+	private static ReadableByteChannel cortarDespuesDe(byte[] contenido, int bytes) {
+		ReadableByteChannel canal = Channels.newChannel(new ByteArrayInputStream(contenido, 0, bytes));
+		return new ReadableByteChannel() {
+			public int read(ByteBuffer destino) throws IOException {
+				int leidos = canal.read(destino);
+				if (leidos < 0) {
+					throw new IOException("Conexión interrumpida");
+				}
+				return leidos;
+			}
+			public boolean isOpen() { return true; }
+			public void close() {}
+		};
+	}
+
+	@Test
+	void reanudaDesdeElPuntoDeControlSinRepetirFilas() throws Exception {
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < 9; i++) {
+			ndjson.append(viajeJson(i));
+		}
+		byte[] contenido = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+		String id = "ndjson-" + sufijo;
+
+		// Se corta a mitad de la sexta línea: se confirman los bloques de las líneas 1-2 y 3-4; la 5 se
+		// leyó pero su bloque no se completó
+		int corte = viajeJson(0).length() * 5 + 10;
+		Exception error = assertThrows(Exception.class,
+			() -> importacionViajesService.importar(id, "ndjson", cortarDespuesDe(contenido, corte)));
+		assertTrue(error.getMessage().contains("Conexión interrumpida"), error.getMessage());
+		ResultadoImportacionDTO interrumpida = importacionViajesService.consultar(id);
+		assertEquals("EN_CURSO", interrumpida.getEstado());
+		assertEquals(4, interrumpida.getFilasImportadas());
+		assertEquals(viajeJson(0).length() * 4L, interrumpida.getPosicion());
+		assertEquals(4, viajesDelConductor());
+
+		// Se reenvía el archivo completo: las líneas ya confirmadas se saltan
+		ResultadoImportacionDTO reanudada = importacionViajesService.importar(id, "ndjson",
+			Channels.newChannel(new ByteArrayInputStream(contenido)));
+		assertEquals("TERMINADA", reanudada.getEstado());
+		assertEquals(9, reanudada.getFilasImportadas());
+		assertEquals(9, viajesDelConductor());
+		assertEquals(9L, jdbcTemplate.queryForObject(
+			"SELECT NUM_VIAJES FROM CONTEO_VIAJES_CONDUCTOR WHERE ID_CONDUCTOR = ?", Long.class, conductorId));
+
+		// Una importación terminada no vuelve a insertar
+		importacionViajesService.importar(id, "ndjson", Channels.newChannel(new ByteArrayInputStream(contenido)));
+		assertEquals(9, viajesDelConductor());
+		assertThrows(Exception.class, () -> importacionViajesService.importar(id, "csv",
+			Channels.newChannel(new ByteArrayInputStream(contenido))));
+	}
+
+	@Test
+	void filaDeGananciasCreadaPorOtraTransaccionSeSumaEnVezDeFallar() throws Exception {
+		// Un RF9 del mismo conductor, placa y día inserta su fila de ganancias y confirma cuando la
+		// importación ya buscó la fila sin encontrarla: el INSERT de la importación choca con la llave
+		CountDownLatch insertada = new CountDownLatch(1);
+		CompletableFuture<Void> rf9 = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(estado -> {
+			jdbcTemplate.update("INSERT INTO GANANCIAS_DIARIAS (ID_CONDUCTOR, PLACA, TIPO_SERVICIO, DIA, GANANCIA, NUM_VIAJES) " +
+				"VALUES (?, ?, ?, ?, ?, 1)", conductorId, "I" + sufijo, "Transporte de pasajeros", java.sql.Date.valueOf("2023-05-01"), 1000.0);
+			insertada.countDown();
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertTrue(insertada.await(10, TimeUnit.SECONDS));
+
+		ResultadoImportacionDTO resultado = importacionViajesService.importar("carrera-" + sufijo, "ndjson",
+			Channels.newChannel(new ByteArrayInputStream(viajeJson(0).getBytes(StandardCharsets.UTF_8))));
+		rf9.get(10, TimeUnit.SECONDS);
+
+		assertEquals("TERMINADA", resultado.getEstado());
+		assertEquals(7000.0, jdbcTemplate.queryForObject(
+			"SELECT GANANCIA FROM GANANCIAS_DIARIAS WHERE ID_CONDUCTOR = ?", Double.class, conductorId), 0.001);
+		assertEquals(2L, jdbcTemplate.queryForObject(
+			"SELECT NUM_VIAJES FROM GANANCIAS_DIARIAS WHERE ID_CONDUCTOR = ?", Long.class, conductorId));
+	}
+}
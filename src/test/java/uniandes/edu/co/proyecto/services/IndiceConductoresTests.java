@@ -0,0 +1,189 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+import uniandes.edu.co.proyecto.services.IndiceConductoresService.CriteriosBusqueda;
+import uniandes.edu.co.proyecto.services.IndiceConductoresService.VehiculoDisponible;
+
+// Índice en memoria de conductores disponibles: reserva, devolución en rollback, liberación en RF9,
+// filtro por criterios, carreras por un mismo conductor y sincronización con la BD.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class IndiceConductoresTests {
+
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private VehiculoRepository vehiculoRepository;
+	@Autowired private UsuarioRepository usuarioRepository;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	private CiudadEntity ciudad;
+	private UsuarioConductorEntity estandar;
+	private UsuarioConductorEntity camioneta;
+	private CriteriosBusqueda enLaCiudad;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		ciudad = datos.ciudad(sufijo);
+		estandar = datos.conductor("IE" + sufijo);
+		datos.vehiculo("IE" + sufijo, "ESTANDAR", ciudad, estandar);
+		camioneta = datos.conductor("IC" + sufijo);
+		vehiculoRepository.save(new VehiculoEntity(
+			"CAMIONETA", "Toyota", "Fortuner", "Negro", "IC" + sufijo, 7, "LARGE", ciudad, camioneta));
+		indiceConductores.reconstruir();
+		enLaCiudad = new CriteriosBusqueda(ciudad.getId(), null, null, null);
+	}
+
+	@Test
+	void losCriteriosFiltranPorNivelTipoYCapacidad() {
+		assertEquals(List.of(estandar.getId(), camioneta.getId()).stream().sorted().toList(), conductores(enLaCiudad));
+		assertEquals(List.of(estandar.getId()), conductores(new CriteriosBusqueda(ciudad.getId(), "estandar", null, null)));
+		assertEquals(List.of(camioneta.getId()), conductores(new CriteriosBusqueda(ciudad.getId(), null, "CAMIONETA", null)));
+		assertEquals(List.of(camioneta.getId()), conductores(new CriteriosBusqueda(ciudad.getId(), null, null, 5)));
+		assertEquals(List.of(), conductores(new CriteriosBusqueda(ciudad.getId(), "LARGE", null, 8)));
+		assertEquals(List.of(), conductores(new CriteriosBusqueda(ciudad.getId() + 100_000, null, null, null)));
+
+		// Sin transacción la reserva queda hecha; se devuelve con liberarAlConfirmar como en RF9
+		Optional<VehiculoDisponible> reservado = indiceConductores.reservarCandidato(
+			new CriteriosBusqueda(ciudad.getId(), null, "CAMIONETA", null));
+		assertEquals(Optional.of(camioneta.getId()), reservado.map(VehiculoDisponible::conductorId));
+		assertEquals(List.of(estandar.getId()), conductores(enLaCiudad));
+		indiceConductores.liberarAlConfirmar(camioneta);
+		assertEquals(2, conductores(enLaCiudad).size());
+	}
+
+	@Test
+	void elRollbackDevuelveAlConductor() {
+		transactionTemplate.executeWithoutResult(estado -> {
+			assertTrue(indiceConductores.reservar(estandar.getId()));
+			assertFalse(indiceConductores.reservar(estandar.getId()), "Un conductor reservado no se reserva dos veces");
+			assertEquals(List.of(camioneta.getId()), conductores(enLaCiudad));
+			estado.setRollbackOnly();
+		});
+		assertEquals(2, conductores(enLaCiudad).size());
+	}
+
+	@Test
+	void rf8LoRetiraYRf9LoDevuelve() throws Exception {
+		UsuarioServicioEntity cliente = datos.clienteConMedioDePago("IS" + DatosPrueba.sufijo());
+		SolicitudServicioDTO solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(cliente.getId());
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(datos.punto("Cll 1 # 1-1 " + ciudad.getId(), 4.60, -74.08, ciudad).getId());
+		solicitud.setPuntosLlegadaIds(List.of(datos.punto("Cll 2 # 2-2 " + ciudad.getId(), 4.61, -74.07, ciudad).getId()));
+
+		ServicioEntity servicio = servicioTransaccionalService.solicitarServicio(solicitud, estandar.getId(), Collections.emptyMap());
+		assertEquals(estandar.getId(), servicio.getConductor().getId());
+		assertEquals(List.of(camioneta.getId()), conductores(enLaCiudad));
+
+		servicioTransaccionalService.finalizarServicio(servicio.getId(), 1.0);
+		assertEquals(2, conductores(enLaCiudad).size());
+	}
+
+	@Test
+	void dosHilosPorUnConductorSoloUnoGana() throws Exception {
+		CriteriosBusqueda soloEstandar = new CriteriosBusqueda(ciudad.getId(), "ESTANDAR", null, null);
+		CyclicBarrier salida = new CyclicBarrier(2);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+		try {
+			for (int ronda = 0; ronda < 50; ronda++) {
+				// Cada hilo reserva dentro de una transacción que revierte: el ganador lo devuelve al índice
+				CyclicBarrier fin = new CyclicBarrier(2);
+				List<Future<Boolean>> resultados = List.of(
+					ejecutor.submit(() -> intentarReservar(soloEstandar, salida, fin)),
+					ejecutor.submit(() -> intentarReservar(soloEstandar, salida, fin)));
+				int ganadores = 0;
+				for (Future<Boolean> resultado : resultados) {
+					ganadores += resultado.get() ? 1 : 0;
+				}
+				assertEquals(1, ganadores, "Ronda " + ronda + ": el conductor se reservó " + ganadores + " veces");
+				assertEquals(List.of(estandar.getId()), conductores(soloEstandar));
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+	}
+
+	// Ambos hilos esperan a que el otro haya intentado antes de revertir, para que el ganador no
+	// devuelva al conductor mientras el perdedor todavía lo busca
+	private boolean intentarReservar(CriteriosBusqueda criterios, CyclicBarrier salida, CyclicBarrier fin) {
+		return transactionTemplate.execute(estado -> {
+			try {
+				salida.await();
+				boolean reservado = indiceConductores.reservarCandidato(criterios).isPresent();
+				fin.await();
+				estado.setRollbackOnly();
+				return reservado;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	@Test
+	void laSincronizacionCorrigeElIndiceConLaBd() {
+		// Reclamo fallido: el conductor queda fuera del índice y no vuelve con el rollback
+		transactionTemplate.executeWithoutResult(estado -> {
+			assertTrue(indiceConductores.reservar(estandar.getId()));
+			indiceConductores.descartarReserva(estandar.getId());
+			estado.setRollbackOnly();
+		});
+		assertEquals(List.of(camioneta.getId()), conductores(enLaCiudad));
+
+		// Otro nodo toma a la camioneta: sigue en este índice hasta la sincronización
+		transactionTemplate.execute(estado -> usuarioRepository.reclamarConductor(camioneta.getId()));
+		assertEquals(List.of(camioneta.getId()), conductores(enLaCiudad));
+
+		assertTrue(indiceConductores.reconstruir() >= 2);
+		assertEquals(List.of(estandar.getId()), conductores(enLaCiudad));
+		assertEquals(0, indiceConductores.reconstruir());
+
+		transactionTemplate.execute(estado -> usuarioRepository.liberarConductor(camioneta.getId()));
+		indiceConductores.reconstruir();
+		assertEquals(2, conductores(enLaCiudad).size());
+	}
+
+	@Test
+	void laSincronizacionRespetaLasReservasEnCurso() {
+		transactionTemplate.executeWithoutResult(estado -> {
+			assertTrue(indiceConductores.reservar(estandar.getId()));
+			// La BD aún muestra al conductor disponible (su RF8 no ha confirmado): no debe volver al índice
+			indiceConductores.reconstruir();
+			assertEquals(List.of(camioneta.getId()), conductores(enLaCiudad));
+			assertFalse(indiceConductores.reservar(estandar.getId()));
+			estado.setRollbackOnly();
+		});
+		assertEquals(2, conductores(enLaCiudad).size());
+		assertEquals(1, indiceConductores.buscarCandidatos(
+			new CriteriosBusqueda(ciudad.getId(), "ESTANDAR", null, null), 10).size(), "El rollback lo devuelve una sola vez");
+	}
+
+	private List<Long> conductores(CriteriosBusqueda criterios) {
+		return indiceConductores.buscarCandidatos(criterios, 10).stream()
+			.map(VehiculoDisponible::conductorId)
+			.sorted()
+			.toList();
+	}
+}
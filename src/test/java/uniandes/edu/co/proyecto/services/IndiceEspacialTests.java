@@ -0,0 +1,54 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import uniandes.edu.co.proyecto.entities.PuntoGeoEntity;
+
+// Índice de puntos de RF7: un punto a menos de umbral-duplicado-metros de uno registrado es duplicado, y
+// las consultas públicas de puntos rechazan radios y k por fuera de sus límites.
+class IndiceEspacialTests {
+
+	private IndiceEspacialService indice;
+	private double gradosPorMetro;
+
+	@BeforeEach
+	void crearIndice() {
+		indice = new IndiceEspacialService(0.01);
+		ReflectionTestUtils.setField(indice, "umbralDuplicadoMetros", 10.0);
+		ReflectionTestUtils.setField(indice, "radioMaximoConsultaKm", 50.0);
+		ReflectionTestUtils.setField(indice, "kMaximo", 100);
+		PuntoGeoEntity punto = new PuntoGeoEntity("Punto", "Calle 1", 4.60, -74.08, null);
+		punto.setId(7L);
+		indice.registrarPuntoAlConfirmar(punto); // Sin transacción se registra de inmediato
+		gradosPorMetro = 0.001 / (CalculoGeografico.haversineKm(4.60, -74.08, 4.601, -74.08) * 1000);
+	}
+
+	@Test
+	void unPuntoAMenosDelUmbralEsDuplicado() {
+		assertEquals(Optional.of(7L), indice.puntoDuplicado(4.60 + 9 * gradosPorMetro, -74.08));
+		assertEquals(Optional.empty(), indice.puntoDuplicado(4.60 + 11 * gradosPorMetro, -74.08));
+
+		ReflectionTestUtils.setField(indice, "umbralDuplicadoMetros", 0.0); // Desactivado
+		assertEquals(Optional.empty(), indice.puntoDuplicado(4.60, -74.08));
+	}
+
+	@Test
+	void lasConsultasDePuntosRespetanSusLimites() {
+		assertEquals(7L, indice.puntosMasCercanos(4.60, -74.08, 100, 50).get(0).id());
+		assertEquals(1, indice.puntosEnRadio(4.60, -74.08, 50).size());
+
+		assertThrows(IllegalArgumentException.class, () -> indice.puntosMasCercanos(4.60, -74.08, 101, 5));
+		assertThrows(IllegalArgumentException.class, () -> indice.puntosMasCercanos(4.60, -74.08, 0, 5));
+		assertThrows(IllegalArgumentException.class, () -> indice.puntosEnRadio(4.60, -74.08, 50.001));
+		assertThrows(IllegalArgumentException.class, () -> indice.puntosEnRadio(4.60, -74.08, 0));
+		assertThrows(IllegalArgumentException.class, () -> indice.puntosEnRadio(91, -74.08, 1));
+		assertThrows(IllegalArgumentException.class, () -> indice.puntosEnRadio(4.60, 181, 1));
+	}
+}
@@ -0,0 +1,118 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Métricas por requisito, motivos de rechazo de RF8 y exposición en /actuator/prometheus.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:alpescab-metricas;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("pruebas")
+class MetricasTests {
+
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private MeterRegistry meterRegistry;
+	@Autowired private MockMvc mockMvc;
+
+	private Long clienteId;
+	private Long puntoId;
+
+	@BeforeEach
+	void crearViaje() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.cliente("M" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("N" + sufijo);
+		VehiculoEntity vehiculo = datos.vehiculo("M" + sufijo, "ESTANDAR", ciudad, conductor);
+		PuntoGeoEntity punto = datos.punto("Punto " + sufijo, 4.60, -74.08, ciudad);
+		servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+			conductor, cliente, vehiculo, punto, List.of(punto)));
+		clienteId = cliente.getId();
+		puntoId = punto.getId();
+	}
+
+	@Test
+	void consultasSeMidenPorRequisito() throws Exception {
+		mockMvc.perform(get("/api/alpescab/consulta/historico/usuario/" + clienteId)).andExpect(status().isOk());
+
+		Timer tiempo = meterRegistry.find("http.server.requests").tag("requisito", "RFC1").timer();
+		assertEquals(1, tiempo.count());
+		DistributionSummary sentencias = meterRegistry.find("alpescab.peticion.sentencias").tag("requisito", "RFC1").summary();
+		assertEquals(1, sentencias.count());
+		assertTrue(sentencias.totalAmount() >= 1, "La consulta del histórico ejecuta al menos una sentencia");
+		DistributionSummary cargas = meterRegistry.find("alpescab.peticion.entidades.cargadas").tag("requisito", "RFC1").summary();
+		assertTrue(cargas.totalAmount() >= 1, "El histórico carga el viaje");
+	}
+
+	@Test
+	void lasSentenciasDeJdbcTemplateTambienSeCuentan() throws Exception {
+		// Las posiciones de un viaje que no está en memoria lo buscan con JdbcTemplate, sin Hibernate
+		DistributionSummary sentencias = meterRegistry.summary("alpescab.peticion.sentencias", "requisito", "ninguno");
+		long peticiones = sentencias.count();
+		double antes = sentencias.totalAmount();
+
+		mockMvc.perform(post("/api/alpescab/servicio/posiciones/-1").contentType(MediaType.APPLICATION_JSON)
+			.content("{\"latitudes\":[4.6],\"longitudes\":[-74.08],\"momentos\":[1700000000000]}"))
+			.andExpect(status().isNotFound());
+
+		assertEquals(peticiones + 1, sentencias.count());
+		assertEquals(antes + 1, sentencias.totalAmount());
+	}
+
+	@Test
+	void rf8CuentaLosRechazosPorMotivo() throws Exception {
+		Counter sinMedioPago = meterRegistry.counter("alpescab.rf8.fallos", "motivo", "sin_medio_pago");
+		Counter paradaInvalida = meterRegistry.counter("alpescab.rf8.fallos", "motivo", "parada_invalida");
+		double antesPago = sinMedioPago.count();
+		double antesParada = paradaInvalida.count();
+
+		String sinPago = "{\"clienteId\":" + clienteId + ",\"tipoServicio\":\"Transporte de pasajeros\",\"puntoPartidaId\":" + puntoId +
+			",\"puntosLlegadaIds\":[" + puntoId + "]}";
+		mockMvc.perform(post("/api/alpescab/servicio/solicitar").contentType(MediaType.APPLICATION_JSON).content(sinPago));
+		String sinLlegada = "{\"clienteId\":" + clienteId + ",\"tipoServicio\":\"Transporte de pasajeros\",\"puntoPartidaId\":" + puntoId +
+			",\"puntosLlegadaIds\":[-1]}";
+		mockMvc.perform(post("/api/alpescab/servicio/solicitar").contentType(MediaType.APPLICATION_JSON).content(sinLlegada));
+
+		assertEquals(antesPago + 1, sinMedioPago.count());
+		assertEquals(antesParada + 1, paradaInvalida.count());
+	}
+
+	@Test
+	void prometheusExponePoolHibernateYRequisitos() throws Exception {
+		mockMvc.perform(get("/api/alpescab/consulta/top/conductores")).andExpect(status().isOk());
+
+		String metricas = mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+		assertTrue(metricas.contains("http_server_requests_seconds_bucket{"), "Histograma de las peticiones");
+		assertTrue(metricas.contains("requisito=\"RFC2\""));
+		assertTrue(metricas.contains("hikaricp_connections_acquire_seconds"));
+		assertTrue(metricas.contains("hikaricp_connections_pending"));
+		assertTrue(metricas.contains("hibernate_statements_total"));
+		assertTrue(metricas.contains("alpescab_peticion_espera_conexion_seconds"));
+		assertTrue(metricas.contains("cache_gets_total{cache=\"historicoPlano\""));
+	}
+}
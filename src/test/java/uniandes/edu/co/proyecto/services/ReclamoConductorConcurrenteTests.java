@@ -0,0 +1,178 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RF8/RF9 bajo concurrencia: ningún conductor puede quedar asignado a dos servicios a la vez.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class ReclamoConductorConcurrenteTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ReclamoConductorConcurrenteTests.class);
+	private static final int CONDUCTORES = 20;
+
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private IndiceEspacialService indiceEspacial;
+	@Autowired private DatosPrueba datos;
+	@Autowired private UsuarioRepository usuarioRepository;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private Long clienteId;
+	private Long partidaId;
+	private Long llegadaId;
+	private List<Long> conductores;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		clienteId = datos.clienteConMedioDePago("C" + sufijo).getId();
+		partidaId = datos.punto("Cll 10 # 5-10 " + sufijo, 4.60, -74.08, ciudad).getId();
+		llegadaId = datos.punto("Av 7 # 12-25 " + sufijo, 4.61, -74.07, ciudad).getId();
+
+		conductores = new ArrayList<>();
+		for (int i = 0; i < CONDUCTORES; i++) {
+			UsuarioConductorEntity conductor = datos.conductor("D" + i + sufijo);
+			datos.vehiculo("P" + i + sufijo, "ESTANDAR", ciudad, conductor);
+			conductores.add(conductor.getId());
+		}
+		indiceConductores.reconstruir();
+		indiceEspacial.reconstruir();
+	}
+
+	@Test
+	void reclamoEnBdSoloLoGanaUnaTransaccion() throws Exception {
+		Long conductorId = conductores.get(0);
+		int hilos = 16;
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<Integer>> resultados = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				resultados.add(ejecutor.submit(() -> {
+					salida.await();
+					return transactionTemplate.execute(estado -> usuarioRepository.reclamarConductor(conductorId));
+				}));
+			}
+			salida.countDown();
+			int filasAfectadas = 0;
+			for (Future<Integer> resultado : resultados) {
+				filasAfectadas += resultado.get();
+			}
+			assertEquals(1, filasAfectadas, "Solo una transacción debe reclamar al conductor");
+		} finally {
+			ejecutor.shutdown();
+			transactionTemplate.execute(estado -> usuarioRepository.liberarConductor(conductorId));
+		}
+	}
+
+	@Test
+	void solicitudesConcurrentesNoRepitenConductor() throws Exception {
+		// Algunos conductores se marcan ocupados directamente en la BD sin tocar el índice: RF8 los
+		// encontrará en memoria, su reclamo afectará 0 filas y deberá reintentar con otro candidato.
+		List<Long> desactualizados = conductores.subList(0, 3);
+		desactualizados.forEach(id -> transactionTemplate.execute(estado -> usuarioRepository.reclamarConductor(id)));
+
+		try {
+			for (int hilos : new int[] { 1, 2, 4, 8 }) {
+				ejecutarRonda(hilos);
+			}
+		} finally {
+			desactualizados.forEach(id -> transactionTemplate.execute(estado -> usuarioRepository.liberarConductor(id)));
+			indiceConductores.reconstruir();
+		}
+	}
+
+	// Una ronda: más solicitudes que conductores libres, todas en paralelo; luego se finalizan los viajes.
+	private void ejecutarRonda(int hilos) throws Exception {
+		long libres = conductoresLibres();
+		int solicitudes = (int) libres + 5;
+
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<ServicioEntity> asignados = new ArrayList<>();
+		int fallidas = 0;
+		long inicio = System.nanoTime();
+		try {
+			List<Future<ServicioEntity>> resultados = new ArrayList<>();
+			for (int i = 0; i < solicitudes; i++) {
+				resultados.add(ejecutor.submit(() -> servicioTransaccionalService.solicitarServicio(solicitud())));
+			}
+			for (Future<ServicioEntity> resultado : resultados) {
+				try {
+					asignados.add(resultado.get());
+				} catch (Exception e) {
+					fallidas++;
+				}
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+		long milisegundos = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+
+		Set<Long> conductoresAsignados = new HashSet<>();
+		for (ServicioEntity servicio : asignados) {
+			conductoresAsignados.add(servicio.getConductor().getId());
+		}
+		assertEquals(asignados.size(), conductoresAsignados.size(), "Un conductor fue asignado dos veces");
+		assertEquals(libres, asignados.size(), "Cada conductor libre debe recibir exactamente un servicio");
+		assertEquals(solicitudes - libres, fallidas);
+		assertEquals(0, conductoresLibres());
+
+		log.info("RF8 concurrente: hilos={} solicitudes={} asignadas={} tiempo={} ms throughput={} sol/s",
+			hilos, solicitudes, asignados.size(), milisegundos, String.format("%.1f", solicitudes * 1000.0 / milisegundos));
+
+		// RF9 libera a todos los conductores con el mismo mecanismo atómico
+		ExecutorService finalizador = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<ServicioEntity>> finalizados = new ArrayList<>();
+			for (ServicioEntity servicio : asignados) {
+				finalizados.add(finalizador.submit(() -> servicioTransaccionalService.finalizarServicio(servicio.getId(), 1.0)));
+			}
+			for (Future<ServicioEntity> finalizado : finalizados) {
+				finalizado.get();
+			}
+		} finally {
+			finalizador.shutdown();
+		}
+		assertEquals(libres, conductoresLibres());
+	}
+
+	private SolicitudServicioDTO solicitud() {
+		SolicitudServicioDTO solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(clienteId);
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(partidaId);
+		solicitud.setPuntosLlegadaIds(List.of(llegadaId));
+		solicitud.setCostoEstimado(10000.0);
+		return solicitud;
+	}
+
+	private long conductoresLibres() {
+		return jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM USUARIOS WHERE TIPO_USUARIO = 'CONDUCTOR' AND ESTADO_DISPONIBLE = TRUE", Long.class);
+	}
+}
@@ -0,0 +1,164 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManagerFactory;
+import uniandes.edu.co.proyecto.controllers.DTO.ResultadoLoteDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Registro masivo: inserción por lotes JDBC con IDs de secuencia y errores reportados por fila.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class RegistroMasivoTests {
+
+	@Autowired private RegistroMasivoService registroMasivoService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private String sufijo;
+	private CiudadEntity ciudad;
+
+	@BeforeEach
+	void crearCiudad() {
+		sufijo = DatosPrueba.sufijo();
+		ciudad = datos.ciudad(sufijo);
+	}
+
+	private static CiudadEntity referenciaCiudad(Long id) {
+		CiudadEntity referencia = new CiudadEntity();
+		referencia.setId(id);
+		return referencia;
+	}
+
+	private List<UsuarioConductorEntity> conductores(int cantidad) {
+		List<UsuarioConductorEntity> conductores = new ArrayList<>();
+		for (int i = 0; i < cantidad; i++) {
+			conductores.add(new UsuarioConductorEntity("Conductor " + i, "masivo." + sufijo + "." + i + "@email.com",
+				"3100000000", sufijo + "-" + i));
+		}
+		return conductores;
+	}
+
+	@Test
+	void insertaPorLotesJdbcConIdsDeSecuencia() throws Exception {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		ResultadoLoteDTO resultado = registroMasivoService.registrarConductores(conductores(500));
+
+		assertEquals(500, resultado.getRegistrados());
+		assertEquals(0, resultado.getFallidos());
+		// Los IDs salen de bloques de 50 de la secuencia: consecutivos dentro de cada bloque
+		List<Long> ids = resultado.getIds();
+		assertEquals(ids.get(0) + 49, ids.get(49));
+		assertEquals(500, ids.stream().distinct().count());
+		// 500 INSERT en lotes de 50 y una llamada a la secuencia por bloque, más las validaciones
+		assertTrue(estadisticas.getPrepareStatementCount() < 40,
+			"Sentencias preparadas: " + estadisticas.getPrepareStatementCount());
+		assertEquals(500L, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM USUARIOS WHERE NUMERO_CEDULA LIKE ?", Long.class, sufijo + "-%"));
+	}
+
+	@Test
+	void reportaErroresPorFilaYRegistraLasValidas() throws Exception {
+		List<UsuarioConductorEntity> conductores = conductores(3);
+		List<Long> conductorIds = registroMasivoService.registrarConductores(conductores).getIds();
+
+		List<VehiculoEntity> vehiculos = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			UsuarioConductorEntity conductor = new UsuarioConductorEntity();
+			conductor.setId(conductorIds.get(i % 3));
+			vehiculos.add(new VehiculoEntity("CARRO", "Renault", "Logan", "Gris", "L" + sufijo + i, 4, "ESTANDAR",
+				referenciaCiudad(ciudad.getId()), conductor));
+		}
+		vehiculos.get(1).setPlaca(vehiculos.get(0).getPlaca());    // Placa repetida en el lote
+		vehiculos.get(2).getConductor().setId(-1L);                // Conductor inexistente
+		vehiculos.get(3).setMarca(" ");                            // Campo obligatorio vacío
+		vehiculos.get(4).setColor("X".repeat(300));                // Pasa la validación, falla en la BD
+
+		ResultadoLoteDTO resultado = registroMasivoService.registrarVehiculos(vehiculos);
+
+		assertEquals(2, resultado.getRegistrados());
+		assertEquals(List.of(1, 2, 3, 4), resultado.getErrores().stream().map(ResultadoLoteDTO.ErrorFilaDTO::getFila).toList());
+		assertTrue(resultado.getErrores().get(0).getMensaje().contains("se repite en la fila 0"));
+		assertTrue(resultado.getErrores().get(1).getMensaje().contains("no existe"));
+		assertNotNull(resultado.getIds().get(0));
+		assertNull(resultado.getIds().get(4));
+		assertNotNull(resultado.getIds().get(5));
+
+		// Los vehículos registrados de conductores disponibles entran al índice de RF8
+		assertTrue(indiceConductores.reservar(conductorIds.get(0)));
+		assertTrue(indiceConductores.reservar(conductorIds.get(2)));
+
+		// La placa ya registrada se rechaza en un segundo lote
+		vehiculos.get(0).setId(null);
+		ResultadoLoteDTO repetido = registroMasivoService.registrarVehiculos(List.of(vehiculos.get(0)));
+		assertEquals(0, repetido.getRegistrados());
+		assertTrue(repetido.getErrores().get(0).getMensaje().startsWith("Ya existe"));
+	}
+
+	@Test
+	void puntosDuplicadosReutilizanElExistente() throws Exception {
+		List<PuntoGeoEntity> puntos = List.of(
+			new PuntoGeoEntity("Parque " + sufijo, "Calle 1", 4.7110, -74.0721, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("Museo " + sufijo, "Calle 2", 4.6010, -74.0700, referenciaCiudad(ciudad.getId())));
+		List<Long> ids = registroMasivoService.registrarPuntos(puntos).getIds();
+
+		List<PuntoGeoEntity> segundoLote = List.of(
+			new PuntoGeoEntity("Parque (copia)", "Calle 1", 4.71101, -74.07211, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("Sin ciudad", "Calle 3", 4.5, -74.1, referenciaCiudad(-1L)));
+		ResultadoLoteDTO resultado = registroMasivoService.registrarPuntos(segundoLote);
+
+		assertEquals(ids.get(0), resultado.getIds().get(0));
+		assertEquals(1, resultado.getFallidos());
+		assertEquals(1, resultado.getErrores().get(0).getFila());
+	}
+
+	@Test
+	void puntosRepetidosEnElLoteReutilizanElPrimero() throws Exception {
+		// Coordenadas aleatorias para no chocar con los puntos de otras pruebas; 0.00005° de latitud son ~5.5 m
+		double latitud = ThreadLocalRandom.current().nextDouble(-60, 60);
+		double longitud = ThreadLocalRandom.current().nextDouble(-170, 170);
+		List<PuntoGeoEntity> puntos = List.of(
+			new PuntoGeoEntity("A " + sufijo, "Calle 1", latitud, longitud, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("A2 " + sufijo, "Calle 1", latitud + 0.00005, longitud, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("B " + sufijo, "Calle 2", latitud + 0.001, longitud, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("C " + sufijo, "X".repeat(300), latitud + 0.002, longitud, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("C2 " + sufijo, "Calle 3", latitud + 0.00205, longitud, referenciaCiudad(ciudad.getId())),
+			new PuntoGeoEntity("A3 " + sufijo, "Calle 1", latitud - 0.00005, longitud, referenciaCiudad(ciudad.getId())));
+
+		ResultadoLoteDTO resultado = registroMasivoService.registrarPuntos(puntos);
+
+		List<Long> ids = resultado.getIds();
+		assertNotNull(ids.get(0));
+		assertEquals(ids.get(0), ids.get(1));
+		assertEquals(ids.get(0), ids.get(5));
+		assertNotNull(ids.get(2));
+		// C falla en la BD y C2, que la repite, no recibe ID
+		assertNull(ids.get(3));
+		assertNull(ids.get(4));
+		assertEquals(List.of(3, 4), resultado.getErrores().stream().map(ResultadoLoteDTO.ErrorFilaDTO::getFila).toList());
+		assertTrue(resultado.getErrores().get(1).getMensaje().contains("Repite la fila 3"));
+		assertEquals(2L, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM PUNTOS_GEOGRAFICOS WHERE NOMBRE LIKE ?", Long.class, "% " + sufijo));
+	}
+}
@@ -0,0 +1,106 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.GananciaConductorDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// Enrutamiento de lecturas: la réplica es una segunda base H2 que se "replica" copiando el primario con
+// SCRIPT. Lo que se escribe después de la copia solo se ve si la lectura va al primario.
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:alpescab-primario;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+	"alpescab.replica.datasource.url=jdbc:h2:mem:alpescab-replica;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+	"alpescab.replica.datasource.username=sa",
+	"alpescab.replica.retraso-maximo=500ms"
+})
+@ActiveProfiles("pruebas")
+class ReplicaLecturaTests {
+
+	@Autowired private ConsultaService consultaService;
+	@Autowired private ConsistenciaLecturasService consistenciaLecturas;
+	@Autowired private DatosPrueba datos;
+	@Autowired private GananciaDiariaRepository gananciaDiariaRepository;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private CacheManager cacheManager;
+	@Autowired @Qualifier("dataSourcePrimario") private DataSource primario;
+	@Autowired @Qualifier("dataSourceReplica") private DataSource replica;
+
+	private Long conductorId;
+	private String placa;
+	private final LocalDate hoy = LocalDate.now();
+
+	@BeforeEach
+	void crearConductor() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("R" + sufijo);
+		placa = "R" + sufijo;
+		datos.vehiculo(placa, "ESTANDAR", ciudad, conductor);
+		conductorId = conductor.getId();
+		cacheManager.getCache(CacheConsultasService.GANANCIAS_CONDUCTOR).clear();
+	}
+
+	// Copia el estado actual del primario a la réplica
+	private void replicar() {
+		List<String> script = new JdbcTemplate(primario).queryForList("SCRIPT NOPASSWORDS NOSETTINGS", String.class);
+		JdbcTemplate destino = new JdbcTemplate(replica);
+		destino.execute("DROP ALL OBJECTS");
+		script.stream().filter(sentencia -> !sentencia.startsWith("CREATE USER")).forEach(destino::execute);
+	}
+
+	private void sumarGanancia(double ganancia) {
+		transactionTemplate.executeWithoutResult(estado -> {
+			if (gananciaDiariaRepository.sumar(conductorId, placa, "Transporte de pasajeros", hoy, ganancia) == 0) {
+				gananciaDiariaRepository.insertar(conductorId, placa, "Transporte de pasajeros", hoy, ganancia);
+			}
+		});
+	}
+
+	private double ganancias() {
+		cacheManager.getCache(CacheConsultasService.GANANCIAS_CONDUCTOR).clear();
+		List<GananciaConductorDTO> filas = consultaService.findGananciasConductor(conductorId, null, null, false);
+		return filas.stream().mapToDouble(GananciaConductorDTO::getGananciasTotales).sum();
+	}
+
+	@Test
+	void consultasDeSoloLecturaVanALaReplica() {
+		sumarGanancia(6000.0);
+		replicar();
+		sumarGanancia(3000.0); // Solo en el primario
+
+		assertEquals(6000.0, ganancias(), 1e-9);
+		Double enPrimario = new JdbcTemplate(primario).queryForObject(
+			"SELECT GANANCIA FROM GANANCIAS_DIARIAS WHERE ID_CONDUCTOR = ?", Double.class, conductorId);
+		assertEquals(9000.0, enPrimario, 1e-9);
+	}
+
+	@Test
+	void usuarioConEscriturasRecientesLeeDelPrimario() throws Exception {
+		sumarGanancia(6000.0);
+		replicar();
+		sumarGanancia(3000.0);
+
+		consistenciaLecturas.alCambiarViaje(new CambioViajeEvent(null, conductorId));
+		assertEquals(9000.0, ganancias(), 1e-9);
+
+		// Pasado el retraso máximo vuelve a la réplica
+		Thread.sleep(700);
+		assertEquals(6000.0, ganancias(), 1e-9);
+	}
+}
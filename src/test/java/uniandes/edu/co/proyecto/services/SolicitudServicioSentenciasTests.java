@@ -0,0 +1,90 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import uniandes.edu.co.proyecto.config.SentenciasPrueba;
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RF8 debe ejecutar un número fijo y pequeño de sentencias SQL, sin importar cuántas paradas tenga. Se
+// cuentan en las conexiones, así que incluyen las que se envían con JdbcTemplate y no solo las de Hibernate.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class SolicitudServicioSentenciasTests {
+
+	// Cliente y medio de pago, puntos, reclamo del conductor, vehículo con su conductor, inserción del viaje,
+	// contador de viajes del conductor (UPDATE, más un INSERT en su primer viaje) y evento de la bandeja
+	private static final long MAXIMO_SENTENCIAS_RF8 = 8;
+
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private IndiceEspacialService indiceEspacial;
+	@Autowired private DatosPrueba datos;
+	@Autowired private MediosPagoRepository mediosPagoRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private Long clienteId;
+	private Long partidaId;
+	private List<Long> paradas;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.clienteConMedioDePago("S" + sufijo);
+		mediosPagoRepository.save(new MediosPagoEntity("5500000000000004", "CLIENTE", new Date(), "456", "Débito", cliente));
+		clienteId = cliente.getId();
+
+		partidaId = datos.punto("Partida " + sufijo, 4.65, -74.05, ciudad).getId();
+		paradas = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			paradas.add(datos.punto("Parada " + i + " " + sufijo, 4.66 + i * 0.01, -74.05, ciudad).getId());
+		}
+		for (int i = 0; i < 2; i++) {
+			UsuarioConductorEntity conductor = datos.conductor("E" + i + sufijo);
+			datos.vehiculo("S" + i + sufijo, "ESTANDAR", ciudad, conductor);
+			// Con su fila de contador ya creada, las dos solicitudes ejecutan las mismas sentencias sin
+			// importar qué conductor se asigne
+			jdbcTemplate.update("INSERT INTO CONTEO_VIAJES_CONDUCTOR (ID_CONDUCTOR, NUM_VIAJES) VALUES (?, 0)", conductor.getId());
+		}
+		indiceConductores.reconstruir();
+		indiceEspacial.reconstruir();
+	}
+
+	@Test
+	void rf8UsaPocasSentenciasSinImportarLasParadas() throws Exception {
+		long conUnaParada = sentenciasRf8(paradas.subList(0, 1));
+		long conCuatroParadas = sentenciasRf8(paradas);
+
+		assertTrue(conUnaParada <= MAXIMO_SENTENCIAS_RF8, "RF8 ejecutó " + conUnaParada + " sentencias");
+		assertEquals(conUnaParada, conCuatroParadas, "El número de sentencias no debe depender de las paradas");
+	}
+
+	private long sentenciasRf8(List<Long> llegadas) throws Exception {
+		SolicitudServicioDTO solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(clienteId);
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(partidaId);
+		solicitud.setPuntosLlegadaIds(llegadas);
+		solicitud.setCostoEstimado(10000.0);
+
+		SentenciasPrueba.Medicion<ServicioEntity> rf8 = SentenciasPrueba.contar(
+			() -> servicioTransaccionalService.solicitarServicio(solicitud));
+
+		servicioTransaccionalService.finalizarServicio(rf8.resultado().getId(), 1.0);
+		return rf8.sentencias();
+	}
+}
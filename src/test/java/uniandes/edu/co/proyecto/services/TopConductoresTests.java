@@ -0,0 +1,138 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.*;
+
+// RFC2 incremental: los contadores de RF8 ordenan el top y la reconciliación lo corrige desde VIAJE.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class TopConductoresTests {
+
+	@Autowired private TopConductoresService topConductores;
+	@Autowired private DatosPrueba datos;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private ConteoViajesConductorRepository conteoRepository;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private String sufijo;
+	private CiudadEntity ciudad;
+
+	@BeforeEach
+	void crearCiudad() {
+		sufijo = DatosPrueba.sufijo();
+		ciudad = datos.ciudad(sufijo);
+	}
+
+	@Test
+	void registrarViajesOrdenaElTop() {
+		Long primero = crearConductor(0).getId();
+		Long segundo = crearConductor(1).getId();
+		for (int i = 0; i < 50; i++) {
+			topConductores.registrarViaje(segundo);
+			topConductores.registrarViaje(primero);
+		}
+		topConductores.registrarViaje(primero);
+
+		List<TopConductoresService.Posicion> top = topConductores.top();
+		int posicionPrimero = indice(top, primero);
+		int posicionSegundo = indice(top, segundo);
+		assertTrue(posicionPrimero >= 0 && posicionSegundo >= 0, "Ambos conductores deben estar en el top");
+		assertEquals(posicionPrimero + 1, posicionSegundo);
+		assertEquals(51, top.get(posicionPrimero).numViajes());
+		assertEquals(51L, conteoRepository.findById(primero).orElseThrow().getNumViajes());
+		assertEquals(50L, conteoRepository.findById(segundo).orElseThrow().getNumViajes());
+		assertTrue(top.size() <= 20);
+	}
+
+	@Test
+	void reconciliacionCuentaViajesQueNoPasaronPorRf8() {
+		UsuarioConductorEntity conductor = crearConductor(2);
+		UsuarioServicioEntity cliente = datos.cliente("T" + sufijo);
+		VehiculoEntity vehiculo = datos.vehiculo("T" + sufijo, "ESTANDAR", ciudad, conductor);
+		PuntoGeoEntity partida = datos.punto("Origen " + sufijo, 4.60, -74.08, ciudad);
+		for (int i = 0; i < 30; i++) {
+			servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+				conductor, cliente, vehiculo, partida, List.of(partida)));
+		}
+		assertFalse(conteoRepository.findById(conductor.getId()).isPresent());
+
+		topConductores.reconciliar();
+
+		Optional<TopConductoresService.Posicion> posicion = topConductores.top().stream()
+			.filter(p -> p.conductorId().equals(conductor.getId()))
+			.findFirst();
+		assertTrue(posicion.isPresent(), "El conductor reconciliado debe entrar al top");
+		assertEquals(30, posicion.get().numViajes());
+		assertEquals(30L, conteoRepository.findById(conductor.getId()).orElseThrow().getNumViajes());
+	}
+
+	@Test
+	void reconciliacionNoPierdeUnViajeQueSeConfirmaMientrasCorrige() throws Exception {
+		UsuarioConductorEntity conductor = crearConductor(3);
+		UsuarioServicioEntity cliente = datos.cliente("T" + sufijo);
+		VehiculoEntity vehiculo = datos.vehiculo("T" + sufijo, "ESTANDAR", ciudad, conductor);
+		PuntoGeoEntity partida = datos.punto("Origen " + sufijo, 4.60, -74.08, ciudad);
+		for (int i = 0; i < 3; i++) {
+			topConductores.registrarViaje(conductor.getId());
+			servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+				conductor, cliente, vehiculo, partida, List.of(partida)));
+		}
+		jdbcTemplate.update("UPDATE CONTEO_VIAJES_CONDUCTOR SET NUM_VIAJES = 99 WHERE ID_CONDUCTOR = ?", conductor.getId());
+
+		// Un RF8 que ya sumó su viaje al contador y aún no confirma mientras la reconciliación corrige la fila
+		CountDownLatch sumado = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		CompletableFuture<Void> rf8 = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(estado -> {
+			servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, new Date(),
+				conductor, cliente, vehiculo, partida, List.of(partida)));
+			topConductores.registrarViaje(conductor.getId());
+			sumado.countDown();
+			try {
+				confirmar.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertTrue(sumado.await(10, TimeUnit.SECONDS));
+		CompletableFuture<Void> reconciliacion = CompletableFuture.runAsync(topConductores::reconciliar);
+		Thread.sleep(300);
+		confirmar.countDown();
+		rf8.get(10, TimeUnit.SECONDS);
+		reconciliacion.get(10, TimeUnit.SECONDS);
+
+		assertEquals(4L, conteoRepository.findById(conductor.getId()).orElseThrow().getNumViajes());
+	}
+
+	private UsuarioConductorEntity crearConductor(int i) {
+		return datos.conductor("U" + i + sufijo);
+	}
+
+	private static int indice(List<TopConductoresService.Posicion> top, Long conductorId) {
+		for (int i = 0; i < top.size(); i++) {
+			if (top.get(i).conductorId().equals(conductorId)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
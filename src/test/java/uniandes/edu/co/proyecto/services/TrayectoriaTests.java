@@ -0,0 +1,84 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class TrayectoriaTests {
+
+	@Test
+	void acumulaLaDistanciaYDescartaDesordenadasYSaltos() {
+		Trayectoria trayectoria = new Trayectoria(4, 200);
+		double esperado = 0;
+		long momento = 1_700_000_000_000L;
+		trayectoria.registrar(4.60, -74.08, momento);
+		// Más posiciones que la capacidad: el anillo se drena a medida que llegan
+		for (int i = 1; i <= 50; i++) {
+			momento += 10_000;
+			esperado += CalculoGeografico.haversineKm(4.60 + (i - 1) * 0.0002, -74.08, 4.60 + i * 0.0002, -74.08);
+			assertTrue(trayectoria.registrar(4.60 + i * 0.0002, -74.08, momento));
+		}
+		assertTrue(trayectoria.registrar(4.70, -74.08, momento - 5_000)); // Anterior a la última
+		assertTrue(trayectoria.registrar(5.60, -74.08, momento + 10_000)); // ~100 km en 10 s
+
+		assertEquals(esperado, trayectoria.longitudKm(), 1e-9);
+		assertEquals(51, trayectoria.acumuladas());
+		assertEquals(2, trayectoria.descartadas());
+	}
+
+	@Test
+	void laPrimeraPosicionNoSeComparaConElMomentoDeLaPartida() {
+		// La partida no tiene momento del dispositivo, cuyo reloj va horas atrás del servidor
+		Trayectoria trayectoria = new Trayectoria(8, 200, 4.60, -74.08);
+		long momento = 1_600_000_000_000L;
+		assertTrue(trayectoria.registrar(4.601, -74.08, momento));
+		assertTrue(trayectoria.registrar(4.602, -74.08, momento + 10_000));
+		assertTrue(trayectoria.registrar(4.603, -74.08, momento + 5_000)); // Anterior a la última
+
+		assertEquals(CalculoGeografico.haversineKm(4.60, -74.08, 4.601, -74.08)
+			+ CalculoGeografico.haversineKm(4.601, -74.08, 4.602, -74.08), trayectoria.longitudKm(), 1e-9);
+		assertEquals(3, trayectoria.acumuladas());
+		assertEquals(1, trayectoria.descartadas());
+	}
+
+	@Test
+	void variosHilosRegistranSinPerderPosiciones() throws Exception {
+		Trayectoria trayectoria = new Trayectoria(64, 200);
+		int hilos = 4;
+		int porHilo = 100_000;
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<Integer>> aceptadas = new ArrayList<>();
+			for (int h = 0; h < hilos; h++) {
+				// Todas en el mismo punto y momento: ninguna se descarta y la distancia sigue en 0
+				aceptadas.add(ejecutor.submit(() -> {
+					int registradas = 0;
+					for (int i = 0; i < porHilo; i++) {
+						while (!trayectoria.registrar(4.60, -74.08, 1_700_000_000_000L)) {
+							Thread.onSpinWait();
+						}
+						registradas++;
+					}
+					return registradas;
+				}));
+			}
+			long total = 0;
+			for (Future<Integer> resultado : aceptadas) {
+				total += resultado.get();
+			}
+			assertEquals(0.0, trayectoria.longitudKm());
+			assertEquals(total, trayectoria.acumuladas());
+			assertEquals((long) hilos * porHilo, total);
+			assertEquals(0, trayectoria.descartadas());
+		} finally {
+			ejecutor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import uniandes.edu.co.proyecto.config.SentenciasPrueba;
+import uniandes.edu.co.proyecto.controllers.DTO.SolicitudServicioDTO;
+import uniandes.edu.co.proyecto.entities.*;
+
+// Posiciones GPS de un viaje: RF8 abre la trayectoria en el punto de partida, las posiciones suman la
+// distancia y RF9 guarda la longitud calculada en el servidor en lugar de la enviada (sin posiciones usa
+// la enviada y lo cuenta). Un viaje que no existe o ya terminó no se vuelve a buscar en cada envío.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class TrayectoriasTests {
+
+	@Autowired private TrayectoriasService trayectoriasService;
+	@Autowired private ServicioTransaccionalService servicioTransaccionalService;
+	@Autowired private IndiceConductoresService indiceConductores;
+	@Autowired private DatosPrueba datos;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private SolicitudServicioDTO solicitud;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = DatosPrueba.sufijo();
+		CiudadEntity ciudad = datos.ciudad(sufijo);
+		UsuarioServicioEntity cliente = datos.clienteConMedioDePago("T" + sufijo);
+		UsuarioConductorEntity conductor = datos.conductor("U" + sufijo);
+		datos.vehiculo("T" + sufijo, "ESTANDAR", ciudad, conductor);
+		indiceConductores.reconstruir();
+
+		solicitud = new SolicitudServicioDTO();
+		solicitud.setClienteId(cliente.getId());
+		solicitud.setTipoServicio("Transporte de pasajeros");
+		solicitud.setPuntoPartidaId(datos.punto("Origen " + sufijo, 4.62, -74.06, ciudad).getId());
+		solicitud.setPuntosLlegadaIds(List.of(datos.punto("Destino " + sufijo, 4.63, -74.06, ciudad).getId()));
+	}
+
+	@Test
+	void rf9UsaLaLongitudDeLasPosicionesDelViaje() throws Exception {
+		ServicioEntity viaje = servicioTransaccionalService.solicitarServicio(solicitud);
+		long inicio = viaje.getHoraInicio().getTime();
+
+		// Cada 10 s, ~111 m hacia el norte desde el punto de partida
+		double[] latitudes = { 4.621, 4.622, 4.623 };
+		double[] longitudes = { -74.06, -74.06, -74.06 };
+		assertEquals(3, trayectoriasService.registrarPosiciones(viaje.getId(), latitudes, longitudes,
+			new long[] { inicio + 10_000, inicio + 20_000, inicio + 30_000 }));
+
+		// Sin la trayectoria en memoria (p. ej. otro nodo la abrió), la siguiente posición la reabre desde la BD
+		ReflectionTestUtils.setField(trayectoriasService, "inactividadMs", -60_000L);
+		trayectoriasService.limpiar();
+		ReflectionTestUtils.setField(trayectoriasService, "inactividadMs", 21_600_000L);
+		assertEquals(1, trayectoriasService.registrarPosiciones(viaje.getId(), new double[] { 4.624 }, new double[] { -74.06 },
+			new long[] { inicio + 40_000 }));
+
+		ServicioEntity finalizado = servicioTransaccionalService.finalizarServicio(viaje.getId(), 99.0);
+		assertEquals(CalculoGeografico.haversineKm(4.62, -74.06, 4.624, -74.06), finalizado.getLongitudTrayecto(), 1e-9);
+
+		// Un viaje finalizado ya no acepta posiciones
+		assertEquals(-1, trayectoriasService.registrarPosiciones(viaje.getId(), new double[] { 4.625 }, new double[] { -74.06 },
+			new long[] { inicio + 50_000 }));
+	}
+
+	@Test
+	void rf9SinPosicionesUsaLaLongitudEnviadaYLaCuenta() throws Exception {
+		Counter conLongitudDelCliente = meterRegistry.counter("alpescab.rf9.longitud.cliente");
+		double antes = conLongitudDelCliente.count();
+		ServicioEntity viaje = servicioTransaccionalService.solicitarServicio(solicitud);
+
+		assertEquals(7.5, servicioTransaccionalService.finalizarServicio(viaje.getId(), 7.5).getLongitudTrayecto());
+		assertEquals(antes + 1, conLongitudDelCliente.count());
+	}
+
+	@Test
+	void unViajeInexistenteOTerminadoNoSeBuscaEnCadaEnvio() throws Exception {
+		// El inexistente se busca en la BD una sola vez
+		assertEquals(1, sentenciasAlEnviarPosicion(-2L));
+		assertEquals(0, sentenciasAlEnviarPosicion(-2L));
+
+		// El terminado queda registrado al confirmar RF9
+		Long viajeId = servicioTransaccionalService.solicitarServicio(solicitud).getId();
+		servicioTransaccionalService.finalizarServicio(viajeId, 1.0);
+		assertEquals(0, sentenciasAlEnviarPosicion(viajeId));
+	}
+
+	private long sentenciasAlEnviarPosicion(Long viajeId) throws Exception {
+		SentenciasPrueba.Medicion<Integer> envio = SentenciasPrueba.contar(() -> trayectoriasService.registrarPosiciones(
+			viajeId, new double[] { 4.621 }, new double[] { -74.06 }, new long[] { System.currentTimeMillis() }));
+		assertEquals(-1, envio.resultado());
+		return envio.sentencias();
+	}
+}
@@ -0,0 +1,109 @@
+package uniandes.edu.co.proyecto.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uniandes.edu.co.proyecto.controllers.DTO.UtilizacionServiciosDTO;
+import uniandes.edu.co.proyecto.entities.*;
+import uniandes.edu.co.proyecto.repositories.ServicioRepository;
+
+// RFC4 sobre USO_SERVICIOS_HORA: los viajes confirmados se cuentan en memoria y se suman al volcar.
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class UsoServiciosTests {
+
+	@Autowired private UsoServiciosService usoServicios;
+	@Autowired private ConsultaService consultaService;
+	@Autowired private DatosPrueba datos;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private ServicioRepository servicioRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	private CiudadEntity ciudad;
+	private Date hoy;
+
+	@BeforeEach
+	void crearCiudad() {
+		ciudad = datos.ciudad(DatosPrueba.sufijo());
+		hoy = new Date();
+	}
+
+	@Test
+	void rfc4SumaLosViajesVolcados() {
+		for (int i = 0; i < 3; i++) {
+			usoServicios.registrarViaje(ciudad.getId(), "Transporte de pasajeros", new Date());
+		}
+		usoServicios.registrarViaje(ciudad.getId(), "Domicilio de comida", new Date());
+		assertTrue(consultaService.findUsoServicios(ciudad.getNombre(), hoy, hoy).isEmpty(), "Aún no se ha volcado");
+
+		usoServicios.volcar();
+		List<UtilizacionServiciosDTO> uso = consultaService.findUsoServicios(ciudad.getNombre(), hoy, hoy);
+		assertEquals(2, uso.size());
+		assertEquals("Transporte de pasajeros", uso.get(0).getTipoServicio());
+		assertEquals(3L, uso.get(0).getNumeroServicios());
+		assertEquals(75.0, uso.get(0).getPorcentajeUso(), 1e-9);
+		assertEquals(25.0, uso.get(1).getPorcentajeUso(), 1e-9);
+
+		// Un segundo volcado suma a la misma hora
+		usoServicios.registrarViaje(ciudad.getId(), "Transporte de pasajeros", new Date());
+		usoServicios.volcar();
+		assertEquals(4L, consultaService.findUsoServicios(ciudad.getNombre(), hoy, hoy).get(0).getNumeroServicios());
+	}
+
+	@Test
+	void rangoSinViajesNoDevuelveNada() {
+		usoServicios.registrarViaje(ciudad.getId(), "Transporte de pasajeros", new Date());
+		usoServicios.volcar();
+		Date ayer = Date.from(LocalDate.now().minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		assertTrue(consultaService.findUsoServicios(ciudad.getNombre(), ayer, ayer).isEmpty());
+	}
+
+	@Test
+	void viajeRevertidoNoSeCuenta() {
+		transactionTemplate.executeWithoutResult(estado -> {
+			usoServicios.registrarViaje(ciudad.getId(), "Transporte de pasajeros", new Date());
+			estado.setRollbackOnly();
+		});
+		usoServicios.volcar();
+		assertTrue(consultaService.findUsoServicios(ciudad.getNombre(), hoy, hoy).isEmpty());
+	}
+
+	@Test
+	void reconciliacionRecuperaLosViajesQueNoSeVolcaron() {
+		// Dos viajes de hace tres horas que se perdieron en memoria (el proceso terminó sin volcar)
+		String sufijo = DatosPrueba.sufijo();
+		UsuarioConductorEntity conductor = datos.conductor("U" + sufijo);
+		UsuarioServicioEntity cliente = datos.cliente("T" + sufijo);
+		VehiculoEntity vehiculo = datos.vehiculo("U" + sufijo, "ESTANDAR", ciudad, conductor);
+		PuntoGeoEntity partida = datos.punto("Origen " + sufijo, 4.60, -74.08, ciudad);
+		Date haceTresHoras = new Date(System.currentTimeMillis() - 3 * 3_600_000L);
+		for (int i = 0; i < 2; i++) {
+			servicioRepository.save(new ServicioEntity("Transporte de pasajeros", 10000.0, haceTresHoras,
+				conductor, cliente, vehiculo, partida, List.of(partida)));
+		}
+		// Y una hora volcada de más, sin viajes
+		jdbcTemplate.update("INSERT INTO USO_SERVICIOS_HORA (ID_CIUDAD, TIPO_SERVICIO, HORA, NUM_VIAJES) VALUES (?, ?, ?, ?)",
+			ciudad.getId(), "Domicilio de comida", Timestamp.valueOf(UsoServiciosService.hora(haceTresHoras)), 5L);
+
+		// Otras pruebas pueden dejar horas por corregir en la misma base
+		assertTrue(usoServicios.reconciliar() >= 2);
+		List<UtilizacionServiciosDTO> uso = consultaService.findUsoServicios(ciudad.getNombre(), haceTresHoras, haceTresHoras);
+		assertEquals(1, uso.size());
+		assertEquals(2L, uso.get(0).getNumeroServicios());
+		assertEquals(0, usoServicios.reconciliar());
+	}
+}